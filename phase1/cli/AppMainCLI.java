@@ -1,17 +1,19 @@
 package com.group0179.cli;
 
+import com.group0179.StartupReport;
 import com.group0179.cli.controllers_cli.AttendeePanelCLI;
 import com.group0179.cli.controllers_cli.LoginSystemCLI;
 import com.group0179.cli.controllers_cli.OrganizerPanelCLI;
 import com.group0179.cli.controllers_cli.SpeakerPanelCLI;
-import com.group0179.gateways.MessageManagerGateway;
-import com.group0179.gateways.RoomManagerGateway;
-import com.group0179.gateways.UserManagerGateway;
+import com.group0179.gateways.JournaledStorage;
+import com.group0179.gateways.LegacyMigrator;
 import com.group0179.use_cases.MessageManager;
 import com.group0179.use_cases.RoomManager;
 import com.group0179.use_cases.UserManager;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * The app's entrypoint.
@@ -21,23 +23,59 @@ public class AppMainCLI {
 
     public static void main(String[] args) {
         boolean applicationRunning = true;
+        StartupReport report = new StartupReport();
 
         // Initialize all required components of the application.
-        // Gateways
-        MessageManagerGateway messageManagerGateway= new MessageManagerGateway();
-        UserManagerGateway userManagerGateway = new UserManagerGateway();
-        RoomManagerGateway roomManagerGateway = new RoomManagerGateway();
+        // Convert the files the first version saved with Java serialization. Starting without them would save empty
+        // managers over them, so the program stops instead.
+        try {
+            LegacyMigrator.migrate(".");
+        } catch (IOException e) {
+            System.out.println("Unable to convert the data saved by an earlier version.");
+            e.printStackTrace();
+            return;
+        }
+        report.endPhase("convert legacy files");
+
+        // Use Cases (read from the last snapshot, with the changes journaled since replayed). The rooms and messages
+        // are read in the background while the users are read and the login system is set up.
+        ExecutorService loader = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "storage-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        JournaledStorage storage = new JournaledStorage(".");
+        try {
+            storage.loadUsers(loader);
+        } catch (IOException e) {
+            System.out.println("Unable to read the users saved by the last run.");
+            e.printStackTrace();
+            return;
+        } finally {
+            loader.shutdown();
+        }
+        UserManager userManager = storage.getUserManager();
+        report.endPhase("read users");
 
-        // Use Cases (deserialized from external file)
-        UserManager userManager = userManagerGateway.read("usermanager.ser");
-        RoomManager roomManager = roomManagerGateway.read("roommanager.ser");
-        MessageManager messageManager = messageManagerGateway.read("messagemanager.ser");
+        // Controllers
+        LoginSystemCLI loginSystem = new LoginSystemCLI(userManager);
+        report.endPhase("set up the login system");
+
+        // The menu tree needs every panel before its first prompt
+        try {
+            storage.finishLoading();
+        } catch (IOException e) {
+            System.out.println("Unable to read the rooms and messages saved by the last run.");
+            e.printStackTrace();
+            return;
+        }
+        RoomManager roomManager = storage.getRoomManager();
+        MessageManager messageManager = storage.getMessageManager();
+        report.endPhase("wait for rooms and messages");
 
         // Helper classes
         InputFilterCLI inputFilter = new InputFilterCLI(userManager, roomManager);
 
-        // Controllers
-        LoginSystemCLI loginSystem = new LoginSystemCLI(userManager);
         AttendeePanelCLI attendeePanel = new AttendeePanelCLI(userManager, messageManager, roomManager, inputFilter);
         OrganizerPanelCLI organizerPanel = new OrganizerPanelCLI(userManager, roomManager, messageManager, inputFilter, loginSystem);
         SpeakerPanelCLI speakerPanel = new SpeakerPanelCLI(userManager, messageManager, roomManager);
@@ -54,6 +92,8 @@ public class AppMainCLI {
         userManager.createAttendeeAccount("kerry", false);
         userManager.createOrganizerAccount("justin");
         userManager.createSpeakerAccount("zach");
+        report.firstScreenShown("set up the menus");
+        System.out.print(report);
 
         while (applicationRunning) {
             int command = mainMenu.run();
@@ -81,11 +121,10 @@ public class AppMainCLI {
             }
         }
 
-        // Attempt to serialize all Use Case data to external file.
+        // Attempt to write all Use Case data to external file. The journal is kept if the snapshot fails.
         try {
-            userManagerGateway.write(userManager, "usermanager.ser");
-            roomManagerGateway.write(roomManager, "roommanager.ser");
-            messageManagerGateway.write(messageManager, "messagemanager.ser");
+            storage.snapshot();
+            storage.close();
         } catch (IOException e) {
             System.out.println("Unable to write manager data to file.");
             e.printStackTrace();
@@ -190,10 +190,11 @@ public class AttendeePanelCLI implements IControllerCLI {
         if (inputEventNum==-1){return DefinitionsCLI.REMAIN_IN_STATE;}
 
         //Signs user up to event in room
-        if (joinOrLeave.equals("joining") && this.roomMan.addEventAttendee(currUserID, inputRoomNum,
-                inputEventNum, userMan, this.userMan.isUserVip(currUserID))){
+        UUID eventID = this.roomMan.getEventIDsOfRoom(inputRoomNum).get(inputEventNum);
+        if (joinOrLeave.equals("joining") && this.roomMan.addEventAttendee(currUserID, eventID, userMan,
+                this.userMan.isUserVip(currUserID))){
             this.ap.displayJoinLeaveSuccess(joinOrLeave);
-        } else if (joinOrLeave.equals("leaving") && this.roomMan.removeEventAttendee(currUserID, inputRoomNum, inputEventNum, userMan)){
+        } else if (joinOrLeave.equals("leaving") && this.roomMan.removeEventAttendee(currUserID, eventID, userMan)){
             this.ap.displayJoinLeaveSuccess(joinOrLeave);
         } else {
             this.ap.displayJoinLeaveError(joinOrLeave);
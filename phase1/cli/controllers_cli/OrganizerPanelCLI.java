@@ -236,7 +236,7 @@ public class OrganizerPanelCLI implements IControllerCLI {
         int eventNumber = filter.inputEventNumber(roomNumber);
         if (cancelRequested(Integer.toString(eventNumber))) {
             return;
-        } rm.removeEvent(um, roomNumber, eventNumber);
+        } rm.removeEvent(um, rm.getEventIDsOfRoom(roomNumber).get(eventNumber));
         op.cancelEventStatus();
         op.printRoomEvents(roomNumber);
     }
@@ -293,7 +293,7 @@ public class OrganizerPanelCLI implements IControllerCLI {
             minute = 0; // prevent out of bound time
         }
 
-        op.rescheduleEventStatus(rm.rescheduleEvent(um, roomNumber, eventNumber, new GregorianCalendar(year, month, day, hour, minute, 0), new GregorianCalendar(year, month, day, hour + 1, minute, 0)));
+        op.rescheduleEventStatus(rm.rescheduleEvent(um, rm.getEventIDsOfRoom(roomNumber).get(eventNumber), new GregorianCalendar(year, month, day, hour, minute, 0), new GregorianCalendar(year, month, day, hour + 1, minute, 0)));
         op.printRoomEvents(roomNumber);
     }
 
@@ -9,57 +9,156 @@ import com.group0179.scenes.*;
 import com.group0179.gateways.*;
 import com.group0179.use_cases.*;
 import javafx.application.Application;
+import javafx.application.Platform;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Application entrypoint
+ *
+ * The users are read while the rooms and messages are read in the background, so the language and login scenes can
+ * be shown before the rooms and messages are ready. The scenes that need them are set up as soon as they are, on the
+ * JavaFX Application Thread, and a report of how long each phase of startup took is then printed.
  */
 
 public class AppMain {
+    // set up on the JavaFX Application Thread once the rooms and messages are read, and stopped when it exits
+    private static volatile MessageDeliveryQueue deliveryQueue;
+    private static volatile MessageCompactor messageCompactor;
+    private static volatile CheckpointScheduler checkpoints;
+
     public static void main(String[] args) {
-        // Gateways
-        MessageManagerGateway messageManagerGateway= new MessageManagerGateway();
-        UserManagerGateway userManagerGateway = new UserManagerGateway();
-        RoomManagerGateway roomManagerGateway = new RoomManagerGateway();
+        StartupReport report = new StartupReport();
+        ExecutorService loader = Executors.newFixedThreadPool(3, runnable -> {
+            Thread thread = new Thread(runnable, "storage-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Convert the files the first version saved with Java serialization. Starting without them would save empty
+        // managers over them, so the program stops instead.
+        try {
+            LegacyMigrator.migrate(".");
+        } catch (IOException e) {
+            System.out.println("Unable to convert the data saved by an earlier version.");
+            e.printStackTrace();
+            loader.shutdown();
+            return;
+        }
+        report.endPhase("convert legacy files");
+
+        // Use Cases (read from the last snapshot, with the changes journaled since replayed). Only the users are
+        // waited for; the rooms and messages go on being read in the background.
+        JournaledStorage storage = new JournaledStorage(".");
+        try {
+            storage.loadUsers(loader);
+        } catch (IOException e) {
+            System.out.println("Unable to read the users saved by the last run.");
+            e.printStackTrace();
+            return;
+        } finally {
+            loader.shutdown();
+        }
+        report.endPhase("read users");
+
+        // The login scene only needs the users
+        LoginController loginController = new LoginController(storage.getUserManager());
+        LoginScene loginScene = new LoginScene(new LoginPresenterFactory(), loginController);
+        LanguageScene languageScene = new LanguageScene();
+        report.endPhase("set up the login scene");
+
+        // Set up MainView and launch
+        MainView.setup(loginScene, languageScene, report, storage.getOthersRead(),
+                () -> setupPanels(storage, loginController, report));
+        Application.launch(MainView.class);
+
+        // Finish writing a checkpoint, deliver the messages that are still queued and finish any compaction before
+        // they are saved.
+        try {
+            if (checkpoints != null) checkpoints.shutdown();
+            if (deliveryQueue != null) deliveryQueue.shutdown();
+            if (messageCompactor != null) messageCompactor.shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (checkpoints != null && checkpoints.getLastFailure() != null) {
+            System.out.println("Unable to save a checkpoint; changes were kept in the journal.");
+            checkpoints.getLastFailure().printStackTrace();
+        }
+
+        // Attempt to write all Use Case data to external file. The journal is kept if the snapshot fails, and nothing
+        // is written if the rooms or messages could not be read.
+        try {
+            storage.finishLoading();
+            storage.snapshot();
+            storage.close();
+        } catch (IOException e) {
+            System.out.println("Unable to write manager data to file.");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Waits for the rooms and messages, and sets up the scenes that need them and the threads that work on them. Runs
+     * on the JavaFX Application Thread, which is the only thread that changes users and rooms.
+     */
+    private static void setupPanels(JournaledStorage storage, LoginController loginController, StartupReport report) {
+        try {
+            storage.finishLoading();
+        } catch (IOException e) {
+            System.out.println("Unable to replay the journal of changes made since the last save.");
+            e.printStackTrace();
+            Platform.exit();
+            return;
+        }
+        long start = System.nanoTime();
+        UserManager userManager = storage.getUserManager();
+        RoomManager roomManager = storage.getRoomManager();
+        MessageManager messageManager = storage.getMessageManager();
+        deliveryQueue = new MessageDeliveryQueue(messageManager);
 
-        // Use Cases (deserialized from external file)
-        UserManager userManager = userManagerGateway.read("usermanager.ser");
-        RoomManager roomManager = roomManagerGateway.read("roommanager.ser");
-        MessageManager messageManager = messageManagerGateway.read("messagemanager.ser");
+        // Messages are only deleted under a retention policy the organizers put in the retention file; without one,
+        // the policy saved with the messages is kept. Users' conversations are pruned on the JavaFX thread and the
+        // expired messages deleted on the compactor's thread.
+        try {
+            RetentionPolicy retentionPolicy = RetentionPolicyFile.read(RetentionPolicyFile.FILE);
+            if (retentionPolicy != null) messageManager.setRetentionPolicy(retentionPolicy);
+        } catch (IOException e) {
+            System.out.println("Unable to read the retention policy; the one saved with the messages is kept.");
+            e.printStackTrace();
+        }
+        messageCompactor = new MessageCompactor(messageManager, userManager, Platform::runLater);
 
         //PresenterFactory
-        LoginPresenterFactory loginPresenterFactory = new LoginPresenterFactory();
         OrganizerPresenterFactory organizerPresenterFactory = new OrganizerPresenterFactory(userManager, roomManager, messageManager);
         AttendeePresenterFactory attendeePresenterFactory = new AttendeePresenterFactory();
         SpeakerPresenterFactory speakerPresenterFactory = new SpeakerPresenterFactory();
 
         // Controllers
-        LoginController loginController = new LoginController(userManager);
         AttendeePresenter attendeePresenter = new AttendeePresenter(userManager, roomManager, messageManager);
         OrganizerFilter organizerFilter = new OrganizerFilter(userManager, roomManager, messageManager);
-        SpeakerPresenterController speakerPresenterController = new SpeakerPresenterController(userManager, roomManager, messageManager);
+        SpeakerPresenterController speakerPresenterController = new SpeakerPresenterController(userManager, roomManager, messageManager, deliveryQueue);
         AutofillController autofill = new AutofillController(userManager, roomManager, messageManager);
 
         // Scene Setup
-        LoginScene loginScene = new LoginScene(loginPresenterFactory, loginController);
         OrganizerScene organizerScene = new OrganizerScene(organizerFilter, organizerPresenterFactory, loginController, autofill);
         AttendeeScene attendeeScene = new AttendeeScene(attendeePresenter, loginController, attendeePresenterFactory, autofill);
         SpeakerScene speakerScene = new SpeakerScene(speakerPresenterController, loginController, speakerPresenterFactory, autofill);
-        LanguageScene languageScene = new LanguageScene();
+        MainView.setupPanels(organizerScene, attendeeScene, speakerScene);
 
-        // Set up MainView and launch
-        MainView.setup(loginScene, organizerScene, attendeeScene, speakerScene, languageScene);
-        Application.launch(MainView.class);
+        // Checkpoints are captured on the JavaFX thread and written on the scheduler's thread.
+        checkpoints = new CheckpointScheduler(storage, Platform::runLater);
 
-        // Attempt to serialize all Use Case data to external file.
-        try {
-            userManagerGateway.write(userManager, "usermanager.ser");
-            roomManagerGateway.write(roomManager, "roommanager.ser");
-            messageManagerGateway.write(messageManager, "messagemanager.ser");
-        } catch (IOException e) {
-            System.out.println("Unable to write manager data to file.");
-            e.printStackTrace();
+        Map<String, Long> loadTimes = storage.getLoadTimes();
+        for (String phase : Arrays.asList("read rooms", "read messages", "replay journal")) {
+            if (loadTimes.containsKey(phase)) report.addBackground(phase, loadTimes.get(phase));
         }
+        report.addBackground("set up the other scenes", System.nanoTime() - start);
+        System.out.print(report);
     }
 }
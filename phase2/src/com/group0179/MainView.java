@@ -2,9 +2,16 @@ package com.group0179;
 
 import com.group0179.scenes.*;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.stage.Stage;
 
+import java.util.concurrent.CompletionStage;
+
 /**
+ * The login and language scenes are set up before launch. The organizer, attendee and speaker scenes need the rooms
+ * and messages, which are still being read when the first screen is shown, so they are set up by the panel loader as
+ * soon as those are read, or when one of them is needed first.
+ *
  * @author Template: Justin Chan
  */
 
@@ -15,13 +22,57 @@ public class MainView extends Application {
     static AttendeeScene attendeeScene;
     static SpeakerScene speakerScene;
     static LanguageScene languageScene;
+    static StartupReport startupReport;
+    static CompletionStage<?> panelsReadable;
+    static Runnable panelLoader;
+    static String language;
+    static boolean isConstructed;
 
-    public static void setup(LoginScene loginScene, OrganizerScene organizerScene, AttendeeScene attendeeScene, SpeakerScene speakerScene, LanguageScene languageScene) {
+    /**
+     * @param loginScene the login scene.
+     * @param languageScene the language scene, which is the first screen.
+     * @param startupReport the report of startup, which is told when the first screen is shown.
+     * @param panelsReadable completes once what the other scenes need has been read.
+     * @param panelLoader calls setupPanels on the JavaFX Application Thread, waiting for what they need if it has not
+     *                    been read yet.
+     */
+    public static void setup(LoginScene loginScene, LanguageScene languageScene, StartupReport startupReport,
+                             CompletionStage<?> panelsReadable, Runnable panelLoader) {
         MainView.loginScene = loginScene;
+        MainView.languageScene = languageScene;
+        MainView.startupReport = startupReport;
+        MainView.panelsReadable = panelsReadable;
+        MainView.panelLoader = panelLoader;
+    }
+
+    /**
+     * Sets up the organizer, attendee and speaker scenes, in the language and constructed if the login scene is.
+     */
+    public static void setupPanels(OrganizerScene organizerScene, AttendeeScene attendeeScene,
+                                   SpeakerScene speakerScene) {
         MainView.organizerScene = organizerScene;
         MainView.attendeeScene = attendeeScene;
         MainView.speakerScene = speakerScene;
-        MainView.languageScene = languageScene;
+        if (language != null) {
+            organizerScene.setLanguage(language);
+            attendeeScene.setLanguage(language);
+            speakerScene.setLanguage(language);
+        }
+        if (isConstructed) constructPanels();
+    }
+
+    /**
+     * @return true iff the panels are set up, which they are not if what they need cannot be read.
+     */
+    private static boolean loadPanels() {
+        if (organizerScene == null) panelLoader.run();
+        return organizerScene != null;
+    }
+
+    private static void constructPanels() {
+        organizerScene.constructScene();
+        attendeeScene.constructScene();
+        speakerScene.constructScene();
     }
 
     public static void main(String[] args) {
@@ -37,30 +88,31 @@ public class MainView extends Application {
     }
 
     public static void setOrganizerScene() {
-        organizerScene.setScene();
+        if (loadPanels()) organizerScene.setScene();
     }
 
     public static void setAttendeeScene() {
-        attendeeScene.setScene();
+        if (loadPanels()) attendeeScene.setScene();
     }
 
     public static void setSpeakerScene() {
-        speakerScene.setScene();
+        if (loadPanels()) speakerScene.setScene();
     }
 
     public static void setLanguageScene() { languageScene.setScene();}
 
     public static void setLanguage(String language){
+        MainView.language = language;
         loginScene.setLanguage(language);
+        if (organizerScene == null) return;
         organizerScene.setLanguage(language);
         attendeeScene.setLanguage(language);
         speakerScene.setLanguage(language);
     }
 
     public static void constructScenes(){loginScene.constructScene();
-    organizerScene.constructScene();
-    attendeeScene.constructScene();
-    speakerScene.constructScene();}
+    isConstructed = true;
+    if (organizerScene != null) constructPanels();}
 
 
     @Override
@@ -69,5 +121,7 @@ public class MainView extends Application {
         languageScene.constructScene();
         setLanguageScene();
         stage.show();
+        startupReport.firstScreenShown("start JavaFX and show the language scene");
+        panelsReadable.thenRun(() -> Platform.runLater(MainView::loadPanels));
     }
 }
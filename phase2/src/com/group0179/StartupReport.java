@@ -0,0 +1,71 @@
+package com.group0179;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Times how long the program takes to start, broken down by phase: the phases one after another until the first
+ * screen the user can interact with is shown, and the work still done in the background after it.
+ */
+public class StartupReport {
+    private final long start = System.nanoTime();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Long> background = new LinkedHashMap<>();
+    private long phaseStart = start;
+    private long firstScreen = -1;
+
+    /**
+     * Ends a phase on the way to the first screen, which began when the phase before it ended.
+     * @param name what was done in the phase.
+     */
+    public synchronized void endPhase(String name) {
+        long now = System.nanoTime();
+        phases.put(name, now - phaseStart);
+        phaseStart = now;
+    }
+
+    /**
+     * Ends the last phase before the first screen, which is shown at the end of it.
+     * @param name what was done in the phase.
+     */
+    public synchronized void firstScreenShown(String name) {
+        endPhase(name);
+        firstScreen = phaseStart - start;
+    }
+
+    /**
+     * Adds work done on other threads, which the first screen did not wait for.
+     * @param name what was done.
+     * @param nanos how long it took, in nanoseconds.
+     */
+    public synchronized void addBackground(String name, long nanos) {
+        background.put(name, nanos);
+    }
+
+    /**
+     * @return the number of nanoseconds from the start until the first screen was shown, or -1 if it has not been.
+     */
+    public synchronized long getTimeToFirstScreen() {
+        return firstScreen;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder report = new StringBuilder();
+        if (firstScreen >= 0) {
+            report.append(String.format("Startup: %.1f ms to the first screen%n", firstScreen / 1e6));
+        } else {
+            report.append(String.format("Startup: %.1f ms so far%n", (System.nanoTime() - start) / 1e6));
+        }
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            report.append(String.format("  %-28s %9.1f ms%n", phase.getKey(), phase.getValue() / 1e6));
+        }
+        if (!background.isEmpty()) {
+            report.append(String.format("In the background:%n"));
+        }
+        for (Map.Entry<String, Long> phase : background.entrySet()) {
+            report.append(String.format("  %-28s %9.1f ms%n", phase.getKey(), phase.getValue() / 1e6));
+        }
+        return report.toString();
+    }
+}
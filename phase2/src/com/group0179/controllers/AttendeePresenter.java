@@ -9,14 +9,22 @@ import com.group0179.use_cases.UserManager;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class AttendeePresenter extends Presenter {
+    private static final int EVENT_PAGE_SIZE = 20;
+    private static final int MESSAGE_PAGE_SIZE = 20;
+    private static final int NUM_RECENT_CONTACTS = 10;
     private final UserManager userMan;
     private final MessageManager msgMan;
     private final RoomManager roomMan;
     private UUID currUserID;
+    private RoomManager.EventCursor eventPageCursor;
+    private UUID messagePageSender;
+    private MessageManager.MessageCursor messagePageCursor;
     private IAttendeePresenter langPresneter= new AttendeePresenterEN();
 
 
@@ -45,6 +53,7 @@ public class AttendeePresenter extends Presenter {
      * @param username The username of the person the user wants to message
      * @param content The content of the message.
      * @return Returns a string saying the user either does not exist or message sent success.
+     * If the user is sending messages too quickly, says when they may send again.
      */
     public String message(String username, String content){
         this.currUserID = this.userMan.getCurrentUser();
@@ -52,10 +61,19 @@ public class AttendeePresenter extends Presenter {
             return langPresneter.recipientDNE();
         }
         UUID recipient = this.userMan.getUserID(username);
-        this.msgMan.sendMessage(this.userMan, currUserID, recipient, content);
+        if (this.msgMan.sendMessage(this.userMan, currUserID, recipient, content) == null) {
+            return langPresneter.sendingTooFast(retryAfterSeconds());
+        }
         return langPresneter.sentSuccess();
     }
 
+    /**
+     * @return the number of seconds, rounded up, until the current user may send another message.
+     */
+    private long retryAfterSeconds() {
+        return (this.msgMan.getRetryAfterMillis(this.userMan, currUserID) + 999) / 1000;
+    }
+
     /**
      * Prints the messages from a specific user or all users who sent him at least one message.
      * @param input The username of the user we want to get all messages of.
@@ -63,42 +81,102 @@ public class AttendeePresenter extends Presenter {
      */
     public String viewMessages(String input){
         this.currUserID = this.userMan.getCurrentUser();
-        ArrayList<UUID> allUserIds = new ArrayList<>(this.userMan.getAttendeeUUIDs());
-        // if want all messages, get a list of messages from each user and
-        // write the sender name and message contents if user received at least 1 message from them
+        // if want all messages, group the inbox by sender in the order the senders first wrote,
+        // then mark everything as read
         if (input.equals("all")){
-            StringBuilder allMsgs = new StringBuilder(langPresneter.messageWord() + "\n");
-            for (UUID uuid : allUserIds){
-                System.out.println(uuid);
-                List<String> msgsFromPerson = this.msgMan.getMessageContentsFromUser(this.userMan, currUserID, uuid);
-                if (msgsFromPerson.size()!=0){
-                    String senderName = this.userMan.getUsername(uuid);
-                    allMsgs.append(senderName).append(": ");
-                    for (String msg : msgsFromPerson) {
-                        allMsgs.append(msg).append(", ");
-                    }
-                    allMsgs.append("\n");
+            int numUnread = this.msgMan.getNumUnread(this.userMan, currUserID);
+            StringBuilder allMsgs = new StringBuilder(langPresneter.messageWord() + " " + langPresneter.unreadMessages(numUnread) + "\n");
+            Map<UUID, List<String>> msgsBySender = new LinkedHashMap<>();
+            for (MessageManager.ReceivedMessage msg : this.msgMan.getInbox(this.userMan, currUserID)){
+                msgsBySender.computeIfAbsent(msg.senderID, id -> new ArrayList<>()).add(msg.content);
+            }
+            for (Map.Entry<UUID, List<String>> msgsFromPerson : msgsBySender.entrySet()){
+                String senderName = this.userMan.getUsername(msgsFromPerson.getKey());
+                allMsgs.append(senderName).append(": ");
+                for (String msg : msgsFromPerson.getValue()) {
+                    allMsgs.append(msg).append(", ");
                 }
+                allMsgs.append("\n");
             }
+            this.msgMan.markAllMessagesRead(this.userMan, currUserID);
             return allMsgs.toString();
         }
         // if user wants message from specific user
         UUID recipient = this.userMan.getUserID(input);
         if (recipient == null) {return langPresneter.userNotFound();}
         List<String> msgContent = this.msgMan.getMessageContentsFromUser(this.userMan, currUserID, recipient);
+        this.msgMan.markMessagesRead(this.userMan, currUserID, recipient);
         return String.join(",", msgContent);
     }
 
     /**
-     * @return Returns a string on all existing events and the rooms they're in.
-     * If there are no events, return "No events available".
+     * Lists the users who most recently sent the current user messages, with the start of the last message each sent.
+     * @return the username of each contact, the one who wrote last first, mapped to the line to show for them.
      */
-    public String viewAllEvents(){
-        String allEvents = roomMan.stringEventInfoAll();
-        if (allEvents.equals("")){
-            return langPresneter.noEventsAvailiable();
+    public Map<String, String> viewRecentContacts(){
+        this.currUserID = this.userMan.getCurrentUser();
+        Map<String, String> lines = new LinkedHashMap<>();
+        for (MessageManager.RecentContact contact
+                : this.msgMan.getRecentContacts(this.userMan, currUserID, NUM_RECENT_CONTACTS)) {
+            String username = this.userMan.getUsername(contact.contactID);
+            String line = username + ": " + contact.preview;
+            if (contact.numUnread > 0) line += " " + langPresneter.unreadMessages(contact.numUnread);
+            lines.put(username, line);
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the next page of the messages from a specific user, newest first. Only the messages on the page are
+     * read, so a long conversation can be scrolled through without loading all of it.
+     * @param input the username of the user whose messages to show.
+     * @param restart whether to start again from the newest message.
+     * @return the messages on the next page, or an empty list if every message has already been shown.
+     * If the user does not exist, the first page says so.
+     */
+    public List<String> viewMessagesPage(String input, boolean restart){
+        this.currUserID = this.userMan.getCurrentUser();
+        List<String> lines = new ArrayList<>();
+        if (restart) {
+            this.messagePageSender = this.userMan.getUserID(input);
+            this.messagePageCursor = null;
+            if (this.messagePageSender == null) {
+                lines.add(langPresneter.userNotFound());
+                return lines;
+            }
+            this.msgMan.markMessagesRead(this.userMan, currUserID, messagePageSender);
+        } else if (this.messagePageSender == null || this.messagePageCursor == null) {
+            return lines;
+        }
+        MessageManager.MessagePage page = this.msgMan.getMessagePage(this.userMan, currUserID, messagePageSender,
+                messagePageCursor, MESSAGE_PAGE_SIZE, true);
+        for (MessageManager.ReceivedMessage msg : page.messages) {
+            lines.add(msg.content);
+        }
+        this.messagePageCursor = page.getCursor();
+        return lines;
+    }
+
+    /**
+     * Returns the next page of the program, one line per event. Pages are read lazily so that the whole program
+     * never has to be rendered at once.
+     * @param restart whether to start again from the first event.
+     * @return the lines of the next page, or an empty list if every event has already been shown.
+     * If there are no events at all, the first page says "No events available".
+     */
+    public List<String> viewEventsPage(boolean restart){
+        if (restart) this.eventPageCursor = null;
+        List<String> lines = new ArrayList<>();
+        for (RoomManager.EventSummary summary : roomMan.getEventPage(userMan, eventPageCursor, EVENT_PAGE_SIZE,
+                RoomManager.ALL_ROOMS, true)) {
+            lines.add(langPresneter.eventSummary(summary.roomNumber + 1, summary.title, summary.startTime.toString(),
+                    summary.endTime.toString(), summary.freeSeats, summary.isVipOnly));
+            this.eventPageCursor = summary.getCursor();
+        }
+        if (restart && lines.isEmpty()){
+            lines.add(langPresneter.noEventsAvailiable());
         }
-        return allEvents;
+        return lines;
     }
 
     /**
@@ -123,13 +201,15 @@ public class AttendeePresenter extends Presenter {
         if (!roomNum.matches("^[0-9]+$")){
             return langPresneter.invalidRoom();}
         int intRoomNum = Integer.parseInt(roomNum);
-        UUID eventID = this.roomMan.getEventUUIDfromNameandRoom(eventName, intRoomNum-1);
+        UUID eventID = this.roomMan.getEventUUIDfromNameandRoom(eventName, intRoomNum-1, this.userMan);
         if (eventID==null){return langPresneter.noEventsFound();}
 
         if (join && this.roomMan.addEventAttendee(currUserID, eventID,
                 this.userMan, this.userMan.isUserVip(currUserID))){
+            this.msgMan.joinEventChannel(this.roomMan, eventID, currUserID);
             return langPresneter.joinEventSuccess();
         } else if (!join && this.roomMan.removeEventAttendee(currUserID, eventID, userMan)){
+            this.msgMan.leaveEventChannel(eventID, currUserID);
             return langPresneter.leaveEventSuccess();
         }
         //this.ap.displayJoinLeaveError(joinOrLeave);
@@ -190,10 +270,10 @@ public class AttendeePresenter extends Presenter {
             return langPresneter.invalidRoom();
         }
         int intRoomNum = Integer.parseInt(roomNum);
-        UUID eventID = this.roomMan.getEventUUIDfromNameandRoom(eventName, intRoomNum-1);
+        UUID eventID = this.roomMan.getEventUUIDfromNameandRoom(eventName, intRoomNum-1, this.userMan);
         if (eventID==null){return langPresneter.noEventsFound();}
         UUID requestID = userMan.addUserRequest("Standard", "Normal", requestContent);
-        roomMan.addEventRequest(eventID, requestID);
+        roomMan.addEventRequest(userMan, eventID, requestID);
         return langPresneter.requestSuccSent();
     }
 }
@@ -52,7 +52,7 @@ public class AutofillController {
             return new ArrayList<>();
         }
         int intRoomNum = Integer.parseInt(roomNum);
-        UUID eventid = this.roomMan.getEventUUIDfromNameandRoom(eventName, intRoomNum-1);
+        UUID eventid = this.roomMan.getEventUUIDfromNameandRoom(eventName, intRoomNum-1, this.userMan);
         if (eventid==null){return new ArrayList<>();}
         List<String> queriedRequests = new ArrayList<>();
 
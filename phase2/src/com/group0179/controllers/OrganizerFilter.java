@@ -73,9 +73,13 @@ public class OrganizerFilter {
         }
     }
 
+    /**
+     * Creates an event, or a series that repeats daily if rawRepeatDays is more than one day.
+     * @return true if the event or series was created
+     */
     @SuppressWarnings("MagicConstant")
     public boolean createEvent(String rawTitle, String rawSpeaker, String rawDate, String rawTime, String rawEndDate, String rawEndTime, String rawCapacity, int roomNumber,
-                               Boolean isVipOnly) {
+                               Boolean isVipOnly, String rawRepeatDays) {
         String title = rawTitle.trim();
         String speaker = rawSpeaker.trim();
         String[] date = rawDate.trim().split("/");
@@ -105,6 +109,16 @@ public class OrganizerFilter {
             for (int i = 0; i < speakerNames.size(); i++) {
                 speakerNames.set(i, speakerNames.get(i).trim());
             }
+            int repeatDays = rawRepeatDays.trim().isEmpty() ? 1 : Integer.parseInt(rawRepeatDays.trim());
+            if (repeatDays < 1) return false;
+            if (repeatDays > 1) {
+                if (rawSpeaker.trim().isEmpty()) speakerNames.clear();
+                if (!rm.newEventSeriesValid(title, speakerNames, startTime, endTime, 1, repeatDays, roomNumber, um))
+                    return false;
+                UUID newSeries = rm.newEventSeries(title, speakerNames, startTime, endTime, 1, repeatDays, roomNumber, capacity);
+                if (isVipOnly) rm.updateSeriesVipStatus(isVipOnly, newSeries);
+                return true;
+            }
             UUID newEvent;
             if (rawSpeaker.isEmpty()) {
                 if (rm.newNonSpeakerEventValid(title, startTime, endTime, roomNumber, um))
@@ -126,12 +140,23 @@ public class OrganizerFilter {
         }
     }
 
-    public boolean removeEvent(int roomNumber, int eventNumber) {
-        rm.removeEvent(um, roomNumber, eventNumber);
-        return true;
+    /**
+     * @param roomNumber the room number of the room
+     * @return the eventIDs of the events in the room, in the order they are listed
+     */
+    public List<UUID> getEventIDs(int roomNumber) {
+        return rm.getEventIDsOfRoom(roomNumber);
+    }
+
+    public boolean removeEvent(UUID eventID) {
+        return rm.removeEvent(um, eventID);
+    }
+
+    public boolean removeRoom(int roomNumber) {
+        return rm.removeRoom(um, roomNumber);
     }
 
-    public boolean rescheduleEvent(int roomNumber, int eventNumber, String rawDate, String rawTime) {
+    public boolean rescheduleEvent(UUID eventID, String rawDate, String rawTime) {
         String[] date = rawDate.trim().split("/");
         String[] time = rawTime.trim().split(":");
         try {
@@ -145,7 +170,7 @@ public class OrganizerFilter {
             startTime.setLenient(false); startTime.getTime();
             GregorianCalendar endTime = new GregorianCalendar(year, month, day, hour + 1, minute, 0);
 
-            return rm.rescheduleEvent(um, roomNumber, eventNumber, startTime, endTime);
+            return rm.rescheduleEvent(um, eventID, startTime, endTime);
         } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
             return false;
         }
@@ -3,20 +3,32 @@ package com.group0179.controllers;
 import com.group0179.presenters.SpeakerPresenterEN;
 import com.group0179.presenters.ISpeakerPresenter;
 import com.group0179.presenters.Presenter;
+import com.group0179.use_cases.MessageDeliveryQueue;
 import com.group0179.use_cases.MessageManager;
 import com.group0179.use_cases.RoomManager;
 import com.group0179.use_cases.UserManager;
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class SpeakerPresenterController extends Presenter {
+    private static final int EVENT_PAGE_SIZE = 20;
+    private static final int MESSAGE_PAGE_SIZE = 20;
+    private static final int NUM_RECENT_CONTACTS = 10;
+    private static final int SEARCH_LIMIT = 20;
     private final UserManager userMan;
     private final MessageManager msgMan;
     private final RoomManager roomMan;
+    private final MessageDeliveryQueue deliveryQueue;
+    private MessageDeliveryQueue.Ticket lastTicket;
     private UUID currUserID;
+    private RoomManager.EventCursor eventPageCursor;
+    private UUID messagePageSender;
+    private MessageManager.MessageCursor messagePageCursor;
     private ISpeakerPresenter langPresenter= new SpeakerPresenterEN();
 
 
@@ -27,9 +39,22 @@ public class SpeakerPresenterController extends Presenter {
      * @param roomMan the user manager use case class
      */
     public SpeakerPresenterController(UserManager userMan, RoomManager roomMan, MessageManager msgMan) {
+        this(userMan, roomMan, msgMan, null);
+    }
+
+    /**
+     * Allows speakers to do speaker things, sending messages to events through a delivery queue.
+     * @param userMan the user manager use case class
+     * @param roomMan the room manager use case class
+     * @param msgMan the message manager use case class
+     * @param deliveryQueue the queue that delivers messages to events, or null to deliver them right away
+     */
+    public SpeakerPresenterController(UserManager userMan, RoomManager roomMan, MessageManager msgMan,
+                                      MessageDeliveryQueue deliveryQueue) {
         this.userMan = userMan;
         this.msgMan = msgMan;
         this.roomMan = roomMan;
+        this.deliveryQueue = deliveryQueue;
         this.currUserID = this.userMan.getCurrentUser();
     }
 
@@ -45,6 +70,7 @@ public class SpeakerPresenterController extends Presenter {
      * @param username The username of the person the user wants to message
      * @param content The content of the message.
      * @return Returns a string saying the user either does not exist or message sent success.
+     * If the user is sending messages too quickly, says when they may send again.
      */
     public String message(String username, String content){
         this.currUserID = this.userMan.getCurrentUser();
@@ -52,18 +78,53 @@ public class SpeakerPresenterController extends Presenter {
             return langPresenter.recipientDNE();
         }
         UUID recipient = this.userMan.getUserID(username);
-        this.msgMan.sendMessage(this.userMan, currUserID, recipient, content);
+        if (this.msgMan.sendMessage(this.userMan, currUserID, recipient, content) == null) {
+            return langPresenter.sendingTooFast(retryAfterSeconds());
+        }
         return langPresenter.sentSuccess();
     }
 
+    /**
+     * @return the number of seconds, rounded up, until the current user may send another message.
+     */
+    private long retryAfterSeconds() {
+        return (this.msgMan.getRetryAfterMillis(this.userMan, currUserID) + 999) / 1000;
+    }
+
     public String messageEvent(String eventname, int roomNumber, String content){
         this.currUserID = this.userMan.getCurrentUser();
         if (!eventExists(eventname, roomNumber)) {
             return langPresenter.eventDNE();
         }
-        UUID eventid = this.roomMan.getEventUUIDfromNameandRoom(eventname, roomNumber);
-        this.msgMan.sendMessageToEventAttendees(this.userMan, this.roomMan, currUserID, eventid, content);
-        return langPresenter.sentSuccess();
+        UUID eventid = this.roomMan.getEventUUIDfromNameandRoom(eventname, roomNumber, this.userMan);
+        if (deliveryQueue == null) {
+            if (this.msgMan.sendMessageToEventAttendees(this.userMan, this.roomMan, currUserID, eventid, content) == null
+                    && this.msgMan.getRetryAfterMillis(this.userMan, currUserID) > 0) {
+                return langPresenter.sendingTooFast(retryAfterSeconds());
+            }
+            return langPresenter.sentSuccess();
+        }
+        lastTicket = deliveryQueue.sendMessageToEventAttendees(this.userMan, this.roomMan, currUserID, eventid, content);
+        if (lastTicket.getStatus() == MessageDeliveryQueue.Ticket.Status.REJECTED
+                && this.msgMan.getRetryAfterMillis(this.userMan, currUserID) > 0) {
+            return langPresenter.sendingTooFast(retryAfterSeconds());
+        }
+        return lastTicket.isDone() ? deliveryStatus() : langPresenter.messageQueued(lastTicket.getTicketNumber());
+    }
+
+    /**
+     * @return how far delivery of the last message sent to an event has come, or an empty string if none was queued.
+     */
+    public String deliveryStatus() {
+        if (lastTicket == null) return "";
+        switch (lastTicket.getStatus()) {
+            case FAILED:
+            case REJECTED:
+                return langPresenter.deliveryFailed(lastTicket.getTicketNumber());
+            default:
+                return langPresenter.deliveryProgress(lastTicket.getTicketNumber(), lastTicket.getNumDelivered(),
+                        lastTicket.getNumRecipients());
+        }
     }
 
 
@@ -75,41 +136,117 @@ public class SpeakerPresenterController extends Presenter {
      */
     public String viewMessages(String input){
         this.currUserID = this.userMan.getCurrentUser();
-        ArrayList<UUID> allUserIds = new ArrayList<>(this.userMan.getAttendeeUUIDs());
-        // if want all messages, get a list of messages from each user and
-        // write the sender name and message contents if user received at least 1 message from them
+        // if want all messages, group the inbox by sender in the order the senders first wrote,
+        // then mark everything as read
         if (input.equals("all")){
-            StringBuilder allMsgs = new StringBuilder(langPresenter.messageWord() + "\n");
-            for (UUID uuid : allUserIds){
-                List<String> msgsFromPerson = this.msgMan.getMessageContentsFromUser(this.userMan, currUserID, uuid);
-                if (msgsFromPerson.size()!=0){
-                    String senderName = this.userMan.getUsername(uuid);
-                    allMsgs.append(senderName).append(": ");
-                    for (String msg : msgsFromPerson) {
-                        allMsgs.append(msg).append(", ");
-                    }
-                    allMsgs.append("\n");
+            int numUnread = this.msgMan.getNumUnread(this.userMan, currUserID);
+            StringBuilder allMsgs = new StringBuilder(langPresenter.messageWord() + " " + langPresenter.unreadMessages(numUnread) + "\n");
+            Map<UUID, List<String>> msgsBySender = new LinkedHashMap<>();
+            for (MessageManager.ReceivedMessage msg : this.msgMan.getInbox(this.userMan, currUserID)){
+                msgsBySender.computeIfAbsent(msg.senderID, id -> new ArrayList<>()).add(msg.content);
+            }
+            for (Map.Entry<UUID, List<String>> msgsFromPerson : msgsBySender.entrySet()){
+                String senderName = this.userMan.getUsername(msgsFromPerson.getKey());
+                allMsgs.append(senderName).append(": ");
+                for (String msg : msgsFromPerson.getValue()) {
+                    allMsgs.append(msg).append(", ");
                 }
+                allMsgs.append("\n");
             }
+            this.msgMan.markAllMessagesRead(this.userMan, currUserID);
             return allMsgs.toString();
         }
         // if user wants message from specific user
         UUID recipient = this.userMan.getUserID(input);
         if (recipient == null) {return langPresenter.userNotFound();}
         List<String> msgContent = this.msgMan.getMessageContentsFromUser(this.userMan, currUserID, recipient);
+        this.msgMan.markMessagesRead(this.userMan, currUserID, recipient);
         return String.join(",", msgContent);
     }
 
     /**
-     * @return Returns a string on all existing events and the rooms they're in.
-     * If there are no events, return "No events available".
+     * Searches the messages the speaker has sent or received.
+     * @param query the words to search for.
+     * @return the best matching messages, one per line, or No messages found.
+     */
+    public String searchMessages(String query){
+        this.currUserID = this.userMan.getCurrentUser();
+        StringBuilder results = new StringBuilder();
+        for (MessageManager.ReceivedMessage msg : this.msgMan.searchMessages(this.userMan, currUserID, query, SEARCH_LIMIT)){
+            results.append(this.userMan.getUsername(msg.senderID)).append(": ").append(msg.content).append("\n");
+        }
+        if (results.length() == 0) {return langPresenter.noSearchResults();}
+        return results.toString();
+    }
+
+    /**
+     * Lists the users who most recently sent the current user messages, with the start of the last message each sent.
+     * @return the username of each contact, the one who wrote last first, mapped to the line to show for them.
      */
-    public String viewAllEvents(){
-        String allEvents = roomMan.stringEventInfoAll();
-        if (allEvents.equals("")){
-            return langPresenter.noEventsAvailiable();
+    public Map<String, String> viewRecentContacts(){
+        this.currUserID = this.userMan.getCurrentUser();
+        Map<String, String> lines = new LinkedHashMap<>();
+        for (MessageManager.RecentContact contact
+                : this.msgMan.getRecentContacts(this.userMan, currUserID, NUM_RECENT_CONTACTS)) {
+            String username = this.userMan.getUsername(contact.contactID);
+            String line = username + ": " + contact.preview;
+            if (contact.numUnread > 0) line += " " + langPresenter.unreadMessages(contact.numUnread);
+            lines.put(username, line);
         }
-        return allEvents;
+        return lines;
+    }
+
+    /**
+     * Returns the next page of the messages from a specific user, newest first. Only the messages on the page are
+     * read, so a long conversation can be scrolled through without loading all of it.
+     * @param input the username of the user whose messages to show.
+     * @param restart whether to start again from the newest message.
+     * @return the messages on the next page, or an empty list if every message has already been shown.
+     * If the user does not exist, the first page says so.
+     */
+    public List<String> viewMessagesPage(String input, boolean restart){
+        this.currUserID = this.userMan.getCurrentUser();
+        List<String> lines = new ArrayList<>();
+        if (restart) {
+            this.messagePageSender = this.userMan.getUserID(input);
+            this.messagePageCursor = null;
+            if (this.messagePageSender == null) {
+                lines.add(langPresenter.userNotFound());
+                return lines;
+            }
+            this.msgMan.markMessagesRead(this.userMan, currUserID, messagePageSender);
+        } else if (this.messagePageSender == null || this.messagePageCursor == null) {
+            return lines;
+        }
+        MessageManager.MessagePage page = this.msgMan.getMessagePage(this.userMan, currUserID, messagePageSender,
+                messagePageCursor, MESSAGE_PAGE_SIZE, true);
+        for (MessageManager.ReceivedMessage msg : page.messages) {
+            lines.add(msg.content);
+        }
+        this.messagePageCursor = page.getCursor();
+        return lines;
+    }
+
+    /**
+     * Returns the next page of the program, one line per event. Pages are read lazily so that the whole program
+     * never has to be rendered at once.
+     * @param restart whether to start again from the first event.
+     * @return the lines of the next page, or an empty list if every event has already been shown.
+     * If there are no events at all, the first page says "No events available".
+     */
+    public List<String> viewEventsPage(boolean restart){
+        if (restart) this.eventPageCursor = null;
+        List<String> lines = new ArrayList<>();
+        for (RoomManager.EventSummary summary : roomMan.getEventPage(userMan, eventPageCursor, EVENT_PAGE_SIZE,
+                RoomManager.ALL_ROOMS, true)) {
+            lines.add(langPresenter.eventSummary(summary.roomNumber + 1, summary.title, summary.startTime.toString(),
+                    summary.endTime.toString(), summary.freeSeats, summary.isVipOnly));
+            this.eventPageCursor = summary.getCursor();
+        }
+        if (restart && lines.isEmpty()){
+            lines.add(langPresenter.noEventsAvailiable());
+        }
+        return lines;
     }
 
     public String viewAllSpeakingEvents(){
@@ -173,7 +310,7 @@ public class SpeakerPresenterController extends Presenter {
             return langPresenter.invalidRoom();
         }
         int intRoomNum = Integer.parseInt(roomNum);
-        UUID eventID = this.roomMan.getEventUUIDfromNameandRoom(eventName, intRoomNum-1);
+        UUID eventID = this.roomMan.getEventUUIDfromNameandRoom(eventName, intRoomNum-1, this.userMan);
         if (eventID==null){return langPresenter.noEventsFound();}
         ArrayList<UUID> requestUUIDS = userMan.getRequestUUIDWithContent(requestContent);
         //System.out.println(requestUUIDS);
@@ -217,6 +354,6 @@ public class SpeakerPresenterController extends Presenter {
     }
 
     private boolean eventExists(String eventname, int roomNumber) {
-        return this.roomMan.getEventIDs().contains(this.roomMan.getEventUUIDfromNameandRoom(eventname, roomNumber));
+        return this.roomMan.getEventIDs().contains(this.roomMan.getEventUUIDfromNameandRoom(eventname, roomNumber, this.userMan));
     }
 }
@@ -1,6 +1,7 @@
 package com.group0179.entities;
 
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -32,6 +33,18 @@ public class Attendee extends User {
         events = new HashMap<>();
     }
 
+    /**
+     * Recreates an Attendee who was created before, such as one read back from disk.
+     * @param userID the unique ID of the user.
+     * @param username The user's username.
+     * @param isVip Whether the attendee is an vip
+     * @param timeOfAccountCreation the time the account was created.
+     */
+    public Attendee(UUID userID, String username, boolean isVip, Calendar timeOfAccountCreation) {
+        super(userID, username, isVip, timeOfAccountCreation);
+        events = new HashMap<>();
+    }
+
     /**
      * @return the Attendee's Events
      */
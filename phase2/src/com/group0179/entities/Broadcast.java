@@ -0,0 +1,131 @@
+package com.group0179.entities;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Represents a single message sent to a whole audience at once, such as every attendee or the attendees of an event.
+ * The message is stored once; who received it is worked out when a recipient reads their messages.
+ *
+ * A broadcast to the attendees of an event is a post to the event's channel, and reaches whoever is a member of that
+ * channel. Older broadcasts to an event instead list the attendees at the time they were sent.
+ */
+public class Broadcast implements Serializable {
+    /**
+     * The group of users a broadcast is addressed to.
+     */
+    public enum Audience {ATTENDEES, SPEAKERS, EVENT_ATTENDEES}
+
+    private final UUID messageID;
+    private final UUID senderID;
+    private final Audience audience;
+    private final Set<UUID> members;
+    private final UUID eventID;
+    private final long sequenceNumber;
+    private final long timeSent;
+
+    /**
+     * Creates a broadcast to every user of a role.
+     * @param messageID the UUID of the message that was sent.
+     * @param senderID the UUID of the sender.
+     * @param audience the role of the users that receive the message.
+     * @param sequenceNumber the sequence number of the message.
+     * @param timeSent the number of milliseconds since the epoch at which the message was sent.
+     */
+    public Broadcast(UUID messageID, UUID senderID, Audience audience, long sequenceNumber, long timeSent) {
+        this(messageID, senderID, audience, Collections.emptySet(), sequenceNumber, timeSent);
+    }
+
+    /**
+     * Creates a post to the channel of an event.
+     * @param messageID the UUID of the message that was sent.
+     * @param senderID the UUID of the sender.
+     * @param eventID the UUID of the event whose attendees receive the message.
+     * @param sequenceNumber the sequence number of the message.
+     * @param timeSent the number of milliseconds since the epoch at which the message was sent.
+     */
+    public Broadcast(UUID messageID, UUID senderID, UUID eventID, long sequenceNumber, long timeSent) {
+        this(messageID, senderID, Audience.EVENT_ATTENDEES, Collections.emptySet(), eventID, sequenceNumber,
+                timeSent);
+    }
+
+    /**
+     * Creates a broadcast to a fixed group of users, such as the attendees of an event at the time it was sent.
+     * @param messageID the UUID of the message that was sent.
+     * @param senderID the UUID of the sender.
+     * @param audience the kind of group that receives the message.
+     * @param members the UUIDs of the users that receive the message.
+     * @param sequenceNumber the sequence number of the message.
+     * @param timeSent the number of milliseconds since the epoch at which the message was sent.
+     */
+    public Broadcast(UUID messageID, UUID senderID, Audience audience, Set<UUID> members,
+                     long sequenceNumber, long timeSent) {
+        this(messageID, senderID, audience, members, null, sequenceNumber, timeSent);
+    }
+
+    /**
+     * Recreates a broadcast that was sent before, such as one read back from disk.
+     * @param messageID the UUID of the message that was sent.
+     * @param senderID the UUID of the sender.
+     * @param audience the kind of group that receives the message.
+     * @param members the UUIDs of the fixed members, which is empty unless the broadcast lists its recipients.
+     * @param eventID the UUID of the event whose channel it was posted to, or null.
+     * @param sequenceNumber the sequence number of the message.
+     * @param timeSent the number of milliseconds since the epoch at which the message was sent.
+     */
+    public Broadcast(UUID messageID, UUID senderID, Audience audience, Set<UUID> members, UUID eventID,
+                     long sequenceNumber, long timeSent) {
+        this.eventID = eventID;
+        this.messageID = messageID;
+        this.senderID = senderID;
+        this.audience = audience;
+        this.members = members.isEmpty() ? Collections.emptySet() : new HashSet<>(members);
+        this.sequenceNumber = sequenceNumber;
+        this.timeSent = timeSent;
+    }
+
+    public UUID getMessageID() {
+        return messageID;
+    }
+
+    public UUID getSenderID() {
+        return senderID;
+    }
+
+    public Audience getAudience() {
+        return audience;
+    }
+
+    /**
+     * @return the UUID of the event whose channel this was posted to, or null if it was not posted to a channel.
+     */
+    public UUID getEventID() {
+        return eventID;
+    }
+
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public long getTimeSent() {
+        return timeSent;
+    }
+
+    /**
+     * @param userID the UUID of a user.
+     * @return true iff the user is one of the fixed members of this broadcast.
+     */
+    public boolean hasMember(UUID userID) {
+        return members.contains(userID);
+    }
+
+    /**
+     * @return a read-only view of the fixed members of this broadcast, which is empty unless it lists its recipients.
+     */
+    public Set<UUID> getMembers() {
+        return Collections.unmodifiableSet(members);
+    }
+}
@@ -83,7 +83,34 @@ public class Event implements Comparable<Event>, Serializable {
         this.capacity = capacity;
         this.speakers = speakers;
     }
+
+    /**
+     * Recreates an Event that was created before, such as one read back from disk. Its attendees and requests are
+     * added afterwards.
+     * @param eventID the unique ID of the event
+     * @param eventTitle the title of the event
+     * @param speakers the names of the speakers of the event, which may be empty
+     * @param startTime the start time of the event
+     * @param endTime the end time of the event
+     * @param capacity the capacity of the event
+     */
+    public Event(UUID eventID, String eventTitle, ArrayList<String> speakers, Calendar startTime, Calendar endTime,
+                 int capacity) {
+        this.eventID = eventID;
+        this.title = eventTitle;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.capacity = capacity;
+        this.speakers = speakers;
+    }
+
     public int getCapacity() {return this.capacity;}
+
+    /**
+     * @return true iff the event has no room for another attendee.
+     */
+    public boolean isFull() {return this.capacity <= this.occupiedCapacity;}
+
     public String getSpeakerName(){
         if (this.speakers.isEmpty()) return "";
         return this.speakers.get(0);
@@ -163,7 +190,7 @@ public class Event implements Comparable<Event>, Serializable {
      * TODO: We need to add the eventID to the attendee involved
      */
     public boolean addAttendee(UUID attendeeID) {
-        if (attendeeIDs.contains(attendeeID) || this.capacity<=this.occupiedCapacity) {
+        if (attendeeIDs.contains(attendeeID) || isFull()) {
             return false;
         }
         this.occupiedCapacity++;
@@ -0,0 +1,130 @@
+package com.group0179.entities;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Represents the announcements made to the attendees of one event. Each post is stored once and read by every
+ * member, including members who join after it was posted. Each member has a cursor, the number of posts they have
+ * read.
+ */
+public class EventChannel implements Serializable {
+    private final UUID eventID;
+    private final Set<UUID> members = new HashSet<>();
+    private final List<Broadcast> posts = new ArrayList<>();
+    private final Map<UUID, Integer> readCursors = new HashMap<>();
+
+    /**
+     * @param eventID the UUID of the event whose attendees are the members of this channel.
+     */
+    public EventChannel(UUID eventID) {
+        this.eventID = eventID;
+    }
+
+    /**
+     * Recreates a channel that was opened before, such as one read back from disk.
+     * @param eventID the UUID of the event whose attendees are the members of this channel.
+     * @param members the UUIDs of the members.
+     * @param posts every post, in the order they were posted.
+     * @param readCursors the number of posts each member has read.
+     */
+    public EventChannel(UUID eventID, Collection<UUID> members, List<Broadcast> posts,
+                        Map<UUID, Integer> readCursors) {
+        this.eventID = eventID;
+        this.members.addAll(members);
+        this.posts.addAll(posts);
+        this.readCursors.putAll(readCursors);
+    }
+
+    public UUID getEventID() {
+        return eventID;
+    }
+
+    /**
+     * @param userID the UUID of a user who now attends the event.
+     * @return true iff the user was not a member before.
+     */
+    public boolean join(UUID userID) {
+        return members.add(userID);
+    }
+
+    /**
+     * @param userID the UUID of a user who no longer attends the event.
+     * @return true iff the user was a member.
+     */
+    public boolean leave(UUID userID) {
+        return members.remove(userID);
+    }
+
+    public boolean isMember(UUID userID) {
+        return members.contains(userID);
+    }
+
+    /**
+     * @return a read-only view of the UUIDs of the members.
+     */
+    public Set<UUID> getMembers() {
+        return Collections.unmodifiableSet(members);
+    }
+
+    /**
+     * Appends a post to the channel.
+     * @param post the broadcast of the message that was posted.
+     */
+    public void post(Broadcast post) {
+        posts.add(post);
+    }
+
+    /**
+     * Removes posts, such as those that have expired. Read cursors stay on the same post.
+     * @param removed the posts to remove.
+     */
+    public void removePosts(Set<Broadcast> removed) {
+        for (Map.Entry<UUID, Integer> cursor : readCursors.entrySet()) {
+            int numRemoved = 0;
+            for (Broadcast post : posts.subList(0, Math.min(cursor.getValue(), posts.size()))) {
+                if (removed.contains(post)) numRemoved++;
+            }
+            cursor.setValue(cursor.getValue() - numRemoved);
+        }
+        posts.removeIf(removed::contains);
+    }
+
+    /**
+     * @return a read-only view of every post, in the order they were posted.
+     */
+    public List<Broadcast> getPosts() {
+        return Collections.unmodifiableList(posts);
+    }
+
+    /**
+     * @param userID the UUID of a member.
+     * @return the number of posts the member has read.
+     */
+    public int getReadCursor(UUID userID) {
+        return readCursors.getOrDefault(userID, 0);
+    }
+
+    /**
+     * @return a read-only view of the number of posts each member who has read the channel has read.
+     */
+    public Map<UUID, Integer> getReadCursors() {
+        return Collections.unmodifiableMap(readCursors);
+    }
+
+    /**
+     * @param userID the UUID of a member.
+     * @return the number of posts the member has not read.
+     */
+    public int getNumUnread(UUID userID) {
+        return posts.size() - getReadCursor(userID);
+    }
+
+    /**
+     * Marks every post as read by a member.
+     * @param userID the UUID of the member.
+     */
+    public void markRead(UUID userID) {
+        readCursors.put(userID, posts.size());
+    }
+}
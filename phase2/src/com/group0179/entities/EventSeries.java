@@ -0,0 +1,250 @@
+package com.group0179.entities;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Represents an Event that repeats at the same time of day every few days, such as a morning workshop.
+ *
+ * The series is stored once as a rule (first occurrence, interval and number of occurrences) plus a set of
+ * cancelled days. Individual occurrences only become Events when they are expanded into a Room's schedule. Until then
+ * they are listed as transient views, under a UUID derived from the series, which the Event keeps once expanded.
+ *
+ * Assumptions: each occurrence starts and ends on the same day
+ */
+
+public class EventSeries implements Serializable {
+    private final UUID seriesID;
+    private final String title;
+    private final ArrayList<String> speakers;
+    private final Calendar firstStartTime;
+    private final Calendar firstEndTime;
+    private final int intervalDays;
+    private final int occurrences;
+    private final int capacity;
+    private boolean isVipOnly = false;
+    private final Set<Integer> cancelledOccurrences = new HashSet<>();
+    private final Map<Integer, UUID> expandedOccurrences = new HashMap<>();
+
+    /**
+     * @param title the title of every occurrence
+     * @param speakers the speakers of every occurrence, which may be empty
+     * @param firstStartTime the start time of the first occurrence
+     * @param firstEndTime the end time of the first occurrence
+     * @param intervalDays the number of days between two occurrences
+     * @param occurrences the number of occurrences
+     * @param capacity the capacity of every occurrence
+     *                 Precondition: firstStartTime.before(firstEndTime) and both are on the same day
+     *                 Precondition: intervalDays {@literal >=} 1 and occurrences {@literal >=} 1
+     */
+    public EventSeries(String title, ArrayList<String> speakers, Calendar firstStartTime, Calendar firstEndTime,
+                       int intervalDays, int occurrences, int capacity) {
+        this.seriesID = UUID.randomUUID();
+        this.title = title;
+        this.speakers = speakers;
+        this.firstStartTime = firstStartTime;
+        this.firstEndTime = firstEndTime;
+        this.intervalDays = intervalDays;
+        this.occurrences = occurrences;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Recreates a series that was created before, such as one read back from disk.
+     * @param seriesID the unique ID of the series
+     * @param title the title of every occurrence
+     * @param speakers the speakers of every occurrence, which may be empty
+     * @param firstStartTime the start time of the first occurrence
+     * @param firstEndTime the end time of the first occurrence
+     * @param intervalDays the number of days between two occurrences
+     * @param occurrences the number of occurrences
+     * @param capacity the capacity of every occurrence
+     * @param cancelledOccurrences the indexes of the occurrences that were cancelled
+     * @param expandedOccurrences the UUID of the Event of each occurrence that was expanded, by index
+     */
+    public EventSeries(UUID seriesID, String title, ArrayList<String> speakers, Calendar firstStartTime,
+                       Calendar firstEndTime, int intervalDays, int occurrences, int capacity,
+                       Collection<Integer> cancelledOccurrences, Map<Integer, UUID> expandedOccurrences) {
+        this.seriesID = seriesID;
+        this.title = title;
+        this.speakers = speakers;
+        this.firstStartTime = firstStartTime;
+        this.firstEndTime = firstEndTime;
+        this.intervalDays = intervalDays;
+        this.occurrences = occurrences;
+        this.capacity = capacity;
+        this.cancelledOccurrences.addAll(cancelledOccurrences);
+        this.expandedOccurrences.putAll(expandedOccurrences);
+    }
+
+    public UUID getSeriesID() {
+        return seriesID;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public ArrayList<String> getSpeakerNames() {
+        return speakers;
+    }
+
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getIntervalDays() {
+        return intervalDays;
+    }
+
+    /**
+     * @return a read-only view of the indexes of the cancelled occurrences
+     */
+    public Set<Integer> getCancelledOccurrences() {
+        return Collections.unmodifiableSet(cancelledOccurrences);
+    }
+
+    /**
+     * @return a read-only view of the UUID of the Event of each expanded occurrence, by index
+     */
+    public Map<Integer, UUID> getExpandedOccurrences() {
+        return Collections.unmodifiableMap(expandedOccurrences);
+    }
+
+    public boolean getVipOnlyStatus() {
+        return isVipOnly;
+    }
+
+    public void setVipOnlyStatus(boolean status) {
+        this.isVipOnly = status;
+    }
+
+    /**
+     * @param occurrence the index of the occurrence, starting at 0
+     * @return the start time of that occurrence
+     */
+    public Calendar getStartTime(int occurrence) {
+        Calendar startTime = (Calendar) firstStartTime.clone();
+        startTime.add(Calendar.DAY_OF_MONTH, occurrence * intervalDays);
+        return startTime;
+    }
+
+    /**
+     * @param occurrence the index of the occurrence, starting at 0
+     * @return the end time of that occurrence
+     */
+    public Calendar getEndTime(int occurrence) {
+        Calendar endTime = (Calendar) firstEndTime.clone();
+        endTime.add(Calendar.DAY_OF_MONTH, occurrence * intervalDays);
+        return endTime;
+    }
+
+    /**
+     * @param day any time on the day to check
+     * @return the index of the occurrence on that day, or -1 if the rule has no occurrence on that day
+     */
+    public int getOccurrenceOn(Calendar day) {
+        Calendar first = new GregorianCalendar(firstStartTime.get(Calendar.YEAR), firstStartTime.get(Calendar.MONTH),
+                firstStartTime.get(Calendar.DAY_OF_MONTH));
+        Calendar other = new GregorianCalendar(day.get(Calendar.YEAR), day.get(Calendar.MONTH),
+                day.get(Calendar.DAY_OF_MONTH));
+        long days = Math.round((other.getTimeInMillis() - first.getTimeInMillis()) / 86400000.0);
+        if (days < 0 || days % intervalDays != 0 || days / intervalDays >= occurrences) {
+            return -1;
+        }
+        return (int) (days / intervalDays);
+    }
+
+    /**
+     * @param occurrence the index of the occurrence
+     * @return true if the occurrence is still only described by the rule, so it has been neither cancelled nor
+     * expanded into an Event
+     */
+    public boolean isPending(int occurrence) {
+        return 0 <= occurrence && occurrence < occurrences && !cancelledOccurrences.contains(occurrence)
+                && !expandedOccurrences.containsKey(occurrence);
+    }
+
+    /**
+     * @param occurrence the index of the occurrence
+     * @return true if the occurrence has been expanded into an Event
+     */
+    public boolean isExpanded(int occurrence) {
+        return expandedOccurrences.containsKey(occurrence);
+    }
+
+    /**
+     * Removes an occurrence from the rule. An occurrence that has already been expanded is not affected.
+     * @param occurrence the index of the occurrence to cancel
+     * @return true if the occurrence was pending and is now cancelled
+     */
+    public boolean cancelOccurrence(int occurrence) {
+        if (!isPending(occurrence)) return false;
+        cancelledOccurrences.add(occurrence);
+        return true;
+    }
+
+    /**
+     * @param occurrence the index of the occurrence
+     * @return a rule-only Event with the times of the occurrence, used for conflict checks. It is not expanded.
+     */
+    public Event getOccurrenceTemplate(int occurrence) {
+        return new Event(title, new ArrayList<>(speakers), getStartTime(occurrence), getEndTime(occurrence), capacity);
+    }
+
+    /**
+     * @param occurrence the index of the occurrence
+     * @return the UUID of the occurrence, which is the same every time it is listed and is kept by its Event
+     */
+    public UUID getOccurrenceID(int occurrence) {
+        return UUID.nameUUIDFromBytes((seriesID + "/" + occurrence).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param eventID the UUID of an Event
+     * @return the index of the pending occurrence with that UUID, or -1 if there is none
+     */
+    public int getPendingOccurrence(UUID eventID) {
+        for (int occurrence = 0; occurrence < occurrences; occurrence++) {
+            if (isPending(occurrence) && getOccurrenceID(occurrence).equals(eventID)) return occurrence;
+        }
+        return -1;
+    }
+
+    /**
+     * @param occurrence the index of the occurrence
+     * @return a transient Event with the UUID, times and VIP status of the occurrence, used for listing it without
+     * expanding it. Changes made to it are not kept.
+     */
+    public Event getOccurrenceView(int occurrence) {
+        Event event = new Event(getOccurrenceID(occurrence), title, new ArrayList<>(speakers),
+                getStartTime(occurrence), getEndTime(occurrence), capacity);
+        event.setVipOnlyStatus(isVipOnly);
+        return event;
+    }
+
+    /**
+     * Turns a pending occurrence into an Event. Each occurrence is expanded at most once.
+     * @param occurrence the index of the occurrence
+     * @return the new Event, or null if the occurrence is not pending
+     */
+    public Event expandOccurrence(int occurrence) {
+        if (!isPending(occurrence)) return null;
+        Event event = getOccurrenceView(occurrence);
+        expandedOccurrences.put(occurrence, event.getEventID());
+        return event;
+    }
+
+    /**
+     * @return a string representation of the rule of the series.
+     */
+    public String toString() {
+        return title + " at " + firstStartTime.getTime() + " to " + firstEndTime.getTime() + ", every " + intervalDays
+                + " day(s), " + occurrences + " times";
+    }
+}
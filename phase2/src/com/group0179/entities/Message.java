@@ -9,14 +9,39 @@ import java.util.UUID;
  */
 public class Message implements Serializable {
     private final UUID messageID;
+    private final long sequenceNumber;
+    private final long timeSent;
     private final String messageContent;
 
     /**
-     * Creates a new message.
+     * Creates a new message sent now.
      * @param messageContent the string content of this message.
      */
     public Message(String messageContent) {
-        this.messageID = UUID.randomUUID();
+        this(0, System.currentTimeMillis(), messageContent);
+    }
+
+    /**
+     * Creates a new message.
+     * @param sequenceNumber the position of this message among all messages sent, used to order messages.
+     * @param timeSent the number of milliseconds since the epoch at which this message was sent.
+     * @param messageContent the string content of this message.
+     */
+    public Message(long sequenceNumber, long timeSent, String messageContent) {
+        this(UUID.randomUUID(), sequenceNumber, timeSent, messageContent);
+    }
+
+    /**
+     * Recreates a message that was sent before, such as one read back from disk.
+     * @param messageID the unique ID of the message.
+     * @param sequenceNumber the position of this message among all messages sent.
+     * @param timeSent the number of milliseconds since the epoch at which this message was sent.
+     * @param messageContent the string content of this message.
+     */
+    public Message(UUID messageID, long sequenceNumber, long timeSent, String messageContent) {
+        this.messageID = messageID;
+        this.sequenceNumber = sequenceNumber;
+        this.timeSent = timeSent;
         this.messageContent = messageContent;
     }
 
@@ -35,4 +60,18 @@ public class Message implements Serializable {
     public UUID getMessageID() {
         return this.messageID;
     }
+
+    /**
+     * @return the position of this message among all messages sent. Later messages have larger numbers.
+     */
+    public long getSequenceNumber() {
+        return this.sequenceNumber;
+    }
+
+    /**
+     * @return the number of milliseconds since the epoch at which this message was sent.
+     */
+    public long getTimeSent() {
+        return this.timeSent;
+    }
 }
@@ -1,5 +1,8 @@
 package com.group0179.entities;
 
+import java.util.Calendar;
+import java.util.UUID;
+
 /**
  * Represent an Organizer
  * @author Tanuj Devjani
@@ -15,6 +18,17 @@ public class Organizer extends Attendee {
         super(username);
     }
 
+    /**
+     * Recreates an Organizer who was created before, such as one read back from disk.
+     * @param userID the unique ID of the user.
+     * @param username The user's username.
+     * @param isVip Whether the organizer is an vip
+     * @param timeOfAccountCreation the time the account was created.
+     */
+    public Organizer(UUID userID, String username, boolean isVip, Calendar timeOfAccountCreation) {
+        super(userID, username, isVip, timeOfAccountCreation);
+    }
+
     /**
      * @return true as this instance is an Organizer
      */
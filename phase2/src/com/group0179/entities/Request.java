@@ -19,6 +19,25 @@ public class Request implements Serializable {
         this.isPending = false;
         this.isAddressed = false;
     }
+
+    /**
+     * Recreates a request that was made before, such as one read back from disk.
+     * @param requestID the unique ID of the request.
+     * @param typeOfRequest the type of request.
+     * @param urgency the urgency level of the request.
+     * @param requestContent the content of the request.
+     * @param isPending whether the request is pending.
+     * @param isAddressed whether the request has been addressed.
+     */
+    public Request(UUID requestID, String typeOfRequest, String urgency, String requestContent, boolean isPending,
+                   boolean isAddressed) {
+        this.requestID = requestID;
+        this.typeOfRequest = typeOfRequest;
+        this.urgency = urgency;
+        this.requestContent = requestContent;
+        this.isPending = isPending;
+        this.isAddressed = isAddressed;
+    }
     /**
      * @return a UUID which represents Request User ID
      */
@@ -15,6 +15,13 @@ import java.util.*;
  * Add Event to schedule
  * Remove Event from schedule
  *
+ * Store recurring EventSeries
+ * List pending occurrences of an EventSeries without expanding them
+ * Expand a single occurrence of an EventSeries into the schedule
+ *
+ * The schedule is split into one bucket per calendar day, each sorted by start time, so that looking at or checking
+ * against a single day only touches that day's bucket.
+ *
  * Assumptions: Event starts and ends on the same day
  *
  * @author Justin Chan
@@ -22,27 +29,109 @@ import java.util.*;
 
 public class Room implements Serializable {
     private final UUID roomID;
-    private final ArrayList<Event> events = new ArrayList<>();
+    private final int roomNumber;
+    private final TreeMap<Integer, ArrayList<Event>> days = new TreeMap<>();
+    private final ArrayList<EventSeries> series = new ArrayList<>();
     private final int roomCapcity;
 
     public Room(int roomCapcity) {
+        this(0, roomCapcity);
+    }
+
+    /**
+     * @param roomNumber the number of the room, which never changes once it is given out
+     * @param roomCapcity the capacity of the room
+     */
+    public Room(int roomNumber, int roomCapcity) {
         this.roomID = UUID.randomUUID();
+        this.roomNumber = roomNumber;
         this.roomCapcity = roomCapcity;
     }
 
+    /**
+     * Recreates a room that was created before, such as one read back from disk. The Events and series are not
+     * checked against each other, since they were checked when they were first added.
+     * @param roomID the unique ID of the room
+     * @param roomNumber the number of the room
+     * @param roomCapcity the capacity of the room
+     * @param events the Events in the schedule, ordered by start time
+     * @param series the recurring series of the room
+     */
+    public Room(UUID roomID, int roomNumber, int roomCapcity, List<Event> events, List<EventSeries> series) {
+        this.roomID = roomID;
+        this.roomNumber = roomNumber;
+        this.roomCapcity = roomCapcity;
+        for (Event event : events) {
+            insertEvent(event);
+        }
+        this.series.addAll(series);
+    }
+
     public UUID getRoomID() {
         return roomID;
     }
 
+    public int getRoomNumber() {
+        return roomNumber;
+    }
+
+    /**
+     * @return every Event in the schedule, ordered by start time
+     */
     public ArrayList<Event> getEvents() {
+        ArrayList<Event> events = new ArrayList<>();
+        for (ArrayList<Event> day : days.values()) {
+            events.addAll(day);
+        }
         return events;
     }
 
+    /**
+     * @param day any time on the day
+     * @return the Events on that day, ordered by start time
+     */
+    public ArrayList<Event> getEventsOnDay(Calendar day) {
+        ArrayList<Event> bucket = days.get(getDayKey(day));
+        return bucket == null ? new ArrayList<>() : new ArrayList<>(bucket);
+    }
+
+    /**
+     * @return the number of days that have at least one Event
+     */
+    public int getNumScheduledDays() {
+        return days.size();
+    }
+
+    /**
+     * @param time any time on a day
+     * @return a key for the day of time that sorts in calendar order, in the form yyyymmdd
+     */
+    private static int getDayKey(Calendar time) {
+        return time.get(Calendar.YEAR) * 10000 + (time.get(Calendar.MONTH) + 1) * 100
+                + time.get(Calendar.DAY_OF_MONTH);
+    }
+
+    /**
+     * Puts an Event into the bucket of its day, after every Event that starts no later than it.
+     */
+    private void insertEvent(Event event) {
+        ArrayList<Event> bucket = days.computeIfAbsent(getDayKey(event.getStartTime()), k -> new ArrayList<>());
+        int position = bucket.size();
+        while (position > 0 && bucket.get(position - 1).getStartTime().after(event.getStartTime())) {
+            position--;
+        }
+        bucket.add(position, event);
+    }
+
     public int getRoomCapcity(){return roomCapcity;}
 
+    public ArrayList<EventSeries> getEventSeries() {
+        return series;
+    }
+
     public HashMap<UUID, Event> getEventIDToEvent() {
         HashMap<UUID, Event> eventIDToEvent = new HashMap<>();
-        for (Event event : events) {
+        for (Event event : getEvents()) {
             eventIDToEvent.put(event.getEventID(), event);
         }
         return eventIDToEvent;
@@ -50,7 +139,7 @@ public class Room implements Serializable {
 
     public HashMap<Calendar, Event> getTimeSchedule() {
         HashMap<Calendar, Event> timeSchedule = new HashMap<>();
-        for (Event event : events) {
+        for (Event event : getEvents()) {
             timeSchedule.putIfAbsent(event.getStartTime(), event);
         }
         return timeSchedule;
@@ -58,7 +147,7 @@ public class Room implements Serializable {
 
     public HashMap<String, ArrayList<Event>> getSpeakerNameSchedule() {
         HashMap<String, ArrayList<Event>> speakerNameSchedule = new HashMap<>();
-        for (Event event : events) {
+        for (Event event : getEvents()) {
             speakerNameSchedule.putIfAbsent(event.getSpeakerName(), new ArrayList<>());
             speakerNameSchedule.get(event.getSpeakerName()).add(event);
         }
@@ -67,7 +156,7 @@ public class Room implements Serializable {
 
     public HashMap<String, ArrayList<Event>> getTitleSchedule() {
         HashMap<String, ArrayList<Event>> titleSchedule = new HashMap<>();
-        for (Event event : events) {
+        for (Event event : getEvents()) {
             titleSchedule.putIfAbsent(event.getTitle(), new ArrayList<>());
             titleSchedule.get(event.getTitle()).add(event);
         }
@@ -85,9 +174,12 @@ public class Room implements Serializable {
      */
     public ArrayList<Event> getEventsByTime(GregorianCalendar startTime, GregorianCalendar endTime) {
         ArrayList<Event> eventsInInterval = new ArrayList<>();
-        for (Calendar time : getTimeSchedule().keySet()) {
-            if (!time.before(startTime) && time.before(endTime)) { // One sided boundary acceptance
-                eventsInInterval.add(getTimeSchedule().get(time));
+        for (ArrayList<Event> day : days.subMap(getDayKey(startTime), true, getDayKey(endTime), true).values()) {
+            for (Event event : day) {
+                Calendar time = event.getStartTime();
+                if (!time.before(startTime) && time.before(endTime)) { // One sided boundary acceptance
+                    eventsInInterval.add(event);
+                }
             }
         }
         return eventsInInterval;
@@ -152,15 +244,141 @@ public class Room implements Serializable {
             return false;
         }
 
-        for (Calendar time : getTimeSchedule().keySet()) {
-            Event comparisonEvent = getTimeSchedule().get(time);
-            if (eventOverlapping(newEvent, comparisonEvent)) {
+        ArrayList<Event> bucket = days.get(getDayKey(newEvent.getStartTime()));
+        if (bucket != null) {
+            for (Event comparisonEvent : bucket) {
+                if (eventOverlapping(newEvent, comparisonEvent)) {
+                    return false;
+                }
+            }
+        }
+        return !seriesOverlapping(newEvent);
+    }
+
+    /**
+     * Checks an Event against the rules of the EventSeries in this room. Occurrences that were already expanded are
+     * ordinary Events and are checked by eventIsValid.
+     *
+     * @param newEvent the event to check
+     * @return true if a pending occurrence of a series overlaps newEvent
+     */
+    private boolean seriesOverlapping(Event newEvent) {
+        for (EventSeries existingSeries : series) {
+            int occurrence = existingSeries.getOccurrenceOn(newEvent.getStartTime());
+            if (existingSeries.isPending(occurrence) &&
+                    eventOverlapping(newEvent, existingSeries.getOccurrenceTemplate(occurrence))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A series is valid if every occurrence is within the room's hours and no occurrence overlaps an Event or a
+     * pending occurrence of another series.
+     *
+     * @param newSeries the series to check
+     * @return true if the series can be added
+     */
+    public boolean eventSeriesIsValid(EventSeries newSeries) {
+        for (int occurrence = 0; occurrence < newSeries.getOccurrences(); occurrence++) {
+            Event template = newSeries.getOccurrenceTemplate(occurrence);
+            if (eventOutOfBounds(template) || seriesOverlapping(template)) {
                 return false;
             }
+            ArrayList<Event> bucket = days.get(getDayKey(template.getStartTime()));
+            if (bucket == null) continue;
+            for (Event event : bucket) {
+                if (eventOverlapping(template, event)) {
+                    return false;
+                }
+            }
         }
         return true;
     }
 
+    /**
+     * Stores a series as a single rule. No Events are created until its occurrences are expanded.
+     *
+     * @param seriesToAdd the series to be added
+     * @return true if the series was added or false if there was a conflict
+     */
+    public boolean addEventSeries(EventSeries seriesToAdd) {
+        if (eventSeriesIsValid(seriesToAdd)) {
+            series.add(seriesToAdd);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Lists the pending occurrences that start within the given interval as transient views, without expanding them.
+     *
+     * @param startTime the lower boundary of the interval, in milliseconds since the epoch
+     * @param endTime the upper boundary of the interval, in milliseconds since the epoch
+     * @param limit the maximum number of occurrences to list per series
+     * @return the views of the occurrences, series by series
+     *
+     * Precondition: startTime {@literal <=} endTime
+     */
+    public ArrayList<Event> getPendingOccurrences(long startTime, long endTime, int limit) {
+        ArrayList<Event> views = new ArrayList<>();
+        for (EventSeries existingSeries : series) {
+            int count = 0;
+            for (int occurrence = 0; occurrence < existingSeries.getOccurrences() && count < limit; occurrence++) {
+                long occurrenceStart = existingSeries.getStartTime(occurrence).getTimeInMillis();
+                if (occurrenceStart >= endTime) break;
+                if (occurrenceStart < startTime || !existingSeries.isPending(occurrence)) continue;
+                views.add(existingSeries.getOccurrenceView(occurrence));
+                count++;
+            }
+        }
+        return views;
+    }
+
+    /**
+     * @param eventID the UUID of an Event
+     * @return a transient view of the pending occurrence with that UUID, or null if there is none in this room
+     */
+    public Event getPendingOccurrence(UUID eventID) {
+        for (EventSeries existingSeries : series) {
+            int occurrence = existingSeries.getPendingOccurrence(eventID);
+            if (occurrence >= 0) return existingSeries.getOccurrenceView(occurrence);
+        }
+        return null;
+    }
+
+    /**
+     * Expands the pending occurrence with the given UUID into an Event of this room.
+     *
+     * @param eventID the UUID of the occurrence
+     * @return the Event that was created, or null if there is no such pending occurrence in this room
+     */
+    public Event expandOccurrence(UUID eventID) {
+        for (EventSeries existingSeries : series) {
+            int occurrence = existingSeries.getPendingOccurrence(eventID);
+            if (occurrence < 0) continue;
+            Event event = existingSeries.expandOccurrence(occurrence);
+            insertEvent(event);
+            return event;
+        }
+        return null;
+    }
+
+    /**
+     * Cancels the pending occurrence with the given UUID.
+     *
+     * @param eventID the UUID of the occurrence
+     * @return true if the occurrence was pending in this room and is now cancelled
+     */
+    public boolean cancelOccurrence(UUID eventID) {
+        for (EventSeries existingSeries : series) {
+            int occurrence = existingSeries.getPendingOccurrence(eventID);
+            if (occurrence >= 0) return existingSeries.cancelOccurrence(occurrence);
+        }
+        return false;
+    }
+
     /**
      * Adds an Event to all three schedule types and returns true if the Event is valid, and returns false if the Event
      * could not be added due to overlap or time.
@@ -172,12 +390,29 @@ public class Room implements Serializable {
      */
     public boolean addEvent(Event eventToAdd) {
         if (eventIsValid(eventToAdd)) {
-            events.add(eventToAdd);
+            insertEvent(eventToAdd);
             return true;
         }
         return false;
     }
 
+    /**
+     * Moves an Event of this room to a new time, and to the bucket of its new day.
+     *
+     * @param event the event to be moved
+     * @param startTime the new start time
+     * @param endTime the new end time
+     * @return true if the event was moved or false if there was no such event in the schedule
+     *
+     * Precondition: the event is valid at the new time
+     */
+    public boolean rescheduleEvent(Event event, Calendar startTime, Calendar endTime) {
+        if (!removeEvent(event)) return false;
+        event.setTime(startTime, endTime);
+        insertEvent(event);
+        return true;
+    }
+
     /**
      * Removes a desired Event from the list of events.
      *
@@ -185,8 +420,12 @@ public class Room implements Serializable {
      * @return true if the event was removed or false if there was no such event in the schedule
      */
     public boolean removeEvent(Event eventToRemove) {
-        if (events.contains(eventToRemove)) {
-            events.remove(eventToRemove);
+        int dayKey = getDayKey(eventToRemove.getStartTime());
+        ArrayList<Event> bucket = days.get(dayKey);
+        if (bucket != null && bucket.remove(eventToRemove)) {
+            if (bucket.isEmpty()) {
+                days.remove(dayKey);
+            }
             return true;
         }
         return false;
@@ -1,6 +1,7 @@
 package com.group0179.entities;
 
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.HashMap;
 import java.util.UUID;
 
@@ -24,6 +25,17 @@ public class Speaker extends User {
         super(username);
     }
 
+    /**
+     * Recreates a Speaker who was created before, such as one read back from disk.
+     * @param userID the unique ID of the user.
+     * @param username The user's username.
+     * @param isVip Whether the speaker is an vip
+     * @param timeOfAccountCreation the time the account was created.
+     */
+    public Speaker(UUID userID, String username, boolean isVip, Calendar timeOfAccountCreation) {
+        super(userID, username, isVip, timeOfAccountCreation);
+    }
+
     @Override
     public boolean isOrganizer() {
         return false;
@@ -8,9 +8,59 @@ import java.util.*;
  * @author Zachariah Vincze
  */
 public abstract class User implements Serializable {
+    /**
+     * A message in a user's inbox.
+     */
+    public static class InboxEntry implements Serializable {
+        public final long timeReceived;
+        public final UUID senderID;
+        public final UUID messageID;
+
+        public InboxEntry(long timeReceived, UUID senderID, UUID messageID) {
+            this.timeReceived = timeReceived;
+            this.senderID = senderID;
+            this.messageID = messageID;
+        }
+    }
+
+    /**
+     * A user who has sent messages to this user, with the last message they sent.
+     */
+    public static class Contact {
+        public final UUID contactID;
+        public final InboxEntry lastMessage;
+        public final int numUnread;
+
+        public Contact(UUID contactID, InboxEntry lastMessage, int numUnread) {
+            this.contactID = contactID;
+            this.lastMessage = lastMessage;
+            this.numUnread = numUnread;
+        }
+    }
+
+    /**
+     * A link in the list of contacts ordered by when they last wrote, newest first.
+     */
+    private static class ContactNode {
+        private final UUID contactID;
+        private InboxEntry lastMessage;
+        private ContactNode newer;
+        private ContactNode older;
+
+        private ContactNode(UUID contactID) {
+            this.contactID = contactID;
+        }
+    }
+
     private final UUID userID;
     private final String username;
     private final Map<UUID, List<UUID>> conversations;
+    private final List<InboxEntry> inbox = new ArrayList<>();
+    private final Map<UUID, Integer> numUnreadBySender = new HashMap<>();
+    private int numUnread;
+    private transient Map<UUID, List<InboxEntry>> inboxBySender;
+    private transient Map<UUID, ContactNode> contactsByID;
+    private transient ContactNode newestContact;
     private boolean isVip = false;
     private Calendar lastLoggedIn;
     private Calendar timeOfAccountCreation;
@@ -42,6 +92,24 @@ public abstract class User implements Serializable {
         this.timeOfAccountCreation = Calendar.getInstance();
     }
 
+    /**
+     * Recreates a user who was created before, such as one read back from disk. Their messages and times logged in
+     * are added afterwards.
+     * @param userID the unique ID of the user.
+     * @param username The user's username.
+     * @param isVip whether the user is a vip.
+     * @param timeOfAccountCreation the time the account was created.
+     */
+    protected User(UUID userID, String username, boolean isVip, Calendar timeOfAccountCreation) {
+        this.userID = userID;
+        this.username = username;
+        this.conversations = new HashMap<>();
+        this.isVip = isVip;
+        this.lengthsOfTimeLoggedInAsMinutes = new ArrayList<>();
+        this.lastLoggedIn = null;
+        this.timeOfAccountCreation = timeOfAccountCreation;
+    }
+
     /**
      * Returns whether the user is an vip
      * @return True if attendee is an vip, false otherwise.
@@ -65,20 +133,32 @@ public abstract class User implements Serializable {
     }
 
     /**
-     * Returns a list of message UUIDs that this user has received from a specific sender.
+     * Returns a list of message UUIDs that this user has received from a specific sender. Asking about a sender who
+     * has never written does not add a conversation.
      * @param sender the UUID of the sender of the messages.
-     * @return a list of messages UUIDs that have been sent by sender.
+     * @return a read-only list of messages UUIDs that have been sent by sender.
      */
     public List<UUID> getMessages(UUID sender) {
-        if(!conversations.containsKey(sender)) conversations.put(sender, new ArrayList<>());
-        return this.conversations.get(sender);
+        List<UUID> received = this.conversations.get(sender);
+        return received == null ? Collections.emptyList() : Collections.unmodifiableList(received);
     }
 
     /**
-     * @return a set of UUIDs of users that have sent messages to this user.
+     * @return a set of UUIDs of users that have sent messages to this user, in no particular order. See
+     * getRecentContacts for the users in the order they last wrote.
      */
     public Set<UUID> getContacts() {
-        return this.conversations.keySet();
+        return Collections.unmodifiableSet(this.conversations.keySet());
+    }
+
+    /**
+     * Removes the empty conversations that getMessages used to add for senders who never wrote.
+     * @return the number of conversations removed.
+     */
+    public int compactConversations() {
+        int before = this.conversations.size();
+        this.conversations.values().removeIf(List::isEmpty);
+        return before - this.conversations.size();
     }
 
     public Calendar getTimeOfAccountCreation(){
@@ -86,15 +166,225 @@ public abstract class User implements Serializable {
     }
 
     /**
-     * Adds a message to this user's received message history.
+     * Adds a message to this user's received message history. The message is unread until it is marked as read.
      * @param sender the UUID of the user who sent this message.
      * @param messageID the UUID of the message that was sent.
      */
     public void addMessage(UUID sender, UUID messageID) {
-        if (!this.conversations.containsKey(sender)) {
-            this.conversations.put(sender, new ArrayList<>());
+        addMessage(sender, messageID, System.currentTimeMillis());
+    }
+
+    /**
+     * Adds a message to this user's received message history. The message is unread until it is marked as read.
+     *
+     * Precondition: timeReceived is not earlier than the time of any message already received.
+     *
+     * @param sender the UUID of the user who sent this message.
+     * @param messageID the UUID of the message that was sent.
+     * @param timeReceived the number of milliseconds since the epoch at which the message was received.
+     */
+    public void addMessage(UUID sender, UUID messageID, long timeReceived) {
+        Map<UUID, ContactNode> contacts = getContactsByID();
+        this.conversations.computeIfAbsent(sender, id -> new ArrayList<>()).add(messageID);
+        InboxEntry entry = new InboxEntry(timeReceived, sender, messageID);
+        getInboxBySender().computeIfAbsent(sender, id -> new ArrayList<>()).add(entry);
+        this.inbox.add(entry);
+        this.numUnreadBySender.merge(sender, 1, Integer::sum);
+        this.numUnread++;
+        touchContact(contacts, entry);
+    }
+
+    /**
+     * Moves the sender of a message to the front of the contacts, which takes constant time.
+     */
+    private void touchContact(Map<UUID, ContactNode> contacts, InboxEntry entry) {
+        ContactNode node = contacts.computeIfAbsent(entry.senderID, ContactNode::new);
+        node.lastMessage = entry;
+        if (node == this.newestContact) return;
+        unlinkContact(node);
+        node.older = this.newestContact;
+        if (this.newestContact != null) this.newestContact.newer = node;
+        this.newestContact = node;
+    }
+
+    private void unlinkContact(ContactNode node) {
+        if (node.newer != null) node.newer.older = node.older;
+        if (node.older != null) node.older.newer = node.newer;
+        if (node == this.newestContact) this.newestContact = node.older;
+        node.newer = null;
+        node.older = null;
+    }
+
+    /**
+     * @return the contacts by UUID, linked in the order they last wrote. Built from the inbox the first time it is
+     * needed after the user is loaded.
+     */
+    private Map<UUID, ContactNode> getContactsByID() {
+        if (this.contactsByID == null) {
+            this.contactsByID = new HashMap<>();
+            for (InboxEntry entry : this.inbox) {
+                touchContact(this.contactsByID, entry);
+            }
+        }
+        return this.contactsByID;
+    }
+
+    /**
+     * Returns the users who have most recently sent messages to this user. The contacts are kept in the order they
+     * last wrote, so this takes time in n and not in the number of contacts or messages.
+     * @param n the maximum number of contacts to return.
+     * @return the contacts, the one who wrote last first, each with the last message they sent and the number of
+     * their messages that have not been read.
+     */
+    public List<Contact> getRecentContacts(int n) {
+        getContactsByID();
+        List<Contact> recent = new ArrayList<>();
+        for (ContactNode node = this.newestContact; node != null && recent.size() < n; node = node.older) {
+            recent.add(new Contact(node.contactID, node.lastMessage, getNumUnread(node.contactID)));
+        }
+        return recent;
+    }
+
+    /**
+     * Forgets the oldest messages received from a sender, such as when they have expired. Messages that had not been
+     * read no longer count as unread.
+     * @param sender the UUID of the user who sent the messages.
+     * @param n the number of messages to forget.
+     * @return the UUIDs of the messages that were forgotten, oldest first.
+     */
+    public List<UUID> removeOldestMessages(UUID sender, int n) {
+        List<UUID> received = this.conversations.get(sender);
+        if (received == null || n <= 0) return Collections.emptyList();
+        n = Math.min(n, received.size());
+        List<UUID> removed = new ArrayList<>(received.subList(0, n));
+        received.subList(0, n).clear();
+        List<InboxEntry> entries = getInboxBySender().get(sender);
+        entries.subList(0, n).clear();
+        if (received.isEmpty()) {
+            this.conversations.remove(sender);
+            this.inboxBySender.remove(sender);
+            ContactNode node = getContactsByID().remove(sender);
+            if (node != null) unlinkContact(node);
+        }
+        Set<UUID> removedIDs = new HashSet<>(removed);
+        this.inbox.removeIf(entry -> removedIDs.contains(entry.messageID));
+        Integer unread = this.numUnreadBySender.get(sender);
+        if (unread != null && unread > received.size()) {
+            this.numUnread -= unread - received.size();
+            if (received.isEmpty()) {
+                this.numUnreadBySender.remove(sender);
+            } else {
+                this.numUnreadBySender.put(sender, received.size());
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @return the inbox split by sender. Each list is in the order the messages arrived, which is also time order.
+     */
+    private Map<UUID, List<InboxEntry>> getInboxBySender() {
+        if (this.inboxBySender == null) {
+            this.inboxBySender = new HashMap<>();
+            for (InboxEntry entry : this.inbox) {
+                this.inboxBySender.computeIfAbsent(entry.senderID, id -> new ArrayList<>()).add(entry);
+            }
         }
-        this.conversations.get(sender).add(messageID);
+        return this.inboxBySender;
+    }
+
+    /**
+     * @param sender the UUID of a user.
+     * @return a read-only view of the messages received from that user, oldest first.
+     */
+    public List<InboxEntry> getInbox(UUID sender) {
+        return Collections.unmodifiableList(getInboxBySender().getOrDefault(sender, Collections.emptyList()));
+    }
+
+    /**
+     * @param sender the UUID of a user.
+     * @param since a number of milliseconds since the epoch.
+     * @return the messages from that user received at or after since, oldest first.
+     */
+    public List<InboxEntry> getMessagesSince(UUID sender, long since) {
+        List<InboxEntry> received = getInboxBySender().getOrDefault(sender, Collections.emptyList());
+        int low = 0;
+        int high = received.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (received.get(mid).timeReceived < since) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return Collections.unmodifiableList(received.subList(low, received.size()));
+    }
+
+    /**
+     * @param sender the UUID of a user.
+     * @param n the maximum number of messages to return.
+     * @return the last n messages received from that user, oldest first.
+     */
+    public List<InboxEntry> getLastMessages(UUID sender, int n) {
+        List<InboxEntry> received = getInboxBySender().getOrDefault(sender, Collections.emptyList());
+        return Collections.unmodifiableList(received.subList(Math.max(received.size() - n, 0), received.size()));
+    }
+
+    /**
+     * @return every message this user has received, in the order they arrived.
+     */
+    public List<InboxEntry> getInbox() {
+        return Collections.unmodifiableList(this.inbox);
+    }
+
+    /**
+     * @return the number of received messages that have not been read.
+     */
+    public int getNumUnread() {
+        return this.numUnread;
+    }
+
+    /**
+     * @param sender the UUID of a user.
+     * @return the number of messages from that user that have not been read.
+     */
+    public int getNumUnread(UUID sender) {
+        return this.numUnreadBySender.getOrDefault(sender, 0);
+    }
+
+    /**
+     * Marks every message from a user as read.
+     * @param sender the UUID of the user who sent the messages.
+     */
+    public void markRead(UUID sender) {
+        Integer read = this.numUnreadBySender.remove(sender);
+        if (read != null) this.numUnread -= read;
+    }
+
+    /**
+     * Sets how many of the newest messages from a user have not been read, such as when the user is read back from
+     * disk.
+     *
+     * Precondition: numUnread is at most the number of messages received from sender.
+     *
+     * @param sender the UUID of the user who sent the messages.
+     * @param numUnread the number of messages that have not been read.
+     */
+    public void setNumUnread(UUID sender, int numUnread) {
+        markRead(sender);
+        if (numUnread > 0) {
+            this.numUnreadBySender.put(sender, numUnread);
+            this.numUnread += numUnread;
+        }
+    }
+
+    /**
+     * Marks every received message as read.
+     */
+    public void markAllRead() {
+        this.numUnreadBySender.clear();
+        this.numUnread = 0;
     }
     //kaiyi
     /**
@@ -0,0 +1,21 @@
+package com.group0179.entities.legacy;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * An attendee as the first version saved it with Java serialization.
+ */
+public class Attendee extends User {
+    private static final long serialVersionUID = -2689724777385226959L;
+
+    private Map<UUID, ArrayList<UUID>> events;
+
+    /**
+     * @return the UUIDs of the events this attendee signed up for, by the UUID of their room.
+     */
+    public Map<UUID, ArrayList<UUID>> getEvents() {
+        return events;
+    }
+}
@@ -0,0 +1,64 @@
+package com.group0179.entities.legacy;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.UUID;
+
+/**
+ * An event as the first version saved it with Java serialization.
+ */
+public class Event implements Serializable {
+    private static final long serialVersionUID = -6852958875702466213L;
+
+    private String title;
+    private UUID eventID;
+    private Calendar startTime;
+    private Calendar endTime;
+    private ArrayList<UUID> attendeeIDs;
+    private ArrayList<UUID> eventRequests;
+    private boolean isVipOnly;
+    private int capacity;
+    private int occupiedCapacity;
+    private ArrayList<String> speakers;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public UUID getEventID() {
+        return eventID;
+    }
+
+    public Calendar getStartTime() {
+        return startTime;
+    }
+
+    public Calendar getEndTime() {
+        return endTime;
+    }
+
+    public ArrayList<UUID> getAttendeeIDs() {
+        return attendeeIDs;
+    }
+
+    public ArrayList<UUID> getEventRequests() {
+        return eventRequests;
+    }
+
+    public boolean isVipOnly() {
+        return isVipOnly;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getOccupiedCapacity() {
+        return occupiedCapacity;
+    }
+
+    public ArrayList<String> getSpeakers() {
+        return speakers;
+    }
+}
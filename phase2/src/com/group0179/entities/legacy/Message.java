@@ -0,0 +1,23 @@
+package com.group0179.entities.legacy;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * A message as the first version saved it with Java serialization. It has no sender, recipient or time; those are
+ * only known from the conversations of the users who received it.
+ */
+public class Message implements Serializable {
+    private static final long serialVersionUID = -3663783704897530384L;
+
+    private UUID messageID;
+    private String messageContent;
+
+    public UUID getMessageID() {
+        return messageID;
+    }
+
+    public String getMessageContent() {
+        return messageContent;
+    }
+}
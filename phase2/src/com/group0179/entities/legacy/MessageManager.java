@@ -0,0 +1,21 @@
+package com.group0179.entities.legacy;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The messages as the first version's MessageManager saved them with Java serialization.
+ */
+public class MessageManager implements Serializable {
+    private static final long serialVersionUID = -3721377166650345064L;
+
+    private Map<UUID, Message> messages;
+
+    /**
+     * @return the messages by their UUID.
+     */
+    public Map<UUID, Message> getMessages() {
+        return messages;
+    }
+}
@@ -0,0 +1,8 @@
+package com.group0179.entities.legacy;
+
+/**
+ * An organizer as the first version saved it with Java serialization.
+ */
+public class Organizer extends Attendee {
+    private static final long serialVersionUID = 5069264763503617619L;
+}
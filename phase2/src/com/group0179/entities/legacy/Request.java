@@ -0,0 +1,42 @@
+package com.group0179.entities.legacy;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * A request as the first version saved it with Java serialization.
+ */
+public class Request implements Serializable {
+    private static final long serialVersionUID = -1209130855771451572L;
+
+    private UUID requestID;
+    private String typeOfRequest;
+    private String urgency;
+    private String requestContent;
+    private boolean isPending;
+    private boolean isAddressed;
+
+    public UUID getRequestID() {
+        return requestID;
+    }
+
+    public String getTypeOfRequest() {
+        return typeOfRequest;
+    }
+
+    public String getUrgency() {
+        return urgency;
+    }
+
+    public String getRequestContent() {
+        return requestContent;
+    }
+
+    public boolean isPending() {
+        return isPending;
+    }
+
+    public boolean isAddressed() {
+        return isAddressed;
+    }
+}
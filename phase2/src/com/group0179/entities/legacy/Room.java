@@ -0,0 +1,28 @@
+package com.group0179.entities.legacy;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.UUID;
+
+/**
+ * A room as the first version saved it with Java serialization.
+ */
+public class Room implements Serializable {
+    private static final long serialVersionUID = 6120197517655433168L;
+
+    private UUID roomID;
+    private ArrayList<Event> events;
+    private int roomCapcity;
+
+    public UUID getRoomID() {
+        return roomID;
+    }
+
+    public ArrayList<Event> getEvents() {
+        return events;
+    }
+
+    public int getRoomCapacity() {
+        return roomCapcity;
+    }
+}
@@ -0,0 +1,17 @@
+package com.group0179.entities.legacy;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * The rooms as the first version's RoomManager saved them with Java serialization. A room's number was its index.
+ */
+public class RoomManager implements Serializable {
+    private static final long serialVersionUID = -4206018633188688175L;
+
+    private ArrayList<Room> rooms;
+
+    public ArrayList<Room> getRooms() {
+        return rooms;
+    }
+}
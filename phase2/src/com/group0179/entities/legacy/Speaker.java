@@ -0,0 +1,21 @@
+package com.group0179.entities.legacy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.UUID;
+
+/**
+ * A speaker as the first version saved it with Java serialization.
+ */
+public class Speaker extends User {
+    private static final long serialVersionUID = 2723582634462836819L;
+
+    private HashMap<UUID, ArrayList<UUID>> eventsSpeaking;
+
+    /**
+     * @return the UUIDs of the events this speaker gives, by the UUID of their room.
+     */
+    public HashMap<UUID, ArrayList<UUID>> getEventsSpeaking() {
+        return eventsSpeaking;
+    }
+}
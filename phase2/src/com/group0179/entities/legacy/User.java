@@ -0,0 +1,54 @@
+package com.group0179.entities.legacy;
+
+import java.io.Serializable;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A user as the first version saved it with Java serialization. The classes in this package keep the fields and the
+ * serialVersionUID of the classes of the same name in that version, and are only used to read its files.
+ */
+public abstract class User implements Serializable {
+    private static final long serialVersionUID = -4259749800675877408L;
+
+    private UUID userID;
+    private String username;
+    private Map<UUID, List<UUID>> conversations;
+    private boolean isVip;
+    private Calendar lastLoggedIn;
+    private Calendar timeOfAccountCreation;
+    private List<Double> lengthsOfTimeLoggedInAsMinutes;
+
+    public UUID getUserID() {
+        return userID;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * @return the UUIDs of the messages this user received, by the UUID of their sender, in the order received.
+     */
+    public Map<UUID, List<UUID>> getConversations() {
+        return conversations;
+    }
+
+    public boolean isVip() {
+        return isVip;
+    }
+
+    public Calendar getLastLoggedIn() {
+        return lastLoggedIn;
+    }
+
+    public Calendar getTimeOfAccountCreation() {
+        return timeOfAccountCreation;
+    }
+
+    public List<Double> getLengthsOfTimeLoggedInAsMinutes() {
+        return lengthsOfTimeLoggedInAsMinutes;
+    }
+}
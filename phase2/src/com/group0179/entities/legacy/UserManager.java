@@ -0,0 +1,34 @@
+package com.group0179.entities.legacy;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The users as the first version's UserManager saved them with Java serialization.
+ */
+public class UserManager implements Serializable {
+    private static final long serialVersionUID = -5316901584011600189L;
+
+    private ArrayList<Attendee> attendees;
+    private ArrayList<Speaker> speakers;
+    private ArrayList<Organizer> organizers;
+    private List<Request> userRequests;
+    private User currentUser;
+
+    public ArrayList<Attendee> getAttendees() {
+        return attendees;
+    }
+
+    public ArrayList<Speaker> getSpeakers() {
+        return speakers;
+    }
+
+    public ArrayList<Organizer> getOrganizers() {
+        return organizers;
+    }
+
+    public List<Request> getUserRequests() {
+        return userRequests;
+    }
+}
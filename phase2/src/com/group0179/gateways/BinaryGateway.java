@@ -0,0 +1,150 @@
+package com.group0179.gateways;
+
+import com.group0179.use_cases.BinaryInput;
+import com.group0179.use_cases.BinaryOutput;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A gateway that saves a manager in a compact, versioned binary format instead of with Java serialization. The manager
+ * writes its own fields through a BinaryOutput, so the file holds no class descriptors and does not break when a class
+ * gains a field or a method.
+ *
+ * A file starts with a header: the magic number "G179", one byte saying which manager it holds, and the version of the
+ * format as a varint. Files saved with Java serialization by the first version are recognized by their own magic
+ * number, but are not read here; LegacyMigrator converts them.
+ *
+ * A manager is written to a temporary file beside the file, which is forced to disk and then renamed over the file,
+ * so a crash while writing leaves the file saved before, never part of a new one.
+ * @param <T> the type of manager.
+ */
+public abstract class BinaryGateway<T> implements IGateway<T> {
+    public static final int FORMAT_VERSION = 1;
+    static final int MAGIC = 0x47313739;
+    private static final int LEGACY_MAGIC = 0xACED;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Class<T> type;
+    private final byte kind;
+
+    /**
+     * @param type the class of the manager, named when a file does not hold one.
+     * @param kind the byte in the header that says a file holds this kind of manager.
+     */
+    protected BinaryGateway(Class<T> type, byte kind) {
+        this.type = type;
+        this.kind = kind;
+    }
+
+    /**
+     * @param filepath the file the manager was not read from.
+     * @return a new manager, for when there is no file to read.
+     */
+    protected abstract T create(String filepath);
+
+    /**
+     * Writes a manager after the header.
+     * @param t the manager.
+     * @param out the stream to write to.
+     * @throws IOException if the stream cannot be written.
+     */
+    protected abstract void encode(T t, BinaryOutput out) throws IOException;
+
+    /**
+     * Reads back a manager written by encode.
+     * @param in the stream to read from, after the header.
+     * @param filepath the file being read.
+     * @return the manager.
+     * @throws IOException if the stream cannot be read or does not hold a manager.
+     */
+    protected abstract T decode(BinaryInput in, String filepath) throws IOException;
+
+    /**
+     * Reads a manager. Creates a new one iff the file does not exist; a file that exists but cannot be read is never
+     * replaced by a new manager.
+     * @param filepath the file the manager was saved to in the binary format.
+     * @return the manager that was saved, or a new manager.
+     * @throws UncheckedIOException if the file exists but cannot be read.
+     */
+    @Override
+    public T read(String filepath) {
+        if (!new File(filepath).exists()) return create(filepath);
+        try {
+            return load(filepath);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a manager, failing rather than creating a new one.
+     * @param filepath the file the manager was saved to in the binary format.
+     * @return the manager that was saved.
+     * @throws IOException if the file does not exist or does not hold this kind of manager, such as a file saved with
+     * Java serialization that has not been converted by LegacyMigrator.
+     */
+    public T load(String filepath) throws IOException {
+        try (InputStream buffer = new BufferedInputStream(new FileInputStream(filepath), BUFFER_SIZE)) {
+            if (startsWithLegacyMagic(buffer)) {
+                throw new IOException(filepath + " was saved by an earlier version; convert it with LegacyMigrator");
+            }
+            BinaryInput in = new BinaryInput(buffer);
+            if (in.readInt() != MAGIC || in.readByte() != kind) {
+                throw new IOException(filepath + " does not hold a " + type.getSimpleName());
+            }
+            int version = in.readVarInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException(filepath + " is in version " + version + " of the format");
+            }
+            return decode(in, filepath);
+        }
+    }
+
+    /**
+     * Writes a manager in the binary format, replacing the file only once the manager is on disk.
+     * @param t the manager to write.
+     * @param filepath the file to write the manager to.
+     * @throws IOException if the file cannot be written. The file is then left as it was.
+     */
+    @Override
+    public void write(T t, String filepath) throws IOException {
+        Path path = Paths.get(filepath);
+        Path temporary = Paths.get(filepath + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             BinaryOutput out = new BinaryOutput(new BufferedOutputStream(file, BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeByte(kind);
+            out.writeVarInt(FORMAT_VERSION);
+            encode(t, out);
+            out.flush();
+            file.getFD().sync();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @param filepath a file.
+     * @return true iff the file exists and was saved with Java serialization.
+     * @throws IOException if the file exists but cannot be read.
+     */
+    public static boolean isLegacy(String filepath) throws IOException {
+        if (!new File(filepath).isFile()) return false;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(filepath))) {
+            return startsWithLegacyMagic(in);
+        }
+    }
+
+    private static boolean startsWithLegacyMagic(InputStream buffer) throws IOException {
+        buffer.mark(2);
+        int magic = buffer.read() << 8 | buffer.read();
+        buffer.reset();
+        return magic == LEGACY_MAGIC;
+    }
+}
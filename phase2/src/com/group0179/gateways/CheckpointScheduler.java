@@ -0,0 +1,121 @@
+package com.group0179.gateways;
+
+import com.group0179.use_cases.PeriodicTask;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Saves checkpoints of a JournaledStorage on a background thread at a fixed interval, so that the journal stays short
+ * without the program stopping to save.
+ *
+ * A checkpoint is captured through an Executor that runs tasks on the thread that changes the users and rooms, such
+ * as Platform::runLater for the JavaFX Application Thread. That thread only pauses while the partitions that changed
+ * are copied into memory; they are written to disk, forced and renamed into place on the background thread, which
+ * then deletes the journal they cover. The next checkpoint is not captured until the one before has been written.
+ */
+public class CheckpointScheduler {
+    public static final long DEFAULT_INTERVAL_MILLIS = 5 * 60 * 1000;
+
+    private final JournaledStorage storage;
+    private final PeriodicTask task;
+    private final AtomicInteger numCheckpoints = new AtomicInteger();
+    private volatile long lastPauseNanos;
+    private volatile Exception lastFailure;
+
+    /**
+     * Creates a scheduler that saves a checkpoint every DEFAULT_INTERVAL_MILLIS, and starts it.
+     * @param storage the loaded storage to checkpoint.
+     * @param captureExecutor runs the captures on the thread that changes the users and rooms.
+     */
+    public CheckpointScheduler(JournaledStorage storage, Executor captureExecutor) {
+        this(storage, captureExecutor, DEFAULT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a scheduler and starts it.
+     * @param storage the loaded storage to checkpoint.
+     * @param captureExecutor runs the captures on the thread that changes the users and rooms.
+     * @param intervalMillis the number of milliseconds between checkpoints.
+     */
+    public CheckpointScheduler(JournaledStorage storage, Executor captureExecutor, long intervalMillis) {
+        this.storage = storage;
+        this.task = new PeriodicTask("checkpoint-scheduler", captureExecutor, intervalMillis, () -> {
+            try {
+                checkpointNow();
+            } catch (IOException | RuntimeException e) {
+                // the changes are still in the journal, and the partitions are written by the next checkpoint
+                lastFailure = e;
+            }
+        });
+        this.task.start();
+    }
+
+    private JournaledStorage.Checkpoint capture() throws IOException {
+        long start = System.nanoTime();
+        try {
+            return storage.capture();
+        } finally {
+            lastPauseNanos = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Captures a checkpoint through the capture executor and saves it on the calling thread.
+     *
+     * Precondition: this is not called on the capture executor's thread, which it waits for.
+     *
+     * @return the number of partitions that were written, or 0 if the scheduler was shut down before the capture ran.
+     * @throws IOException if the checkpoint cannot be captured or written, or the thread is interrupted while waiting
+     * for the capture.
+     */
+    public synchronized int checkpointNow() throws IOException {
+        JournaledStorage.Checkpoint checkpoint;
+        try {
+            checkpoint = task.handOff(this::capture);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a checkpoint to be captured");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw (RuntimeException) e.getCause();
+        }
+        if (checkpoint == null) return 0;
+        storage.save(checkpoint);
+        numCheckpoints.incrementAndGet();
+        return checkpoint.getNumPartitions();
+    }
+
+    /**
+     * @return the number of checkpoints this scheduler has saved.
+     */
+    public int getNumCheckpoints() {
+        return numCheckpoints.get();
+    }
+
+    /**
+     * @return how long the last capture held up the capture executor's thread, in nanoseconds.
+     */
+    public long getLastPauseNanos() {
+        return lastPauseNanos;
+    }
+
+    /**
+     * @return why the last background checkpoint that failed could not be saved, or null if none has failed.
+     */
+    public Exception getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Stops the background thread, waiting for a checkpoint that has been captured to be saved. A capture still
+     * waiting for the capture executor is not run.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void shutdown() throws InterruptedException {
+        task.shutdown();
+    }
+}
@@ -0,0 +1,306 @@
+package com.group0179.gateways;
+
+import com.group0179.use_cases.BinaryInput;
+import com.group0179.use_cases.BinaryOutput;
+import com.group0179.use_cases.IPartitioned;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * A snapshot of managers kept in a directory as one chunk file per partition, and a manifest that names the current
+ * chunk of every partition and the position of the last journal record the snapshot covers.
+ *
+ * A chunk is never written over. A save writes a new chunk for each partition that has changed or has no chunk yet,
+ * forces it to disk, and then writes a new manifest beside the old one and renames it over it, so the manifest always
+ * names a complete set of chunks, even after a crash in the middle of a save. The chunks it no longer names are then
+ * deleted. A save therefore costs in proportion to what changed since the last one, not to everything the managers
+ * hold. Since a chunk never changes, a manager can also map its partitions into memory and read only what it needs.
+ *
+ * A save is split in two: capture encodes the changed partitions into memory, which needs the managers to hold still,
+ * and save writes them to disk, which does not. One save is made at a time.
+ */
+public class ChunkedSnapshot implements IPartitioned.Source {
+    private static final byte KIND = 'S';
+    private static final String MANIFEST_FILE = "manifest";
+    private static final String NEW_MANIFEST_FILE = "manifest.new";
+    private static final String CHUNK_EXTENSION = ".chunk";
+
+    /**
+     * The partitions of some managers, encoded by capture and waiting to be saved.
+     */
+    public static class Changes {
+        private final IPartitioned[] managers;
+        private final List<Set<String>> taken = new ArrayList<>();
+        private final Set<String> partitions = new LinkedHashSet<>();
+        private final Map<String, byte[]> chunks = new LinkedHashMap<>();
+
+        private Changes(IPartitioned[] managers) {
+            this.managers = managers;
+        }
+
+        /**
+         * @return the number of partitions that are written by the save.
+         */
+        public int getNumChunks() {
+            return chunks.size();
+        }
+
+        /**
+         * @return the number of bytes in the partitions that are written by the save.
+         */
+        public long getNumBytes() {
+            long size = 0;
+            for (byte[] chunk : chunks.values()) {
+                size += chunk.length;
+            }
+            return size;
+        }
+
+        /**
+         * Marks the partitions that were taken from the managers as changed again, so the next capture has them.
+         */
+        private void markChanged() {
+            for (int i = 0; i < taken.size(); i++) {
+                managers[i].markChanged(taken.get(i));
+            }
+        }
+    }
+
+    private final Path directory;
+    private Map<String, Long> chunks = new HashMap<>();
+    private long generation;
+    private long checkpoint;
+
+    /**
+     * @param directory the directory of the chunks and the manifest, which is created when the first save is made.
+     */
+    public ChunkedSnapshot(String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    private Path getChunkPath(String partition, long generation) {
+        return directory.resolve(partition + "." + generation + CHUNK_EXTENSION);
+    }
+
+    /**
+     * Reads the manifest.
+     * @return false if no save has been made yet, so there is nothing to read.
+     * @throws IOException if the manifest cannot be read.
+     */
+    public boolean load() throws IOException {
+        Path manifest = directory.resolve(MANIFEST_FILE);
+        if (!Files.exists(manifest)) return false;
+        try (BinaryInput in = new BinaryInput(new BufferedInputStream(Files.newInputStream(manifest)))) {
+            if (in.readInt() != BinaryGateway.MAGIC || in.readByte() != KIND) {
+                throw new IOException(manifest + " is not the manifest of a snapshot");
+            }
+            int version = in.readVarInt();
+            if (version != BinaryGateway.FORMAT_VERSION) {
+                throw new IOException(manifest + " is in version " + version + " of the format");
+            }
+            long checkpoint = in.readVarLong();
+            long generation = in.readVarLong();
+            Map<String, Long> chunks = new HashMap<>();
+            int numChunks = in.readCount();
+            for (int i = 0; i < numChunks; i++) {
+                chunks.put(in.readString(), in.readVarLong());
+            }
+            synchronized (this) {
+                this.checkpoint = checkpoint;
+                this.generation = generation;
+                this.chunks = chunks;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the position of the last journal record the saved partitions have, or 0 if nothing has been saved.
+     */
+    public synchronized long getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * @return the number of partitions that have been saved.
+     */
+    public synchronized int getNumPartitions() {
+        return chunks.size();
+    }
+
+    @Override
+    public BinaryInput open(String partition) throws IOException {
+        Long chunk;
+        synchronized (this) {
+            chunk = chunks.get(partition);
+        }
+        if (chunk == null) throw new IOException("The snapshot has no partition " + partition);
+        return new BinaryInput(new BufferedInputStream(Files.newInputStream(getChunkPath(partition, chunk))));
+    }
+
+    /**
+     * Maps the chunk of a partition into memory. A chunk is never written over, so the buffer stays valid after the
+     * chunk is replaced by a later save, and its pages are only read from disk when they are used.
+     */
+    @Override
+    public ByteBuffer map(String partition) throws IOException {
+        Long chunk;
+        synchronized (this) {
+            chunk = chunks.get(partition);
+        }
+        if (chunk == null) throw new IOException("The snapshot has no partition " + partition);
+        try (FileChannel channel = FileChannel.open(getChunkPath(partition, chunk), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Takes the changed partitions of the managers and encodes each of them, along with every partition that has not
+     * been saved yet.
+     *
+     * Precondition: the managers are not changed meanwhile, and the names of their partitions are distinct.
+     *
+     * @param managers the managers.
+     * @return the partitions to save.
+     * @throws IOException if a partition cannot be encoded. Its changes are then kept for the next capture.
+     */
+    public Changes capture(IPartitioned... managers) throws IOException {
+        Map<String, Long> saved;
+        synchronized (this) {
+            saved = chunks;
+        }
+        Changes changes = new Changes(managers);
+        try {
+            for (IPartitioned manager : managers) {
+                Set<String> changed = manager.takeChangedPartitions();
+                changes.taken.add(changed);
+                for (String partition : manager.getPartitions()) {
+                    changes.partitions.add(partition);
+                    if (saved.containsKey(partition) && !changed.contains(partition)) continue;
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    try (BinaryOutput out = new BinaryOutput(bytes)) {
+                        manager.writePartition(partition, out);
+                    }
+                    changes.chunks.put(partition, bytes.toByteArray());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            changes.markChanged();
+            throw e;
+        }
+        return changes;
+    }
+
+    /**
+     * Writes the chunks of the captured partitions, and then the manifest, which names them along with the chunks of
+     * the partitions that did not change. Chunks of partitions the managers no longer have are deleted.
+     * @param changes the partitions captured since the last save.
+     * @param checkpoint the position of the last journal record the managers had when they were captured.
+     * @throws IOException if a chunk or the manifest cannot be written. The snapshot saved before is then kept, and
+     * the captured partitions are marked as changed again.
+     */
+    public void save(Changes changes, long checkpoint) throws IOException {
+        Map<String, Long> saved;
+        long generation;
+        synchronized (this) {
+            saved = chunks;
+            generation = ++this.generation;
+        }
+        Map<String, Long> manifest = new TreeMap<>();
+        try {
+            Files.createDirectories(directory);
+            for (String partition : changes.partitions) {
+                byte[] chunk = changes.chunks.get(partition);
+                if (chunk != null) {
+                    writeChunk(getChunkPath(partition, generation), chunk);
+                    manifest.put(partition, generation);
+                } else if (saved.containsKey(partition)) {
+                    manifest.put(partition, saved.get(partition));
+                } else {
+                    throw new IOException("No chunk of " + partition + " has been captured");
+                }
+            }
+            writeManifest(manifest, generation, checkpoint);
+        } catch (IOException | RuntimeException e) {
+            changes.markChanged();
+            throw e;
+        }
+        synchronized (this) {
+            this.chunks = manifest;
+            this.checkpoint = checkpoint;
+        }
+        deleteUnusedChunks(manifest);
+    }
+
+    private static void writeChunk(Path path, byte[] chunk) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(chunk);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    private void writeManifest(Map<String, Long> manifest, long generation, long checkpoint) throws IOException {
+        Path newManifest = directory.resolve(NEW_MANIFEST_FILE);
+        try (BinaryOutput out = new BinaryOutput(new BufferedOutputStream(Files.newOutputStream(newManifest)))) {
+            out.writeInt(BinaryGateway.MAGIC);
+            out.writeByte(KIND);
+            out.writeVarInt(BinaryGateway.FORMAT_VERSION);
+            out.writeVarLong(checkpoint);
+            out.writeVarLong(generation);
+            out.writeVarInt(manifest.size());
+            for (Map.Entry<String, Long> chunk : manifest.entrySet()) {
+                out.writeString(chunk.getKey());
+                out.writeVarLong(chunk.getValue());
+            }
+        }
+        try (FileChannel channel = FileChannel.open(newManifest, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(newManifest, directory.resolve(MANIFEST_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory();
+    }
+
+    /**
+     * Forces the directory to disk, so that the rename of the manifest survives a crash.
+     */
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // not every platform can open a directory; the rename is then left to the file system
+        }
+    }
+
+    /**
+     * Deletes the chunks the manifest does not name. A chunk that cannot be deleted yet, such as one that is still
+     * mapped on a platform that does not allow that, is left for the next save to delete.
+     */
+    private void deleteUnusedChunks(Map<String, Long> manifest) throws IOException {
+        Set<Path> used = new HashSet<>();
+        for (Map.Entry<String, Long> chunk : manifest.entrySet()) {
+            used.add(getChunkPath(chunk.getKey(), chunk.getValue()));
+        }
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + CHUNK_EXTENSION)) {
+            for (Path path : paths) {
+                if (used.contains(path)) continue;
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    // deleted by a later save
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.group0179.gateways;
+
+import com.group0179.use_cases.IPartitioned;
+import com.group0179.use_cases.MessageManager;
+import com.group0179.use_cases.Mutations;
+import com.group0179.use_cases.RoomManager;
+import com.group0179.use_cases.UserManager;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps the managers in a directory so that a crash loses none of the changes they journal.
+ *
+ * The directory holds a ChunkedSnapshot of the managers, whose manifest has the position of the last journal record
+ * the snapshot covers, and a WriteAheadJournal. On load, the snapshot is read and the records after its checkpoint
+ * are replayed; the managers then write every change they journal before it returns. snapshot saves the partitions of
+ * the managers that changed since the last snapshot and deletes the journal files it covers, so the journal only
+ * grows between two snapshots.
+ *
+ * Earlier versions saved the managers whole, in the files of UserManagerGateway, RoomManagerGateway and
+ * MessageManagerGateway with a checkpoint file beside them. They are read when there is no ChunkedSnapshot yet, and
+ * left in place once there is.
+ *
+ * The journal is rotated before the snapshot is captured, and a manager changes before it journals the change, so a
+ * snapshot has every change up to its checkpoint and maybe a few after it. Replaying a change the managers already
+ * have does nothing.
+ *
+ * Loading can be split so that users can log in sooner: loadUsers reads the users while the rooms and messages are
+ * read on another thread, and replays only the accounts created since the snapshot; finishLoading then waits for the
+ * rooms and messages and replays the whole journal.
+ */
+public class JournaledStorage implements Closeable {
+    public static final String USER_MANAGER_FILE = "usermanager.bin";
+    public static final String ROOM_MANAGER_FILE = "roommanager.bin";
+    public static final String MESSAGE_MANAGER_FILE = "messagemanager.bin";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String JOURNAL_DIRECTORY = "journal";
+    private static final String SNAPSHOT_DIRECTORY = "snapshot";
+
+    private final String directory;
+    private final UserManagerGateway userManagerGateway = new UserManagerGateway();
+    private final RoomManagerGateway roomManagerGateway = new RoomManagerGateway();
+    private final MessageManagerGateway messageManagerGateway = new MessageManagerGateway();
+    private final ChunkedSnapshot chunkedSnapshot;
+    private UserManager userManager;
+    private RoomManager roomManager;
+    private MessageManager messageManager;
+    private WriteAheadJournal journal;
+    private int numReplayed;
+    private CompletableFuture<RoomManager> roomManagerRead;
+    private CompletableFuture<MessageManager> messageManagerRead;
+    private List<byte[]> records;
+    private final Map<String, Long> loadTimes = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /**
+     * @param directory the directory of the snapshot and the journal, which is created if it does not exist.
+     */
+    public JournaledStorage(String directory) {
+        this.directory = directory;
+        this.chunkedSnapshot = new ChunkedSnapshot(getPath(SNAPSHOT_DIRECTORY));
+    }
+
+    private String getPath(String name) {
+        return Paths.get(directory, name).toString();
+    }
+
+    /**
+     * @param directory a directory.
+     * @return true iff managers have been kept in the directory, in a snapshot, in the users' file or in a journal.
+     */
+    public static boolean hasSavedManagers(String directory) {
+        return Files.exists(Paths.get(directory, SNAPSHOT_DIRECTORY))
+                || Files.exists(Paths.get(directory, USER_MANAGER_FILE))
+                || Files.exists(Paths.get(directory, JOURNAL_DIRECTORY));
+    }
+
+    /**
+     * Reads the snapshot, or creates new managers if there is none, replays the journal and starts journaling.
+     * @throws IOException if the snapshot or the journal cannot be read, or the journal cannot be replayed.
+     */
+    public void load() throws IOException {
+        loadUsers(Runnable::run);
+        finishLoading();
+    }
+
+    /**
+     * Reads the users from the snapshot, or creates a new UserManager if there is none, while the rooms and messages
+     * are read on the executor. Replays the accounts created since the snapshot and starts journaling the users, so
+     * that users can log in and create accounts before finishLoading.
+     * @param executor runs the reading of the rooms and of the messages.
+     * @throws IOException if the snapshot of the users or the journal cannot be read.
+     */
+    public void loadUsers(Executor executor) throws IOException {
+        Files.createDirectories(Paths.get(directory));
+        boolean isChunked = chunkedSnapshot.load();
+        long checkpoint = isChunked ? chunkedSnapshot.getCheckpoint() : readCheckpoint();
+        roomManagerRead = CompletableFuture.supplyAsync(() -> timed("read rooms", () -> isChunked
+                ? RoomManager.readPartitions(chunkedSnapshot) : roomManagerGateway.read(getPath(ROOM_MANAGER_FILE))),
+                executor);
+        messageManagerRead = CompletableFuture.supplyAsync(() -> timed("read messages", () -> isChunked
+                ? messageManagerGateway.readPartition(chunkedSnapshot, getPath(MESSAGE_MANAGER_FILE))
+                : messageManagerGateway.read(getPath(MESSAGE_MANAGER_FILE))), executor);
+        try {
+            userManager = timed("read users", () -> isChunked ? UserManager.readPartitions(chunkedSnapshot)
+                    : userManagerGateway.read(getPath(USER_MANAGER_FILE)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        long start = System.nanoTime();
+        journal = new WriteAheadJournal(getPath(JOURNAL_DIRECTORY), checkpoint);
+        records = journal.readAfter(checkpoint);
+        for (byte[] record : records) {
+            Mutations.replayAccount(record, userManager);
+        }
+        loadTimes.put("replay accounts", System.nanoTime() - start);
+        userManager.setJournal(journal);
+    }
+
+    private interface Reader<T> {
+        T read() throws IOException;
+    }
+
+    private <T> T timed(String phase, Reader<T> reader) {
+        long start = System.nanoTime();
+        try {
+            return reader.read();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            loadTimes.put(phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return a future that completes once the rooms and messages have been read, or have failed to be, so that
+     * finishLoading does not wait.
+     */
+    public CompletableFuture<Void> getOthersRead() {
+        return CompletableFuture.allOf(roomManagerRead, messageManagerRead).handle((ignored, e) -> null);
+    }
+
+    /**
+     * Waits for the rooms and messages, replays the journal and starts journaling them. Does nothing once it has
+     * succeeded.
+     *
+     * Precondition: loadUsers has returned, and the users are not changed meanwhile, such as by calling this on the
+     * thread that changes them.
+     *
+     * @throws IOException if the rooms, the messages or the journal cannot be read, or the journal cannot be replayed.
+     */
+    public synchronized void finishLoading() throws IOException {
+        if (records == null) return;
+        try {
+            roomManager = roomManagerRead.join();
+            messageManager = messageManagerRead.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+            throw e;
+        }
+        long start = System.nanoTime();
+        // the accounts created since loadUsers are journaled already; the replayed changes must not be again
+        userManager.setJournal(null);
+        try {
+            for (byte[] record : records) {
+                Mutations.replay(record, userManager, roomManager, messageManager);
+            }
+        } finally {
+            userManager.setJournal(journal);
+        }
+        loadTimes.put("replay journal", System.nanoTime() - start);
+        numReplayed = records.size();
+        records = null;
+        roomManager.setJournal(journal);
+        messageManager.setJournal(journal);
+    }
+
+    /**
+     * @return how long each phase of loading took, in nanoseconds, by name, in the order they finished.
+     */
+    public Map<String, Long> getLoadTimes() {
+        synchronized (loadTimes) {
+            return new LinkedHashMap<>(loadTimes);
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(getPath(CHECKPOINT_FILE)))) {
+            return in.readLong();
+        } catch (FileNotFoundException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * The partitions of the managers copied by capture, and the journal position they cover, waiting to be saved.
+     */
+    public static class Checkpoint {
+        private final long position;
+        private final ChunkedSnapshot.Changes changes;
+
+        private Checkpoint(long position, ChunkedSnapshot.Changes changes) {
+            this.position = position;
+            this.changes = changes;
+        }
+
+        /**
+         * @return the position of the last journal record the checkpoint covers.
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        /**
+         * @return the number of partitions the checkpoint writes.
+         */
+        public int getNumPartitions() {
+            return changes.getNumChunks();
+        }
+    }
+
+    /**
+     * Copies the partitions of the managers that changed since the last checkpoint, so that they can be saved while
+     * the managers go on changing. Only the changed partitions are copied, and the MessageManager is only locked
+     * while they are.
+     *
+     * Precondition: finishLoading has returned, the UserManager and RoomManager are not changed meanwhile, such as by
+     * calling this on the thread that changes them, and the checkpoint captured before has been saved or has failed.
+     *
+     * @return the checkpoint to pass to save.
+     * @throws IOException if the journal cannot be written or a partition cannot be copied.
+     */
+    public Checkpoint capture() throws IOException {
+        IPartitioned messagePartition = messageManagerGateway.partition(messageManager);
+        synchronized (messageManager) {
+            long position = journal.rotate();
+            return new Checkpoint(position, chunkedSnapshot.capture(userManager, roomManager, messagePartition));
+        }
+    }
+
+    /**
+     * Writes a checkpoint and deletes the journal records it holds. Can be called on any thread.
+     * @param checkpoint the checkpoint returned by capture.
+     * @throws IOException if the checkpoint cannot be written. The journal and the previous snapshot are then kept,
+     * and the partitions are saved by the next checkpoint.
+     */
+    public void save(Checkpoint checkpoint) throws IOException {
+        // the journal is only truncated once the manifest naming the new chunks is on disk
+        chunkedSnapshot.save(checkpoint.changes, checkpoint.position);
+        journal.truncate(checkpoint.position);
+    }
+
+    /**
+     * Captures and saves a checkpoint on this thread.
+     *
+     * Precondition: as for capture.
+     *
+     * @return the number of partitions that were written.
+     * @throws IOException if the snapshot cannot be written. The journal and the previous snapshot are then kept.
+     */
+    public int snapshot() throws IOException {
+        Checkpoint checkpoint = capture();
+        save(checkpoint);
+        return checkpoint.getNumPartitions();
+    }
+
+    public UserManager getUserManager() {
+        return userManager;
+    }
+
+    /**
+     * @return the RoomManager, or null until finishLoading.
+     */
+    public RoomManager getRoomManager() {
+        return roomManager;
+    }
+
+    /**
+     * @return the MessageManager, or null until finishLoading.
+     */
+    public MessageManager getMessageManager() {
+        return messageManager;
+    }
+
+    public WriteAheadJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * @return the number of journal records replayed by load or finishLoading.
+     */
+    public int getNumReplayed() {
+        return numReplayed;
+    }
+
+    /**
+     * Writes the records still waiting, stops journaling and closes the journal. Take a snapshot first to leave no
+     * journal to replay.
+     * @throws IOException if the records still waiting cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        userManager.setJournal(null);
+        if (roomManager != null) roomManager.setJournal(null);
+        if (messageManager != null) messageManager.setJournal(null);
+        journal.close();
+    }
+}
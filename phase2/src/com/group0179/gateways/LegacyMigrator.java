@@ -0,0 +1,70 @@
+package com.group0179.gateways;
+
+import com.group0179.entities.legacy.MessageManager;
+import com.group0179.entities.legacy.RoomManager;
+import com.group0179.entities.legacy.UserManager;
+import com.group0179.use_cases.LegacyManagers;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.file.Paths;
+
+/**
+ * Converts the managers that the first version saved with Java serialization to the files JournaledStorage reads.
+ * The three files are read together, since a message's sender and recipients were saved with the users, and are
+ * converted by LegacyManagers. The old files are left in place, so that version can still be run on them.
+ */
+public class LegacyMigrator {
+    public static final String USER_MANAGER_FILE = "usermanager.ser";
+    public static final String ROOM_MANAGER_FILE = "roommanager.ser";
+    public static final String MESSAGE_MANAGER_FILE = "messagemanager.ser";
+
+    /**
+     * Converts the legacy files in a directory, unless there are none or the directory already keeps managers for
+     * JournaledStorage. The users are written last, so a conversion that fails before them is done again next time.
+     * @param directory the directory of the legacy files and of the JournaledStorage.
+     * @return true iff the files were converted.
+     * @throws IOException if a legacy file exists but cannot be read, or the new files cannot be written. Nothing is
+     * converted then, and the program should not go on without the saved managers.
+     */
+    public static boolean migrate(String directory) throws IOException {
+        if (JournaledStorage.hasSavedManagers(directory)) return false;
+        UserManager users = readLegacy(Paths.get(directory, USER_MANAGER_FILE).toString(), UserManager.class);
+        RoomManager rooms = readLegacy(Paths.get(directory, ROOM_MANAGER_FILE).toString(), RoomManager.class);
+        MessageManager messages = readLegacy(Paths.get(directory, MESSAGE_MANAGER_FILE).toString(),
+                MessageManager.class);
+        if (users == null && rooms == null && messages == null) return false;
+        LegacyManagers managers = new LegacyManagers(users, rooms, messages, System.currentTimeMillis());
+        new RoomManagerGateway().write(managers.getRoomManager(),
+                Paths.get(directory, JournaledStorage.ROOM_MANAGER_FILE).toString());
+        new MessageManagerGateway().write(managers.getMessageManager(),
+                Paths.get(directory, JournaledStorage.MESSAGE_MANAGER_FILE).toString());
+        new UserManagerGateway().write(managers.getUserManager(),
+                Paths.get(directory, JournaledStorage.USER_MANAGER_FILE).toString());
+        return true;
+    }
+
+    /**
+     * @return the manager saved in a legacy file, or null if the file does not exist or was not saved with Java
+     * serialization.
+     */
+    private static <T> T readLegacy(String filepath, Class<T> type) throws IOException {
+        if (!BinaryGateway.isLegacy(filepath)) return null;
+        try (ObjectInputStream in =
+                     new LegacyObjectInputStream(new BufferedInputStream(new FileInputStream(filepath)))) {
+            return type.cast(in.readObject());
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException(filepath + " does not hold a " + type.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Converts the files of the program in the working directory.
+     * @param args unused.
+     */
+    public static void main(String[] args) throws IOException {
+        System.out.println(migrate(".") ? "Converted the files saved by the first version." : "Nothing to convert.");
+    }
+}
@@ -0,0 +1,42 @@
+package com.group0179.gateways;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads the managers that the first version saved with Java serialization into the classes of
+ * com.group0179.entities.legacy, which keep the fields and serialVersionUIDs those classes had then. The classes of
+ * the program have changed since, so they cannot read these files themselves. No other class of the program is read.
+ */
+class LegacyObjectInputStream extends ObjectInputStream {
+    private static final String LEGACY_PACKAGE = "com.group0179.entities.legacy.";
+    private static final Set<String> LEGACY_CLASSES = new HashSet<>(Arrays.asList(
+            "com.group0179.use_cases.UserManager", "com.group0179.use_cases.RoomManager",
+            "com.group0179.use_cases.MessageManager", "com.group0179.entities.User",
+            "com.group0179.entities.Attendee", "com.group0179.entities.Organizer", "com.group0179.entities.Speaker",
+            "com.group0179.entities.Event", "com.group0179.entities.Room", "com.group0179.entities.Message",
+            "com.group0179.entities.Request"));
+
+    LegacyObjectInputStream(InputStream in) throws IOException {
+        super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+        String name = desc.getName();
+        if (LEGACY_CLASSES.contains(name)) {
+            return Class.forName(LEGACY_PACKAGE + name.substring(name.lastIndexOf('.') + 1), false,
+                    LegacyObjectInputStream.class.getClassLoader());
+        }
+        if (name.startsWith("com.group0179.")) {
+            throw new InvalidClassException(name, "not saved by the first version");
+        }
+        return super.resolveClass(desc);
+    }
+}
@@ -1,46 +1,114 @@
 package com.group0179.gateways;
 
-import com.group0179.use_cases.MessageManager;
+import com.group0179.use_cases.*;
 
-import java.io.*;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
 
 /**
- * A gateway class for serializing and deserializing MessageManagers.
+ * A gateway class for saving and reading MessageManagers.
+ *
+ * A new MessageManager keeps its messages in a SegmentedMessageLog next to the filepath, so that only the location of
+ * the log is written to the filepath. A MessageManager that keeps its messages in memory has them written with it.
  * @author Zachariah Vincze
  */
-public class MessageManagerGateway implements IGateway<MessageManager> {
+public class MessageManagerGateway extends BinaryGateway<MessageManager> {
+    private static final byte LOG_STORE = 0;
+    private static final byte MEMORY_STORE = 1;
+    private static final String PARTITION = "messages";
+
+    public MessageManagerGateway() {
+        super(MessageManager.class, (byte) 'M');
+    }
+
     /**
-     * Deserializes a MessageManager. Creates a new one iff the given filepath does not exist.
-     * @param filepath the filepath which points to the serialized object.
-     * @return a deserialized MessageManager or a new MessageManager if the filepath does not exist.
+     * @param filepath the filepath of the saved MessageManager.
+     * @return the directory of its message log, which is the filepath without its extension followed by "-log".
      */
+    static String getLogDirectory(String filepath) {
+        int extension = filepath.lastIndexOf('.');
+        return (extension > 0 ? filepath.substring(0, extension) : filepath) + "-log";
+    }
+
+    @Override
+    protected MessageManager create(String filepath) {
+        return new MessageManager(new SegmentedMessageLog(getLogDirectory(filepath)));
+    }
+
+    @Override
+    protected void encode(MessageManager messageManager, BinaryOutput out) throws IOException {
+        IMessageStore store = messageManager.getMessageStore();
+        if (store instanceof SegmentedMessageLog) {
+            SegmentedMessageLog log = (SegmentedMessageLog) store;
+            out.writeByte(LOG_STORE);
+            out.writeString(log.getDirectory());
+            out.writeVarInt(log.getSegmentSize());
+            out.writeVarInt(log.getCompressionThreshold());
+        } else if (store instanceof InMemoryMessageStore) {
+            out.writeByte(MEMORY_STORE);
+            ((InMemoryMessageStore) store).write(out);
+        } else {
+            throw new IOException("Cannot save messages kept in a " + store.getClass().getSimpleName());
+        }
+        messageManager.write(out);
+    }
+
     @Override
-    public MessageManager read(String filepath) {
-        try {
-            InputStream file = new FileInputStream(filepath);
-            InputStream buffer = new BufferedInputStream(file);
-            ObjectInput input = new ObjectInputStream(buffer);
-            MessageManager mm = (MessageManager) input.readObject();
-            input.close();
-            return mm;
-        } catch (IOException | ClassNotFoundException e) {
-            return new MessageManager();
+    protected MessageManager decode(BinaryInput in, String filepath) throws IOException {
+        IMessageStore store;
+        byte storeType = in.readByte();
+        if (storeType == LOG_STORE) {
+            store = new SegmentedMessageLog(in.readString(), in.readVarInt(), in.readVarInt());
+        } else if (storeType == MEMORY_STORE) {
+            store = InMemoryMessageStore.read(in);
+        } else {
+            throw new IOException("Unknown message store " + storeType);
         }
+        return MessageManager.read(in, store);
     }
 
     /**
-     * Serializes a MessageManager.
-     * @param messageManager the MessageManager to serialize.
-     * @param filepath the filepath you wish to write the serialized object to.
-     * @throws IOException throws an IOException if the object cannot be written.
+     * @param messageManager a MessageManager.
+     * @return the MessageManager as a single partition in the format of this gateway, which has changed whenever the
+     * MessageManager has. Its broadcasts are referred to by position from its event channels and its search index, so
+     * it is not split further.
      */
-    @Override
-    public void write(MessageManager messageManager, String filepath) throws IOException {
-        OutputStream file = new FileOutputStream(filepath);
-        OutputStream buffer = new BufferedOutputStream(file);
-        ObjectOutput output = new ObjectOutputStream(buffer);
+    IPartitioned partition(MessageManager messageManager) {
+        return new IPartitioned() {
+            @Override
+            public Set<String> getPartitions() {
+                return Collections.singleton(PARTITION);
+            }
+
+            @Override
+            public Set<String> takeChangedPartitions() {
+                return messageManager.takeChanged() ? Collections.singleton(PARTITION) : Collections.emptySet();
+            }
+
+            @Override
+            public void markChanged(Collection<String> partitions) {
+                if (!partitions.isEmpty()) messageManager.markChanged();
+            }
 
-        output.writeObject(messageManager);
-        output.close();
+            @Override
+            public void writePartition(String partition, BinaryOutput out) throws IOException {
+                encode(messageManager, out);
+            }
+        };
+    }
+
+    /**
+     * Reads back a MessageManager saved as the partition of partition.
+     * @param source where the partition was saved.
+     * @param filepath the file the MessageManager would be saved to on its own.
+     * @return the MessageManager that was saved.
+     * @throws IOException if the partition cannot be read.
+     */
+    MessageManager readPartition(IPartitioned.Source source, String filepath) throws IOException {
+        try (BinaryInput in = source.open(PARTITION)) {
+            return decode(in, filepath);
+        }
     }
 }
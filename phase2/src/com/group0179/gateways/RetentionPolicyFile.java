@@ -0,0 +1,92 @@
+package com.group0179.gateways;
+
+import com.group0179.use_cases.RetentionPolicy;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Reads the RetentionPolicy the organizers chose from a properties file, so that messages are only ever deleted
+ * because someone asked for it. Each key limits one conversation type, for every role or for one:
+ *
+ *     direct.maxCount=1000
+ *     broadcast.maxAgeDays=365
+ *     speaker.event.maxAgeDays=90
+ *
+ * The type is direct, broadcast or event, and the role, if any, is a type of user as returned by
+ * UserManager.userType. A file with no keys is a policy that keeps everything, which is not the same as having no
+ * file: then the policy saved with the messages is left as it is.
+ */
+public class RetentionPolicyFile {
+    public static final String FILE = "retention.properties";
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * @param filepath the properties file.
+     * @return the policy in the file, or null if there is no file.
+     * @throws IOException if the file exists but cannot be read or has a key or value that is not understood.
+     */
+    public static RetentionPolicy read(String filepath) throws IOException {
+        if (!new File(filepath).exists()) return null;
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(filepath)) {
+            properties.load(in);
+        }
+        // the age and the count of a rule may be given on separate lines
+        Map<String, long[]> limits = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            int split = key.lastIndexOf('.');
+            if (split < 0) throw new IOException(filepath + ": " + key + " does not name a limit");
+            long[] limit = limits.computeIfAbsent(key.substring(0, split),
+                    k -> new long[] {Long.MAX_VALUE, Integer.MAX_VALUE});
+            long value = parse(filepath, key, properties.getProperty(key));
+            switch (key.substring(split + 1)) {
+                case "maxAgeDays":
+                    limit[0] = value * DAY_MILLIS;
+                    break;
+                case "maxCount":
+                    if (value > Integer.MAX_VALUE) throw new IOException(filepath + ": " + key + " is too large");
+                    limit[1] = value;
+                    break;
+                default:
+                    throw new IOException(filepath + ": " + key + " does not name a limit");
+            }
+        }
+        RetentionPolicy policy = new RetentionPolicy();
+        for (Map.Entry<String, long[]> limit : limits.entrySet()) {
+            String name = limit.getKey();
+            int split = name.lastIndexOf('.');
+            RetentionPolicy.ConversationType type = parseType(filepath, name.substring(split + 1));
+            if (split < 0) {
+                policy.setRule(type, limit.getValue()[0], (int) limit.getValue()[1]);
+            } else {
+                policy.setRule(name.substring(0, split), type, limit.getValue()[0], (int) limit.getValue()[1]);
+            }
+        }
+        return policy;
+    }
+
+    private static long parse(String filepath, String key, String value) throws IOException {
+        try {
+            long parsed = Long.parseLong(value.trim());
+            if (parsed < 0 || parsed > Long.MAX_VALUE / DAY_MILLIS) throw new NumberFormatException();
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IOException(filepath + ": " + key + " is not a number of days or messages", e);
+        }
+    }
+
+    private static RetentionPolicy.ConversationType parseType(String filepath, String type) throws IOException {
+        try {
+            return RetentionPolicy.ConversationType.valueOf(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(filepath + ": " + type + " is not a type of conversation", e);
+        }
+    }
+}
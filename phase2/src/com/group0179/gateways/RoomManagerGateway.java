@@ -1,46 +1,32 @@
 package com.group0179.gateways;
 
+import com.group0179.use_cases.BinaryInput;
+import com.group0179.use_cases.BinaryOutput;
 import com.group0179.use_cases.RoomManager;
 
-import java.io.*;
+import java.io.IOException;
 
 /**
- * A gateway class for serializing and deserializing RoomManagers.
+ * A gateway class for saving and reading RoomManagers.
  * @author Zachariah Vincze
  */
-public class RoomManagerGateway implements IGateway<RoomManager> {
-    /**
-     * Deserializes a RoomManager. Creates a new one iff the given filepath does not exist.
-     * @param filepath the filepath which points to the serialized object.
-     * @return a deserialized RoomManager or a new RoomManager if the filepath does not exist.
-     */
+public class RoomManagerGateway extends BinaryGateway<RoomManager> {
+    public RoomManagerGateway() {
+        super(RoomManager.class, (byte) 'R');
+    }
+
     @Override
-    public RoomManager read(String filepath) {
-        try {
-            InputStream file = new FileInputStream(filepath);
-            InputStream buffer = new BufferedInputStream(file);
-            ObjectInput input = new ObjectInputStream(buffer);
-            RoomManager rm = (RoomManager) input.readObject();
-            input.close();
-            return rm;
-        } catch (IOException | ClassNotFoundException e) {
-            return new RoomManager();
-        }
+    protected RoomManager create(String filepath) {
+        return new RoomManager();
     }
 
-    /**
-     * Serializes a RoomManager.
-     * @param roomManager the RoomManager to serialize.
-     * @param filepath the filepath you wish to write the serialized object to.
-     * @throws IOException throws an IOException if the object cannot be written.
-     */
     @Override
-    public void write(RoomManager roomManager, String filepath) throws IOException {
-        OutputStream file = new FileOutputStream(filepath);
-        OutputStream buffer = new BufferedOutputStream(file);
-        ObjectOutput output = new ObjectOutputStream(buffer);
+    protected void encode(RoomManager roomManager, BinaryOutput out) throws IOException {
+        roomManager.write(out);
+    }
 
-        output.writeObject(roomManager);
-        output.close();
+    @Override
+    protected RoomManager decode(BinaryInput in, String filepath) throws IOException {
+        return RoomManager.read(in);
     }
 }
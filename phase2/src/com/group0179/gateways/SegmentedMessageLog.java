@@ -0,0 +1,504 @@
+package com.group0179.gateways;
+
+import com.group0179.entities.Message;
+import com.group0179.use_cases.IMessageStore;
+import com.group0179.use_cases.MessageCompressor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A message store backed by append-only segment files in a directory.
+ *
+ * Every message is appended once, as a length-prefixed record at the end of the newest segment:
+ * [int length][byte record type][long ID high bits][long ID low bits][long sequence number][long time sent]
+ * [long content hash][body], where length counts the bytes after itself. A new segment is started once the newest one
+ * would grow past the segment size.
+ *
+ * Bodies are content addressed. The first message with some content stores it as UTF-8. A later message with the same
+ * content stores the offset of that first record instead, so an announcement that is sent again and again is written
+ * to disk once. The hash only finds the candidate record; the contents are compared before they are shared.
+ *
+ * Bodies of at least the compression threshold are written compressed with zlib, in a record of their own type. A
+ * preset dictionary trained for compression is written to the log as a record too, before any body that uses it, so
+ * the segments can always be decompressed on their own.
+ *
+ * On open, the index from message ID to (segment, position) is rebuilt by reading only the record headers through
+ * memory-mapped buffers. Message contents are only decoded when a message is read, so history that is never viewed
+ * is never loaded onto the heap. A record cut short by a crash at the end of the newest segment is dropped.
+ *
+ * Deleting messages rewrites the log into a new directory with only the messages that are kept, which then takes the
+ * place of the old one. The messages are copied without holding the log's lock, so messages can still be added; those
+ * added during the copy are carried over when the directories are swapped.
+ *
+ * Only the directory, the segment size and the compression threshold are saved with the MessageManager; the segment
+ * files are the data.
+ */
+public class SegmentedMessageLog implements IMessageStore, Closeable, Serializable {
+    public static final int DEFAULT_SEGMENT_SIZE = 8 * 1024 * 1024;
+    private static final byte MESSAGE_RECORD = 1;
+    private static final byte REFERENCE_RECORD = 2;
+    private static final byte COMPRESSED_RECORD = 3;
+    private static final byte DICTIONARY_RECORD = 4;
+    private static final int LENGTH_SIZE = 4;
+    private static final int HEADER_SIZE = 1 + 16 + 8 + 8 + 8;
+    private static final int REFERENCE_SIZE = 8;
+
+    private final String directory;
+    private final int segmentSize;
+    private final int compressionThreshold;
+    private transient MessageCompressor compressor;
+    private transient Map<UUID, Long> offsets;
+    private transient Map<Long, Long> bodyOffsets;
+    private transient Map<Long, Integer> bodyReferences;
+    private transient List<MappedByteBuffer> mappedSegments;
+    private transient FileChannel activeChannel;
+    private transient int activeSegment;
+    private transient long activeSize;
+
+    /**
+     * Creates a log that stores its segments in the given directory, which is created if it does not exist.
+     * @param directory the directory of the segment files.
+     */
+    public SegmentedMessageLog(String directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param directory the directory of the segment files.
+     * @param segmentSize the size in bytes after which a new segment is started.
+     */
+    public SegmentedMessageLog(String directory, int segmentSize) {
+        this(directory, segmentSize, MessageCompressor.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param directory the directory of the segment files.
+     * @param segmentSize the size in bytes after which a new segment is started.
+     * @param compressionThreshold the size in UTF-8 bytes from which bodies are written compressed.
+     */
+    public SegmentedMessageLog(String directory, int segmentSize, int compressionThreshold) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    String getDirectory() {
+        return directory;
+    }
+
+    int getSegmentSize() {
+        return segmentSize;
+    }
+
+    int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    private Path getSegmentPath(int segment) {
+        return Paths.get(directory, String.format("segment-%05d.log", segment));
+    }
+
+    private static long toOffset(int segment, long position) {
+        return ((long) segment << 32) | position;
+    }
+
+    /**
+     * Opens the newest segment for appending and rebuilds the index, unless that has already been done.
+     */
+    private void open() {
+        if (offsets != null) return;
+        try {
+            Files.createDirectories(Paths.get(directory));
+            offsets = new HashMap<>();
+            bodyOffsets = new HashMap<>();
+            bodyReferences = new HashMap<>();
+            mappedSegments = new ArrayList<>();
+            compressor = new MessageCompressor(compressionThreshold);
+            int segment = 0;
+            long end = 0;
+            while (Files.exists(getSegmentPath(segment))) {
+                end = scanSegment(segment);
+                segment++;
+            }
+            activeSegment = Math.max(segment - 1, 0);
+            activeChannel = FileChannel.open(getSegmentPath(activeSegment), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            activeChannel.truncate(end);
+            activeChannel.position(end);
+            activeSize = end;
+        } catch (IOException e) {
+            offsets = null;
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds the records of a segment to the index.
+     * @return the position after the last complete record of the segment.
+     */
+    private long scanSegment(int segment) throws IOException {
+        MappedByteBuffer buffer = mapSegment(segment);
+        int position = 0;
+        while (position + LENGTH_SIZE <= buffer.limit()) {
+            int length = buffer.getInt(position);
+            if (length < HEADER_SIZE || position + LENGTH_SIZE + length > buffer.limit()) break;
+            byte type = buffer.get(position + LENGTH_SIZE);
+            if (type == DICTIONARY_RECORD) {
+                compressor.addDictionary(readBody(toOffset(segment, position)));
+            } else if (type == MESSAGE_RECORD || type == COMPRESSED_RECORD || type == REFERENCE_RECORD) {
+                UUID messageID = new UUID(buffer.getLong(position + LENGTH_SIZE + 1),
+                        buffer.getLong(position + LENGTH_SIZE + 9));
+                long offset = toOffset(segment, position);
+                offsets.put(messageID, offset);
+                long body = offset;
+                if (type == REFERENCE_RECORD) {
+                    body = buffer.getLong(position + LENGTH_SIZE + HEADER_SIZE);
+                } else {
+                    bodyOffsets.putIfAbsent(buffer.getLong(position + LENGTH_SIZE + 33), offset);
+                }
+                bodyReferences.merge(body, 1, Integer::sum);
+            }
+            position += LENGTH_SIZE + length;
+        }
+        return position;
+    }
+
+    private MappedByteBuffer mapSegment(int segment) throws IOException {
+        MappedByteBuffer buffer;
+        if (segment == activeSegment && activeChannel != null) {
+            buffer = activeChannel.map(FileChannel.MapMode.READ_ONLY, 0, activeSize);
+        } else {
+            try (FileChannel channel = FileChannel.open(getSegmentPath(segment), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        while (mappedSegments.size() <= segment) {
+            mappedSegments.add(null);
+        }
+        mappedSegments.set(segment, buffer);
+        return buffer;
+    }
+
+    /**
+     * @return a mapping of the segment that covers at least the bytes before end. The newest segment is mapped again
+     * once records have been appended past its current mapping.
+     */
+    private MappedByteBuffer getMapping(int segment, long end) throws IOException {
+        MappedByteBuffer buffer = segment < mappedSegments.size() ? mappedSegments.get(segment) : null;
+        if (buffer == null || buffer.limit() < end) {
+            buffer = mapSegment(segment);
+        }
+        return buffer;
+    }
+
+    /**
+     * Appends the message to the newest segment. If a message with the same content was stored before, only a
+     * reference to its body is written.
+     * @param message the message to store.
+     */
+    @Override
+    public synchronized void add(Message message) {
+        open();
+        byte[] content = message.getMessageContent().getBytes(StandardCharsets.UTF_8);
+        long hash = hash(content);
+        try {
+            Long body = bodyOffsets.get(hash);
+            boolean shared = body != null && message.getMessageContent().equals(readContent(body));
+            byte[] compressed = shared ? null : compressor.compress(message.getMessageContent());
+            byte type = shared ? REFERENCE_RECORD : compressed != null ? COMPRESSED_RECORD : MESSAGE_RECORD;
+            if (compressed != null) content = compressed;
+            int length = HEADER_SIZE + (shared ? REFERENCE_SIZE : content.length);
+            ByteBuffer record = ByteBuffer.allocate(LENGTH_SIZE + length);
+            record.putInt(length);
+            record.put(type);
+            record.putLong(message.getMessageID().getMostSignificantBits());
+            record.putLong(message.getMessageID().getLeastSignificantBits());
+            record.putLong(message.getSequenceNumber());
+            record.putLong(message.getTimeSent());
+            record.putLong(hash);
+            if (shared) {
+                record.putLong(body);
+            } else {
+                record.put(content);
+            }
+            long offset = append(record);
+            offsets.put(message.getMessageID(), offset);
+            if (!shared) {
+                bodyOffsets.putIfAbsent(hash, offset);
+                body = offset;
+            }
+            bodyReferences.merge(body, 1, Integer::sum);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a record at the end of the newest segment, or of a new segment if it would not fit.
+     * @param record a record, filled up to its end.
+     * @return the offset of the record.
+     */
+    private long append(ByteBuffer record) throws IOException {
+        record.flip();
+        if (activeSize > 0 && activeSize + record.remaining() > segmentSize) {
+            startSegment();
+        }
+        long position = activeSize;
+        while (record.hasRemaining()) {
+            activeChannel.write(record);
+        }
+        activeSize += record.limit();
+        return toOffset(activeSegment, position);
+    }
+
+    /**
+     * @return the 64-bit FNV-1a hash of the bytes.
+     */
+    private static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * @param offset the offset of a record that stores its body.
+     * @return the UTF-8 body of the record.
+     */
+    private byte[] readBody(long offset) throws IOException {
+        int segment = (int) (offset >>> 32);
+        int position = (int) offset;
+        int length = getMapping(segment, position + LENGTH_SIZE).getInt(position);
+        ByteBuffer record = getMapping(segment, position + LENGTH_SIZE + length).duplicate();
+        record.position(position + LENGTH_SIZE + HEADER_SIZE);
+        byte[] content = new byte[length - HEADER_SIZE];
+        record.get(content);
+        return content;
+    }
+
+    /**
+     * @param offset the offset of a record that stores its body.
+     * @return the content of the record, decompressed if the body is compressed.
+     */
+    private String readContent(long offset) throws IOException {
+        byte[] body = readBody(offset);
+        int position = (int) offset;
+        if (getMapping((int) (offset >>> 32), position + LENGTH_SIZE + 1).get(position + LENGTH_SIZE)
+                == COMPRESSED_RECORD) {
+            return compressor.decompress(body);
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private void startSegment() throws IOException {
+        activeChannel.close();
+        activeSegment++;
+        activeChannel = FileChannel.open(getSegmentPath(activeSegment), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeSize = 0;
+    }
+
+    /**
+     * Reads a message from its segment.
+     * @param messageID the UUID of a message.
+     * @return the message with that ID, or null if there is no such message.
+     */
+    @Override
+    public synchronized Message get(UUID messageID) {
+        open();
+        Long offset = offsets.get(messageID);
+        if (offset == null) return null;
+        int segment = (int) (offset >>> 32);
+        int position = (int) (long) offset;
+        try {
+            ByteBuffer record = getMapping(segment, position + LENGTH_SIZE + HEADER_SIZE);
+            long sequenceNumber = record.getLong(position + LENGTH_SIZE + 17);
+            long timeSent = record.getLong(position + LENGTH_SIZE + 25);
+            long body = offset;
+            if (record.get(position + LENGTH_SIZE) == REFERENCE_RECORD) {
+                body = getMapping(segment, position + LENGTH_SIZE + HEADER_SIZE + REFERENCE_SIZE)
+                        .getLong(position + LENGTH_SIZE + HEADER_SIZE);
+            }
+            String content = readContent(body);
+            return new Message(messageID, sequenceNumber, timeSent, content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        open();
+        return offsets.size();
+    }
+
+    /**
+     * @return the number of bodies written to the log. Messages that repeat an earlier message share its body.
+     */
+    @Override
+    public synchronized int getNumBodies() {
+        open();
+        return bodyReferences.size();
+    }
+
+    /**
+     * Rewrites the log without some messages.
+     * @param messageIDs the UUIDs of the messages to delete.
+     */
+    @Override
+    public void removeAll(Set<UUID> messageIDs) {
+        long end;
+        List<UUID> kept;
+        synchronized (this) {
+            open();
+            if (Collections.disjoint(offsets.keySet(), messageIDs)) return;
+            end = toOffset(activeSegment, activeSize);
+            kept = getMessagesBefore(end, messageIDs);
+        }
+        Path copyDirectory = Paths.get(directory + ".compacting");
+        try {
+            deleteDirectory(copyDirectory);
+            SegmentedMessageLog copy = new SegmentedMessageLog(copyDirectory.toString(), segmentSize,
+                    compressionThreshold);
+            for (UUID messageID : kept) {
+                Message message = get(messageID);
+                if (message != null) copy.add(message);
+            }
+            synchronized (this) {
+                for (Map.Entry<UUID, Long> added : getMessagesFrom(end)) {
+                    if (!messageIDs.contains(added.getKey())) copy.add(get(added.getKey()));
+                }
+                copy.close();
+                close();
+                Path oldDirectory = Paths.get(directory + ".old");
+                deleteDirectory(oldDirectory);
+                Files.move(Paths.get(directory), oldDirectory, StandardCopyOption.ATOMIC_MOVE);
+                Files.move(copyDirectory, Paths.get(directory), StandardCopyOption.ATOMIC_MOVE);
+                deleteDirectory(oldDirectory);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the UUIDs of the messages stored before the offset that are not excluded, in the order they were stored.
+     */
+    private List<UUID> getMessagesBefore(long end, Set<UUID> excluded) {
+        List<Map.Entry<UUID, Long>> before = new ArrayList<>();
+        for (Map.Entry<UUID, Long> offset : offsets.entrySet()) {
+            if (offset.getValue() < end && !excluded.contains(offset.getKey())) before.add(offset);
+        }
+        before.sort(Map.Entry.comparingByValue());
+        List<UUID> messageIDs = new ArrayList<>(before.size());
+        for (Map.Entry<UUID, Long> offset : before) {
+            messageIDs.add(offset.getKey());
+        }
+        return messageIDs;
+    }
+
+    /**
+     * @return the messages stored at or after the offset with their offsets, in the order they were stored.
+     */
+    private List<Map.Entry<UUID, Long>> getMessagesFrom(long start) {
+        List<Map.Entry<UUID, Long>> after = new ArrayList<>();
+        for (Map.Entry<UUID, Long> offset : offsets.entrySet()) {
+            if (offset.getValue() >= start) after.add(offset);
+        }
+        after.sort(Map.Entry.comparingByValue());
+        return after;
+    }
+
+    private static void deleteDirectory(Path path) throws IOException {
+        if (!Files.exists(path)) return;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(path)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(path);
+    }
+
+    /**
+     * Trains a preset dictionary from the long messages stored since the log was opened, and writes it to the log.
+     * @return true iff a dictionary was trained.
+     */
+    @Override
+    public synchronized boolean trainCompressionDictionary() {
+        open();
+        byte[] dictionary = compressor.trainDictionary();
+        if (dictionary == null) return false;
+        ByteBuffer record = ByteBuffer.allocate(LENGTH_SIZE + HEADER_SIZE + dictionary.length);
+        record.putInt(HEADER_SIZE + dictionary.length);
+        record.put(DICTIONARY_RECORD);
+        record.position(LENGTH_SIZE + HEADER_SIZE);
+        record.put(dictionary);
+        try {
+            append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean hasCompressionDictionary() {
+        open();
+        return compressor.hasDictionary();
+    }
+
+    /**
+     * @return how much compressing long bodies has saved and cost since the log was opened.
+     */
+    @Override
+    public synchronized MessageCompressor.Stats getCompressionStats() {
+        open();
+        return compressor.getStats();
+    }
+
+    /**
+     * @return the number of segment files, including the one that is being appended to.
+     */
+    public synchronized int getNumSegments() {
+        open();
+        return activeSegment + 1;
+    }
+
+    /**
+     * Closes the newest segment. The log opens itself again the next time it is used.
+     * @throws IOException if the segment cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (offsets == null) return;
+        offsets = null;
+        bodyOffsets = null;
+        bodyReferences = null;
+        mappedSegments = null;
+        compressor = null;
+        activeChannel.close();
+        activeChannel = null;
+    }
+}
@@ -1,46 +1,32 @@
 package com.group0179.gateways;
 
+import com.group0179.use_cases.BinaryInput;
+import com.group0179.use_cases.BinaryOutput;
 import com.group0179.use_cases.UserManager;
 
-import java.io.*;
+import java.io.IOException;
 
 /**
- * A gateway class for serializing and deserializing UserManagers.
+ * A gateway class for saving and reading UserManagers.
  * @author Zachariah Vincze
  */
-public class UserManagerGateway implements IGateway<UserManager> {
-    /**
-     * Deserializes a UserManager. Creates a new one iff the given filepath does not exist.
-     * @param filepath the filepath which points to the serialized object.
-     * @return a deserialized UserManager or a new UserManager if the filepath does not exist.
-     */
+public class UserManagerGateway extends BinaryGateway<UserManager> {
+    public UserManagerGateway() {
+        super(UserManager.class, (byte) 'U');
+    }
+
     @Override
-    public UserManager read(String filepath) {
-        try {
-            InputStream file = new FileInputStream(filepath);
-            InputStream buffer = new BufferedInputStream(file);
-            ObjectInput input = new ObjectInputStream(buffer);
-            UserManager um = (UserManager) input.readObject();
-            input.close();
-            return um;
-        } catch (IOException | ClassNotFoundException e) {
-            return new UserManager();
-        }
+    protected UserManager create(String filepath) {
+        return new UserManager();
     }
 
-    /**
-     * Serializes a UserManager.
-     * @param userManager the UserManager to serialize.
-     * @param filepath the filepath you wish to write the serialized object to.
-     * @throws IOException throws an IOException if the object cannot be written.
-     */
     @Override
-    public void write(UserManager userManager, String filepath) throws IOException {
-        OutputStream file = new FileOutputStream(filepath);
-        OutputStream buffer = new BufferedOutputStream(file);
-        ObjectOutput output = new ObjectOutputStream(buffer);
+    protected void encode(UserManager userManager, BinaryOutput out) throws IOException {
+        userManager.write(out);
+    }
 
-        output.writeObject(userManager);
-        output.close();
+    @Override
+    protected UserManager decode(BinaryInput in, String filepath) throws IOException {
+        return UserManager.read(in);
     }
 }
@@ -0,0 +1,317 @@
+package com.group0179.gateways;
+
+import com.group0179.use_cases.IJournal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * A journal kept in a directory of append-only files.
+ *
+ * Each record is written as [int length][int CRC-32 of the record][record]. A file is named after the position of its
+ * first record, so the position of every record is known without being written. rotate starts a new file, and
+ * truncate deletes the files whose records all come at or before a position, such as the records a snapshot covers.
+ *
+ * Records are written with group commit. The first thread that waits for its record writes every record appended so
+ * far and forces them to disk with one fsync, while threads that append meanwhile wait for the next flush, which
+ * writes all of their records together. No thread waits for a timer, so a record on its own is on disk after one
+ * write and one fsync, and under load the cost of an fsync is shared by every record in the batch.
+ *
+ * On open, a record cut short or corrupted by a crash at the end of the newest file is dropped.
+ */
+public class WriteAheadJournal implements IJournal, Closeable {
+    private static final int HEADER_SIZE = 8;
+
+    private final Path directory;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private List<byte[]> pending = new ArrayList<>();
+    private FileChannel channel;
+    private long lastAppended;
+    private long lastDurable;
+    private boolean isFlushing;
+    private IOException failure;
+    private long numFlushes;
+
+    /**
+     * Opens the journal in a directory, which is created if it does not exist, and drops a record cut short at its
+     * end.
+     * @param directory the directory of the journal files.
+     * @param lastSaved the position of the last record already saved elsewhere, such as in a snapshot. Records
+     * appended from now on come after it even if the journal has been truncated up to it.
+     * @throws IOException if the journal cannot be read or written.
+     */
+    public WriteAheadJournal(String directory, long lastSaved) throws IOException {
+        this.directory = Paths.get(directory);
+        Files.createDirectories(this.directory);
+        List<Long> files = listFiles();
+        long last = lastSaved;
+        if (!files.isEmpty()) {
+            long first = files.get(files.size() - 1);
+            Path newest = getFilePath(first);
+            List<byte[]> records = new ArrayList<>();
+            long end = readFile(newest, records);
+            // keep appending to the newest file unless the saved records go past it
+            if (first + records.size() - 1 >= lastSaved) {
+                channel = FileChannel.open(newest, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.truncate(end);
+                channel.position(end);
+                last = first + records.size() - 1;
+            }
+        }
+        lastAppended = last;
+        lastDurable = last;
+        if (channel == null) startFile();
+    }
+
+    private Path getFilePath(long first) {
+        return directory.resolve(String.format("journal-%019d.log", first));
+    }
+
+    /**
+     * @return the position of the first record of every journal file, in order.
+     */
+    private List<Long> listFiles() throws IOException {
+        List<Long> files = new ArrayList<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "journal-*.log")) {
+            for (Path path : paths) {
+                String name = path.getFileName().toString();
+                files.add(Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length())));
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * Reads the complete records of a file.
+     * @param records the list the records are added to.
+     * @return the position after the last complete record.
+     */
+    private static long readFile(Path path, List<byte[]> records) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int length = buffer.getInt(buffer.position());
+            int checksum = buffer.getInt(buffer.position() + 4);
+            if (length < 0 || length > buffer.remaining() - HEADER_SIZE) break;
+            byte[] record = new byte[length];
+            buffer.position(buffer.position() + HEADER_SIZE);
+            buffer.get(record);
+            crc.reset();
+            crc.update(record);
+            if ((int) crc.getValue() != checksum) {
+                buffer.position(buffer.position() - HEADER_SIZE - length);
+                break;
+            }
+            records.add(record);
+        }
+        return buffer.position();
+    }
+
+    /**
+     * Closes the current file and starts a new one, whose first record comes after the last record appended.
+     */
+    private void startFile() throws IOException {
+        if (channel != null) channel.close();
+        channel = FileChannel.open(getFilePath(lastAppended + 1), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * @param lastSaved the position of the last record that does not need to be replayed.
+     * @return every record after that position, in the order they were appended.
+     * @throws IOException if a journal file cannot be read, or a file other than the newest is corrupt.
+     */
+    public List<byte[]> readAfter(long lastSaved) throws IOException {
+        lock.lock();
+        try {
+            List<Long> files = listFiles();
+            List<byte[]> records = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                long first = files.get(i);
+                if (i + 1 < files.size() && files.get(i + 1) <= lastSaved + 1) continue;
+                List<byte[]> inFile = new ArrayList<>();
+                Path path = getFilePath(first);
+                if (readFile(path, inFile) != Files.size(path) && i + 1 < files.size()) {
+                    throw new IOException(path + " is corrupt");
+                }
+                for (int j = 0; j < inFile.size(); j++) {
+                    if (first + j > lastSaved) records.add(inFile.get(j));
+                }
+            }
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long append(byte[] record) {
+        lock.lock();
+        try {
+            pending.add(record);
+            return ++lastAppended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void sync(long position) {
+        lock.lock();
+        try {
+            while (lastDurable < position) {
+                if (failure != null) throw new UncheckedIOException(failure);
+                if (isFlushing) {
+                    flushed.awaitUninterruptibly();
+                    continue;
+                }
+                flush();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes every record appended so far and forces it to disk. The lock is released while writing, so records can
+     * still be appended; they are written by the next flush.
+     */
+    private void flush() {
+        isFlushing = true;
+        List<byte[]> batch = pending;
+        pending = new ArrayList<>();
+        long batchEnd = lastAppended;
+        FileChannel target = channel;
+        IOException error = null;
+        lock.unlock();
+        try {
+            write(target, batch);
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            lock.lock();
+        }
+        isFlushing = false;
+        if (error == null) {
+            lastDurable = batchEnd;
+            numFlushes++;
+        } else {
+            failure = error;
+        }
+        flushed.signalAll();
+    }
+
+    private static void write(FileChannel target, List<byte[]> batch) throws IOException {
+        int size = 0;
+        for (byte[] record : batch) {
+            size += HEADER_SIZE + record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        CRC32 crc = new CRC32();
+        for (byte[] record : batch) {
+            crc.reset();
+            crc.update(record);
+            buffer.putInt(record.length);
+            buffer.putInt((int) crc.getValue());
+            buffer.put(record);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+        target.force(false);
+    }
+
+    /**
+     * Writes every record appended so far, and starts a new file for the records appended from now on.
+     * @return the position of the last record before the new file.
+     * @throws IOException if the journal cannot be written.
+     */
+    public long rotate() throws IOException {
+        lock.lock();
+        try {
+            // the lock is still held by this thread while the flush writes, so nothing is appended meanwhile
+            sync(lastAppended);
+            startFile();
+            return lastAppended;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the files whose records all come at or before a position. The newest file is never deleted.
+     * @param lastSaved the position of the last record that does not need to be replayed any more.
+     * @throws IOException if a file cannot be deleted.
+     */
+    public void truncate(long lastSaved) throws IOException {
+        lock.lock();
+        try {
+            List<Long> files = listFiles();
+            for (int i = 0; i + 1 < files.size() && files.get(i + 1) <= lastSaved + 1; i++) {
+                Files.delete(getFilePath(files.get(i)));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the position of the last record appended.
+     */
+    public long getLastPosition() {
+        lock.lock();
+        try {
+            return lastAppended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of times records have been forced to disk. Records written together count once.
+     */
+    public long getNumFlushes() {
+        lock.lock();
+        try {
+            return numFlushes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the records that are still waiting and closes the current file.
+     * @throws IOException if the records cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            sync(lastAppended);
+            channel.close();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -32,6 +32,24 @@ public class AttendeePresenterCH implements IAttendeePresenter{
         return "消息";
     }
 
+    /**
+     * @param numUnread the number of unread messages.
+     * @return how many messages were unread.
+     */
+    @Override
+    public String unreadMessages(int numUnread) {
+        return "（" + numUnread + " 条未读）";
+    }
+
+    /**
+     * @param retryAfterSeconds the number of seconds until the user may send another message.
+     * @return the user is sending messages too quickly.
+     */
+    @Override
+    public String sendingTooFast(long retryAfterSeconds) {
+        return "消息发送过于频繁，请在 " + retryAfterSeconds + " 秒后重试。";
+    }
+
     /**
      * @return user not found.
      */
@@ -169,6 +187,31 @@ public class AttendeePresenterCH implements IAttendeePresenter{
         return "查看所有活动";
     }
 
+    /**
+     * @return Load more
+     */
+    @Override
+    public String loadMoreButton() {
+        return "加载更多";
+    }
+
+    /**
+     * @return Recent conversations:
+     */
+    @Override
+    public String recentConversations() {
+        return "最近的对话：";
+    }
+
+    /**
+     * @return one line of the program listing describing a single event
+     */
+    @Override
+    public String eventSummary(int roomNumber, String title, String startTime, String endTime, int freeSeats, boolean isVipOnly) {
+        return "房间" + roomNumber + "：" + title + "，" + startTime + " 至 " + endTime + "，剩余" + freeSeats +
+                "个座位" + (isVipOnly ? "（VIP）" : "");
+    }
+
     /**
      * @return View signed up events.
      */
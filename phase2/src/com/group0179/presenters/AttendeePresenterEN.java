@@ -32,6 +32,24 @@ public class AttendeePresenterEN implements IAttendeePresenter{
         return "Message";
     }
 
+    /**
+     * @param numUnread the number of unread messages.
+     * @return how many messages were unread.
+     */
+    @Override
+    public String unreadMessages(int numUnread) {
+        return "(" + numUnread + " unread)";
+    }
+
+    /**
+     * @param retryAfterSeconds the number of seconds until the user may send another message.
+     * @return the user is sending messages too quickly.
+     */
+    @Override
+    public String sendingTooFast(long retryAfterSeconds) {
+        return "You are sending messages too quickly. Try again in " + retryAfterSeconds + " s.";
+    }
+
     /**
      * @return user not found.
      */
@@ -169,6 +187,31 @@ public class AttendeePresenterEN implements IAttendeePresenter{
         return "View All Events";
     }
 
+    /**
+     * @return Load more
+     */
+    @Override
+    public String loadMoreButton() {
+        return "Load more";
+    }
+
+    /**
+     * @return Recent conversations:
+     */
+    @Override
+    public String recentConversations() {
+        return "Recent conversations:";
+    }
+
+    /**
+     * @return one line of the program listing describing a single event
+     */
+    @Override
+    public String eventSummary(int roomNumber, String title, String startTime, String endTime, int freeSeats, boolean isVipOnly) {
+        return "Room " + roomNumber + ": " + title + " at " + startTime + " to " + endTime + ", " + freeSeats +
+                " seats left" + (isVipOnly ? " (VIP)" : "");
+    }
+
     /**
      * @return View signed up events.
      */
@@ -21,6 +21,18 @@ public interface IAttendeePresenter {
      */
     String messageWord();
 
+    /**
+     * @param numUnread the number of unread messages.
+     * @return how many messages were unread.
+     */
+    String unreadMessages(int numUnread);
+
+    /**
+     * @param retryAfterSeconds the number of seconds until the user may send another message.
+     * @return the user is sending messages too quickly.
+     */
+    String sendingTooFast(long retryAfterSeconds);
+
     /**
      * @return user not found.
      */
@@ -136,6 +148,21 @@ public interface IAttendeePresenter {
      */
     String viewAllEvents();
 
+    /**
+     * @return Load more
+     */
+    String loadMoreButton();
+
+    /**
+     * @return Recent conversations:
+     */
+    String recentConversations();
+
+    /**
+     * @return one line of the program listing describing a single event
+     */
+    String eventSummary(int roomNumber, String title, String startTime, String endTime, int freeSeats, boolean isVipOnly);
+
     /**
      * @return View signed up events.
      */
@@ -9,6 +9,8 @@ public interface IOrganizerPresenter {
 
     ArrayList<String> getEvents(String roomsListSelection);
 
+    ArrayList<String> searchMessages(String query);
+
     String reMenuButtonText();
 
     String speakerManagementButtonText();
@@ -33,6 +35,8 @@ public interface IOrganizerPresenter {
 
     String removeEventButtonText();
 
+    String removeRoomButtonText();
+
     String rescheduleEventFormButtonText();
 
     String rescheduleEventButtonText();
@@ -105,6 +109,14 @@ public interface IOrganizerPresenter {
 
     String messageSpeakersFormButtonText();
 
+    String searchMessagesFormButtonText();
+
+    String searchPrompt();
+
+    String searchButtonText();
+
+    String noSearchResults();
+
     String recipientsPrompt();
 
     String messagePrompt();
@@ -119,6 +131,8 @@ public interface IOrganizerPresenter {
 
     String isVipOnlyPrompt();
 
+    String repeatDaysPrompt();
+
     /**
      * @return Statistics
      */
@@ -151,6 +165,14 @@ public interface IOrganizerPresenter {
      * @return User not found
      */
     String userNotFound();
+    /**
+     * @return how much compressing long messages has saved, and what it has cost
+     */
+    String compressionStatistics();
+    /**
+     * @return how many messages the send rate limit has let through and turned away
+     */
+    String sendRateStatistics();
 
     /**
      * @return Attendee Account
@@ -17,6 +17,18 @@ public interface ISpeakerPresenter {
      */
     String messageWord();
 
+    /**
+     * @param numUnread the number of unread messages.
+     * @return how many messages were unread.
+     */
+    String unreadMessages(int numUnread);
+
+    /**
+     * @param retryAfterSeconds the number of seconds until the user may send another message.
+     * @return the user is sending messages too quickly.
+     */
+    String sendingTooFast(long retryAfterSeconds);
+
     /**
      * @return user not found.
      */
@@ -93,6 +105,21 @@ public interface ISpeakerPresenter {
      */
     String usersToSee();
 
+    /**
+     * @return Search messages
+     */
+    String searchMessages();
+
+    /**
+     * @return Enter the words to search your messages for.
+     */
+    String searchPrompt();
+
+    /**
+     * @return No messages found.
+     */
+    String noSearchResults();
+
     /**
      * @return Submit
      */
@@ -103,6 +130,21 @@ public interface ISpeakerPresenter {
      */
     String viewAllEvents();
 
+    /**
+     * @return Load more
+     */
+    String loadMoreButton();
+
+    /**
+     * @return Recent conversations:
+     */
+    String recentConversations();
+
+    /**
+     * @return one line of the program listing describing a single event
+     */
+    String eventSummary(int roomNumber, String title, String startTime, String endTime, int freeSeats, boolean isVipOnly);
+
     /**
      * @return View signed up events.
      */
@@ -193,6 +235,31 @@ public interface ISpeakerPresenter {
      */
     String sendmessagetoEvent();
 
+    /**
+     * @param ticketNumber the ticket of a queued message.
+     * @return Message queued for delivery.
+     */
+    String messageQueued(long ticketNumber);
+
+    /**
+     * @return Check delivery
+     */
+    String checkDelivery();
+
+    /**
+     * @param ticketNumber the ticket of a queued message.
+     * @param numDelivered the number of recipients the message has reached.
+     * @param numRecipients the number of recipients of the message.
+     * @return how far delivery of the message has come.
+     */
+    String deliveryProgress(long ticketNumber, int numDelivered, int numRecipients);
+
+    /**
+     * @param ticketNumber the ticket of a queued message.
+     * @return The message could not be delivered.
+     */
+    String deliveryFailed(long ticketNumber);
+
     /**
      * @return how many logins ago string
      */
@@ -1,7 +1,9 @@
 package com.group0179.presenters;
 
+import com.group0179.use_cases.MessageCompressor;
 import com.group0179.use_cases.MessageManager;
 import com.group0179.use_cases.RoomManager;
+import com.group0179.use_cases.SendRateLimiter;
 import com.group0179.use_cases.UserManager;
 
 import java.util.ArrayList;
@@ -10,6 +12,7 @@ public class OrganizerPresenterCH extends Presenter implements IOrganizerPresent
     private final UserManager um;
     private final RoomManager rm;
     private final MessageManager mm;
+    private static final int SEARCH_LIMIT = 20;
 
     public OrganizerPresenterCH(UserManager um, RoomManager rm, MessageManager mm) {
         this.um = um;
@@ -29,8 +32,8 @@ public class OrganizerPresenterCH extends Presenter implements IOrganizerPresent
      */
     public ArrayList<String> getRoomListArray() {
         ArrayList<String> rooms = new ArrayList<>();
-        for (int n = 1; n <= rm.getNumRooms(); n++) {
-            rooms.add("房间 " + n + " (容量: " + rm.getRoomCapacity(n - 1) + ")");
+        for (int roomNumber : rm.getRoomNumbers()) {
+            rooms.add("房间 " + (roomNumber + 1) + " (容量: " + rm.getRoomCapacity(roomNumber) + ")");
         } return rooms;
     }
 
@@ -43,7 +46,21 @@ public class OrganizerPresenterCH extends Presenter implements IOrganizerPresent
      * @return return a list of string representing the events' information in the room.
      */
     public ArrayList<String> getEvents(String roomsListSelection) {
-        return rm.getEventsOfRoom(getRoomNumber(roomsListSelection));
+        return rm.getEventsOfRoom(getRoomNumber(roomsListSelection), um);
+    }
+
+    /**
+     * @param query the words to search the current user's messages for.
+     * @return the best matching messages as "sender: content", or a single line saying nothing was found.
+     */
+    public ArrayList<String> searchMessages(String query) {
+        ArrayList<String> results = new ArrayList<>();
+        for (MessageManager.ReceivedMessage message : mm.searchMessages(um, um.getCurrentUser(), query, SEARCH_LIMIT)) {
+            results.add(um.getUsername(message.senderID) + ": " + message.content);
+        }
+        if (results.isEmpty()) {
+            results.add(noSearchResults());
+        } return results;
     }
 
     /**
@@ -130,6 +147,13 @@ public class OrganizerPresenterCH extends Presenter implements IOrganizerPresent
         return "移除活动";
     }
 
+    /**
+     * @return a string representing "remove room".
+     */
+    public String removeRoomButtonText() {
+        return "移除房间";
+    }
+
     /**
      * @return a string representing "reschedule event"
      */
@@ -293,7 +317,8 @@ public class OrganizerPresenterCH extends Presenter implements IOrganizerPresent
      */
     public String createRoomStatus(boolean status) {
         if (status) {
-            return "房间 " + rm.getNumRooms() + " 创建成功.";
+            ArrayList<Integer> roomNumbers = rm.getRoomNumbers();
+            return "房间 " + (roomNumbers.get(roomNumbers.size() - 1) + 1) + " 创建成功.";
         } return "无效的房间容量。";
     }
 
@@ -371,6 +396,34 @@ public class OrganizerPresenterCH extends Presenter implements IOrganizerPresent
         return "所有演讲者";
     }
 
+    /**
+     * @return a string representing "search messages".
+     */
+    public String searchMessagesFormButtonText() {
+        return "搜索消息";
+    }
+
+    /**
+     * @return a string representing "search for".
+     */
+    public String searchPrompt() {
+        return "搜索:";
+    }
+
+    /**
+     * @return a string representing "search".
+     */
+    public String searchButtonText() {
+        return "搜索";
+    }
+
+    /**
+     * @return a string representing "no messages found".
+     */
+    public String noSearchResults() {
+        return "没有找到消息。";
+    }
+
     /**
      * @return a string representing "recipient".
      */
@@ -421,6 +474,14 @@ public class OrganizerPresenterCH extends Presenter implements IOrganizerPresent
         return "vip活动";
     }
 
+    /**
+     * @return a string representing "number of days the event repeats".
+     */
+    @Override
+    public String repeatDaysPrompt() {
+        return "每日重复天数（可选）：";
+    }
+
     /**
      * @return Statistics
      */
@@ -485,6 +546,27 @@ public class OrganizerPresenterCH extends Presenter implements IOrganizerPresent
         return "未找到用户";
     }
 
+    /**
+     * @return how much compressing long messages has saved, and what it has cost
+     */
+    @Override
+    public String compressionStatistics() {
+        MessageCompressor.Stats stats = mm.getCompressionStats();
+        return String.format("已压缩长消息：%d 条，压缩至 %d 字节的 %.0f%%，用时 %.1f 毫秒；已解压：%d 条，用时 %.1f 毫秒",
+                stats.numCompressed, stats.uncompressedBytes, stats.getRatio() * 100, stats.compressionNanos / 1e6,
+                stats.numDecompressed, stats.decompressionNanos / 1e6);
+    }
+
+    /**
+     * @return how many messages the send rate limit has let through and turned away
+     */
+    @Override
+    public String sendRateStatistics() {
+        SendRateLimiter.Stats stats = mm.getSendRateStats();
+        return "已发送消息：" + stats.numAllowed + " 条，因发送过快被拒绝：" + stats.numRejected + " 条，受限发送者："
+                + stats.numSenders + " 人";
+    }
+
     /**
      * @return Attendee Account
      */
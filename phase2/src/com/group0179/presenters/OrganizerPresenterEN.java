@@ -1,7 +1,9 @@
 package com.group0179.presenters;
 
+import com.group0179.use_cases.MessageCompressor;
 import com.group0179.use_cases.MessageManager;
 import com.group0179.use_cases.RoomManager;
+import com.group0179.use_cases.SendRateLimiter;
 import com.group0179.use_cases.UserManager;
 
 import java.util.ArrayList;
@@ -10,6 +12,7 @@ public class OrganizerPresenterEN extends Presenter implements IOrganizerPresent
     private final UserManager um;
     private final RoomManager rm;
     private final MessageManager mm;
+    private static final int SEARCH_LIMIT = 20;
 
     public OrganizerPresenterEN(UserManager um, RoomManager rm, MessageManager mm) {
         this.um = um;
@@ -29,8 +32,8 @@ public class OrganizerPresenterEN extends Presenter implements IOrganizerPresent
      */
     public ArrayList<String> getRoomListArray() {
         ArrayList<String> rooms = new ArrayList<>();
-        for (int n = 1; n <= rm.getNumRooms(); n++) {
-            rooms.add("Room " + n + " (Capacity: " + rm.getRoomCapacity(n - 1) + ")");
+        for (int roomNumber : rm.getRoomNumbers()) {
+            rooms.add("Room " + (roomNumber + 1) + " (Capacity: " + rm.getRoomCapacity(roomNumber) + ")");
         } return rooms;
     }
 
@@ -43,7 +46,21 @@ public class OrganizerPresenterEN extends Presenter implements IOrganizerPresent
      * @return return a list of string representing the events' information in the room.
      */
     public ArrayList<String> getEvents(String roomsListSelection) {
-        return rm.getEventsOfRoom(getRoomNumber(roomsListSelection));
+        return rm.getEventsOfRoom(getRoomNumber(roomsListSelection), um);
+    }
+
+    /**
+     * @param query the words to search the current user's messages for.
+     * @return the best matching messages as "sender: content", or a single line saying nothing was found.
+     */
+    public ArrayList<String> searchMessages(String query) {
+        ArrayList<String> results = new ArrayList<>();
+        for (MessageManager.ReceivedMessage message : mm.searchMessages(um, um.getCurrentUser(), query, SEARCH_LIMIT)) {
+            results.add(um.getUsername(message.senderID) + ": " + message.content);
+        }
+        if (results.isEmpty()) {
+            results.add(noSearchResults());
+        } return results;
     }
 
     /**
@@ -134,6 +151,13 @@ public class OrganizerPresenterEN extends Presenter implements IOrganizerPresent
         return "Remove Event";
     }
 
+    /**
+     * @return a string representing "remove room".
+     */
+    public String removeRoomButtonText() {
+        return "Remove Room";
+    }
+
     /**
      * @return a string representing "reschedule event"
      */
@@ -297,7 +321,8 @@ public class OrganizerPresenterEN extends Presenter implements IOrganizerPresent
      */
     public String createRoomStatus(boolean status) {
         if (status) {
-            return "Room " + rm.getNumRooms() + " created successfully.";
+            ArrayList<Integer> roomNumbers = rm.getRoomNumbers();
+            return "Room " + (roomNumbers.get(roomNumbers.size() - 1) + 1) + " created successfully.";
         } return "Invalid room capacity.";
     }
 
@@ -375,6 +400,34 @@ public class OrganizerPresenterEN extends Presenter implements IOrganizerPresent
         return "All Speakers";
     }
 
+    /**
+     * @return a string representing "search messages".
+     */
+    public String searchMessagesFormButtonText() {
+        return "Search Messages";
+    }
+
+    /**
+     * @return a string representing "search for".
+     */
+    public String searchPrompt() {
+        return "Search for:";
+    }
+
+    /**
+     * @return a string representing "search".
+     */
+    public String searchButtonText() {
+        return "Search";
+    }
+
+    /**
+     * @return a string representing "no messages found".
+     */
+    public String noSearchResults() {
+        return "No messages found.";
+    }
+
     /**
      * @return a string representing "recipient".
      */
@@ -425,6 +478,14 @@ public class OrganizerPresenterEN extends Presenter implements IOrganizerPresent
         return "Event Vip only";
     }
 
+    /**
+     * @return a string representing "number of days the event repeats".
+     */
+    @Override
+    public String repeatDaysPrompt() {
+        return "Repeat daily for [days, optional]:";
+    }
+
     /**
      * @return Statistics
      */
@@ -489,6 +550,27 @@ public class OrganizerPresenterEN extends Presenter implements IOrganizerPresent
         return "User not found";
     }
 
+    /**
+     * @return how much compressing long messages has saved, and what it has cost
+     */
+    @Override
+    public String compressionStatistics() {
+        MessageCompressor.Stats stats = mm.getCompressionStats();
+        return String.format("Long messages compressed: %d, to %.0f%% of %d bytes, in %.1f ms; "
+                + "decompressed: %d, in %.1f ms", stats.numCompressed, stats.getRatio() * 100, stats.uncompressedBytes,
+                stats.compressionNanos / 1e6, stats.numDecompressed, stats.decompressionNanos / 1e6);
+    }
+
+    /**
+     * @return how many messages the send rate limit has let through and turned away
+     */
+    @Override
+    public String sendRateStatistics() {
+        SendRateLimiter.Stats stats = mm.getSendRateStats();
+        return "Messages allowed: " + stats.numAllowed + ", turned away for sending too quickly: " + stats.numRejected
+                + ", from " + stats.numSenders + " senders who have a limit";
+    }
+
     /**
      * @return Attendee Account
      */
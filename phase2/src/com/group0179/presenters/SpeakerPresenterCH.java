@@ -25,6 +25,24 @@ public class SpeakerPresenterCH implements ISpeakerPresenter{
         return "消息";
     }
 
+    /**
+     * @param numUnread the number of unread messages.
+     * @return how many messages were unread.
+     */
+    @Override
+    public String unreadMessages(int numUnread) {
+        return "（" + numUnread + " 条未读）";
+    }
+
+    /**
+     * @param retryAfterSeconds the number of seconds until the user may send another message.
+     * @return the user is sending messages too quickly.
+     */
+    @Override
+    public String sendingTooFast(long retryAfterSeconds) {
+        return "消息发送过于频繁，请在 " + retryAfterSeconds + " 秒后重试。";
+    }
+
     /**
      * @return user not found.
      */
@@ -146,6 +164,30 @@ public class SpeakerPresenterCH implements ISpeakerPresenter{
         return "请输入你想查看消息的用户名, 输入 'all' 以查看全部消息。";
     }
 
+    /**
+     * @return Search messages
+     */
+    @Override
+    public String searchMessages() {
+        return "搜索消息";
+    }
+
+    /**
+     * @return Enter the words to search your messages for.
+     */
+    @Override
+    public String searchPrompt() {
+        return "请输入要在消息中搜索的词语。";
+    }
+
+    /**
+     * @return No messages found.
+     */
+    @Override
+    public String noSearchResults() {
+        return "没有找到消息。";
+    }
+
     /**
      * @return Submit
      */
@@ -162,6 +204,31 @@ public class SpeakerPresenterCH implements ISpeakerPresenter{
         return "查看所有活动";
     }
 
+    /**
+     * @return Load more
+     */
+    @Override
+    public String loadMoreButton() {
+        return "加载更多";
+    }
+
+    /**
+     * @return Recent conversations:
+     */
+    @Override
+    public String recentConversations() {
+        return "最近的对话：";
+    }
+
+    /**
+     * @return one line of the program listing describing a single event
+     */
+    @Override
+    public String eventSummary(int roomNumber, String title, String startTime, String endTime, int freeSeats, boolean isVipOnly) {
+        return "房间" + roomNumber + "：" + title + "，" + startTime + " 至 " + endTime + "，剩余" + freeSeats +
+                "个座位" + (isVipOnly ? "（VIP）" : "");
+    }
+
     /**
      * @return View signed up events.
      */
@@ -278,6 +345,43 @@ public class SpeakerPresenterCH implements ISpeakerPresenter{
     @Override
     public String sendmessagetoEvent(){return "发消息给改活动的所有参与者。";}
 
+    /**
+     * @param ticketNumber the ticket of a queued message.
+     * @return Message queued for delivery.
+     */
+    @Override
+    public String messageQueued(long ticketNumber) {
+        return "消息已排队等待发送（编号 " + ticketNumber + "）。";
+    }
+
+    /**
+     * @return Check delivery
+     */
+    @Override
+    public String checkDelivery() {
+        return "查看发送状态";
+    }
+
+    /**
+     * @param ticketNumber the ticket of a queued message.
+     * @param numDelivered the number of recipients the message has reached.
+     * @param numRecipients the number of recipients of the message.
+     * @return how far delivery of the message has come.
+     */
+    @Override
+    public String deliveryProgress(long ticketNumber, int numDelivered, int numRecipients) {
+        return "编号 " + ticketNumber + "：已发送给 " + numDelivered + " / " + numRecipients + " 位参与者。";
+    }
+
+    /**
+     * @param ticketNumber the ticket of a queued message.
+     * @return The message could not be delivered.
+     */
+    @Override
+    public String deliveryFailed(long ticketNumber) {
+        return "编号 " + ticketNumber + "：消息无法发送。";
+    }
+
     /**
      * @return how many logins ago string
      */
@@ -25,6 +25,24 @@ public class SpeakerPresenterEN implements ISpeakerPresenter{
         return "Message";
     }
 
+    /**
+     * @param numUnread the number of unread messages.
+     * @return how many messages were unread.
+     */
+    @Override
+    public String unreadMessages(int numUnread) {
+        return "(" + numUnread + " unread)";
+    }
+
+    /**
+     * @param retryAfterSeconds the number of seconds until the user may send another message.
+     * @return the user is sending messages too quickly.
+     */
+    @Override
+    public String sendingTooFast(long retryAfterSeconds) {
+        return "You are sending messages too quickly. Try again in " + retryAfterSeconds + " s.";
+    }
+
     /**
      * @return user not found.
      */
@@ -146,6 +164,30 @@ public class SpeakerPresenterEN implements ISpeakerPresenter{
         return "Enter username of who's messages you would like to see, enter 'all' for all.";
     }
 
+    /**
+     * @return Search messages
+     */
+    @Override
+    public String searchMessages() {
+        return "Search Messages";
+    }
+
+    /**
+     * @return Enter the words to search your messages for.
+     */
+    @Override
+    public String searchPrompt() {
+        return "Enter the words to search your messages for.";
+    }
+
+    /**
+     * @return No messages found.
+     */
+    @Override
+    public String noSearchResults() {
+        return "No messages found.";
+    }
+
     /**
      * @return Submit
      */
@@ -162,6 +204,31 @@ public class SpeakerPresenterEN implements ISpeakerPresenter{
         return "View All Events";
     }
 
+    /**
+     * @return Load more
+     */
+    @Override
+    public String loadMoreButton() {
+        return "Load more";
+    }
+
+    /**
+     * @return Recent conversations:
+     */
+    @Override
+    public String recentConversations() {
+        return "Recent conversations:";
+    }
+
+    /**
+     * @return one line of the program listing describing a single event
+     */
+    @Override
+    public String eventSummary(int roomNumber, String title, String startTime, String endTime, int freeSeats, boolean isVipOnly) {
+        return "Room " + roomNumber + ": " + title + " at " + startTime + " to " + endTime + ", " + freeSeats +
+                " seats left" + (isVipOnly ? " (VIP)" : "");
+    }
+
     /**
      * @return View signed up events.
      */
@@ -278,6 +345,43 @@ public class SpeakerPresenterEN implements ISpeakerPresenter{
     @Override
     public String sendmessagetoEvent(){return "Send a message all attendees of an event";}
 
+    /**
+     * @param ticketNumber the ticket of a queued message.
+     * @return Message queued for delivery.
+     */
+    @Override
+    public String messageQueued(long ticketNumber) {
+        return "Message queued for delivery (ticket " + ticketNumber + ").";
+    }
+
+    /**
+     * @return Check delivery
+     */
+    @Override
+    public String checkDelivery() {
+        return "Check Delivery";
+    }
+
+    /**
+     * @param ticketNumber the ticket of a queued message.
+     * @param numDelivered the number of recipients the message has reached.
+     * @param numRecipients the number of recipients of the message.
+     * @return how far delivery of the message has come.
+     */
+    @Override
+    public String deliveryProgress(long ticketNumber, int numDelivered, int numRecipients) {
+        return "Ticket " + ticketNumber + ": delivered to " + numDelivered + " of " + numRecipients + " attendees.";
+    }
+
+    /**
+     * @param ticketNumber the ticket of a queued message.
+     * @return The message could not be delivered.
+     */
+    @Override
+    public String deliveryFailed(long ticketNumber) {
+        return "Ticket " + ticketNumber + ": the message could not be delivered.";
+    }
+
     /**
      * @return how many logins ago string
      */
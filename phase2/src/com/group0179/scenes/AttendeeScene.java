@@ -10,6 +10,7 @@ import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.chart.*;
 import javafx.scene.control.Button;
+import javafx.scene.control.ListView;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.BorderPane;
@@ -181,14 +182,50 @@ public class AttendeeScene implements IScene{
             });
 
             Button submitButton = new Button(langPresenter.submit());
+            // a conversation with one user is shown a page at a time, newest first
+            ListView<String> messageList = new ListView<>();
+            messageList.setPrefWidth(x/1.5);
+            Button loadMoreButton = new Button(langPresenter.loadMoreButton());
+            loadMoreButton.setOnAction(actionEvent1 -> {
+                List<String> page = presenter.viewMessagesPage(textField.getText(), false);
+                messageList.getItems().addAll(page);
+                if (page.isEmpty()) loadMoreButton.setDisable(true);
+            });
             submitButton.setOnAction(actionEvent13 -> {
                 // adds result when button pressed
-                result.setText(presenter.viewMessages(textField.getText()));
+                bottomMenu.getChildren().removeAll(result, messageList, loadMoreButton);
+                if (textField.getText().equals("all")) {
+                    result.setText(presenter.viewMessages(textField.getText()));
+                    GridPane.setConstraints(result, 0, 4);
+                    bottomMenu.getChildren().add(result);
+                } else {
+                    messageList.getItems().setAll(presenter.viewMessagesPage(textField.getText(), true));
+                    loadMoreButton.setDisable(false);
+                    GridPane.setConstraints(messageList, 0, 4);
+                    GridPane.setConstraints(loadMoreButton, 0, 5);
+                    bottomMenu.getChildren().addAll(messageList, loadMoreButton);
+                }
             });
             GridPane.setConstraints(submitButton, 0, 3);
             bottomMenu.getChildren().add(submitButton);
-            GridPane.setConstraints(result, 0, 4);
-            bottomMenu.getChildren().add(result);
+
+            // the users who wrote last are listed below, and picking one fills in their username
+            Text recentLabel = atScene.txtObjCreater(langPresenter.recentConversations(), x/1.5);
+            List<String> recentUsernames = new ArrayList<>();
+            ListView<String> recentList = new ListView<>();
+            recentList.setPrefWidth(x/1.5);
+            recentList.setPrefHeight(y/5);
+            presenter.viewRecentContacts().forEach((username, line) -> {
+                recentUsernames.add(username);
+                recentList.getItems().add(line);
+            });
+            recentList.setOnMouseClicked(mouseEvent -> {
+                int selected = recentList.getSelectionModel().getSelectedIndex();
+                if (selected >= 0) textField.setText(recentUsernames.get(selected));
+            });
+            GridPane.setConstraints(recentLabel, 0, 6);
+            GridPane.setConstraints(recentList, 0, 7);
+            bottomMenu.getChildren().addAll(recentLabel, recentList);
 
 
         });
@@ -196,8 +233,20 @@ public class AttendeeScene implements IScene{
         Button button3 = new Button(langPresenter.viewAllEvents());
         button3.setOnAction(actionEvent -> {
             bottomMenu.getChildren().clear();
-            bottomMenu.getChildren().add(txtObj);
-            txtObj.setText(presenter.viewAllEvents());
+            // shows the program one page at a time, more pages are loaded on request
+            ListView<String> eventList = new ListView<>();
+            eventList.setPrefWidth(x/1.5);
+            eventList.getItems().addAll(presenter.viewEventsPage(true));
+            Button loadMoreButton = new Button(langPresenter.loadMoreButton());
+            loadMoreButton.setOnAction(actionEvent1 -> {
+                List<String> page = presenter.viewEventsPage(false);
+                eventList.getItems().addAll(page);
+                if (page.isEmpty()) loadMoreButton.setDisable(true);
+            });
+            GridPane.setConstraints(eventList, 0, 0);
+            bottomMenu.getChildren().add(eventList);
+            GridPane.setConstraints(loadMoreButton, 0, 1);
+            bottomMenu.getChildren().add(loadMoreButton);
         });
 
         Button button4 = new Button(langPresenter.viewAllSignedUpevents());
@@ -20,6 +20,7 @@ import javafx.scene.text.Text;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -39,7 +40,8 @@ public class OrganizerScene implements IScene {
     Scene mainScene;
 
     int currentRoomNumber = 0;
-    int currentEventNumber = 0;
+    List<UUID> currentEventIDs = new ArrayList<>();
+    UUID currentEventID;
 
     /**
      * contructor of OrganizerScene
@@ -118,6 +120,8 @@ public class OrganizerScene implements IScene {
 
                     Label isVipOnlyLabel = new Label(presenter.isVipOnlyPrompt());
                     CheckBox isVipOnlyInput = new CheckBox();
+                    Label repeatDaysLabel = new Label(presenter.repeatDaysPrompt());
+                    TextField repeatDaysInput = new TextField();
                     // Reschedule Event (given Room and Event)
                     GridPane rescheduleEventForm = new GridPane(); rescheduleEventForm.setVgap(10); rescheduleEventForm.setHgap(10); rescheduleEventForm.setPadding(new Insets(0, 10, 0, 10));
                     HBox rescheduleEventFormBottomMenu = new HBox(); rescheduleEventFormBottomMenu.setSpacing(10); rescheduleEventFormBottomMenu.setPadding(new Insets(10, 10, 10, 10));
@@ -180,6 +184,12 @@ public class OrganizerScene implements IScene {
             Label messageToSpeakersLabel = new Label(presenter.messagePrompt());
             TextArea messageToSpeakersInput = new TextArea();
             Label messageSpeakersSuccess = new Label(presenter.messageRecipientStatus());
+            // Search Messages
+            GridPane searchMessagesForm = new GridPane(); searchMessagesForm.setVgap(10); searchMessagesForm.setHgap(10); searchMessagesForm.setPadding(new Insets(0, 10, 0, 10));
+            HBox searchMessagesFormBottomMenu = new HBox(); searchMessagesFormBottomMenu.setSpacing(10); searchMessagesFormBottomMenu.setPadding(new Insets(10, 10, 10, 10));
+            Label searchPromptLabel = new Label(presenter.searchPrompt());
+            TextField searchInput = new TextField();
+            ListView<String> searchResults = new ListView<>();
 
         /*
          * Buttons and input process
@@ -221,6 +231,14 @@ public class OrganizerScene implements IScene {
                     }
                 });
 
+            Button removeRoomButton = new Button(presenter.removeRoomButtonText());
+            removeRoomButton.setOnAction(actionEvent -> {
+                String room = reManager.getSelectionModel().getSelectedItem();
+                if (room != null && filter.removeRoom(Integer.parseInt(room.split(" ")[1]) - 1)) {
+                    reManager.setItems(FXCollections.observableArrayList(presenter.getRoomListArray()));
+                }
+            });
+
             // Button that leads from reManager to viewEventList
             Button viewEventListButton = new Button(presenter.viewEventListButtonText());
             viewEventListButton.setOnAction(actionEvent -> {
@@ -237,6 +255,7 @@ public class OrganizerScene implements IScene {
                     viewEventList.setItems(eventList);
                     // Set the currentRoomNumber
                     currentRoomNumber = Integer.parseInt(room.split(" ")[1]) - 1;
+                    currentEventIDs = filter.getEventIDs(currentRoomNumber);
                 } catch (NullPointerException e) {
                     // "Stay" in current view
                     main.setCenter(reManager);
@@ -262,19 +281,19 @@ public class OrganizerScene implements IScene {
                         createEventForm.getChildren().remove(createEventDateTimeFailure);
                         createEventForm.getChildren().remove(createEventSuccess);
                         if (!filter.inputEventTitle(createEventTitleInput.getText())) {
-                            createEventForm.add(createEventTitleFailure, 0, 9, 2, 1);
+                            createEventForm.add(createEventTitleFailure, 0, 10, 2, 1);
                         } else if (!filter.inputEventSpeaker(createEventSpeakerInput.getText())) {
-                            createEventForm.add(createEventSpeakerFailure, 0, 9, 2, 1);
+                            createEventForm.add(createEventSpeakerFailure, 0, 10, 2, 1);
                         } else if (!filter.inputEventCapacity(createEventCapacityInput.getText(), currentRoomNumber)) {
-                            createEventForm.add(createEventCapacityFailure, 0, 9, 2, 1);
+                            createEventForm.add(createEventCapacityFailure, 0, 10, 2, 1);
                         } else if (!filter.createEvent(createEventTitleInput.getText(), createEventSpeakerInput.getText(),
                                 createEventDateInput.getText(), createEventTimeInput.getText(),
                                 endEventDateInput.getText(), endEventTimeInput.getText(),
                                 createEventCapacityInput.getText(),
-                                currentRoomNumber, isVipOnlyInput.isSelected())) {
-                            createEventForm.add(createEventDateTimeFailure, 0, 9, 2, 1);
+                                currentRoomNumber, isVipOnlyInput.isSelected(), repeatDaysInput.getText())) {
+                            createEventForm.add(createEventDateTimeFailure, 0, 10, 2, 1);
                         } else {
-                            createEventForm.add(createEventSuccess, 0, 9, 2, 1);
+                            createEventForm.add(createEventSuccess, 0, 10, 2, 1);
                         }
                     });
 
@@ -282,16 +301,18 @@ public class OrganizerScene implements IScene {
                 removeEventButton.setOnAction(actionEvent -> {
                     try {
                         int eventNumber = viewEventList.getSelectionModel().getSelectedIndex();
-                        filter.removeEvent(currentRoomNumber, eventNumber);
+                        filter.removeEvent(currentEventIDs.get(eventNumber));
+                        currentEventIDs.remove(eventNumber);
                         viewEventList.getItems().remove(eventNumber);
-                    } catch (ArrayIndexOutOfBoundsException ignored) { }
+                    } catch (IndexOutOfBoundsException ignored) { }
                 });
 
                 // Button that leads from viewEventList to rescheduleEventForm
                 Button rescheduleEventFormButton = new Button(presenter.rescheduleEventFormButtonText());
                 rescheduleEventFormButton.setOnAction(actionEvent -> {
-                    currentEventNumber = viewEventList.getSelectionModel().getSelectedIndex();
-                    if (currentEventNumber != -1) {
+                    int eventNumber = viewEventList.getSelectionModel().getSelectedIndex();
+                    if (eventNumber != -1) {
+                        currentEventID = currentEventIDs.get(eventNumber);
                         main.setCenter(rescheduleEventForm);
                         main.setBottom(rescheduleEventFormBottomMenu);
                         MainView.getStage().setTitle(presenter.rescheduleEventFormTitle());
@@ -303,7 +324,7 @@ public class OrganizerScene implements IScene {
                     rescheduleEventButton.setOnAction(actionEvent -> {
                         rescheduleEventForm.getChildren().remove(rescheduleEventSuccess);
                         rescheduleEventForm.getChildren().remove(rescheduleEventFailure);
-                        if (filter.rescheduleEvent(currentRoomNumber, currentEventNumber, rescheduleEventDateInput.getText(), rescheduleEventTimeInput.getText())) {
+                        if (filter.rescheduleEvent(currentEventID, rescheduleEventDateInput.getText(), rescheduleEventTimeInput.getText())) {
                             rescheduleEventForm.add(rescheduleEventSuccess, 0, 2, 2, 1);
                         } else {
                             rescheduleEventForm.add(rescheduleEventFailure, 0, 2, 2, 1);
@@ -429,6 +450,18 @@ public class OrganizerScene implements IScene {
                     messageSpeakersForm.add(messageSpeakersSuccess, 0, 2);
                 });
 
+            // Button that leads from messageMenuBottomMenu to the message search
+            Button searchMessagesFormButton = new Button(presenter.searchMessagesFormButtonText());
+            searchMessagesFormButton.setOnAction(actionEvent -> {
+                main.setCenter(searchMessagesForm);
+                main.setBottom(searchMessagesFormBottomMenu);
+            });
+
+                // Button that searches the organizer's messages
+                Button searchButton = new Button(presenter.searchButtonText());
+                searchButton.setOnAction(actionEvent ->
+                        searchResults.setItems(FXCollections.observableArrayList(presenter.searchMessages(searchInput.getText()))));
+
 
         GridPane createActBottomMenu = new GridPane();
         Button createActButton = new Button(presenter.createButtonText());
@@ -510,6 +543,13 @@ public class OrganizerScene implements IScene {
             statsBottomMenu.getChildren().add(getInfo);
             GridPane.setConstraints(results, 0, 7);
             statsBottomMenu.getChildren().add(results);
+
+            Text compression = new Text("\n" + presenter.compressionStatistics()); compression.setWrappingWidth(x/1.5);
+            GridPane.setConstraints(compression, 0, 8);
+            statsBottomMenu.getChildren().add(compression);
+            Text sendRate = new Text(presenter.sendRateStatistics()); sendRate.setWrappingWidth(x/1.5);
+            GridPane.setConstraints(sendRate, 0, 9);
+            statsBottomMenu.getChildren().add(sendRate);
         });
 
         // Button that leads from top menu to the Login Scene
@@ -527,7 +567,7 @@ public class OrganizerScene implements IScene {
         topMenu.getChildren().addAll(reManagerButton, speakerManagerButton, messageMenuButton, createActButton, statsButton, logoutButton);
 
             // reManager Elements
-            reManagerBottomMenu.getChildren().addAll(createRoomFormButton, viewEventListButton);
+            reManagerBottomMenu.getChildren().addAll(createRoomFormButton, removeRoomButton, viewEventListButton);
                 // createRoomForm Elements
                 createRoomForm.add(roomCapacityPrompt, 0, 0);
                 createRoomForm.add(roomCapacityInput, 1, 0);
@@ -553,6 +593,8 @@ public class OrganizerScene implements IScene {
 
                     createEventForm.add(isVipOnlyLabel, 0, 7);
                     createEventForm.add(isVipOnlyInput, 1, 7);
+                    createEventForm.add(repeatDaysLabel, 0, 8);
+                    createEventForm.add(repeatDaysInput, 1, 8);
                     // rescheduleEventForm Elements
                     rescheduleEventFormBottomMenu.getChildren().add(rescheduleEventButton);
                     rescheduleEventForm.add(rescheduleEventDateLabel, 0, 0);
@@ -568,7 +610,7 @@ public class OrganizerScene implements IScene {
                 createSpeakerForm.add(createSpeakerButton, 2, 0);
 
             // messageMenuBottomMenu Elements
-            messageMenuBottomMenu.getChildren().addAll(messageCustomRecipientsFormButton, messageAttendeesFormButton, messageSpeakersFormButton);
+            messageMenuBottomMenu.getChildren().addAll(messageCustomRecipientsFormButton, messageAttendeesFormButton, messageSpeakersFormButton, searchMessagesFormButton);
                 // messageCustomRecipientsMenu Elements
                 messageCustomRecipientsForm.add(recipientsLabel, 0, 0);
                 messageCustomRecipientsForm.add(recipientsInput, 0, 1);
@@ -583,6 +625,11 @@ public class OrganizerScene implements IScene {
                 messageSpeakersForm.add(messageToSpeakersLabel, 0, 0);
                 messageSpeakersForm.add(messageToSpeakersInput, 0, 1);
                 messageSpeakersFormBottomMenu.getChildren().add(sendToSpeakersButton);
+                // searchMessagesMenu Elements
+                searchMessagesForm.add(searchPromptLabel, 0, 0);
+                searchMessagesForm.add(searchInput, 0, 1);
+                searchMessagesForm.add(searchResults, 0, 2);
+                searchMessagesFormBottomMenu.getChildren().add(searchButton);
     }
 
     /**
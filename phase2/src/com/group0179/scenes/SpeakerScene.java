@@ -12,12 +12,14 @@ import javafx.scene.chart.LineChart;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.Button;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.text.Text;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 import java.util.concurrent.atomic.AtomicReference;
@@ -192,6 +194,12 @@ public class SpeakerScene implements IScene{
             GridPane.setConstraints(result, 0, 7);
             bottomMenu.getChildren().add(result);
             GridPane.setConstraints(result, 0, 8);
+
+            // the message is delivered in the background, this shows how far it has come
+            Button checkDeliveryButton = new Button(langPresenter.checkDelivery());
+            checkDeliveryButton.setOnAction(actionEvent1 -> result.setText(presenter.deliveryStatus()));
+            GridPane.setConstraints(checkDeliveryButton, 0, 7);
+            bottomMenu.getChildren().add(checkDeliveryButton);
         });
 
 
@@ -249,23 +257,90 @@ public class SpeakerScene implements IScene{
             // adds submit button and result
             Text result = atScene.txtObjCreater("", x/1.5);
             Button submitButton = new Button(langPresenter.submit());
+            // a conversation with one user is shown a page at a time, newest first
+            ListView<String> messageList = new ListView<>();
+            messageList.setPrefWidth(x/1.5);
+            Button loadMoreButton = new Button(langPresenter.loadMoreButton());
+            loadMoreButton.setOnAction(actionEvent1 -> {
+                List<String> page = presenter.viewMessagesPage(textField.getText(), false);
+                messageList.getItems().addAll(page);
+                if (page.isEmpty()) loadMoreButton.setDisable(true);
+            });
             submitButton.setOnAction(actionEvent13 -> {
                 // adds result when button pressed
-                result.setText(presenter.viewMessages(textField.getText()));
+                bottomMenu.getChildren().removeAll(result, messageList, loadMoreButton);
+                if (textField.getText().equals("all")) {
+                    result.setText(presenter.viewMessages(textField.getText()));
+                    GridPane.setConstraints(result, 0, 4);
+                    bottomMenu.getChildren().add(result);
+                } else {
+                    messageList.getItems().setAll(presenter.viewMessagesPage(textField.getText(), true));
+                    loadMoreButton.setDisable(false);
+                    GridPane.setConstraints(messageList, 0, 4);
+                    GridPane.setConstraints(loadMoreButton, 0, 5);
+                    bottomMenu.getChildren().addAll(messageList, loadMoreButton);
+                }
             });
             GridPane.setConstraints(submitButton, 0, 3);
             bottomMenu.getChildren().add(submitButton);
-            GridPane.setConstraints(result, 0, 4);
-            bottomMenu.getChildren().add(result);
 
+            // the users who wrote last are listed below, and picking one fills in their username
+            Text recentLabel = atScene.txtObjCreater(langPresenter.recentConversations(), x/1.5);
+            List<String> recentUsernames = new ArrayList<>();
+            ListView<String> recentList = new ListView<>();
+            recentList.setPrefWidth(x/1.5);
+            recentList.setPrefHeight(y/5);
+            presenter.viewRecentContacts().forEach((username, line) -> {
+                recentUsernames.add(username);
+                recentList.getItems().add(line);
+            });
+            recentList.setOnMouseClicked(mouseEvent -> {
+                int selected = recentList.getSelectionModel().getSelectedIndex();
+                if (selected >= 0) textField.setText(recentUsernames.get(selected));
+            });
+            GridPane.setConstraints(recentLabel, 0, 6);
+            GridPane.setConstraints(recentList, 0, 7);
+            bottomMenu.getChildren().addAll(recentLabel, recentList);
+
+
+        });
+
+        Button searchMessages = new Button(langPresenter.searchMessages());
+        searchMessages.setOnAction(actionEvent -> {
+            bottomMenu.getChildren().clear();
+
+            // adds input box
+            Text label = atScene.txtObjCreater(langPresenter.searchPrompt(), x/1.5);
+            TextField textField = new TextField();
+            displayForm(label, textField, bottomMenu, 0);
 
+            // adds submit button and results
+            Text result = atScene.txtObjCreater("", x/1.5);
+            Button submitButton = new Button(langPresenter.submit());
+            submitButton.setOnAction(actionEvent13 -> result.setText(presenter.searchMessages(textField.getText())));
+            GridPane.setConstraints(submitButton, 0, 3);
+            bottomMenu.getChildren().add(submitButton);
+            GridPane.setConstraints(result, 0, 4);
+            bottomMenu.getChildren().add(result);
         });
 
         Button viewAllEvents = new Button(langPresenter.viewAllEvents());
         viewAllEvents.setOnAction(actionEvent -> {
             bottomMenu.getChildren().clear();
-            bottomMenu.getChildren().add(txtObj);
-            txtObj.setText(presenter.viewAllEvents());
+            // shows the program one page at a time, more pages are loaded on request
+            ListView<String> eventList = new ListView<>();
+            eventList.setPrefWidth(x/1.5);
+            eventList.getItems().addAll(presenter.viewEventsPage(true));
+            Button loadMoreButton = new Button(langPresenter.loadMoreButton());
+            loadMoreButton.setOnAction(actionEvent1 -> {
+                List<String> page = presenter.viewEventsPage(false);
+                eventList.getItems().addAll(page);
+                if (page.isEmpty()) loadMoreButton.setDisable(true);
+            });
+            GridPane.setConstraints(eventList, 0, 0);
+            bottomMenu.getChildren().add(eventList);
+            GridPane.setConstraints(loadMoreButton, 0, 1);
+            bottomMenu.getChildren().add(loadMoreButton);
         });
 
         Button viewSpeakingEvents = new Button(langPresenter.viewSpeakingEventsButton());
@@ -429,7 +504,7 @@ public class SpeakerScene implements IScene{
         });
 
         // Add buttons to Top Menu and sets properties
-        topMenu.getChildren().addAll(sendMessage, viewMessages, viewAllEvents, viewSpeakingEvents, requests, userStats, logoutButton);
+        topMenu.getChildren().addAll(sendMessage, viewMessages, searchMessages, viewAllEvents, viewSpeakingEvents, requests, userStats, logoutButton);
 
         // Set properties of the bottom menu
         bottomMenu.setAlignment(Pos.TOP_LEFT);
@@ -0,0 +1,180 @@
+package com.group0179.use_cases;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.UUID;
+
+/**
+ * A stream that the managers read themselves back from, in the format written by BinaryOutput.
+ */
+public class BinaryInput extends DataInputStream {
+    /**
+     * @param in the stream to read from.
+     */
+    public BinaryInput(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * @param buffer the buffer to read from, from its position to its limit. Reading moves its position, so that once
+     * part of the buffer is read, the position is where the rest of it starts.
+     */
+    public BinaryInput(ByteBuffer buffer) {
+        super(new BufferInputStream(buffer));
+    }
+
+    /**
+     * Reads a ByteBuffer directly, without copying it, so that the pages of a buffer mapped from a file are only
+     * loaded when they are read.
+     */
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    /**
+     * @return an int written by BinaryOutput.writeVarInt.
+     * @throws IOException if the stream cannot be read or the number is longer than an int.
+     */
+    public int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * @return a long written by BinaryOutput.writeVarLong.
+     * @throws IOException if the stream cannot be read or the number is longer than a long.
+     */
+    public long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * @return a long written by BinaryOutput.writeSignedVarLong.
+     * @throws IOException if the stream cannot be read.
+     */
+    public long readSignedVarLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * @return a count written by BinaryOutput, which is checked so that a corrupt file cannot make the reader
+     * allocate a huge collection.
+     * @throws IOException if the stream cannot be read or the count is negative.
+     */
+    public int readCount() throws IOException {
+        int count = readVarInt();
+        if (count < 0) throw new IOException("Negative count " + count);
+        return count;
+    }
+
+    public UUID readUUID() throws IOException {
+        long most = readLong();
+        return new UUID(most, readLong());
+    }
+
+    /**
+     * @return a UUID written by BinaryOutput.writeNullableUUID, or null.
+     * @throws IOException if the stream cannot be read.
+     */
+    public UUID readNullableUUID() throws IOException {
+        return readBoolean() ? readUUID() : null;
+    }
+
+    /**
+     * @return the UUIDs written by BinaryOutput.writeUUIDs, in the order they were written.
+     * @throws IOException if the stream cannot be read.
+     */
+    public ArrayList<UUID> readUUIDs() throws IOException {
+        int count = readCount();
+        ArrayList<UUID> uuids = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            uuids.add(readUUID());
+        }
+        return uuids;
+    }
+
+    /**
+     * @return a string written by BinaryOutput.writeString, or null.
+     * @throws IOException if the stream cannot be read.
+     */
+    public String readString() throws IOException {
+        byte[] bytes = readBytes();
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the strings written by BinaryOutput.writeStrings, in the order they were written.
+     * @throws IOException if the stream cannot be read.
+     */
+    public ArrayList<String> readStrings() throws IOException {
+        int count = readCount();
+        ArrayList<String> texts = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            texts.add(readString());
+        }
+        return texts;
+    }
+
+    /**
+     * @return a byte array written by BinaryOutput.writeBytes, or null.
+     * @throws IOException if the stream cannot be read.
+     */
+    public byte[] readBytes() throws IOException {
+        int length = readCount();
+        if (length == 0) return null;
+        byte[] bytes = new byte[length - 1];
+        readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * @return a time written by BinaryOutput.writeTime in the default time zone, or null.
+     * @throws IOException if the stream cannot be read.
+     */
+    public Calendar readTime() throws IOException {
+        if (!readBoolean()) return null;
+        Calendar time = Calendar.getInstance();
+        time.setTimeInMillis(readLong());
+        return time;
+    }
+}
@@ -0,0 +1,141 @@
+package com.group0179.use_cases;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * A stream that the managers write themselves to, in the compact binary format read by BinaryInput.
+ *
+ * Counts and lengths are written as varints, which take one byte below 128. UUIDs are written as two longs, times as
+ * the number of milliseconds since the epoch, and strings as their length followed by their UTF-8 bytes.
+ */
+public class BinaryOutput extends DataOutputStream {
+    /**
+     * @param out the stream to write to.
+     */
+    public BinaryOutput(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * Writes an int in seven-bit groups, low group first. Negative numbers take five bytes.
+     * @param value the number to write.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        write(value);
+    }
+
+    /**
+     * Writes a long in seven-bit groups, low group first. Negative numbers take ten bytes.
+     * @param value the number to write.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        write((int) value);
+    }
+
+    /**
+     * Writes a long that may be negative, such as the difference between two times, so that small differences
+     * either way take few bytes.
+     * @param value the number to write.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void writeSignedVarLong(long value) throws IOException {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * @param uuid the UUID to write, which must not be null.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void writeUUID(UUID uuid) throws IOException {
+        writeLong(uuid.getMostSignificantBits());
+        writeLong(uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * @param uuid the UUID to write, or null.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void writeNullableUUID(UUID uuid) throws IOException {
+        writeBoolean(uuid != null);
+        if (uuid != null) writeUUID(uuid);
+    }
+
+    /**
+     * Writes a number of UUIDs followed by the UUIDs.
+     * @param uuids the UUIDs to write.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void writeUUIDs(Collection<UUID> uuids) throws IOException {
+        writeVarInt(uuids.size());
+        for (UUID uuid : uuids) {
+            writeUUID(uuid);
+        }
+    }
+
+    /**
+     * Writes a string of any length. Unlike writeUTF, strings are not limited to 64 KB.
+     * @param text the string to write, or null.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void writeString(String text) throws IOException {
+        if (text == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        write(bytes);
+    }
+
+    /**
+     * Writes a number of strings followed by the strings.
+     * @param texts the strings to write.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void writeStrings(Collection<String> texts) throws IOException {
+        writeVarInt(texts.size());
+        for (String text : texts) {
+            writeString(text);
+        }
+    }
+
+    /**
+     * Writes a byte array of any length.
+     * @param bytes the bytes to write, or null.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void writeBytes(byte[] bytes) throws IOException {
+        if (bytes == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(bytes.length + 1);
+        write(bytes);
+    }
+
+    /**
+     * Writes the instant of a calendar. Its time zone is not written; it is read back in the default time zone.
+     * @param time the time to write, or null.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void writeTime(Calendar time) throws IOException {
+        writeBoolean(time != null);
+        if (time != null) writeLong(time.getTimeInMillis());
+    }
+}
@@ -0,0 +1,25 @@
+package com.group0179.use_cases;
+
+/**
+ * An append-only log of the changes made to the managers, so that the changes made since the managers were last saved
+ * can be replayed after a crash. The managers do not need to know where the journal is kept.
+ *
+ * Appending and waiting for a record to reach the disk are separate, so that a manager can append a record while
+ * holding its lock and wait after releasing it, and records appended by several threads meanwhile can be written
+ * together.
+ */
+public interface IJournal {
+    /**
+     * Adds a record to the end of the journal without waiting for it to reach the disk.
+     * @param record the record, as written by Mutations.
+     * @return the position of the record, which is one more than the position of the record before it.
+     */
+    long append(byte[] record);
+
+    /**
+     * Waits until the record at a position, and every record before it, is on disk.
+     * @param position the position returned by append.
+     * @throws java.io.UncheckedIOException if the journal cannot be written.
+     */
+    void sync(long position);
+}
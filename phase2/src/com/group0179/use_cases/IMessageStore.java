@@ -0,0 +1,59 @@
+package com.group0179.use_cases;
+
+import com.group0179.entities.Message;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Stores the Messages sent through a MessageManager, so the MessageManager does not need to know whether they are
+ * kept in memory or on disk.
+ */
+public interface IMessageStore {
+    /**
+     * Stores a new message.
+     * @param message the message to store.
+     * Precondition: no message with the same ID has been stored.
+     */
+    void add(Message message);
+
+    /**
+     * Deletes messages, such as those that have expired, and frees the space they took. Messages may be added and read
+     * while this runs.
+     * @param messageIDs the UUIDs of the messages to delete.
+     */
+    void removeAll(Set<UUID> messageIDs);
+
+    /**
+     * @param messageID the UUID of a message.
+     * @return the message with that ID, or null if there is no such message.
+     */
+    Message get(UUID messageID);
+
+    /**
+     * @return the number of messages in the store.
+     */
+    int size();
+
+    /**
+     * @return the number of distinct message contents in the store. Messages with the same content share one body.
+     */
+    int getNumBodies();
+
+    /**
+     * Trains a preset dictionary from the long messages stored recently, which later long messages are compressed
+     * with.
+     * @return true iff a dictionary was trained.
+     */
+    boolean trainCompressionDictionary();
+
+    /**
+     * @return true iff long messages are compressed with a preset dictionary.
+     */
+    boolean hasCompressionDictionary();
+
+    /**
+     * @return how much compressing long message bodies has saved and cost.
+     */
+    MessageCompressor.Stats getCompressionStats();
+}
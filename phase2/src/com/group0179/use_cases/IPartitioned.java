@@ -0,0 +1,62 @@
+package com.group0179.use_cases;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * A manager that is saved in partitions, such as one per room, and keeps track of which partitions it has changed,
+ * so that saving it again only writes the partitions that changed. The managers do not need to know where the
+ * partitions are kept.
+ *
+ * A partition is marked after the change to it is made, and takeChangedPartitions unmarks a partition before it is
+ * written, so a change made while the partitions are being saved is always saved, either now or the next time.
+ */
+public interface IPartitioned {
+    /**
+     * Where the partitions of a manager are read back from.
+     */
+    interface Source {
+        /**
+         * @param partition the name of a partition.
+         * @return the partition, as written by writePartition. The caller closes it.
+         * @throws IOException if the partition was not saved or cannot be read.
+         */
+        BinaryInput open(String partition) throws IOException;
+
+        /**
+         * @param partition the name of a partition.
+         * @return the partition, as written by writePartition, in a read-only buffer that never changes. The buffer
+         * may be mapped from where the partition was saved, so that only the parts of it that are read are loaded.
+         * @throws IOException if the partition was not saved or cannot be read.
+         */
+        ByteBuffer map(String partition) throws IOException;
+    }
+
+    /**
+     * @return the names of every partition the manager has now. A name is made of letters, digits and dashes, and is
+     * not used by another kind of manager.
+     */
+    Set<String> getPartitions();
+
+    /**
+     * @return the names of the partitions changed since the last call, which are no longer marked as changed. Some
+     * may no longer be partitions of the manager, such as the partition of a room that was removed.
+     */
+    Set<String> takeChangedPartitions();
+
+    /**
+     * Marks partitions as changed again, such as when they were taken but could not be saved.
+     * @param partitions the names of the partitions.
+     */
+    void markChanged(Collection<String> partitions);
+
+    /**
+     * Writes one partition in the compact binary format.
+     * @param partition the name of one of the manager's partitions.
+     * @param out the stream to write to.
+     * @throws IOException if the stream cannot be written.
+     */
+    void writePartition(String partition, BinaryOutput out) throws IOException;
+}
@@ -0,0 +1,140 @@
+package com.group0179.use_cases;
+
+import com.group0179.entities.Message;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A message store that keeps every message on the heap. It is serialized together with its MessageManager.
+ * Messages with the same content share one body, so a repeated announcement costs one body in memory and in the
+ * serialized store. Long bodies are kept compressed, and a Message is only built, and its body decompressed, when it
+ * is read.
+ *
+ * The store has its own lock, so expired messages can be deleted while the MessageManager sends new ones.
+ */
+public class InMemoryMessageStore implements IMessageStore, Serializable {
+    private static class StoredMessage implements Serializable {
+        private final long sequenceNumber;
+        private final long timeSent;
+        private final MessageBodies.Body body;
+
+        private StoredMessage(long sequenceNumber, long timeSent, MessageBodies.Body body) {
+            this.sequenceNumber = sequenceNumber;
+            this.timeSent = timeSent;
+            this.body = body;
+        }
+    }
+
+    private final Map<UUID, StoredMessage> messages = new HashMap<>();
+    private final MessageBodies bodies;
+
+    /**
+     * Creates a store that compresses bodies of at least MessageCompressor.DEFAULT_THRESHOLD bytes.
+     */
+    public InMemoryMessageStore() {
+        this(new MessageCompressor());
+    }
+
+    /**
+     * @param compressor the compressor for long bodies.
+     */
+    public InMemoryMessageStore(MessageCompressor compressor) {
+        this(new MessageBodies(compressor));
+    }
+
+    private InMemoryMessageStore(MessageBodies bodies) {
+        this.bodies = bodies;
+    }
+
+    @Override
+    public synchronized void add(Message message) {
+        MessageBodies.Body body = bodies.acquire(message.getMessageContent());
+        messages.put(message.getMessageID(), new StoredMessage(message.getSequenceNumber(), message.getTimeSent(),
+                body));
+    }
+
+    @Override
+    public synchronized Message get(UUID messageID) {
+        StoredMessage stored = messages.get(messageID);
+        if (stored == null) return null;
+        return new Message(messageID, stored.sequenceNumber, stored.timeSent, bodies.getText(stored.body));
+    }
+
+    @Override
+    public synchronized void removeAll(Set<UUID> messageIDs) {
+        for (UUID messageID : messageIDs) {
+            StoredMessage removed = messages.remove(messageID);
+            if (removed != null) bodies.release(removed.body);
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return messages.size();
+    }
+
+    @Override
+    public synchronized int getNumBodies() {
+        return bodies.size();
+    }
+
+    @Override
+    public synchronized boolean trainCompressionDictionary() {
+        return bodies.getCompressor().trainDictionary() != null;
+    }
+
+    @Override
+    public synchronized boolean hasCompressionDictionary() {
+        return bodies.getCompressor().hasDictionary();
+    }
+
+    @Override
+    public synchronized MessageCompressor.Stats getCompressionStats() {
+        return bodies.getCompressor().getStats();
+    }
+
+    /**
+     * Writes every message in the compact binary format read by read. Each body is written once, compressed bodies as
+     * they are, and each message refers to its body by position.
+     * @param out the stream to write to.
+     * @throws IOException if the stream cannot be written.
+     */
+    public synchronized void write(BinaryOutput out) throws IOException {
+        Map<MessageBodies.Body, Integer> positions = bodies.write(out);
+        out.writeVarInt(messages.size());
+        for (Map.Entry<UUID, StoredMessage> message : messages.entrySet()) {
+            out.writeUUID(message.getKey());
+            out.writeVarLong(message.getValue().sequenceNumber);
+            out.writeVarLong(message.getValue().timeSent);
+            out.writeVarInt(positions.get(message.getValue().body));
+        }
+    }
+
+    /**
+     * Reads back a store written by write.
+     * @param in the stream to read from.
+     * @return the store that was written.
+     * @throws IOException if the stream cannot be read or does not hold a store.
+     */
+    public static InMemoryMessageStore read(BinaryInput in) throws IOException {
+        List<MessageBodies.Body> positions = new ArrayList<>();
+        InMemoryMessageStore store = new InMemoryMessageStore(MessageBodies.read(in, positions));
+        int numMessages = in.readCount();
+        for (int i = 0; i < numMessages; i++) {
+            UUID messageID = in.readUUID();
+            long sequenceNumber = in.readVarLong();
+            long timeSent = in.readVarLong();
+            int position = in.readVarInt();
+            if (position < 0 || position >= positions.size()) throw new IOException("Unknown body " + position);
+            store.messages.put(messageID, new StoredMessage(sequenceNumber, timeSent, positions.get(position)));
+        }
+        return store;
+    }
+}
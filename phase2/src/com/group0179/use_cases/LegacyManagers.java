@@ -0,0 +1,149 @@
+package com.group0179.use_cases;
+
+import com.group0179.entities.Attendee;
+import com.group0179.entities.Event;
+import com.group0179.entities.Message;
+import com.group0179.entities.Organizer;
+import com.group0179.entities.Request;
+import com.group0179.entities.Speaker;
+import com.group0179.entities.User;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Recreates the managers from the users, rooms and messages that the first version saved with Java serialization,
+ * keeping the UUIDs of every user, room, event, request and message.
+ *
+ * That version kept a message's sender and recipients only in the conversations of the users who received it, and
+ * never saved when it was sent, so the messages are delivered again in the order of each recipient's conversations,
+ * all at the time of the conversion. A message sent to many users is stored once. Messages no user received, and
+ * received messages whose contents were not saved, are dropped.
+ *
+ * Rooms are numbered by their place in the list they were saved in, as they were in that version. Speakers are linked
+ * to the events that name them as the events are added, rather than from their own saved lists.
+ */
+public class LegacyManagers {
+    private final UserManager userManager = new UserManager();
+    private final RoomManager roomManager = new RoomManager();
+    private final MessageManager messageManager = new MessageManager();
+
+    /**
+     * Precondition: the legacy managers were read from files saved together.
+     *
+     * @param users the saved users, or null if there were none.
+     * @param rooms the saved rooms, or null if there were none.
+     * @param messages the saved messages, or null if there were none.
+     * @param time the number of milliseconds since the epoch at which the messages are delivered again.
+     */
+    public LegacyManagers(com.group0179.entities.legacy.UserManager users,
+                          com.group0179.entities.legacy.RoomManager rooms,
+                          com.group0179.entities.legacy.MessageManager messages, long time) {
+        List<com.group0179.entities.legacy.User> legacyUsers = new ArrayList<>();
+        if (users != null) {
+            legacyUsers.addAll(users.getAttendees());
+            legacyUsers.addAll(users.getOrganizers());
+            legacyUsers.addAll(users.getSpeakers());
+            for (com.group0179.entities.legacy.User user : legacyUsers) {
+                userManager.restoreUser(convertUser(user));
+            }
+            for (com.group0179.entities.legacy.Request request : users.getUserRequests()) {
+                userManager.restoreRequest(new Request(request.getRequestID(), request.getTypeOfRequest(),
+                        request.getUrgency(), request.getRequestContent(), request.isPending(), request.isAddressed()));
+            }
+        }
+        if (rooms != null) {
+            List<com.group0179.entities.legacy.Room> legacyRooms = rooms.getRooms();
+            for (int roomNumber = 0; roomNumber < legacyRooms.size(); roomNumber++) {
+                com.group0179.entities.legacy.Room room = legacyRooms.get(roomNumber);
+                roomManager.restoreRoom(room.getRoomID(), roomNumber, room.getRoomCapacity());
+                for (com.group0179.entities.legacy.Event event : room.getEvents()) {
+                    roomManager.restoreEvent(userManager, roomNumber, convertEvent(event));
+                }
+            }
+        }
+        if (messages != null) {
+            deliverMessages(legacyUsers, messages.getMessages(), time);
+        }
+    }
+
+    private static User convertUser(com.group0179.entities.legacy.User legacy) {
+        User user;
+        if (legacy instanceof com.group0179.entities.legacy.Speaker) {
+            user = new Speaker(legacy.getUserID(), legacy.getUsername(), legacy.isVip(),
+                    legacy.getTimeOfAccountCreation());
+        } else {
+            Attendee attendee = legacy instanceof com.group0179.entities.legacy.Organizer
+                    ? new Organizer(legacy.getUserID(), legacy.getUsername(), legacy.isVip(),
+                    legacy.getTimeOfAccountCreation())
+                    : new Attendee(legacy.getUserID(), legacy.getUsername(), legacy.isVip(),
+                    legacy.getTimeOfAccountCreation());
+            Map<UUID, ArrayList<UUID>> events = ((com.group0179.entities.legacy.Attendee) legacy).getEvents();
+            for (Map.Entry<UUID, ArrayList<UUID>> room : events.entrySet()) {
+                for (UUID eventID : room.getValue()) {
+                    attendee.addEvents(room.getKey(), eventID);
+                }
+            }
+            user = attendee;
+        }
+        user.setLastLoggedIn(legacy.getLastLoggedIn());
+        for (double minutes : legacy.getLengthsOfTimeLoggedInAsMinutes()) {
+            user.addNewTimeLoggedIn(minutes);
+        }
+        return user;
+    }
+
+    private static Event convertEvent(com.group0179.entities.legacy.Event legacy) {
+        Event event = new Event(legacy.getEventID(), legacy.getTitle(), new ArrayList<>(legacy.getSpeakers()),
+                legacy.getStartTime(), legacy.getEndTime(), legacy.getCapacity());
+        event.setVipOnlyStatus(legacy.isVipOnly());
+        for (UUID attendeeID : legacy.getAttendeeIDs()) {
+            event.addAttendee(attendeeID);
+        }
+        for (UUID requestID : legacy.getEventRequests()) {
+            event.addRequest(requestID);
+        }
+        return event;
+    }
+
+    private void deliverMessages(List<com.group0179.entities.legacy.User> recipients,
+                                 Map<UUID, com.group0179.entities.legacy.Message> contents, long time) {
+        Map<UUID, Message> converted = new HashMap<>();
+        for (com.group0179.entities.legacy.User recipient : recipients) {
+            for (Map.Entry<UUID, List<UUID>> conversation : recipient.getConversations().entrySet()) {
+                for (UUID messageID : conversation.getValue()) {
+                    com.group0179.entities.legacy.Message legacy = contents.get(messageID);
+                    if (legacy == null) continue;
+                    Message message = converted.computeIfAbsent(messageID, id ->
+                            new Message(id, converted.size(), time, legacy.getMessageContent()));
+                    messageManager.restoreMessage(userManager, message, conversation.getKey(),
+                            recipient.getUserID());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the users, with the messages they received.
+     */
+    public UserManager getUserManager() {
+        return userManager;
+    }
+
+    /**
+     * @return the rooms and their events.
+     */
+    public RoomManager getRoomManager() {
+        return roomManager;
+    }
+
+    /**
+     * @return the messages.
+     */
+    public MessageManager getMessageManager() {
+        return messageManager;
+    }
+}
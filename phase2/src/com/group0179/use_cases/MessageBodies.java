@@ -0,0 +1,159 @@
+package com.group0179.use_cases;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A content-addressed store of message bodies. Messages with the same text share one body, which is kept for as
+ * long as any message refers to it. Long bodies are kept compressed and only decompressed when they are read.
+ */
+public class MessageBodies implements Serializable {
+    /**
+     * The text of one or more messages, either as it is or compressed.
+     */
+    public static class Body implements Serializable {
+        private final int hash;
+        private final String text;
+        private final byte[] compressed;
+        private int references;
+
+        private Body(int hash, String text, byte[] compressed) {
+            this.hash = hash;
+            this.text = text;
+            this.compressed = compressed;
+        }
+
+        /**
+         * @return true iff the body is kept compressed.
+         */
+        public boolean isCompressed() {
+            return compressed != null;
+        }
+    }
+
+    private final Map<Integer, List<Body>> bodies = new HashMap<>();
+    private final MessageCompressor compressor;
+    private int size;
+
+    /**
+     * Creates a store that compresses bodies of at least MessageCompressor.DEFAULT_THRESHOLD bytes.
+     */
+    public MessageBodies() {
+        this(new MessageCompressor());
+    }
+
+    /**
+     * @param compressor the compressor for long bodies.
+     */
+    public MessageBodies(MessageCompressor compressor) {
+        this.compressor = compressor;
+    }
+
+    /**
+     * Adds a reference to a body.
+     * @param text the text of a message.
+     * @return the body with the same text, which is new if no other message has that text.
+     */
+    public Body acquire(String text) {
+        Body body = find(text);
+        if (body == null) {
+            byte[] compressed = compressor.compress(text);
+            body = new Body(text.hashCode(), compressed == null ? text : null, compressed);
+            bodies.computeIfAbsent(body.hash, hash -> new ArrayList<>()).add(body);
+            size++;
+        }
+        body.references++;
+        return body;
+    }
+
+    /**
+     * Removes a reference to a body, and forgets the body once no message refers to it.
+     * @param body a body of a message that is no longer stored.
+     */
+    public void release(Body body) {
+        if (--body.references > 0) return;
+        List<Body> candidates = bodies.get(body.hash);
+        if (candidates != null && candidates.remove(body)) {
+            size--;
+            if (candidates.isEmpty()) bodies.remove(body.hash);
+        }
+    }
+
+    /**
+     * @param body a body from this store.
+     * @return the text of the body, decompressed if it is kept compressed.
+     */
+    public String getText(Body body) {
+        return body.text != null ? body.text : compressor.decompress(body.compressed);
+    }
+
+    /**
+     * @param text the text of a message.
+     * @return the number of stored messages with that text.
+     */
+    public int getReferences(String text) {
+        Body body = find(text);
+        return body == null ? 0 : body.references;
+    }
+
+    private Body find(String text) {
+        for (Body body : bodies.getOrDefault(text.hashCode(), new ArrayList<>())) {
+            if (text.equals(getText(body))) return body;
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of distinct bodies.
+     */
+    public int size() {
+        return size;
+    }
+
+    public MessageCompressor getCompressor() {
+        return compressor;
+    }
+
+    /**
+     * Writes the compressor and every body, compressed bodies as they are, in the format read by read.
+     * @return the position each body was written at, by which the messages that share it refer to it.
+     */
+    Map<Body, Integer> write(BinaryOutput out) throws IOException {
+        compressor.write(out);
+        out.writeVarInt(size);
+        Map<Body, Integer> positions = new HashMap<>();
+        for (List<Body> candidates : bodies.values()) {
+            for (Body body : candidates) {
+                positions.put(body, positions.size());
+                out.writeInt(body.hash);
+                out.writeVarInt(body.references);
+                out.writeString(body.text);
+                out.writeBytes(body.compressed);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Reads back the bodies written by write.
+     * @param positions the list to add each body to, in the order they were written.
+     */
+    static MessageBodies read(BinaryInput in, List<Body> positions) throws IOException {
+        MessageBodies restored = new MessageBodies(MessageCompressor.read(in));
+        int numBodies = in.readCount();
+        for (int i = 0; i < numBodies; i++) {
+            int hash = in.readInt();
+            int references = in.readVarInt();
+            Body body = new Body(hash, in.readString(), in.readBytes());
+            body.references = references;
+            restored.bodies.computeIfAbsent(hash, h -> new ArrayList<>()).add(body);
+            restored.size++;
+            positions.add(body);
+        }
+        return restored;
+    }
+}
@@ -0,0 +1,103 @@
+package com.group0179.use_cases;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deletes expired messages on a background thread at a fixed interval, according to the MessageManager's
+ * RetentionPolicy. See MessageManager.compactMessages for how this avoids blocking senders.
+ *
+ * Users' conversations are pruned through an Executor that runs tasks on the thread that changes the users, such as
+ * Platform::runLater for the JavaFX Application Thread, since the UserManager is only used from that thread. That
+ * thread only pauses while the expired messages are found and unlinked; the message store is rewritten without them on
+ * the background thread.
+ *
+ * Until the messages have a preset compression dictionary, each compaction also tries to train one from the long
+ * messages sent since the program started, so one is trained soon after enough of them have been sent.
+ */
+public class MessageCompactor {
+    public static final long DEFAULT_INTERVAL_MILLIS = 10 * 60 * 1000;
+
+    private final MessageManager messageManager;
+    private final UserManager userManager;
+    private final PeriodicTask task;
+    private final AtomicInteger numDeleted = new AtomicInteger();
+
+    /**
+     * Creates a compactor that runs every DEFAULT_INTERVAL_MILLIS, and starts it.
+     * @param messageManager the MessageManager whose messages expire.
+     * @param userManager the UserManager where the users are stored.
+     * @param pruneExecutor runs the pruning of users' conversations on the thread that changes the users.
+     */
+    public MessageCompactor(MessageManager messageManager, UserManager userManager, Executor pruneExecutor) {
+        this(messageManager, userManager, pruneExecutor, DEFAULT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a compactor and starts it.
+     * @param messageManager the MessageManager whose messages expire.
+     * @param userManager the UserManager where the users are stored.
+     * @param pruneExecutor runs the pruning of users' conversations on the thread that changes the users.
+     * @param intervalMillis the number of milliseconds between compactions.
+     */
+    public MessageCompactor(MessageManager messageManager, UserManager userManager, Executor pruneExecutor,
+                            long intervalMillis) {
+        this.messageManager = messageManager;
+        this.userManager = userManager;
+        this.task = new PeriodicTask("message-compactor", pruneExecutor, intervalMillis, () -> {
+            try {
+                compactNow();
+            } catch (RuntimeException e) {
+                // leave the messages as they are and try again at the next interval
+            }
+        });
+        this.task.start();
+    }
+
+    /**
+     * Prunes the messages that have expired now through the prune executor, and deletes them from the message store
+     * on the calling thread. Then trains a compression dictionary if the messages have none.
+     *
+     * Precondition: this is not called on the prune executor's thread, which it waits for, unless the executor runs
+     * tasks on the thread that calls it.
+     *
+     * @return the number of messages deleted, or 0 if the compactor was shut down before the pruning ran or the
+     * thread was interrupted while waiting for it.
+     */
+    public synchronized int compactNow() {
+        long now = System.currentTimeMillis();
+        Set<UUID> expired;
+        try {
+            expired = task.handOff(() -> messageManager.expireMessages(userManager, now));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (ExecutionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+        if (expired == null) return 0;
+        messageManager.removeExpiredMessages(expired);
+        numDeleted.addAndGet(expired.size());
+        if (!messageManager.hasCompressionDictionary()) messageManager.trainCompressionDictionary();
+        return expired.size();
+    }
+
+    /**
+     * @return the number of messages this compactor has deleted.
+     */
+    public int getNumDeleted() {
+        return numDeleted.get();
+    }
+
+    /**
+     * Stops the background thread, waiting for a compaction that has been pruned to finish. A pruning still waiting
+     * for the prune executor is not run.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void shutdown() throws InterruptedException {
+        task.shutdown();
+    }
+}
@@ -0,0 +1,270 @@
+package com.group0179.use_cases;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses long message bodies with zlib, so that pasted announcements and requests take less room on the heap and
+ * on disk. Bodies shorter than the threshold are left alone, since they would barely shrink.
+ *
+ * A preset dictionary can be trained from the long messages sent recently. It holds the words that keep coming up in
+ * them, so even a single message gets the benefit of text it shares with earlier ones. Every dictionary that has been
+ * used is kept: zlib records a checksum of the dictionary in each compressed body, which is used to find it again when
+ * the body is decompressed.
+ */
+public class MessageCompressor implements Serializable {
+    public static final int DEFAULT_THRESHOLD = 512;
+    private static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+    private static final int MAX_SAMPLES = 64;
+    private static final int MIN_WORD_LENGTH = 4;
+
+    /**
+     * How much the compressor has saved and what it has cost, since it was created.
+     */
+    public static class Stats {
+        public final int numCompressed;
+        public final long uncompressedBytes;
+        public final long compressedBytes;
+        public final long compressionNanos;
+        public final int numDecompressed;
+        public final long decompressionNanos;
+
+        public Stats(int numCompressed, long uncompressedBytes, long compressedBytes, long compressionNanos,
+                     int numDecompressed, long decompressionNanos) {
+            this.numCompressed = numCompressed;
+            this.uncompressedBytes = uncompressedBytes;
+            this.compressedBytes = compressedBytes;
+            this.compressionNanos = compressionNanos;
+            this.numDecompressed = numDecompressed;
+            this.decompressionNanos = decompressionNanos;
+        }
+
+        /**
+         * @return the size of the compressed bodies as a fraction of their UTF-8 size, or 1 if nothing was compressed.
+         */
+        public double getRatio() {
+            return uncompressedBytes == 0 ? 1 : (double) compressedBytes / uncompressedBytes;
+        }
+    }
+
+    private final int threshold;
+    private final Map<Integer, byte[]> dictionaries = new HashMap<>();
+    private byte[] dictionary;
+    private int numCompressed;
+    private long uncompressedBytes;
+    private long compressedBytes;
+    private long compressionNanos;
+    private int numDecompressed;
+    private long decompressionNanos;
+    private transient Deque<String> samples;
+
+    /**
+     * Creates a compressor for bodies of at least DEFAULT_THRESHOLD bytes.
+     */
+    public MessageCompressor() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param threshold the size in UTF-8 bytes from which bodies are compressed.
+     */
+    public MessageCompressor(int threshold) {
+        this.threshold = threshold;
+    }
+
+    private Deque<String> getSamples() {
+        if (samples == null) {
+            samples = new ArrayDeque<>();
+        }
+        return samples;
+    }
+
+    /**
+     * Compresses a body if it is long enough and it shrinks.
+     * @param text the body of a message.
+     * @return the compressed UTF-8 bytes of the body, or null if the body should be stored as it is.
+     */
+    public synchronized byte[] compress(String text) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < threshold) return null;
+        if (getSamples().size() == MAX_SAMPLES) {
+            samples.removeFirst();
+        }
+        samples.addLast(text);
+        long start = cpuTime();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        compressionNanos += cpuTime() - start;
+        if (out.size() >= raw.length) return null;
+        numCompressed++;
+        uncompressedBytes += raw.length;
+        compressedBytes += out.size();
+        return out.toByteArray();
+    }
+
+    /**
+     * @param compressed bytes returned by compress.
+     * @return the body that was compressed.
+     * @throws IllegalArgumentException if the bytes are corrupt or need a dictionary this compressor does not have.
+     */
+    public synchronized String decompress(byte[] compressed) {
+        long start = cpuTime();
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 3);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && inflater.needsDictionary()) {
+                    byte[] preset = dictionaries.get(inflater.getAdler());
+                    if (preset == null) throw new IllegalArgumentException("Unknown compression dictionary");
+                    inflater.setDictionary(preset);
+                } else if (length == 0 && inflater.needsInput()) {
+                    throw new IllegalArgumentException("Truncated message body");
+                }
+                out.write(buffer, 0, length);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt message body", e);
+        } finally {
+            inflater.end();
+            numDecompressed++;
+            decompressionNanos += cpuTime() - start;
+        }
+    }
+
+    /**
+     * Builds a preset dictionary from the long messages compressed recently, and compresses later bodies with it.
+     * @return the new dictionary, or null if there were too few messages to train one.
+     */
+    public synchronized byte[] trainDictionary() {
+        // count how many of the samples each word appears in
+        Map<String, Integer> counts = new HashMap<>();
+        for (String sample : getSamples()) {
+            Set<String> words = new HashSet<>();
+            for (String word : sample.split("(?<=\\s)")) {
+                if (word.trim().length() >= MIN_WORD_LENGTH) words.add(word);
+            }
+            for (String word : words) {
+                counts.merge(word, 1, Integer::sum);
+            }
+        }
+        List<String> common = new ArrayList<>();
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            if (count.getValue() > 1) common.add(count.getKey());
+        }
+        if (common.isEmpty()) return null;
+        // zlib finds matches near the end of the dictionary more cheaply, so the most useful words go last
+        common.sort(Comparator.comparingLong((String word) -> (long) counts.get(word) * word.length())
+                .reversed());
+        List<byte[]> chosen = new ArrayList<>();
+        int size = 0;
+        for (String word : common) {
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            if (size + bytes.length > MAX_DICTIONARY_SIZE) continue;
+            chosen.add(bytes);
+            size += bytes.length;
+        }
+        Collections.reverse(chosen);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        for (byte[] bytes : chosen) {
+            out.write(bytes, 0, bytes.length);
+        }
+        addDictionary(out.toByteArray());
+        return dictionary;
+    }
+
+    /**
+     * Compresses later bodies with a dictionary, such as one that was trained before and read back from disk.
+     * @param preset the bytes of the dictionary.
+     */
+    public synchronized void addDictionary(byte[] preset) {
+        Adler32 checksum = new Adler32();
+        checksum.update(preset);
+        dictionaries.put((int) checksum.getValue(), preset);
+        dictionary = preset;
+    }
+
+    /**
+     * @return true iff later bodies are compressed with a preset dictionary.
+     */
+    public synchronized boolean hasDictionary() {
+        return dictionary != null;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(numCompressed, uncompressedBytes, compressedBytes, compressionNanos, numDecompressed,
+                decompressionNanos);
+    }
+
+    /**
+     * @return the CPU time of the current thread in nanoseconds, or the wall clock time if it cannot be measured.
+     */
+    private static long cpuTime() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * Writes the threshold, every dictionary and the statistics, in the format read by read.
+     */
+    synchronized void write(BinaryOutput out) throws IOException {
+        out.writeVarInt(threshold);
+        out.writeVarInt(dictionaries.size() - (dictionary == null ? 0 : 1));
+        for (byte[] preset : dictionaries.values()) {
+            if (preset != dictionary) out.writeBytes(preset);
+        }
+        out.writeBytes(dictionary);
+        out.writeVarInt(numCompressed);
+        out.writeVarLong(uncompressedBytes);
+        out.writeVarLong(compressedBytes);
+        out.writeVarLong(compressionNanos);
+        out.writeVarInt(numDecompressed);
+        out.writeVarLong(decompressionNanos);
+    }
+
+    /**
+     * Reads back a compressor written by write, which can decompress every body the written one could.
+     */
+    static MessageCompressor read(BinaryInput in) throws IOException {
+        MessageCompressor compressor = new MessageCompressor(in.readVarInt());
+        int numOlder = in.readCount();
+        for (int i = 0; i < numOlder; i++) {
+            compressor.addDictionary(in.readBytes());
+        }
+        byte[] current = in.readBytes();
+        if (current != null) {
+            compressor.addDictionary(current);
+        } else {
+            compressor.dictionary = null;
+        }
+        compressor.numCompressed = in.readVarInt();
+        compressor.uncompressedBytes = in.readVarLong();
+        compressor.compressedBytes = in.readVarLong();
+        compressor.compressionNanos = in.readVarLong();
+        compressor.numDecompressed = in.readVarInt();
+        compressor.decompressionNanos = in.readVarLong();
+        return compressor;
+    }
+}
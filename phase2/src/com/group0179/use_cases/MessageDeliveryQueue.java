@@ -0,0 +1,241 @@
+package com.group0179.use_cases;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers messages to the attendees of an event on background worker threads, so that the thread which sends them,
+ * such as the JavaFX thread handling a button press, returns at once with a Ticket.
+ *
+ * The recipients are looked up and checked when the message is queued, because the UserManager and RoomManager are
+ * only used from the sending thread. The workers then store the message through the MessageManager.
+ *
+ * Every conversation, a sender and an event, is always handled by the same worker, so its messages are delivered in
+ * the order they were queued. Each worker has a bounded queue; a message that does not fit is rejected rather than
+ * blocking the sender. A worker delivers everything waiting in its queue, up to a batch, while holding the
+ * MessageManager's lock once. If the MessageManager has a journal, the batch is then waited for with one sync, and
+ * its tickets are only marked delivered once it is on disk.
+ */
+public class MessageDeliveryQueue {
+    public static final int DEFAULT_NUM_WORKERS = 2;
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int MAX_BATCH_SIZE = 64;
+
+    /**
+     * A receipt for a queued message, which can be asked how far its delivery has come.
+     */
+    public static class Ticket {
+        public enum Status {QUEUED, DELIVERED, FAILED, REJECTED}
+
+        private final long ticketNumber;
+        private final int numRecipients;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Status status = Status.QUEUED;
+        private volatile UUID messageID;
+
+        private Ticket(long ticketNumber, int numRecipients) {
+            this.ticketNumber = ticketNumber;
+            this.numRecipients = numRecipients;
+        }
+
+        private void finish(Status status, UUID messageID) {
+            this.messageID = messageID;
+            this.status = status;
+            done.countDown();
+        }
+
+        public long getTicketNumber() {
+            return ticketNumber;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the UUID of the delivered message, or null if it has not been delivered.
+         */
+        public UUID getMessageID() {
+            return messageID;
+        }
+
+        public int getNumRecipients() {
+            return numRecipients;
+        }
+
+        /**
+         * @return the number of recipients the message has reached so far.
+         */
+        public int getNumDelivered() {
+            return status == Status.DELIVERED ? numRecipients : 0;
+        }
+
+        /**
+         * @return true iff the message has been delivered, or will never be.
+         */
+        public boolean isDone() {
+            return status != Status.QUEUED;
+        }
+
+        /**
+         * Waits until the message has been delivered, or will never be.
+         * @param timeout the longest time to wait.
+         * @param unit the unit of the timeout.
+         * @return true iff the ticket is done.
+         * @throws InterruptedException if the thread is interrupted while waiting.
+         */
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            return done.await(timeout, unit);
+        }
+    }
+
+    private static class Delivery {
+        private final Ticket ticket;
+        private final UUID senderID;
+        private final UUID eventID;
+        private final Set<UUID> recipientIDs;
+        private final String messageContent;
+
+        private Delivery(Ticket ticket, UUID senderID, UUID eventID, Set<UUID> recipientIDs, String messageContent) {
+            this.ticket = ticket;
+            this.senderID = senderID;
+            this.eventID = eventID;
+            this.recipientIDs = recipientIDs;
+            this.messageContent = messageContent;
+        }
+    }
+
+    private static final Delivery STOP = new Delivery(null, null, null, null, null);
+
+    private final MessageManager messageManager;
+    private final List<BlockingQueue<Delivery>> queues = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicLong nextTicketNumber = new AtomicLong(1);
+    private volatile boolean isShutdown;
+
+    /**
+     * Creates a queue with the default number of workers and capacity, and starts its workers.
+     * @param messageManager the MessageManager where messages are delivered.
+     */
+    public MessageDeliveryQueue(MessageManager messageManager) {
+        this(messageManager, DEFAULT_NUM_WORKERS, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a queue and starts its workers.
+     * @param messageManager the MessageManager where messages are delivered.
+     * @param numWorkers the number of worker threads.
+     * @param capacity the number of messages each worker can have waiting.
+     */
+    public MessageDeliveryQueue(MessageManager messageManager, int numWorkers, int capacity) {
+        this.messageManager = messageManager;
+        for (int i = 0; i < numWorkers; i++) {
+            BlockingQueue<Delivery> queue = new ArrayBlockingQueue<>(capacity);
+            Thread worker = new Thread(() -> deliver(queue), "message-delivery-" + i);
+            worker.setDaemon(true);
+            queues.add(queue);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Queues a message from a speaker to the users attending an event now.
+     *
+     * Precondition: senderID is the UUID of a speaker only.
+     *
+     * @param userManager the UserManager where the users are stored.
+     * @param roomManager the RoomManager where the events and rooms are stored.
+     * @param senderID the UUID of the sender of this message.
+     * @param eventID the UUID of the event that the users are in.
+     * @param messageContent the content of the message to send.
+     * @return a ticket for the message. It has already failed if the event has no attendees or a user does not exist,
+     * and it is rejected if the queue is full or shut down, or if the sender is sending too quickly.
+     */
+    public Ticket sendMessageToEventAttendees(UserManager userManager, RoomManager roomManager,
+                                              UUID senderID, UUID eventID, String messageContent) {
+        ArrayList<UUID> attendeeIDs = roomManager.getEventAttendeeIDs(eventID);
+        Ticket ticket = new Ticket(nextTicketNumber.getAndIncrement(), attendeeIDs.size());
+        if (attendeeIDs.isEmpty() || !userManager.userExists(senderID) || !userManager.usersExist(attendeeIDs)) {
+            ticket.finish(Ticket.Status.FAILED, null);
+        } else if (isShutdown || !messageManager.acquireSendToken(userManager, senderID)
+                || !enqueue(new Delivery(ticket, senderID, eventID, new HashSet<>(attendeeIDs), messageContent))) {
+            ticket.finish(Ticket.Status.REJECTED, null);
+        }
+        return ticket;
+    }
+
+    private BlockingQueue<Delivery> getQueue(UUID senderID, UUID eventID) {
+        return queues.get(Math.floorMod(Objects.hash(senderID, eventID), queues.size()));
+    }
+
+    /**
+     * Offers a delivery to the queue of its worker, unless this has been shut down. The check and the offer are made
+     * under the lock that shutdown takes, so no delivery is queued behind the STOP of its worker.
+     * @return true iff the delivery was queued.
+     */
+    private boolean enqueue(Delivery delivery) {
+        synchronized (queues) {
+            return !isShutdown && getQueue(delivery.senderID, delivery.eventID).offer(delivery);
+        }
+    }
+
+    private void deliver(BlockingQueue<Delivery> queue) {
+        List<Delivery> batch = new ArrayList<>();
+        Map<Delivery, UUID> delivered = new LinkedHashMap<>();
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+            synchronized (messageManager) {
+                for (Delivery delivery : batch) {
+                    if (delivery == STOP) {
+                        stop = true;
+                        continue;
+                    }
+                    try {
+                        delivered.put(delivery, messageManager.sendMessageToEventAttendees(delivery.senderID,
+                                delivery.eventID, delivery.recipientIDs, delivery.messageContent));
+                    } catch (RuntimeException e) {
+                        delivery.ticket.finish(Ticket.Status.FAILED, null);
+                    }
+                }
+            }
+            Ticket.Status status = Ticket.Status.DELIVERED;
+            try {
+                messageManager.syncJournal();
+            } catch (RuntimeException e) {
+                status = Ticket.Status.FAILED;
+            }
+            for (Map.Entry<Delivery, UUID> delivery : delivered.entrySet()) {
+                delivery.getKey().ticket.finish(status, status == Ticket.Status.DELIVERED ? delivery.getValue() : null);
+            }
+            delivered.clear();
+            batch.clear();
+        }
+    }
+
+    /**
+     * Stops accepting messages, delivers the messages that are already queued and stops the workers.
+     * @throws InterruptedException if the thread is interrupted while waiting for the workers.
+     */
+    public void shutdown() throws InterruptedException {
+        synchronized (queues) {
+            isShutdown = true;
+        }
+        for (BlockingQueue<Delivery> queue : queues) {
+            queue.put(STOP);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+}
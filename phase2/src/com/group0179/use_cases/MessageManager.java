@@ -1,22 +1,239 @@
 package com.group0179.use_cases;
 
+import com.group0179.entities.Broadcast;
+import com.group0179.entities.EventChannel;
 import com.group0179.entities.Message;
+import com.group0179.entities.User;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.*;
 
 /**
  * Manages message entities.
+ *
+ * Messages sent to a whole audience are stored once as a Broadcast instead of once per recipient. A recipient's
+ * broadcasts are found when they read their messages: each sender's broadcasts are kept in the order they were sent,
+ * and a recipient's cursor into that list is the first broadcast sent after their account was created. Broadcasts that
+ * have been read are tracked by how many of each sender's broadcasts the recipient has read.
+ *
+ * Messages to the attendees of an event are posted to the event's channel, whose members are the event's attendees.
+ * A post reaches whoever is a member when the messages are read, so attendees who join later see earlier posts.
+ *
+ * Messages expire according to a RetentionPolicy when compactMessages is called, such as by a MessageCompactor.
+ *
+ * Senders are throttled by a SendRateLimiter. A sender who is over their rate is turned away before the lock is
+ * taken, so a flood of messages from one user costs everyone else nothing.
+ *
+ * Every public method but compactMessages and removeExpiredMessages is synchronized, or takes the lock once the sender
+ * has passed the rate limit, so messages can be delivered by a MessageDeliveryQueue while the UI reads them.
+ *
+ * Sent messages can be written to an IJournal. A record is appended while holding the lock, so the journal has the
+ * messages in the order they were sent, but waiting for it to reach the disk happens after the lock is released, so
+ * senders on other threads are not held up by the disk and their records are written together.
+ *
+ * Whether anything has changed since the MessageManager was last saved is tracked, so that an unchanged
+ * MessageManager is not written again. Rules and rates changed on the RetentionPolicy or SendRateLimiter in use are
+ * only noticed with the next change to the messages; set the policy or limiter again to have them saved.
  * @author Zachariah Vincze
  */
 public class MessageManager implements Serializable {
-    private final Map<UUID, Message> messages;
+    /**
+     * A message as seen by the user who received it.
+     */
+    public static class ReceivedMessage {
+        public final UUID senderID;
+        public final String content;
+        public final long sequenceNumber;
+        public final long timeReceived;
+
+        public ReceivedMessage(UUID senderID, String content, long sequenceNumber, long timeReceived) {
+            this.senderID = senderID;
+            this.content = content;
+            this.sequenceNumber = sequenceNumber;
+            this.timeReceived = timeReceived;
+        }
+    }
 
     /**
-     * Creates a new MessageManager.
+     * A position in a conversation: how many direct messages and how many of the sender's broadcasts come before it,
+     * counting from the oldest message, and which way the conversation is being read.
+     */
+    public static class MessageCursor {
+        private final int direct;
+        private final int broadcast;
+        private final boolean newestFirst;
+
+        MessageCursor(int direct, int broadcast, boolean newestFirst) {
+            this.direct = direct;
+            this.broadcast = broadcast;
+            this.newestFirst = newestFirst;
+        }
+    }
+
+    /**
+     * A page of a conversation.
+     */
+    public static class MessagePage {
+        public final List<ReceivedMessage> messages;
+        private final MessageCursor cursor;
+
+        MessagePage(List<ReceivedMessage> messages, MessageCursor cursor) {
+            this.messages = messages;
+            this.cursor = cursor;
+        }
+
+        /**
+         * @return the cursor to pass to getMessagePage to continue after this page, or null if the conversation has
+         * been read to the end.
+         */
+        public MessageCursor getCursor() {
+            return cursor;
+        }
+    }
+
+    /**
+     * A user someone has a conversation with, as shown in a list of recent conversations.
+     */
+    public static class RecentContact {
+        public final UUID contactID;
+        public final String preview;
+        public final long timeReceived;
+        public final int numUnread;
+
+        public RecentContact(UUID contactID, String preview, long timeReceived, int numUnread) {
+            this.contactID = contactID;
+            this.preview = preview;
+            this.timeReceived = timeReceived;
+            this.numUnread = numUnread;
+        }
+    }
+
+    public static final int PREVIEW_LENGTH = 40;
+
+    private final IMessageStore messages;
+    private final ArrayList<Broadcast> broadcasts = new ArrayList<>();
+    private final HashMap<UUID, HashMap<UUID, Integer>> broadcastsRead = new HashMap<>();
+    private final HashMap<UUID, EventChannel> eventChannels = new HashMap<>();
+    private RetentionPolicy retentionPolicy = new RetentionPolicy();
+    private volatile SendRateLimiter sendRateLimiter = new SendRateLimiter();
+    private final MessageSearchIndex searchIndex;
+    private long nextSequenceNumber;
+    private long lastTimeSent;
+    private transient volatile IJournal journal;
+    private transient long lastJournalPosition;
+    private transient boolean isChanged;
+    private transient Map<UUID, List<Broadcast>> broadcastsBySender;
+
+    /**
+     * Creates a new MessageManager that keeps its messages in memory.
      */
     public MessageManager() {
-        this.messages = new HashMap<>();
+        this(new InMemoryMessageStore());
+    }
+
+    /**
+     * Creates a new MessageManager.
+     * @param messages the store where the messages are kept.
+     */
+    public MessageManager(IMessageStore messages) {
+        this(messages, new MessageSearchIndex());
+    }
+
+    private MessageManager(IMessageStore messages, MessageSearchIndex searchIndex) {
+        this.messages = messages;
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * @return the store where the messages are kept.
+     */
+    public IMessageStore getMessageStore() {
+        return messages;
+    }
+
+    /**
+     * Writes every message sent from now on to a journal. The methods that send a message wait until it is on disk
+     * before returning, except the one used by a MessageDeliveryQueue, which waits through syncJournal.
+     * @param journal the journal, or null to stop journaling.
+     */
+    public synchronized void setJournal(IJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Appends a record to the journal without waiting for it. Called while holding the lock.
+     */
+    private void journal(byte[] record) {
+        if (journal != null) lastJournalPosition = journal.append(record);
+    }
+
+    /**
+     * Waits until every message sent so far is on disk. Waits for nothing if there is no journal.
+     */
+    public void syncJournal() {
+        IJournal journal;
+        long position;
+        synchronized (this) {
+            journal = this.journal;
+            position = lastJournalPosition;
+        }
+        if (journal != null && position > 0) journal.sync(position);
+    }
+
+    /**
+     * @return true iff anything has changed since the last call, such as a message being sent or read.
+     */
+    public synchronized boolean takeChanged() {
+        boolean wasChanged = isChanged;
+        isChanged = false;
+        return wasChanged;
+    }
+
+    /**
+     * Marks the MessageManager as changed again, such as when it was taken but could not be saved.
+     */
+    public synchronized void markChanged() {
+        isChanged = true;
+    }
+
+    /**
+     * @return the number of messages that have been sent.
+     */
+    public synchronized int getNumMessages() {
+        return messages.size();
+    }
+
+    /**
+     * @return the number of distinct message contents that are stored. Messages with the same content share one body.
+     */
+    public synchronized int getNumMessageBodies() {
+        return messages.getNumBodies();
+    }
+
+    /**
+     * Trains a preset dictionary from the long messages sent recently, so that later long messages, which tend to
+     * repeat their wording, compress better.
+     * @return true iff a dictionary was trained.
+     */
+    public synchronized boolean trainCompressionDictionary() {
+        boolean isTrained = messages.trainCompressionDictionary();
+        if (isTrained) isChanged = true;
+        return isTrained;
+    }
+
+    /**
+     * @return true iff long messages are compressed with a trained dictionary.
+     */
+    public synchronized boolean hasCompressionDictionary() {
+        return messages.hasCompressionDictionary();
+    }
+
+    /**
+     * @return how much compressing long message bodies has saved and cost.
+     */
+    public synchronized MessageCompressor.Stats getCompressionStats() {
+        return messages.getCompressionStats();
     }
 
     /**
@@ -28,33 +245,59 @@ public class MessageManager implements Serializable {
      * @return Return the id of the sent message. If the message was not sent, return null.
      */
     public UUID sendMessage(UserManager userManager, UUID senderID, UUID recipientID, String messageContent) {
-        if (!userManager.userExists(senderID) || !userManager.userExists(recipientID)) {
-            return null;
+        if (isThrottled(userManager, senderID)) return null;
+        UUID messageID;
+        synchronized (this) {
+            if (!userManager.userExists(senderID) || !userManager.userExists(recipientID)) {
+                return null;
+            }
+            Message message = newMessage(messageContent);
+            userManager.addMessage(recipientID, senderID, message.getMessageID(), message.getTimeSent());
+            searchIndex.addMessage(message.getMessageID(), senderID, recipientID, messageContent);
+            journal(Mutations.messageSent(message, senderID, recipientID));
+            messageID = message.getMessageID();
         }
-        Message message = new Message(messageContent);
-        messages.put(message.getMessageID(), message);
-        userManager.addMessage(recipientID, senderID, message.getMessageID());
-        return message.getMessageID();
+        syncJournal();
+        return messageID;
+    }
+
+    private Message newMessage(String messageContent) {
+        Message message = new Message(nextSequenceNumber++, nextTimeSent(), messageContent);
+        messages.add(message);
+        isChanged = true;
+        return message;
     }
 
     /**
-     * Sends messages from a single user to a list of recipients.
-     * @param userManager the UserManager where the users are stored.
-     * @param messageContent the string content of the message.
-     * @param recipientIDs a list of users that are receiving the message.
-     * @return Return the id of the sent message. If the message was not sent, return null.
-     *
-     * TODO: Review UM fixes made
+     * @return the time to record for a message sent now. Never earlier than the previous message, so that messages
+     * sorted by sequence number are also sorted by time even if the system clock goes back.
      */
-    private UUID sendMessages(UserManager userManager, UUID senderID, List<UUID> recipientIDs, String messageContent) {
-        if (!userManager.userExists(senderID) || recipientIDs.isEmpty() || !userManager.usersExist(recipientIDs)) {
-            return null;
-        }
-        Message message = new Message(messageContent);
-        messages.put(message.getMessageID(), message);
-        for (UUID id : recipientIDs) {
-            userManager.addMessage(id, senderID, message.getMessageID());
+    private long nextTimeSent() {
+        lastTimeSent = Math.max(lastTimeSent, System.currentTimeMillis());
+        return lastTimeSent;
+    }
+
+    private Map<UUID, List<Broadcast>> getBroadcastsBySender() {
+        if (broadcastsBySender == null) {
+            broadcastsBySender = new HashMap<>();
+            for (Broadcast broadcast : broadcasts) {
+                broadcastsBySender.computeIfAbsent(broadcast.getSenderID(), id -> new ArrayList<>()).add(broadcast);
+            }
         }
+        return broadcastsBySender;
+    }
+
+    private void addBroadcast(Broadcast broadcast, String messageContent) {
+        getBroadcastsBySender().computeIfAbsent(broadcast.getSenderID(), id -> new ArrayList<>()).add(broadcast);
+        broadcasts.add(broadcast);
+        searchIndex.addBroadcast(broadcast, messageContent);
+    }
+
+    private UUID broadcast(UUID senderID, Broadcast.Audience audience, String messageContent) {
+        Message message = newMessage(messageContent);
+        addBroadcast(new Broadcast(message.getMessageID(), senderID, audience, message.getSequenceNumber(),
+                message.getTimeSent()), messageContent);
+        journal(Mutations.broadcastSent(message, senderID, audience));
         return message.getMessageID();
     }
 
@@ -69,7 +312,16 @@ public class MessageManager implements Serializable {
      * @return Return the id of the sent message. If the message was not sent, return null.
      */
     public UUID sendMessageToAllAttendees(UserManager userManager, UUID senderID, String messageContent) {
-        return sendMessages(userManager, senderID, userManager.getAttendeeUUIDs(), messageContent);
+        if (isThrottled(userManager, senderID)) return null;
+        UUID messageID;
+        synchronized (this) {
+            if (!userManager.userExists(senderID) || !userManager.hasAttendees()) {
+                return null;
+            }
+            messageID = broadcast(senderID, Broadcast.Audience.ATTENDEES, messageContent);
+        }
+        syncJournal();
+        return messageID;
     }
 
     /**
@@ -83,7 +335,16 @@ public class MessageManager implements Serializable {
      * @return the UUID of the sent message, or null if the message was not sent.
      */
     public UUID sendMessageToAllSpeakers(UserManager userManager, UUID senderID, String messageContent) {
-        return sendMessages(userManager, senderID, userManager.getSpeakerUUIDs(), messageContent);
+        if (isThrottled(userManager, senderID)) return null;
+        UUID messageID;
+        synchronized (this) {
+            if (!userManager.userExists(senderID) || !userManager.hasSpeakers()) {
+                return null;
+            }
+            messageID = broadcast(senderID, Broadcast.Audience.SPEAKERS, messageContent);
+        }
+        syncJournal();
+        return messageID;
     }
 
     /**
@@ -95,38 +356,345 @@ public class MessageManager implements Serializable {
      * @param recipientID the UUID of the user who has received these messages.
      * @param senderID the UUID of the user who sent this message.
      * @return a list of message entities from another user.
-     *
-     * TODO: Check userManager related error fix
      */
-    private ArrayList<Message> getMessagesFromUser(UserManager userManager, UUID recipientID, UUID senderID) {
-        ArrayList<Message> messageContents = new ArrayList<>();
-        List<UUID> messageIDs = userManager.getMessagesFromUser(recipientID, senderID);
-        for (UUID id : messageIDs) {
-            messageContents.add(messages.get(id));
+    public synchronized List<String> getMessageContentsFromUser(UserManager userManager, UUID recipientID,
+                                                             UUID senderID) {
+        ArrayList<String> messageContents = new ArrayList<>();
+        for (ReceivedMessage message : getMessagesFromUserSince(userManager, recipientID, senderID, Long.MIN_VALUE)) {
+            messageContents.add(message.content);
         }
         return messageContents;
     }
 
     /**
-     * Return a list of messages that were sent by a specific user to
-     * the current user. If no messages were sent to this user from senderID,
-     * then an empty list is returned.
+     * Returns the messages in a conversation that were sent at or after a given time, so that a client can ask only
+     * for what it has not seen yet.
      *
      * @param userManager the UserManager where the users are stored.
      * @param recipientID the UUID of the user who has received these messages.
-     * @param senderID the UUID of the user who sent this message.
-     * @return a list of message entities from another user.
+     * @param senderID the UUID of the user who sent them.
+     * @param since a number of milliseconds since the epoch.
+     * @return the messages from the sender to the recipient sent at or after since, oldest first.
      */
-    public List<String> getMessageContentsFromUser(UserManager userManager, UUID recipientID, UUID senderID) {
-        ArrayList<String> messageContents = new ArrayList<>();
-        for (UUID id : userManager.getMessagesFromUser(recipientID, senderID)) {
-            messageContents.add(messages.get(id).getMessageContent());
+    public synchronized List<ReceivedMessage> getMessagesFromUserSince(UserManager userManager, UUID recipientID,
+                                                                       UUID senderID, long since) {
+        if (!userManager.userExists(recipientID)) {
+            return new ArrayList<>();
         }
-        return messageContents;
+        List<Broadcast> received = Collections.emptyList();
+        List<Broadcast> sent = getBroadcastsBySender().get(senderID);
+        if (sent != null) {
+            received = getReceivedBroadcasts(userManager, recipientID, sent, getBroadcastCursor(sent, since));
+        }
+        return merge(userManager.getMessagesFromUserSince(recipientID, senderID, since), received);
+    }
+
+    /**
+     * @param userManager the UserManager where the users are stored.
+     * @param recipientID the UUID of the user who has received these messages.
+     * @param senderID the UUID of the user who sent them.
+     * @param n the maximum number of messages to return.
+     * @return the last n messages from the sender to the recipient, oldest first.
+     */
+    public synchronized List<ReceivedMessage> getLastMessagesFromUser(UserManager userManager, UUID recipientID,
+                                                                      UUID senderID, int n) {
+        if (!userManager.userExists(recipientID) || n <= 0) {
+            return new ArrayList<>();
+        }
+        List<Broadcast> received = new ArrayList<>();
+        List<Broadcast> sent = getBroadcastsBySender().get(senderID);
+        if (sent != null) {
+            int cursor = getBroadcastCursor(sent, userManager.getTimeOfAccountCreation(recipientID));
+            boolean isAttendee = userManager.isAttendee(recipientID);
+            boolean isSpeaker = userManager.isSpeaker(recipientID);
+            for (int i = sent.size() - 1; i >= cursor && received.size() < n; i--) {
+                if (isAddressedTo(sent.get(i), recipientID, isAttendee, isSpeaker)) received.add(sent.get(i));
+            }
+            Collections.reverse(received);
+        }
+        List<ReceivedMessage> last = merge(userManager.getLastMessagesFromUser(recipientID, senderID, n), received);
+        return new ArrayList<>(last.subList(Math.max(last.size() - n, 0), last.size()));
+    }
+
+    /**
+     * Returns one page of a conversation. The page is read straight from the recipient's inbox and the sender's
+     * broadcasts, so only the messages on the page are looked at, however long the conversation is.
+     *
+     * @param userManager the UserManager where the users are stored.
+     * @param recipientID the UUID of the user who has received these messages.
+     * @param senderID the UUID of the user who sent them.
+     * @param cursor the cursor of the previous page, or null to start at the newest or oldest message.
+     * @param limit the maximum number of messages on the page.
+     * @param newestFirst whether to read from the newest message back. Ignored when continuing from a cursor.
+     * @return the page, in the order it was read.
+     */
+    public synchronized MessagePage getMessagePage(UserManager userManager, UUID recipientID, UUID senderID,
+                                                   MessageCursor cursor, int limit, boolean newestFirst) {
+        List<ReceivedMessage> page = new ArrayList<>();
+        if (!userManager.userExists(recipientID)) {
+            return new MessagePage(page, null);
+        }
+        List<User.InboxEntry> direct = userManager.getInboxFromUser(recipientID, senderID);
+        List<Broadcast> sent = getBroadcastsBySender().getOrDefault(senderID, Collections.emptyList());
+        int first = getBroadcastCursor(sent, userManager.getTimeOfAccountCreation(recipientID));
+        boolean isAttendee = userManager.isAttendee(recipientID);
+        boolean isSpeaker = userManager.isSpeaker(recipientID);
+        if (cursor != null) newestFirst = cursor.newestFirst;
+        int d = cursor != null ? cursor.direct : newestFirst ? direct.size() : 0;
+        int b = cursor != null ? cursor.broadcast : newestFirst ? sent.size() : first;
+        while (page.size() < limit) {
+            // the next broadcast in reading order that reached the recipient
+            if (newestFirst) {
+                while (b > first && !isAddressedTo(sent.get(b - 1), recipientID, isAttendee, isSpeaker)) b--;
+            } else {
+                while (b < sent.size() && !isAddressedTo(sent.get(b), recipientID, isAttendee, isSpeaker)) b++;
+            }
+            boolean hasDirect = newestFirst ? d > 0 : d < direct.size();
+            boolean hasBroadcast = newestFirst ? b > first : b < sent.size();
+            if (!hasDirect && !hasBroadcast) {
+                return new MessagePage(page, null);
+            }
+            User.InboxEntry entry = hasDirect ? direct.get(newestFirst ? d - 1 : d) : null;
+            Message message = hasDirect ? messages.get(entry.messageID) : null;
+            Broadcast broadcast = hasBroadcast ? sent.get(newestFirst ? b - 1 : b) : null;
+            boolean takeDirect = broadcast == null || (message != null
+                    && (message.getSequenceNumber() > broadcast.getSequenceNumber()) == newestFirst);
+            if (takeDirect) {
+                page.add(new ReceivedMessage(senderID, message.getMessageContent(), message.getSequenceNumber(),
+                        entry.timeReceived));
+                d += newestFirst ? -1 : 1;
+            } else {
+                page.add(toReceivedMessage(broadcast));
+                b += newestFirst ? -1 : 1;
+            }
+        }
+        return new MessagePage(page, new MessageCursor(d, b, newestFirst));
+    }
+
+    /**
+     * @param direct messages sent directly to a user, oldest first.
+     * @param received broadcasts that reached the user, oldest first.
+     * @return both lists merged in the order the messages were sent.
+     */
+    private List<ReceivedMessage> merge(List<User.InboxEntry> direct, List<Broadcast> received) {
+        List<ReceivedMessage> merged = new ArrayList<>(direct.size() + received.size());
+        int next = 0;
+        for (User.InboxEntry entry : direct) {
+            Message message = messages.get(entry.messageID);
+            while (next < received.size() && received.get(next).getSequenceNumber() < message.getSequenceNumber()) {
+                merged.add(toReceivedMessage(received.get(next++)));
+            }
+            merged.add(new ReceivedMessage(entry.senderID, message.getMessageContent(), message.getSequenceNumber(),
+                    entry.timeReceived));
+        }
+        while (next < received.size()) {
+            merged.add(toReceivedMessage(received.get(next++)));
+        }
+        return merged;
+    }
+
+    /**
+     * @param userManager the UserManager where the users are stored.
+     * @param recipientID the UUID of the user who has received these broadcasts.
+     * @param sent broadcasts sorted by the time they were sent.
+     * @param from the index of the first broadcast to consider.
+     * @return the broadcasts at or after from that reached the recipient, in the order they were sent.
+     */
+    private List<Broadcast> getReceivedBroadcasts(UserManager userManager, UUID recipientID,
+                                                  List<Broadcast> sent, int from) {
+        if (!userManager.userExists(recipientID)) {
+            return Collections.emptyList();
+        }
+        boolean isAttendee = userManager.isAttendee(recipientID);
+        boolean isSpeaker = userManager.isSpeaker(recipientID);
+        List<Broadcast> received = new ArrayList<>();
+        int start = Math.max(from, getBroadcastCursor(sent, userManager.getTimeOfAccountCreation(recipientID)));
+        for (int i = start; i < sent.size(); i++) {
+            if (isAddressedTo(sent.get(i), recipientID, isAttendee, isSpeaker)) received.add(sent.get(i));
+        }
+        return received;
+    }
+
+    private boolean isAddressedTo(Broadcast broadcast, UUID recipientID, boolean isAttendee, boolean isSpeaker) {
+        switch (broadcast.getAudience()) {
+            case ATTENDEES:
+                return isAttendee;
+            case SPEAKERS:
+                return isSpeaker;
+            case EVENT_ATTENDEES:
+                if (broadcast.getEventID() == null) return broadcast.hasMember(recipientID);
+                EventChannel channel = eventChannels.get(broadcast.getEventID());
+                return channel != null && channel.isMember(recipientID);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Finds a recipient's cursor into a list of broadcasts. Called with the time the recipient's account was created,
+     * it skips the broadcasts sent before the recipient existed, which they did not receive.
+     * @param sent broadcasts sorted by the time they were sent.
+     * @param time a number of milliseconds since the epoch.
+     * @return the index of the first broadcast that was sent at or after time.
+     */
+    private static int getBroadcastCursor(List<Broadcast> sent, long time) {
+        int low = 0;
+        int high = sent.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sent.get(mid).getTimeSent() < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns every message a user has received, direct messages and broadcasts alike, in the order they were sent.
+     * Only the user's own inbox and the broadcasts sent since their account was created are read, so the cost does
+     * not depend on how many other users there are.
+     *
+     * @param userManager the UserManager where the users are stored.
+     * @param recipientID the UUID of the user who has received these messages.
+     * @return the received messages, oldest first.
+     */
+    public synchronized List<ReceivedMessage> getInbox(UserManager userManager, UUID recipientID) {
+        if (!userManager.userExists(recipientID)) {
+            return new ArrayList<>();
+        }
+        return merge(userManager.getInbox(recipientID), getReceivedBroadcasts(userManager, recipientID, broadcasts, 0));
+    }
+
+    private ReceivedMessage toReceivedMessage(Broadcast broadcast) {
+        return new ReceivedMessage(broadcast.getSenderID(), messages.get(broadcast.getMessageID()).getMessageContent(),
+                broadcast.getSequenceNumber(), broadcast.getTimeSent());
+    }
+
+    /**
+     * Returns the users who most recently sent direct messages to a user, for a list of recent conversations. Users
+     * keep their contacts in the order they last wrote, so only the n contacts returned and their last messages are
+     * read.
+     *
+     * @param userManager the UserManager where the users are stored.
+     * @param recipientID the UUID of the user who has received the messages.
+     * @param n the maximum number of contacts to return.
+     * @return the contacts, the one who wrote last first, each with the first PREVIEW_LENGTH characters of the last
+     * message they sent and the number of their direct messages that have not been read.
+     */
+    public synchronized List<RecentContact> getRecentContacts(UserManager userManager, UUID recipientID, int n) {
+        List<RecentContact> recent = new ArrayList<>();
+        if (!userManager.userExists(recipientID) || n <= 0) {
+            return recent;
+        }
+        for (User.Contact contact : userManager.getRecentContacts(recipientID, n)) {
+            String content = messages.get(contact.lastMessage.messageID).getMessageContent();
+            String preview = content.length() <= PREVIEW_LENGTH ? content
+                    : content.substring(0, PREVIEW_LENGTH) + "...";
+            recent.add(new RecentContact(contact.contactID, preview, contact.lastMessage.timeReceived,
+                    contact.numUnread));
+        }
+        return recent;
+    }
+
+    /**
+     * @param userManager the UserManager where the users are stored.
+     * @param recipientID the UUID of a user.
+     * @return the number of messages the user has received and not read.
+     */
+    public synchronized int getNumUnread(UserManager userManager, UUID recipientID) {
+        int numUnread = userManager.getNumUnread(recipientID);
+        for (UUID senderID : getBroadcastsBySender().keySet()) {
+            numUnread += getNumUnreadBroadcasts(userManager, recipientID, senderID);
+        }
+        return numUnread;
+    }
+
+    /**
+     * @param userManager the UserManager where the users are stored.
+     * @param recipientID the UUID of the user who has received the messages.
+     * @param senderID the UUID of the user who sent them.
+     * @return the number of messages from the sender that the recipient has not read.
+     */
+    public synchronized int getNumUnreadFromUser(UserManager userManager, UUID recipientID, UUID senderID) {
+        return userManager.getNumUnreadFromUser(recipientID, senderID)
+                + getNumUnreadBroadcasts(userManager, recipientID, senderID);
+    }
+
+    private int getNumUnreadBroadcasts(UserManager userManager, UUID recipientID, UUID senderID) {
+        List<Broadcast> sent = getBroadcastsBySender().get(senderID);
+        if (sent == null) {
+            return 0;
+        }
+        return getReceivedBroadcasts(userManager, recipientID, sent, getBroadcastsRead(recipientID, senderID)).size();
+    }
+
+    private int getBroadcastsRead(UUID recipientID, UUID senderID) {
+        Map<UUID, Integer> read = broadcastsRead.get(recipientID);
+        return read == null ? 0 : read.getOrDefault(senderID, 0);
+    }
+
+    /**
+     * Marks every message the recipient has received from the sender as read.
+     * @param userManager the UserManager where the users are stored.
+     * @param recipientID the UUID of the user who has received the messages.
+     * @param senderID the UUID of the user who sent them.
+     */
+    public synchronized void markMessagesRead(UserManager userManager, UUID recipientID, UUID senderID) {
+        userManager.markMessagesRead(recipientID, senderID);
+        List<Broadcast> sent = getBroadcastsBySender().get(senderID);
+        if (sent != null) {
+            broadcastsRead.computeIfAbsent(recipientID, id -> new HashMap<>()).put(senderID, sent.size());
+            isChanged = true;
+        }
+    }
+
+    /**
+     * Marks every message the recipient has received as read.
+     * @param userManager the UserManager where the users are stored.
+     * @param recipientID the UUID of the user who has received the messages.
+     */
+    public synchronized void markAllMessagesRead(UserManager userManager, UUID recipientID) {
+        userManager.markAllMessagesRead(recipientID);
+        Map<UUID, Integer> read = broadcastsRead.computeIfAbsent(recipientID, id -> new HashMap<>());
+        for (Map.Entry<UUID, List<Broadcast>> sent : getBroadcastsBySender().entrySet()) {
+            read.put(sent.getKey(), sent.getValue().size());
+        }
+        isChanged = true;
     }
 
     /**
-     * Sends a single message from a speaker to attendees of an event.
+     * Searches the messages a user has sent or received, including the broadcasts that reached them.
+     *
+     * @param userManager the UserManager where the users are stored.
+     * @param userID the UUID of the user who is searching.
+     * @param query the words to search for.
+     * @param limit the maximum number of messages to return.
+     * @return the best matching messages, best first.
+     */
+    public synchronized List<ReceivedMessage> searchMessages(UserManager userManager, UUID userID, String query,
+                                                             int limit) {
+        List<ReceivedMessage> results = new ArrayList<>();
+        if (!userManager.userExists(userID)) {
+            return results;
+        }
+        long timeOfAccountCreation = userManager.getTimeOfAccountCreation(userID);
+        boolean isAttendee = userManager.isAttendee(userID);
+        boolean isSpeaker = userManager.isSpeaker(userID);
+        for (MessageSearchIndex.Hit hit : searchIndex.search(userID, query, broadcast ->
+                broadcast.getSenderID().equals(userID) || (broadcast.getTimeSent() >= timeOfAccountCreation
+                        && isAddressedTo(broadcast, userID, isAttendee, isSpeaker)), limit)) {
+            Message message = messages.get(hit.messageID);
+            results.add(new ReceivedMessage(hit.senderID, message.getMessageContent(), message.getSequenceNumber(),
+                    message.getTimeSent()));
+        }
+        return results;
+    }
+
+    /**
+     * Sends a single message from a speaker to attendees of an event. The message is posted to the event's channel,
+     * so it reaches the users attending the event, including those who join it later.
      *
      * Precondition: senderID is the UUID of a speaker only.
      *
@@ -139,7 +707,452 @@ public class MessageManager implements Serializable {
      */
     public UUID sendMessageToEventAttendees(UserManager userManager, RoomManager roomManager,
                                             UUID senderID, UUID eventID, String messageContent) {
-        ArrayList<UUID> attendeeIDs = roomManager.getEventAttendeeIDs(eventID);
-        return sendMessages(userManager, senderID, attendeeIDs, messageContent);
+        if (isThrottled(userManager, senderID)) return null;
+        UUID messageID;
+        synchronized (this) {
+            EventChannel channel = eventChannels.get(eventID);
+            Collection<UUID> attendeeIDs = channel != null ? channel.getMembers()
+                    : roomManager.getEventAttendeeIDs(eventID);
+            if (attendeeIDs.isEmpty() || !userManager.userExists(senderID)
+                    || (channel == null && !userManager.usersExist(new ArrayList<>(attendeeIDs)))) {
+                return null;
+            }
+            messageID = sendMessageToEventAttendees(senderID, eventID, attendeeIDs, messageContent);
+        }
+        syncJournal();
+        return messageID;
+    }
+
+    /**
+     * Posts a single message to the channel of an event, such as for a MessageDeliveryQueue that checked the
+     * attendees when the message was queued. The message is journaled but not waited for, so that a batch of messages
+     * can be written together; call syncJournal before reporting it as sent.
+     *
+     * Precondition: the sender and every attendee exist, and attendeeIDs is not empty.
+     *
+     * @param senderID the UUID of the sender of this message.
+     * @param eventID the UUID of the event that the users are in.
+     * @param attendeeIDs the UUIDs of the event's attendees, which become the members of its channel if it has none
+     * yet.
+     * @param messageContent the content of the message to send.
+     * @return the id of the sent message.
+     */
+    public synchronized UUID sendMessageToEventAttendees(UUID senderID, UUID eventID, Collection<UUID> attendeeIDs,
+                                                         String messageContent) {
+        boolean isNewChannel = !eventChannels.containsKey(eventID);
+        EventChannel channel = getEventChannel(eventID, attendeeIDs);
+        Message message = newMessage(messageContent);
+        post(channel, message, senderID);
+        journal(Mutations.eventPostSent(message, senderID, eventID,
+                isNewChannel ? channel.getMembers() : Collections.emptySet()));
+        return message.getMessageID();
+    }
+
+    private void post(EventChannel channel, Message message, UUID senderID) {
+        Broadcast post = new Broadcast(message.getMessageID(), senderID, channel.getEventID(),
+                message.getSequenceNumber(), message.getTimeSent());
+        addBroadcast(post, message.getMessageContent());
+        channel.post(post);
+    }
+
+    /**
+     * @param attendeeIDs the members of the channel if it does not exist yet.
+     * @return the channel of the event, which is opened if it does not exist yet.
+     */
+    private EventChannel getEventChannel(UUID eventID, Collection<UUID> attendeeIDs) {
+        EventChannel channel = eventChannels.get(eventID);
+        if (channel == null) {
+            channel = new EventChannel(eventID);
+            for (UUID attendeeID : attendeeIDs) {
+                channel.join(attendeeID);
+            }
+            eventChannels.put(eventID, channel);
+            isChanged = true;
+        }
+        return channel;
+    }
+
+    /**
+     * Adds a user who has just signed up for an event to the event's channel, so they can read what was posted.
+     * @param roomManager the RoomManager where the events and rooms are stored.
+     * @param eventID the UUID of the event.
+     * @param userID the UUID of the user who now attends the event.
+     */
+    public synchronized void joinEventChannel(RoomManager roomManager, UUID eventID, UUID userID) {
+        getEventChannel(eventID, roomManager.getEventAttendeeIDs(eventID)).join(userID);
+        isChanged = true;
+    }
+
+    /**
+     * Removes a user who no longer attends an event from the event's channel.
+     * @param eventID the UUID of the event.
+     * @param userID the UUID of the user.
+     */
+    public synchronized void leaveEventChannel(UUID eventID, UUID userID) {
+        EventChannel channel = eventChannels.get(eventID);
+        if (channel != null) {
+            channel.leave(userID);
+            isChanged = true;
+        }
+    }
+
+    /**
+     * Returns every post in the channel of an event, oldest first, and moves the member's read cursor past them.
+     * @param eventID the UUID of the event.
+     * @param userID the UUID of a member of the event's channel.
+     * @return the posts, or an empty list if the user is not a member.
+     */
+    public synchronized List<ReceivedMessage> readEventChannel(UUID eventID, UUID userID) {
+        EventChannel channel = eventChannels.get(eventID);
+        List<ReceivedMessage> posts = new ArrayList<>();
+        if (channel == null || !channel.isMember(userID)) {
+            return posts;
+        }
+        for (Broadcast post : channel.getPosts()) {
+            posts.add(toReceivedMessage(post));
+        }
+        channel.markRead(userID);
+        isChanged = true;
+        return posts;
+    }
+
+    /**
+     * @param eventID the UUID of the event.
+     * @param userID the UUID of a user.
+     * @return the number of posts in the event's channel the user has not read, or 0 if they are not a member.
+     */
+    public synchronized int getNumUnreadEventPosts(UUID eventID, UUID userID) {
+        EventChannel channel = eventChannels.get(eventID);
+        return channel == null || !channel.isMember(userID) ? 0 : channel.getNumUnread(userID);
+    }
+
+    public synchronized RetentionPolicy getRetentionPolicy() {
+        return retentionPolicy;
+    }
+
+    /**
+     * @param retentionPolicy the policy that says which messages expire when messages are next compacted.
+     */
+    public synchronized void setRetentionPolicy(RetentionPolicy retentionPolicy) {
+        this.retentionPolicy = retentionPolicy;
+        isChanged = true;
+    }
+
+    /**
+     * Deletes the messages that have expired under the retention policy.
+     *
+     * Expired messages are first removed from users' conversations, from broadcasts and event channels and from the
+     * search index by expireMessages. The message store is then rewritten without them by removeExpiredMessages, after
+     * the lock is released, so messages can be sent and read meanwhile. A MessageCompactor calls the two separately,
+     * so that the users are only changed on the thread that changes them.
+     *
+     * Precondition: this is called on the thread that changes the users.
+     *
+     * @param userManager the UserManager where the users are stored.
+     * @param now the current number of milliseconds since the epoch.
+     * @return the number of messages deleted.
+     */
+    public int compactMessages(UserManager userManager, long now) {
+        Set<UUID> expired = expireMessages(userManager, now);
+        removeExpiredMessages(expired);
+        return expired.size();
+    }
+
+    /**
+     * Deletes expired messages from the message store. Runs without this MessageManager's lock.
+     * @param expired the UUIDs of messages returned by expireMessages.
+     */
+    public void removeExpiredMessages(Set<UUID> expired) {
+        if (!expired.isEmpty()) {
+            messages.removeAll(expired);
+            markChanged();
+        }
+    }
+
+    /**
+     * Removes every reference to the messages that have expired, except the messages themselves in the store, which
+     * are deleted by removeExpiredMessages.
+     *
+     * Precondition: this is called on the thread that changes the users, whose conversations are pruned.
+     *
+     * @param userManager the UserManager where the users are stored.
+     * @param now the current number of milliseconds since the epoch.
+     * @return the UUIDs of the expired messages.
+     */
+    public synchronized Set<UUID> expireMessages(UserManager userManager, long now) {
+        Set<UUID> expired = new HashSet<>();
+        if (retentionPolicy.keepsAll()) return expired;
+        for (UUID recipientID : userManager.getUserIDs()) {
+            RetentionPolicy.Rule rule = retentionPolicy.getRule(userManager.userType(recipientID),
+                    RetentionPolicy.ConversationType.DIRECT);
+            if (rule.keepsAll()) continue;
+            for (UUID senderID : new ArrayList<>(userManager.getUserContacts(recipientID))) {
+                int numExpired = rule.getNumExpired(userManager.getInboxFromUser(recipientID, senderID),
+                        entry -> entry.timeReceived, now);
+                expired.addAll(userManager.removeOldestMessagesFromUser(recipientID, senderID, numExpired));
+            }
+        }
+        Map<UUID, Set<Broadcast>> expiredPosts = new HashMap<>();
+        for (Map.Entry<UUID, List<Broadcast>> sent : getBroadcastsBySender().entrySet()) {
+            Set<Broadcast> removed = getExpiredBroadcasts(userManager.userType(sent.getKey()), sent.getValue(), now);
+            if (removed.isEmpty()) continue;
+            // keep each recipient's count of read broadcasts on the same broadcast
+            for (Map<UUID, Integer> read : broadcastsRead.values()) {
+                Integer numRead = read.get(sent.getKey());
+                if (numRead == null) continue;
+                int numRemoved = 0;
+                for (Broadcast broadcast : sent.getValue().subList(0, Math.min(numRead, sent.getValue().size()))) {
+                    if (removed.contains(broadcast)) numRemoved++;
+                }
+                read.put(sent.getKey(), numRead - numRemoved);
+            }
+            sent.getValue().removeIf(removed::contains);
+            for (Broadcast broadcast : removed) {
+                expired.add(broadcast.getMessageID());
+                if (broadcast.getEventID() != null) {
+                    expiredPosts.computeIfAbsent(broadcast.getEventID(), id -> new HashSet<>()).add(broadcast);
+                }
+            }
+        }
+        for (Map.Entry<UUID, Set<Broadcast>> posts : expiredPosts.entrySet()) {
+            EventChannel channel = eventChannels.get(posts.getKey());
+            if (channel != null) channel.removePosts(posts.getValue());
+        }
+        broadcasts.removeIf(broadcast -> expired.contains(broadcast.getMessageID()));
+        searchIndex.removeMessages(expired);
+        if (!expired.isEmpty()) isChanged = true;
+        return expired;
+    }
+
+    /**
+     * @param role the type of the sender, or null if they no longer exist.
+     * @param sent the sender's broadcasts, oldest first.
+     * @return the broadcasts that have expired. Broadcasts and event posts are limited separately.
+     */
+    private Set<Broadcast> getExpiredBroadcasts(String role, List<Broadcast> sent, long now) {
+        Set<Broadcast> removed = new HashSet<>();
+        for (RetentionPolicy.ConversationType type : Arrays.asList(RetentionPolicy.ConversationType.BROADCAST,
+                RetentionPolicy.ConversationType.EVENT)) {
+            RetentionPolicy.Rule rule = retentionPolicy.getRule(role, type);
+            if (rule.keepsAll()) continue;
+            List<Broadcast> ofType = new ArrayList<>();
+            for (Broadcast broadcast : sent) {
+                boolean isEvent = broadcast.getAudience() == Broadcast.Audience.EVENT_ATTENDEES;
+                if (isEvent == (type == RetentionPolicy.ConversationType.EVENT)) ofType.add(broadcast);
+            }
+            removed.addAll(ofType.subList(0, rule.getNumExpired(ofType, Broadcast::getTimeSent, now)));
+        }
+        return removed;
+    }
+
+    private boolean isThrottled(UserManager userManager, UUID senderID) {
+        return !acquireSendToken(userManager, senderID);
+    }
+
+    /**
+     * Takes a token from the sender's bucket for a message that is sent some other way, such as through a
+     * MessageDeliveryQueue. Does not take the lock.
+     * @param userManager the UserManager where the users are stored.
+     * @param senderID the UUID of a sender.
+     * @return true iff the sender may send the message.
+     */
+    public boolean acquireSendToken(UserManager userManager, UUID senderID) {
+        return sendRateLimiter.tryAcquire(senderID, userManager.userType(senderID)) == 0;
+    }
+
+    /**
+     * @param userManager the UserManager where the users are stored.
+     * @param senderID the UUID of a sender.
+     * @return the number of milliseconds until the sender may send another message, or 0 if they may now.
+     */
+    public long getRetryAfterMillis(UserManager userManager, UUID senderID) {
+        long nanos = sendRateLimiter.getRetryAfterNanos(senderID, userManager.userType(senderID));
+        return (nanos + 999_999) / 1_000_000;
+    }
+
+    public SendRateLimiter.Stats getSendRateStats() {
+        return sendRateLimiter.getStats();
+    }
+
+    public SendRateLimiter getSendRateLimiter() {
+        return sendRateLimiter;
+    }
+
+    /**
+     * @param sendRateLimiter the limiter that decides how fast each user may send messages.
+     */
+    public void setSendRateLimiter(SendRateLimiter sendRateLimiter) {
+        this.sendRateLimiter = sendRateLimiter;
+        markChanged();
+    }
+
+    /**
+     * Stores a message recreated from the journal, unless it has been sent already, and makes sure that later
+     * messages are numbered and timed after it.
+     * @param isSent whether the managers already have the message.
+     * @return true iff the message still has to be delivered.
+     */
+    private boolean restoreMessage(Message message, boolean isSent) {
+        nextSequenceNumber = Math.max(nextSequenceNumber, message.getSequenceNumber() + 1);
+        lastTimeSent = Math.max(lastTimeSent, message.getTimeSent());
+        isChanged = true;
+        if (isSent) return false;
+        // the message store may have kept the message even though the managers were not saved with it
+        if (messages.get(message.getMessageID()) == null) messages.add(message);
+        return true;
+    }
+
+    private boolean isBroadcastSent(UUID senderID, UUID messageID) {
+        for (Broadcast broadcast : getBroadcastsBySender().getOrDefault(senderID, Collections.emptyList())) {
+            if (broadcast.getMessageID().equals(messageID)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Delivers a message between two users recreated from the journal, unless it was delivered already.
+     */
+    synchronized void restoreMessage(UserManager userManager, Message message, UUID senderID, UUID recipientID) {
+        if (!restoreMessage(message, !userManager.userExists(recipientID)
+                || userManager.getMessagesFromUser(recipientID, senderID).contains(message.getMessageID()))) {
+            return;
+        }
+        userManager.addMessage(recipientID, senderID, message.getMessageID(), message.getTimeSent());
+        searchIndex.addMessage(message.getMessageID(), senderID, recipientID, message.getMessageContent());
+    }
+
+    /**
+     * Sends a broadcast recreated from the journal, unless it was sent already.
+     */
+    synchronized void restoreBroadcast(Message message, UUID senderID, Broadcast.Audience audience) {
+        if (!restoreMessage(message, isBroadcastSent(senderID, message.getMessageID()))) return;
+        addBroadcast(new Broadcast(message.getMessageID(), senderID, audience, message.getSequenceNumber(),
+                message.getTimeSent()), message.getMessageContent());
+    }
+
+    /**
+     * Posts a message recreated from the journal to the channel of an event, unless it was posted already.
+     * @param members the members of the channel if the post opened it.
+     */
+    synchronized void restoreEventPost(Message message, UUID senderID, UUID eventID, Collection<UUID> members) {
+        if (!restoreMessage(message, isBroadcastSent(senderID, message.getMessageID()))) return;
+        post(getEventChannel(eventID, members), message, senderID);
+    }
+
+    /**
+     * Writes everything but the message store in the compact binary format read by read. The store is written by
+     * whoever created it, since only they know where it keeps its messages.
+     *
+     * Each broadcast is written once; event channels and the search index refer to it by position.
+     *
+     * @param out the stream to write to.
+     * @throws IOException if the stream cannot be written.
+     */
+    public synchronized void write(BinaryOutput out) throws IOException {
+        out.writeVarLong(nextSequenceNumber);
+        out.writeVarLong(lastTimeSent);
+        Map<Broadcast, Integer> positions = new HashMap<>();
+        out.writeVarInt(broadcasts.size());
+        for (Broadcast broadcast : broadcasts) {
+            positions.put(broadcast, positions.size());
+            out.writeUUID(broadcast.getMessageID());
+            out.writeUUID(broadcast.getSenderID());
+            out.writeByte(broadcast.getAudience().ordinal());
+            out.writeUUIDs(broadcast.getMembers());
+            out.writeNullableUUID(broadcast.getEventID());
+            out.writeVarLong(broadcast.getSequenceNumber());
+            out.writeVarLong(broadcast.getTimeSent());
+        }
+        out.writeVarInt(broadcastsRead.size());
+        for (Map.Entry<UUID, HashMap<UUID, Integer>> recipient : broadcastsRead.entrySet()) {
+            out.writeUUID(recipient.getKey());
+            writeCounts(out, recipient.getValue());
+        }
+        out.writeVarInt(eventChannels.size());
+        for (EventChannel channel : eventChannels.values()) {
+            out.writeUUID(channel.getEventID());
+            out.writeUUIDs(channel.getMembers());
+            out.writeVarInt(channel.getPosts().size());
+            for (Broadcast post : channel.getPosts()) {
+                out.writeVarInt(positions.get(post));
+            }
+            writeCounts(out, channel.getReadCursors());
+        }
+        retentionPolicy.write(out);
+        sendRateLimiter.write(out);
+        searchIndex.write(out, positions);
+    }
+
+    private static void writeCounts(BinaryOutput out, Map<UUID, Integer> counts) throws IOException {
+        out.writeVarInt(counts.size());
+        for (Map.Entry<UUID, Integer> count : counts.entrySet()) {
+            out.writeUUID(count.getKey());
+            out.writeVarInt(count.getValue());
+        }
+    }
+
+    private static HashMap<UUID, Integer> readCounts(BinaryInput in) throws IOException {
+        int size = in.readCount();
+        HashMap<UUID, Integer> counts = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            counts.put(in.readUUID(), in.readVarInt());
+        }
+        return counts;
+    }
+
+    /**
+     * Reads back a MessageManager written by write.
+     * @param in the stream to read from.
+     * @param messages the store of the messages, which was written separately.
+     * @return the MessageManager that was written.
+     * @throws IOException if the stream cannot be read or does not hold a MessageManager.
+     */
+    public static MessageManager read(BinaryInput in, IMessageStore messages) throws IOException {
+        long nextSequenceNumber = in.readVarLong();
+        long lastTimeSent = in.readVarLong();
+        int numBroadcasts = in.readCount();
+        List<Broadcast> broadcasts = new ArrayList<>();
+        for (int i = 0; i < numBroadcasts; i++) {
+            UUID messageID = in.readUUID();
+            UUID senderID = in.readUUID();
+            int audience = in.readUnsignedByte();
+            if (audience >= Broadcast.Audience.values().length) throw new IOException("Unknown audience " + audience);
+            Set<UUID> members = new HashSet<>(in.readUUIDs());
+            broadcasts.add(new Broadcast(messageID, senderID, Broadcast.Audience.values()[audience], members,
+                    in.readNullableUUID(), in.readVarLong(), in.readVarLong()));
+        }
+        Map<UUID, HashMap<UUID, Integer>> broadcastsRead = new HashMap<>();
+        int numRecipients = in.readCount();
+        for (int i = 0; i < numRecipients; i++) {
+            broadcastsRead.put(in.readUUID(), readCounts(in));
+        }
+        List<EventChannel> eventChannels = new ArrayList<>();
+        int numChannels = in.readCount();
+        for (int i = 0; i < numChannels; i++) {
+            UUID eventID = in.readUUID();
+            List<UUID> members = in.readUUIDs();
+            int numPosts = in.readCount();
+            List<Broadcast> posts = new ArrayList<>();
+            for (int j = 0; j < numPosts; j++) {
+                int position = in.readVarInt();
+                if (position < 0 || position >= broadcasts.size()) throw new IOException("Unknown post " + position);
+                posts.add(broadcasts.get(position));
+            }
+            eventChannels.add(new EventChannel(eventID, members, posts, readCounts(in)));
+        }
+        RetentionPolicy retentionPolicy = RetentionPolicy.read(in);
+        SendRateLimiter sendRateLimiter = SendRateLimiter.read(in);
+
+        MessageManager messageManager = new MessageManager(messages, MessageSearchIndex.read(in, broadcasts));
+        messageManager.nextSequenceNumber = nextSequenceNumber;
+        messageManager.lastTimeSent = lastTimeSent;
+        messageManager.broadcasts.addAll(broadcasts);
+        messageManager.broadcastsRead.putAll(broadcastsRead);
+        for (EventChannel channel : eventChannels) {
+            messageManager.eventChannels.put(channel.getEventID(), channel);
+        }
+        messageManager.retentionPolicy = retentionPolicy;
+        messageManager.sendRateLimiter = sendRateLimiter;
+        return messageManager;
     }
 }
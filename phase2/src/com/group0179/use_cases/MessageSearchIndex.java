@@ -0,0 +1,356 @@
+package com.group0179.use_cases;
+
+import com.group0179.entities.Broadcast;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * An inverted index over the contents of messages, used to search a user's message history.
+ *
+ * Text is split into lower-case words of letters and digits. Chinese, Japanese and Korean text has no spaces between
+ * words, so it is split into overlapping pairs of characters instead, which lets a search for a word of two or more
+ * characters match wherever it appears.
+ *
+ * Direct messages are indexed once for the sender and once for the recipient, so a search only reads the postings of
+ * the user's own conversations. Broadcasts are indexed once in a shared index, and a search only keeps the broadcasts
+ * that reached the user.
+ */
+public class MessageSearchIndex implements Serializable {
+    /**
+     * A message that matched a search.
+     */
+    public static class Hit {
+        public final UUID messageID;
+        public final UUID senderID;
+        public final double score;
+
+        public Hit(UUID messageID, UUID senderID, double score) {
+            this.messageID = messageID;
+            this.senderID = senderID;
+            this.score = score;
+        }
+    }
+
+    private static class Document implements Serializable {
+        private final UUID messageID;
+        private final UUID senderID;
+        private final Broadcast broadcast;
+
+        private Document(UUID messageID, UUID senderID, Broadcast broadcast) {
+            this.messageID = messageID;
+            this.senderID = senderID;
+            this.broadcast = broadcast;
+        }
+    }
+
+    /**
+     * The documents that contain a term and how often each contains it, in the order they were indexed.
+     */
+    private static class Postings implements Serializable {
+        private int[] documents = new int[2];
+        private int[] counts = new int[2];
+        private int size;
+
+        private void add(int document, int count) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            documents[size] = document;
+            counts[size] = count;
+            size++;
+        }
+
+        private void removeAll(Set<Integer> removed) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (removed.contains(documents[i])) continue;
+                documents[kept] = documents[i];
+                counts[kept] = counts[i];
+                kept++;
+            }
+            size = kept;
+        }
+    }
+
+    private final ArrayList<Document> documents = new ArrayList<>();
+    private final HashMap<UUID, HashMap<String, Postings>> postingsByUser = new HashMap<>();
+    private final HashMap<String, Postings> broadcastPostings = new HashMap<>();
+    private int numRemoved;
+
+    /**
+     * Indexes a message sent from one user to another.
+     * @param messageID the UUID of the message.
+     * @param senderID the UUID of the sender.
+     * @param recipientID the UUID of the recipient.
+     * @param content the content of the message.
+     */
+    public void addMessage(UUID messageID, UUID senderID, UUID recipientID, String content) {
+        int document = documents.size();
+        documents.add(new Document(messageID, senderID, null));
+        Map<String, Integer> counts = countTerms(content);
+        addPostings(postingsByUser.computeIfAbsent(senderID, id -> new HashMap<>()), document, counts);
+        if (!recipientID.equals(senderID)) {
+            addPostings(postingsByUser.computeIfAbsent(recipientID, id -> new HashMap<>()), document, counts);
+        }
+    }
+
+    /**
+     * Indexes a message sent to an audience.
+     * @param broadcast the broadcast of the message.
+     * @param content the content of the message.
+     */
+    public void addBroadcast(Broadcast broadcast, String content) {
+        int document = documents.size();
+        documents.add(new Document(broadcast.getMessageID(), broadcast.getSenderID(), broadcast));
+        addPostings(broadcastPostings, document, countTerms(content));
+    }
+
+    /**
+     * Removes messages from the index, such as those that have expired.
+     * @param messageIDs the UUIDs of the messages to remove.
+     */
+    public void removeMessages(Set<UUID> messageIDs) {
+        Set<Integer> removed = new HashSet<>();
+        for (int i = 0; i < documents.size(); i++) {
+            if (documents.get(i) != null && messageIDs.contains(documents.get(i).messageID)) {
+                documents.set(i, null);
+                removed.add(i);
+            }
+        }
+        if (removed.isEmpty()) return;
+        numRemoved += removed.size();
+        for (Map<String, Postings> index : postingsByUser.values()) {
+            removePostings(index, removed);
+        }
+        removePostings(broadcastPostings, removed);
+    }
+
+    private static void removePostings(Map<String, Postings> index, Set<Integer> removed) {
+        Iterator<Postings> postings = index.values().iterator();
+        while (postings.hasNext()) {
+            Postings term = postings.next();
+            term.removeAll(removed);
+            if (term.size == 0) postings.remove();
+        }
+    }
+
+    private static void addPostings(Map<String, Postings> index, int document, Map<String, Integer> counts) {
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            index.computeIfAbsent(count.getKey(), term -> new Postings()).add(document, count.getValue());
+        }
+    }
+
+    private static Map<String, Integer> countTerms(String text) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String term : tokenize(text)) {
+            counts.merge(term, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Searches the messages a user has sent or received.
+     *
+     * Messages are ranked by how many of the search terms they contain, and then by how often they contain them,
+     * with terms that appear in fewer messages counting for more. Messages with the same score are ranked newest first.
+     *
+     * @param userID the UUID of the user who is searching.
+     * @param query the words to search for.
+     * @param isVisible whether a broadcast was sent or received by the user.
+     * @param limit the maximum number of messages to return.
+     * @return the best matching messages, best first.
+     */
+    public List<Hit> search(UUID userID, String query, Predicate<Broadcast> isVisible, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        Map<String, Postings> userPostings = postingsByUser.getOrDefault(userID, new HashMap<>());
+        Map<Integer, double[]> scores = new HashMap<>();
+        Map<Integer, Boolean> visible = new HashMap<>();
+        for (String term : terms) {
+            score(userPostings.get(term), scores, null, null);
+            score(broadcastPostings.get(term), scores, visible, isVisible);
+        }
+        List<Hit> hits = new ArrayList<>();
+        List<Integer> ranked = new ArrayList<>(scores.keySet());
+        ranked.sort((a, b) -> {
+            int byScore = Double.compare(getScore(scores.get(b), terms.size()), getScore(scores.get(a), terms.size()));
+            return byScore != 0 ? byScore : Integer.compare(b, a);
+        });
+        for (int document : ranked.subList(0, Math.min(limit, ranked.size()))) {
+            Document matched = documents.get(document);
+            hits.add(new Hit(matched.messageID, matched.senderID, getScore(scores.get(document), terms.size())));
+        }
+        return hits;
+    }
+
+    /**
+     * Adds the score of one term to every document in its postings.
+     * @param scores the number of terms matched and the summed term weights of each document.
+     */
+    private void score(Postings postings, Map<Integer, double[]> scores, Map<Integer, Boolean> visible,
+                       Predicate<Broadcast> isVisible) {
+        if (postings == null) return;
+        double inverseFrequency = Math.log(1 + (double) (documents.size() - numRemoved) / postings.size);
+        for (int i = 0; i < postings.size; i++) {
+            int document = postings.documents[i];
+            if (isVisible != null && !visible.computeIfAbsent(document,
+                    d -> isVisible.test(documents.get(d).broadcast))) {
+                continue;
+            }
+            double[] score = scores.computeIfAbsent(document, d -> new double[2]);
+            score[0]++;
+            score[1] += (1 + Math.log(postings.counts[i])) * inverseFrequency;
+        }
+    }
+
+    private static double getScore(double[] score, int numTerms) {
+        return score[0] / numTerms * score[1];
+    }
+
+    /**
+     * Splits text into search terms.
+     * @param text the text to split.
+     * @return the lower-case words of the text, with Chinese, Japanese and Korean text split into overlapping pairs
+     * of characters.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        String lowerCase = text.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < lowerCase.length()) {
+            int codePoint = lowerCase.codePointAt(i);
+            if (isCjk(codePoint)) {
+                List<Integer> run = new ArrayList<>();
+                while (i < lowerCase.length() && isCjk(codePoint = lowerCase.codePointAt(i))) {
+                    run.add(codePoint);
+                    i += Character.charCount(codePoint);
+                }
+                if (run.size() == 1) {
+                    terms.add(new String(Character.toChars(run.get(0))));
+                }
+                for (int j = 0; j + 1 < run.size(); j++) {
+                    terms.add(new StringBuilder().appendCodePoint(run.get(j)).appendCodePoint(run.get(j + 1))
+                            .toString());
+                }
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                int start = i;
+                while (i < lowerCase.length() && Character.isLetterOrDigit(codePoint = lowerCase.codePointAt(i))
+                        && !isCjk(codePoint)) {
+                    i += Character.charCount(codePoint);
+                }
+                terms.add(lowerCase.substring(start, i));
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+        return terms;
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+
+    /**
+     * Writes the index, in the format read by read. The documents of each term are written as the differences between
+     * them, which are small because documents are numbered in the order they were indexed.
+     * @param broadcasts the position of each broadcast among the broadcasts written before the index.
+     */
+    void write(BinaryOutput out, Map<Broadcast, Integer> broadcasts) throws IOException {
+        out.writeVarInt(documents.size());
+        for (Document document : documents) {
+            if (document == null) {
+                out.writeVarInt(0);
+            } else if (document.broadcast != null) {
+                out.writeVarInt(broadcasts.get(document.broadcast) + 2);
+            } else {
+                out.writeVarInt(1);
+                out.writeUUID(document.messageID);
+                out.writeUUID(document.senderID);
+            }
+        }
+        out.writeVarInt(numRemoved);
+        out.writeVarInt(postingsByUser.size());
+        for (Map.Entry<UUID, HashMap<String, Postings>> index : postingsByUser.entrySet()) {
+            out.writeUUID(index.getKey());
+            writePostings(out, index.getValue());
+        }
+        writePostings(out, broadcastPostings);
+    }
+
+    private static void writePostings(BinaryOutput out, Map<String, Postings> index) throws IOException {
+        out.writeVarInt(index.size());
+        for (Map.Entry<String, Postings> term : index.entrySet()) {
+            out.writeString(term.getKey());
+            Postings postings = term.getValue();
+            out.writeVarInt(postings.size);
+            int previous = 0;
+            for (int i = 0; i < postings.size; i++) {
+                out.writeVarInt(postings.documents[i] - previous);
+                out.writeVarInt(postings.counts[i]);
+                previous = postings.documents[i];
+            }
+        }
+    }
+
+    /**
+     * Reads back an index written by write.
+     * @param broadcasts the broadcasts written before the index, in the order they were written.
+     */
+    static MessageSearchIndex read(BinaryInput in, List<Broadcast> broadcasts) throws IOException {
+        MessageSearchIndex index = new MessageSearchIndex();
+        int numDocuments = in.readCount();
+        index.documents.ensureCapacity(numDocuments);
+        for (int i = 0; i < numDocuments; i++) {
+            int kind = in.readVarInt();
+            if (kind == 0) {
+                index.documents.add(null);
+            } else if (kind == 1) {
+                index.documents.add(new Document(in.readUUID(), in.readUUID(), null));
+            } else if (kind - 2 < broadcasts.size()) {
+                Broadcast broadcast = broadcasts.get(kind - 2);
+                index.documents.add(new Document(broadcast.getMessageID(), broadcast.getSenderID(), broadcast));
+            } else {
+                throw new IOException("Unknown broadcast " + (kind - 2));
+            }
+        }
+        index.numRemoved = in.readVarInt();
+        int numUsers = in.readCount();
+        for (int i = 0; i < numUsers; i++) {
+            UUID userID = in.readUUID();
+            index.postingsByUser.put(userID, readPostings(in, numDocuments));
+        }
+        index.broadcastPostings.putAll(readPostings(in, numDocuments));
+        return index;
+    }
+
+    private static HashMap<String, Postings> readPostings(BinaryInput in, int numDocuments) throws IOException {
+        int numTerms = in.readCount();
+        HashMap<String, Postings> index = new HashMap<>(numTerms * 4 / 3 + 1);
+        for (int i = 0; i < numTerms; i++) {
+            String term = in.readString();
+            int size = in.readCount();
+            if (size > numDocuments) throw new IOException("Too many documents for " + term);
+            Postings postings = new Postings();
+            postings.documents = new int[Math.max(size, 2)];
+            postings.counts = new int[Math.max(size, 2)];
+            int document = 0;
+            for (int j = 0; j < size; j++) {
+                document += in.readVarInt();
+                if (document >= numDocuments) throw new IOException("Unknown document " + document);
+                postings.documents[j] = document;
+                postings.counts[j] = in.readVarInt();
+            }
+            postings.size = size;
+            index.put(term, postings);
+        }
+        return index;
+    }
+}
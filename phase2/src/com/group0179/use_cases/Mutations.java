@@ -0,0 +1,307 @@
+package com.group0179.use_cases;
+
+import com.group0179.entities.Broadcast;
+import com.group0179.entities.Event;
+import com.group0179.entities.EventSeries;
+import com.group0179.entities.Message;
+import com.group0179.entities.Room;
+import com.group0179.entities.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * The changes to the managers that are written to an IJournal, and how they are replayed.
+ *
+ * A record is a byte saying which change it is, followed by the change in the format of BinaryOutput. A record holds
+ * the UUIDs, sequence numbers and times the change was made with, so replaying it recreates the same users, events
+ * and messages. Replaying a change that the managers already have does nothing, so a record may be replayed over a
+ * snapshot that was saved after the record was written.
+ *
+ * Creating accounts, creating and removing rooms and events, rescheduling events and changing whether they are vip
+ * only, creating event series, cancelling their occurrences and changing whether they are vip only, signing up for and
+ * leaving events, and sending messages are journaled. Other changes, such as reading messages, are only saved with the
+ * next snapshot.
+ */
+public class Mutations {
+    private static final byte ACCOUNT_CREATED = 1;
+    private static final byte ROOM_CREATED = 2;
+    private static final byte EVENT_CREATED = 3;
+    private static final byte SIGNED_UP = 4;
+    private static final byte SIGN_UP_CANCELLED = 5;
+    private static final byte MESSAGE_SENT = 6;
+    private static final byte BROADCAST_SENT = 7;
+    private static final byte EVENT_POST_SENT = 8;
+    private static final byte EVENT_REMOVED = 9;
+    private static final byte ROOM_REMOVED = 10;
+    private static final byte EVENT_RESCHEDULED = 11;
+    private static final byte VIP_CHANGED = 12;
+    private static final byte SERIES_CREATED = 13;
+    private static final byte SERIES_VIP_CHANGED = 14;
+    private static final byte OCCURRENCE_CANCELLED = 15;
+
+    private interface Writer {
+        void write(BinaryOutput out) throws IOException;
+    }
+
+    private static byte[] record(byte type, Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BinaryOutput out = new BinaryOutput(bytes)) {
+            out.writeByte(type);
+            writer.write(out);
+        } catch (IOException e) {
+            // a ByteArrayOutputStream is never short of space
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] accountCreated(User user) {
+        return record(ACCOUNT_CREATED, out -> UserManager.writeAccount(out, user));
+    }
+
+    static byte[] roomCreated(Room room) {
+        return record(ROOM_CREATED, out -> {
+            out.writeUUID(room.getRoomID());
+            out.writeVarInt(room.getRoomNumber());
+            out.writeVarInt(room.getRoomCapcity());
+        });
+    }
+
+    static byte[] eventCreated(int roomNumber, Event event) {
+        return record(EVENT_CREATED, out -> {
+            out.writeVarInt(roomNumber);
+            out.writeUUID(event.getEventID());
+            out.writeString(event.getTitle());
+            out.writeStrings(event.getSpeakerNames());
+            out.writeTime(event.getStartTime());
+            out.writeTime(event.getEndTime());
+            out.writeVarInt(event.getCapacity());
+        });
+    }
+
+    static byte[] eventRemoved(UUID eventID) {
+        return record(EVENT_REMOVED, out -> out.writeUUID(eventID));
+    }
+
+    static byte[] roomRemoved(int roomNumber) {
+        return record(ROOM_REMOVED, out -> out.writeVarInt(roomNumber));
+    }
+
+    static byte[] eventRescheduled(UUID eventID, Calendar startTime, Calendar endTime) {
+        return record(EVENT_RESCHEDULED, out -> {
+            out.writeUUID(eventID);
+            out.writeTime(startTime);
+            out.writeTime(endTime);
+        });
+    }
+
+    static byte[] vipChanged(UUID eventID, boolean isVipOnly) {
+        return record(VIP_CHANGED, out -> {
+            out.writeUUID(eventID);
+            out.writeBoolean(isVipOnly);
+        });
+    }
+
+    static byte[] seriesCreated(int roomNumber, EventSeries series) {
+        return record(SERIES_CREATED, out -> {
+            out.writeVarInt(roomNumber);
+            out.writeUUID(series.getSeriesID());
+            out.writeString(series.getTitle());
+            out.writeStrings(series.getSpeakerNames());
+            out.writeTime(series.getStartTime(0));
+            out.writeTime(series.getEndTime(0));
+            out.writeVarInt(series.getIntervalDays());
+            out.writeVarInt(series.getOccurrences());
+            out.writeVarInt(series.getCapacity());
+        });
+    }
+
+    static byte[] seriesVipChanged(UUID seriesID, boolean isVipOnly) {
+        return record(SERIES_VIP_CHANGED, out -> {
+            out.writeUUID(seriesID);
+            out.writeBoolean(isVipOnly);
+        });
+    }
+
+    static byte[] occurrenceCancelled(UUID seriesID, int occurrence) {
+        return record(OCCURRENCE_CANCELLED, out -> {
+            out.writeUUID(seriesID);
+            out.writeVarInt(occurrence);
+        });
+    }
+
+    static byte[] signedUp(UUID attendeeID, UUID eventID) {
+        return record(SIGNED_UP, out -> {
+            out.writeUUID(attendeeID);
+            out.writeUUID(eventID);
+        });
+    }
+
+    static byte[] signUpCancelled(UUID attendeeID, UUID eventID) {
+        return record(SIGN_UP_CANCELLED, out -> {
+            out.writeUUID(attendeeID);
+            out.writeUUID(eventID);
+        });
+    }
+
+    static byte[] messageSent(Message message, UUID senderID, UUID recipientID) {
+        return record(MESSAGE_SENT, out -> {
+            writeMessage(out, message, senderID);
+            out.writeUUID(recipientID);
+        });
+    }
+
+    static byte[] broadcastSent(Message message, UUID senderID, Broadcast.Audience audience) {
+        return record(BROADCAST_SENT, out -> {
+            writeMessage(out, message, senderID);
+            out.writeByte(audience.ordinal());
+        });
+    }
+
+    /**
+     * @param members the members of the event's channel if this post opened it, or else none.
+     */
+    static byte[] eventPostSent(Message message, UUID senderID, UUID eventID, Collection<UUID> members) {
+        return record(EVENT_POST_SENT, out -> {
+            writeMessage(out, message, senderID);
+            out.writeUUID(eventID);
+            out.writeUUIDs(members);
+        });
+    }
+
+    private static void writeMessage(BinaryOutput out, Message message, UUID senderID) throws IOException {
+        out.writeUUID(message.getMessageID());
+        out.writeVarLong(message.getSequenceNumber());
+        out.writeVarLong(message.getTimeSent());
+        out.writeString(message.getMessageContent());
+        out.writeUUID(senderID);
+    }
+
+    /**
+     * Makes the change in a record to the managers, unless they already have it. Changes that no longer apply, such
+     * as signing up for an event that is not in the snapshot, are skipped.
+     *
+     * Precondition: the managers are not journaling, so the change is not journaled again.
+     *
+     * @param record a record written to the journal.
+     * @param userManager the UserManager where the users are stored.
+     * @param roomManager the RoomManager where the events and rooms are stored.
+     * @param messageManager the MessageManager where the messages are stored.
+     * @throws IOException if the record is not a record of a change.
+     */
+    public static void replay(byte[] record, UserManager userManager, RoomManager roomManager,
+                              MessageManager messageManager) throws IOException {
+        BinaryInput in = new BinaryInput(new ByteArrayInputStream(record));
+        byte type = in.readByte();
+        switch (type) {
+            case ACCOUNT_CREATED:
+                userManager.restoreUser(UserManager.readAccount(in));
+                break;
+            case ROOM_CREATED:
+                roomManager.restoreRoom(in.readUUID(), in.readVarInt(), in.readVarInt());
+                break;
+            case EVENT_CREATED:
+                int roomNumber = in.readVarInt();
+                roomManager.restoreEvent(userManager, roomNumber, new Event(in.readUUID(), in.readString(),
+                        in.readStrings(), in.readTime(), in.readTime(), in.readVarInt()));
+                break;
+            case EVENT_REMOVED:
+                roomManager.removeEvent(userManager, in.readUUID());
+                break;
+            case ROOM_REMOVED:
+                // room numbers are never reused, so this is the room that was removed or it is already gone
+                roomManager.removeRoom(userManager, in.readVarInt());
+                break;
+            case EVENT_RESCHEDULED:
+                roomManager.restoreSchedule(userManager, in.readUUID(), in.readTime(), in.readTime());
+                break;
+            case VIP_CHANGED:
+                roomManager.restoreVipStatus(in.readUUID(), in.readBoolean());
+                break;
+            case SERIES_CREATED:
+                int seriesRoomNumber = in.readVarInt();
+                roomManager.restoreEventSeries(seriesRoomNumber, new EventSeries(in.readUUID(), in.readString(),
+                        in.readStrings(), in.readTime(), in.readTime(), in.readVarInt(), in.readVarInt(),
+                        in.readVarInt(), Collections.emptyList(), Collections.emptyMap()));
+                break;
+            case SERIES_VIP_CHANGED:
+                roomManager.restoreSeriesVipStatus(in.readUUID(), in.readBoolean());
+                break;
+            case OCCURRENCE_CANCELLED:
+                roomManager.restoreCancelledOccurrence(in.readUUID(), in.readVarInt());
+                break;
+            case SIGNED_UP:
+                replaySignUp(in.readUUID(), in.readUUID(), userManager, roomManager, messageManager);
+                break;
+            case SIGN_UP_CANCELLED:
+                UUID leavingID = in.readUUID();
+                UUID eventID = in.readUUID();
+                if (roomManager.eventExists(eventID)) {
+                    roomManager.removeEventAttendee(leavingID, eventID, userManager);
+                    messageManager.leaveEventChannel(eventID, leavingID);
+                }
+                break;
+            case MESSAGE_SENT:
+            case BROADCAST_SENT:
+            case EVENT_POST_SENT:
+                replayMessage(type, in, userManager, messageManager);
+                break;
+            default:
+                throw new IOException("Unknown journal record " + type);
+        }
+    }
+
+    /**
+     * Makes the change in a record to the users if the record creates an account, so that users can log in before the
+     * other managers are read. Replaying the record again with replay then does nothing.
+     *
+     * Precondition: the UserManager is not journaling.
+     *
+     * @param record a record written to the journal.
+     * @param userManager the UserManager where the users are stored.
+     * @return true iff the record creates an account.
+     * @throws IOException if the record is cut short.
+     */
+    public static boolean replayAccount(byte[] record, UserManager userManager) throws IOException {
+        if (record.length == 0 || record[0] != ACCOUNT_CREATED) return false;
+        BinaryInput in = new BinaryInput(new ByteArrayInputStream(record, 1, record.length - 1));
+        userManager.restoreUser(UserManager.readAccount(in));
+        return true;
+    }
+
+    private static void replaySignUp(UUID attendeeID, UUID eventID, UserManager userManager,
+                                     RoomManager roomManager, MessageManager messageManager) {
+        if (!userManager.userExists(attendeeID) || !roomManager.eventExists(eventID)) return;
+        // the sign up was allowed when it was made, so it is not checked against the vip status again
+        roomManager.addEventAttendee(attendeeID, eventID, userManager, true);
+        if (roomManager.getEventAttendeeIDs(eventID).contains(attendeeID)) {
+            messageManager.joinEventChannel(roomManager, eventID, attendeeID);
+        }
+    }
+
+    private static void replayMessage(byte type, BinaryInput in, UserManager userManager,
+                                      MessageManager messageManager) throws IOException {
+        UUID messageID = in.readUUID();
+        long sequenceNumber = in.readVarLong();
+        long timeSent = in.readVarLong();
+        Message message = new Message(messageID, sequenceNumber, timeSent, in.readString());
+        UUID senderID = in.readUUID();
+        if (type == MESSAGE_SENT) {
+            messageManager.restoreMessage(userManager, message, senderID, in.readUUID());
+        } else if (type == BROADCAST_SENT) {
+            int audience = in.readUnsignedByte();
+            if (audience >= Broadcast.Audience.values().length) throw new IOException("Unknown audience " + audience);
+            messageManager.restoreBroadcast(message, senderID, Broadcast.Audience.values()[audience]);
+        } else {
+            UUID eventID = in.readUUID();
+            messageManager.restoreEventPost(message, senderID, eventID, in.readUUIDs());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.group0179.use_cases;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs a job at a fixed interval on its own daemon thread. A run can hand a step to an Executor that runs tasks on the
+ * thread that changes the managers, such as Platform::runLater for the JavaFX Application Thread, and wait for its
+ * result, so that thread only pauses for that step and the rest of the run is done in the background.
+ *
+ * The thread waits on a monitor between runs rather than being interrupted, which would close any file channel it is
+ * using. A step that has not started when the task is shut down is skipped, since the executor may never run it; one
+ * that has started is waited for.
+ */
+public class PeriodicTask {
+    private final Executor executor;
+    private final long intervalMillis;
+    private final Runnable job;
+    private final Thread worker;
+    private final Object lock = new Object();
+    private boolean isShutdown;
+    private boolean isStepping;
+
+    /**
+     * Runs a step on the executor's thread, unless the task is shut down before it starts.
+     */
+    private class Step<T> implements Runnable {
+        private final Callable<T> callable;
+        private T result;
+        private Exception failure;
+        private boolean isDone;
+
+        private Step(Callable<T> callable) {
+            this.callable = callable;
+        }
+
+        @Override
+        public void run() {
+            synchronized (lock) {
+                if (isShutdown) {
+                    isDone = true;
+                    lock.notifyAll();
+                    return;
+                }
+                isStepping = true;
+            }
+            try {
+                result = callable.call();
+            } catch (Exception e) {
+                failure = e;
+            } finally {
+                synchronized (lock) {
+                    isDone = true;
+                    isStepping = false;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a task, which runs once it is started.
+     * @param name the name of the thread.
+     * @param executor runs the steps handed to it on the thread that changes the managers.
+     * @param intervalMillis the number of milliseconds between two runs.
+     * @param job a run, which handles its own failures.
+     */
+    public PeriodicTask(String name, Executor executor, long intervalMillis, Runnable job) {
+        this.executor = executor;
+        this.intervalMillis = intervalMillis;
+        this.job = job;
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Starts the thread. The first run is one interval from now.
+     */
+    public void start() {
+        worker.start();
+    }
+
+    private void run() {
+        while (true) {
+            synchronized (lock) {
+                long wakeUp = System.currentTimeMillis() + intervalMillis;
+                try {
+                    while (!isShutdown && System.currentTimeMillis() < wakeUp) {
+                        lock.wait(Math.max(wakeUp - System.currentTimeMillis(), 1));
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (isShutdown) return;
+            }
+            job.run();
+        }
+    }
+
+    /**
+     * Hands a step to the executor and waits for it.
+     *
+     * Precondition: this is not called on the executor's thread, unless the executor runs tasks on the thread that
+     * calls it.
+     *
+     * @param callable the step.
+     * @return what the step returned, or null if the task was shut down before the step started.
+     * @throws ExecutionException if the step failed, with its failure as the cause.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public <T> T handOff(Callable<T> callable) throws ExecutionException, InterruptedException {
+        Step<T> step = new Step<>(callable);
+        executor.execute(step);
+        synchronized (lock) {
+            while (!step.isDone && !(isShutdown && !isStepping)) {
+                lock.wait();
+            }
+            if (!step.isDone) return null;
+        }
+        if (step.failure != null) throw new ExecutionException(step.failure);
+        return step.result;
+    }
+
+    /**
+     * Stops the thread, waiting for a run in progress to finish. A step still waiting for the executor is not run.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void shutdown() throws InterruptedException {
+        synchronized (lock) {
+            isShutdown = true;
+            lock.notifyAll();
+        }
+        worker.join();
+    }
+}
@@ -0,0 +1,140 @@
+package com.group0179.use_cases;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Says how long messages are kept. A rule limits the age of the messages in a conversation, the number of them, or
+ * both. Rules are set per conversation type, for every role or for one role: direct messages are looked up by the role
+ * of the recipient, and broadcasts and event posts by the role of the sender. Anything without a rule is kept forever.
+ */
+public class RetentionPolicy implements Serializable {
+    /**
+     * The kinds of conversations a rule applies to.
+     */
+    public enum ConversationType {DIRECT, BROADCAST, EVENT}
+
+    /**
+     * A limit on the messages kept in one conversation.
+     */
+    public static class Rule implements Serializable {
+        public final long maxAgeMillis;
+        public final int maxCount;
+
+        public Rule(long maxAgeMillis, int maxCount) {
+            this.maxAgeMillis = maxAgeMillis;
+            this.maxCount = maxCount;
+        }
+
+        /**
+         * @return true iff this rule never expires anything.
+         */
+        public boolean keepsAll() {
+            return maxAgeMillis == Long.MAX_VALUE && maxCount == Integer.MAX_VALUE;
+        }
+
+        /**
+         * @param messages the messages of a conversation, oldest first.
+         * @param timeSent the time each message was sent.
+         * @param now the current number of milliseconds since the epoch.
+         * @return the number of messages at the start of the list that have expired.
+         */
+        public <T> int getNumExpired(List<T> messages, ToLongFunction<T> timeSent, long now) {
+            int expired = Math.max(messages.size() - maxCount, 0);
+            while (expired < messages.size() && now - timeSent.applyAsLong(messages.get(expired)) > maxAgeMillis) {
+                expired++;
+            }
+            return expired;
+        }
+    }
+
+    public static final Rule KEEP_ALL = new Rule(Long.MAX_VALUE, Integer.MAX_VALUE);
+    private static final String ALL_ROLES = "";
+
+    private final Map<String, EnumMap<ConversationType, Rule>> rules = new HashMap<>();
+
+    /**
+     * Limits a conversation type for every role that has no rule of its own.
+     * @param type the type of conversation.
+     * @param maxAgeMillis the age in milliseconds after which a message expires, or Long.MAX_VALUE.
+     * @param maxCount the number of newest messages kept in each conversation, or Integer.MAX_VALUE.
+     * @return this policy.
+     */
+    public RetentionPolicy setRule(ConversationType type, long maxAgeMillis, int maxCount) {
+        return setRule(ALL_ROLES, type, maxAgeMillis, maxCount);
+    }
+
+    /**
+     * Limits a conversation type for one role.
+     * @param role the type of user, as returned by UserManager.userType.
+     * @param type the type of conversation.
+     * @param maxAgeMillis the age in milliseconds after which a message expires, or Long.MAX_VALUE.
+     * @param maxCount the number of newest messages kept in each conversation, or Integer.MAX_VALUE.
+     * @return this policy.
+     */
+    public RetentionPolicy setRule(String role, ConversationType type, long maxAgeMillis, int maxCount) {
+        rules.computeIfAbsent(role, r -> new EnumMap<>(ConversationType.class))
+                .put(type, new Rule(maxAgeMillis, maxCount));
+        return this;
+    }
+
+    /**
+     * @param role the type of user, or null if the user no longer exists.
+     * @param type the type of conversation.
+     * @return the rule for the role, the rule for every role if it has none, or KEEP_ALL.
+     */
+    public Rule getRule(String role, ConversationType type) {
+        Map<ConversationType, Rule> forRole = role == null ? null : rules.get(role);
+        if (forRole != null && forRole.containsKey(type)) return forRole.get(type);
+        Map<ConversationType, Rule> forAll = rules.get(ALL_ROLES);
+        return forAll != null && forAll.containsKey(type) ? forAll.get(type) : KEEP_ALL;
+    }
+
+    /**
+     * @return true iff no rule expires anything.
+     */
+    public boolean keepsAll() {
+        for (Map<ConversationType, Rule> forRole : rules.values()) {
+            for (Rule rule : forRole.values()) {
+                if (!rule.keepsAll()) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes every rule, in the format read by read.
+     */
+    void write(BinaryOutput out) throws IOException {
+        out.writeVarInt(rules.size());
+        for (Map.Entry<String, EnumMap<ConversationType, Rule>> forRole : rules.entrySet()) {
+            out.writeString(forRole.getKey());
+            out.writeVarInt(forRole.getValue().size());
+            for (Map.Entry<ConversationType, Rule> rule : forRole.getValue().entrySet()) {
+                out.writeByte(rule.getKey().ordinal());
+                out.writeVarLong(rule.getValue().maxAgeMillis);
+                out.writeVarInt(rule.getValue().maxCount);
+            }
+        }
+    }
+
+    static RetentionPolicy read(BinaryInput in) throws IOException {
+        RetentionPolicy policy = new RetentionPolicy();
+        int numRoles = in.readCount();
+        for (int i = 0; i < numRoles; i++) {
+            String role = in.readString();
+            int numRules = in.readCount();
+            for (int j = 0; j < numRules; j++) {
+                int type = in.readUnsignedByte();
+                if (type >= ConversationType.values().length) throw new IOException("Unknown conversation " + type);
+                policy.setRule(role, ConversationType.values()[type], in.readVarLong(), in.readVarInt());
+            }
+        }
+        return policy;
+    }
+}
@@ -1,10 +1,13 @@
 package com.group0179.use_cases;
 
 import com.group0179.entities.Event;
+import com.group0179.entities.EventSeries;
 import com.group0179.entities.Room;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Create rooms
@@ -16,20 +19,168 @@ import java.util.*;
  * Get events from rooms by UUID
  * Get all events from room
  * <p>
+ * Create recurring event series
+ * List occurrences of event series as transient views, and expand one into an event once it gets state of its
+ * own, such as a sign up or a reschedule
+ * <p>
  * Reschedule an event
  * <p>
  * Sign up an attendee for an Event
  * Remove an attendee from an Event
+ * <p>
+ * Saved in partitions: one per room with its events and series, and one with the order of the rooms, so that a change
+ * to an event only rewrites its room.
  *
  * @author Justin Chan
  */
 
-public class RoomManager implements Serializable {
+public class RoomManager implements Serializable, IPartitioned {
+    /**
+     * Room number that matches every room when used as a filter.
+     */
+    public static final int ALL_ROOMS = -1;
+    private static final String ROOMS_PARTITION = "rooms";
+
     private final ArrayList<Room> rooms = new ArrayList<>();
+    private int nextRoomNumber = 0;
+    private transient IJournal journal;
+    private transient Set<String> changedPartitions;
+    private transient TreeMap<EventCursor, Event> programIndex;
+    private transient HashMap<UUID, Event> eventIDToEvent;
+    private transient HashMap<UUID, Room> eventIDToRoom;
+    private transient HashMap<Integer, Room> roomNumberToRoom;
 
     public RoomManager() {
     }
 
+    /**
+     * Writes every change to the rooms, events, event series and sign ups from now on to a journal, and waits until it
+     * is on disk before returning.
+     * @param journal the journal, or null to stop journaling.
+     */
+    public void setJournal(IJournal journal) {
+        this.journal = journal;
+    }
+
+    private void journal(byte[] record) {
+        if (journal != null) journal.sync(journal.append(record));
+    }
+
+    /**
+     * Marks the partition that holds the order of the rooms as changed.
+     */
+    private void changedRooms() {
+        getChangedPartitions().add(ROOMS_PARTITION);
+    }
+
+    /**
+     * Marks the partition of a room as changed.
+     */
+    private void changed(Room room) {
+        getChangedPartitions().add(getPartition(room.getRoomNumber()));
+    }
+
+    private synchronized Set<String> getChangedPartitions() {
+        if (changedPartitions == null) {
+            changedPartitions = ConcurrentHashMap.newKeySet();
+        }
+        return changedPartitions;
+    }
+
+    private static String getPartition(int roomNumber) {
+        return "room-" + roomNumber;
+    }
+
+    /**
+     * @param eventID the UUID of an event
+     * @return true iff there is an event or a pending occurrence of a series with that UUID
+     */
+    boolean eventExists(UUID eventID) {
+        return getListedEvent(eventID) != null;
+    }
+
+    /**
+     * Adds a room recreated from the journal, unless a room with the same number already exists. Later rooms are
+     * numbered after it.
+     */
+    void restoreRoom(UUID roomID, int roomNumber, int capacity) {
+        if (getRoom(roomNumber) != null) return;
+        Room room = new Room(roomID, roomNumber, capacity, Collections.emptyList(), Collections.emptyList());
+        rooms.add(room);
+        roomNumberToRoom.put(roomNumber, room);
+        nextRoomNumber = Math.max(nextRoomNumber, roomNumber + 1);
+        changedRooms();
+        changed(room);
+    }
+
+    /**
+     * Adds an event recreated from the journal to its room and its speakers, unless an event with the same UUID
+     * already exists or the room does not.
+     */
+    void restoreEvent(UserManager um, int roomNumber, Event event) {
+        Room room = getRoom(roomNumber);
+        if (room == null || eventExists(event.getEventID()) || !room.addEvent(event)) return;
+        indexEvent(room, event);
+        changed(room);
+        for (String speakerName : event.getSpeakerNames()) {
+            um.speakerAddEvent(speakerName, room.getRoomID(), event.getEventID());
+        }
+    }
+
+    /**
+     * Moves an event to the times it was rescheduled to in the journal, expanding it first if it is a pending
+     * occurrence. The times are not checked again, since the reschedule was allowed when it was made.
+     */
+    void restoreSchedule(UserManager um, UUID eventID, Calendar startTime, Calendar endTime) {
+        Event event = getOrExpandEvent(um, eventID);
+        if (event == null) return;
+        Room room = getEventRoom(event);
+        unindexEvent(event);
+        room.rescheduleEvent(event, startTime, endTime);
+        indexEvent(room, event);
+        changed(room);
+    }
+
+    /**
+     * Sets the vip only status an event was given in the journal, unless the event no longer exists.
+     */
+    void restoreVipStatus(UUID eventID, boolean isVipOnly) {
+        Event event = getEvent(eventID);
+        if (event == null) return;
+        event.setVipOnlyStatus(isVipOnly);
+        changed(getEventRoom(event));
+    }
+
+    /**
+     * Adds a series recreated from the journal to its room, unless a series with the same UUID already exists or the
+     * room does not.
+     */
+    void restoreEventSeries(int roomNumber, EventSeries series) {
+        Room room = getRoom(roomNumber);
+        if (room == null || getEventSeries(series.getSeriesID()) != null || !room.addEventSeries(series)) return;
+        changed(room);
+    }
+
+    /**
+     * Sets the vip only status a series was given in the journal, unless the series no longer exists.
+     */
+    void restoreSeriesVipStatus(UUID seriesID, boolean isVipOnly) {
+        EventSeries series = getEventSeries(seriesID);
+        if (series == null) return;
+        series.setVipOnlyStatus(isVipOnly);
+        changed(getEventSeriesRoom(seriesID));
+    }
+
+    /**
+     * Cancels an occurrence of a series that was cancelled in the journal, unless it already is or the series no
+     * longer exists.
+     */
+    void restoreCancelledOccurrence(UUID seriesID, int occurrence) {
+        EventSeries series = getEventSeries(seriesID);
+        if (series == null || !series.cancelOccurrence(occurrence)) return;
+        changed(getEventSeriesRoom(seriesID));
+    }
+
     /**
      * @param roomID the UUID of the room
      * @return the room corresponding to the UUID
@@ -40,19 +191,18 @@ public class RoomManager implements Serializable {
         return getRoomIDToRoom().get(roomID);
     }
 
+    /**
+     * @param roomNumber the room number of the room
+     * @return the room with that number, or null if there is no such room
+     */
     private Room getRoom(int roomNumber) {
-        return getRooms().get(roomNumber);
+        buildIndexes();
+        return roomNumberToRoom.get(roomNumber);
     }
 
     private Room getEventRoom(Event event) {
-        for (Room room : rooms) {
-            for (Event comparisonEvent : room.getEvents()) {
-                if (event.equals(comparisonEvent)) {
-                    return room;
-                }
-            }
-        }
-        return new Room(30);
+        buildIndexes();
+        return eventIDToRoom.get(event.getEventID());
     }
 
     /**
@@ -78,15 +228,8 @@ public class RoomManager implements Serializable {
      * Precondition: event must exist in one of the rooms
      */
     private Event getEvent(UUID eventID) {
-        return getEventIDToEvent().get(eventID);
-    }
-
-    private Event getEvent(int roomNumber, int eventNumber) {
-        return getEventsFromRoom(roomNumber).get(eventNumber);
-    }
-
-    private Event getEventFromRoom(int roomNumber, int eventNumber) {
-        return getEventsFromRoom(roomNumber).get(eventNumber);
+        buildIndexes();
+        return eventIDToEvent.get(eventID);
     }
 
     private ArrayList<Room> getRooms() {
@@ -106,8 +249,9 @@ public class RoomManager implements Serializable {
     }
 
     private ArrayList<Event> getEventsFromRoom(int roomNumber) {
-        if (0 <= roomNumber && roomNumber < getRooms().size()) {
-            return getEventsFromRoom(getRooms().get(roomNumber));
+        Room room = getRoom(roomNumber);
+        if (room != null) {
+            return getEventsFromRoom(room);
         }
         return null;
     }
@@ -123,12 +267,14 @@ public class RoomManager implements Serializable {
     /**
      * Since two events in different rooms can have the same name,
      * this takes an eventname, a roomNumber and tries to find the event
-     * UUID from a sepcific room.
+     * UUID from a sepcific room. If only an event series has that name, the UUID of its earliest pending occurrence is
+     * returned, without expanding it.
      * @param eventName The name of the event
      * @param roomNumber The room's number
+     * @param um User Manager
      * @return null if event with that name not found or room number not found. UUID of event otherwise.
      */
-    public UUID getEventUUIDfromNameandRoom(String eventName, int roomNumber){
+    public UUID getEventUUIDfromNameandRoom(String eventName, int roomNumber, UserManager um){
         ArrayList<Event> events = this.getEventsFromRoom(roomNumber);
         if (events==null){return null;}
         for (Event event : events){
@@ -136,9 +282,88 @@ public class RoomManager implements Serializable {
                 return event.getEventID();
             }
         }
+        Room room = getRoom(roomNumber);
+        for (EventSeries series : room.getEventSeries()) {
+            if (!series.getTitle().equals(eventName)) continue;
+            for (int occurrence = 0; occurrence < series.getOccurrences(); occurrence++) {
+                if (series.isPending(occurrence)) return series.getOccurrenceID(occurrence);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param eventID the UUID of an event or of a pending occurrence of a series
+     * @return the event, a transient view of the occurrence, or null if there is neither
+     */
+    private Event getListedEvent(UUID eventID) {
+        Event event = getEvent(eventID);
+        if (event != null) return event;
+        for (Room room : rooms) {
+            Event occurrence = room.getPendingOccurrence(eventID);
+            if (occurrence != null) return occurrence;
+        }
+        return null;
+    }
+
+    /**
+     * @param eventID the UUID of an event or of a pending occurrence of a series
+     * @return the room of the event or of the occurrence, or null if there is neither
+     */
+    private Room getListedEventRoom(UUID eventID) {
+        Event event = getEvent(eventID);
+        if (event != null) return getEventRoom(event);
+        for (Room room : rooms) {
+            if (room.getPendingOccurrence(eventID) != null) return room;
+        }
+        return null;
+    }
+
+    /**
+     * Expands the pending occurrence with the given UUID, if it is one, and adds the new Event to the program index
+     * and to its speakers.
+     * @param eventID the UUID of an event or of a pending occurrence of a series
+     * @return the event, or null if there is neither
+     */
+    private Event getOrExpandEvent(UserManager um, UUID eventID) {
+        Event event = getEvent(eventID);
+        if (event != null) return event;
+        for (Room room : rooms) {
+            event = room.expandOccurrence(eventID);
+            if (event == null) continue;
+            indexEvent(room, event);
+            changed(room);
+            for (String speakerName : event.getSpeakerNames()) {
+                um.speakerAddEvent(speakerName, room.getRoomID(), event.getEventID());
+            }
+            return event;
+        }
         return null;
     }
 
+    /**
+     * Merges the events of a room with the views of the pending occurrences of its series.
+     * @param events events of the room, ordered by start time
+     * @param occurrences views of pending occurrences of the room's series
+     * @return both, ordered by start time and then by eventID
+     */
+    private static ArrayList<Event> mergeSchedule(ArrayList<Event> events, ArrayList<Event> occurrences) {
+        if (occurrences.isEmpty()) return events;
+        ArrayList<Event> schedule = new ArrayList<>(events);
+        schedule.addAll(occurrences);
+        schedule.sort(Comparator.comparing(EventCursor::new));
+        return schedule;
+    }
+
+    /**
+     * @return the whole schedule of a room, including the pending occurrences of its series, none of which is
+     * expanded
+     */
+    private ArrayList<Event> getSchedule(Room room) {
+        return mergeSchedule(room.getEvents(), room.getPendingOccurrences(Long.MIN_VALUE, Long.MAX_VALUE,
+                Integer.MAX_VALUE));
+    }
+
     /**
      * @param eventID the event storing the attendees
      * @return an ArrayList of AttendeeIDs that are attending the specified event in the specified room
@@ -146,7 +371,7 @@ public class RoomManager implements Serializable {
      * Precondition: roomID must exist and event must exist within the corresponding room
      */
     public ArrayList<UUID> getEventAttendeeIDs(UUID eventID) {
-        Event event = getEvent(eventID);
+        Event event = getListedEvent(eventID);
         return event.getAttendeeIDs();
     }
 
@@ -161,14 +386,46 @@ public class RoomManager implements Serializable {
         return RoomIDToRoom;
     }
 
-    private HashMap<UUID, Event> getEventIDToEvent() {
-        HashMap<UUID, Event> EventIDToEvent = new HashMap<>();
-        for (Room room : rooms) {
-            for (Event event : room.getEvents()) {
-                EventIDToEvent.put(event.getEventID(), event);
+    /**
+     * Builds the indexes that resolve room numbers and eventIDs in constant time, and the program index, which orders
+     * every event by start time and then by eventID so that a page of the program can be found without walking every
+     * room. They are not serialized and are rebuilt on first use.
+     */
+    private void buildIndexes() {
+        if (programIndex == null) {
+            programIndex = new TreeMap<>();
+            eventIDToEvent = new HashMap<>();
+            eventIDToRoom = new HashMap<>();
+            roomNumberToRoom = new HashMap<>();
+            for (Room room : rooms) {
+                roomNumberToRoom.put(room.getRoomNumber(), room);
+                for (Event event : room.getEvents()) {
+                    indexEvent(room, event);
+                }
             }
         }
-        return EventIDToEvent;
+    }
+
+    /**
+     * @return the program index
+     */
+    private TreeMap<EventCursor, Event> getProgramIndex() {
+        buildIndexes();
+        return programIndex;
+    }
+
+    private void indexEvent(Room room, Event event) {
+        if (programIndex == null) return;
+        programIndex.put(new EventCursor(event), event);
+        eventIDToEvent.put(event.getEventID(), event);
+        eventIDToRoom.put(event.getEventID(), room);
+    }
+
+    private void unindexEvent(Event event) {
+        if (programIndex == null) return;
+        programIndex.remove(new EventCursor(event));
+        eventIDToEvent.remove(event.getEventID());
+        eventIDToRoom.remove(event.getEventID());
     }
 
     /**
@@ -178,6 +435,17 @@ public class RoomManager implements Serializable {
         return rooms.size();
     }
 
+    /**
+     * @return the room numbers of every room, in the order the rooms were created
+     */
+    public ArrayList<Integer> getRoomNumbers() {
+        ArrayList<Integer> roomNumbers = new ArrayList<>();
+        for (Room room : rooms) {
+            roomNumbers.add(room.getRoomNumber());
+        }
+        return roomNumbers;
+    }
+
     /**
      * @return the number of Events
      */
@@ -205,12 +473,34 @@ public class RoomManager implements Serializable {
     }
 
     /**
-     * Create a new Room
+     * @param roomNumber the room number of the room
+     * @return the eventIDs of the Events and pending occurrences in the room, in the same order as getEventsOfRoom, or
+     * an empty list if there is no such room
+     */
+    public ArrayList<UUID> getEventIDsOfRoom(int roomNumber) {
+        ArrayList<UUID> eventIDs = new ArrayList<>();
+        Room room = getRoom(roomNumber);
+        if (room == null) return eventIDs;
+        for (Event event : getSchedule(room)) {
+            eventIDs.add(event.getEventID());
+        }
+        return eventIDs;
+    }
+
+    /**
+     * Create a new Room. Rooms are numbered in the order they are created, and a number is never given out again,
+     * even after its room has been removed.
      * @param capacity the capacity of the new room.
+     * @return the room number of the new room
      */
-    public void newRoom(int capacity) {
-        Room roomToCreate = new Room(capacity);
+    public int newRoom(int capacity) {
+        Room roomToCreate = new Room(nextRoomNumber++, capacity);
         rooms.add(roomToCreate);
+        if (roomNumberToRoom != null) roomNumberToRoom.put(roomToCreate.getRoomNumber(), roomToCreate);
+        changedRooms();
+        changed(roomToCreate);
+        journal(Mutations.roomCreated(roomToCreate));
+        return roomToCreate.getRoomNumber();
     }
 
     /**
@@ -234,7 +524,7 @@ public class RoomManager implements Serializable {
                 return false;
             }
         }
-        return room.eventIsValid(newEvent);
+        return !speakerSeriesOverlapping(speakerName, newEvent) && room.eventIsValid(newEvent);
     }
 
     /**
@@ -259,6 +549,9 @@ public class RoomManager implements Serializable {
                     return false;
                 }
             }
+            if (speakerSeriesOverlapping(speakerName, newEvent)) {
+                return false;
+            }
         }
         return room.eventIsValid(newEvent);
     }
@@ -295,8 +588,10 @@ public class RoomManager implements Serializable {
     public UUID newEvent(String eventTitle, String speakerName, Calendar startTime, Calendar endTime, int roomNumber, UserManager um, int capacity) {
         Room room = getRoom(roomNumber);
         Event newEvent = new Event(eventTitle, speakerName, startTime, endTime, capacity);
-        room.addEvent(newEvent);
+        if (room.addEvent(newEvent)) indexEvent(room, newEvent);
+        changed(room);
         um.speakerAddEvent(speakerName, room.getRoomID(), newEvent.getEventID());
+        journal(Mutations.eventCreated(roomNumber, newEvent));
         return newEvent.getEventID();
     }
 
@@ -312,7 +607,9 @@ public class RoomManager implements Serializable {
     public UUID newNonSpeakerEvent(String eventTitle, Calendar startTime, Calendar endTime, int roomNumber, UserManager um, int capacity) {
         Room room = getRoom(roomNumber);
         Event newEvent = new Event(eventTitle, startTime, endTime, capacity);
-        room.addEvent(newEvent);
+        if (room.addEvent(newEvent)) indexEvent(room, newEvent);
+        changed(room);
+        journal(Mutations.eventCreated(roomNumber, newEvent));
         return newEvent.getEventID();
     }
 
@@ -330,53 +627,246 @@ public class RoomManager implements Serializable {
                                      Calendar endTime, int roomNumber, UserManager um, int capacity) {
         Room room = getRoom(roomNumber);
         Event newEvent = new Event(eventTitle, speakerNames, startTime, endTime, capacity);
-        room.addEvent(newEvent);
+        if (room.addEvent(newEvent)) indexEvent(room, newEvent);
+        changed(room);
         for (String speakerName : speakerNames) {
             um.speakerAddEvent(speakerName, room.getRoomID(), newEvent.getEventID());
         }
+        journal(Mutations.eventCreated(roomNumber, newEvent));
         return newEvent.getEventID();
     }
 
+    /**
+     * @param speakerName the name of the speaker
+     * @param newEvent the event to check
+     * @return true if a pending occurrence of a series given by the speaker overlaps newEvent
+     */
+    private boolean speakerSeriesOverlapping(String speakerName, Event newEvent) {
+        for (Room room : rooms) {
+            for (EventSeries series : room.getEventSeries()) {
+                int occurrence = series.getOccurrenceOn(newEvent.getStartTime());
+                if (series.getSpeakerNames().contains(speakerName) && series.isPending(occurrence) &&
+                        room.eventOverlapping(newEvent, series.getOccurrenceTemplate(occurrence))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param eventTitle  the title of every occurrence
+     * @param speakerNames the speakers of every occurrence, which may be empty
+     * @param startTime   the start time of the first occurrence
+     * @param endTime     the end time of the first occurrence
+     * @param intervalDays the number of days between two occurrences
+     * @param occurrences the number of occurrences
+     * @param roomNumber  the room of the series
+     * @return true if the series can be added. A series may not be added if any of its occurrences is out of bounds,
+     * overlaps another event or series in the same room, or one of its speakers is giving a talk at the same time.
+     * <p>
+     * Preconditions: room exists
+     */
+    public boolean newEventSeriesValid(String eventTitle, ArrayList<String> speakerNames, Calendar startTime,
+                                       Calendar endTime, int intervalDays, int occurrences, int roomNumber,
+                                       UserManager um) {
+        Room room = getRoom(roomNumber);
+        EventSeries newSeries = new EventSeries(eventTitle, speakerNames, startTime, endTime, intervalDays,
+                occurrences, 0);
+        for (String speakerName : speakerNames) {
+            for (UUID existingEventID : um.getSpeakerEventIDs(speakerName)) {
+                Event existingEvent = getEvent(existingEventID);
+                int occurrence = newSeries.getOccurrenceOn(existingEvent.getStartTime());
+                if (occurrence != -1 &&
+                        room.eventOverlapping(newSeries.getOccurrenceTemplate(occurrence), existingEvent)) {
+                    return false;
+                }
+            }
+            for (int occurrence = 0; occurrence < occurrences; occurrence++) {
+                if (speakerSeriesOverlapping(speakerName, newSeries.getOccurrenceTemplate(occurrence))) {
+                    return false;
+                }
+            }
+        }
+        return room.eventSeriesIsValid(newSeries);
+    }
+
+    /**
+     * Creates a recurring series. Only the rule is stored: occurrences become events once they are listed or
+     * joined.
+     * @param eventTitle  the title of every occurrence
+     * @param speakerNames the speakers of every occurrence, which may be empty
+     * @param startTime   the start time of the first occurrence
+     * @param endTime     the end time of the first occurrence
+     * @param intervalDays the number of days between two occurrences
+     * @param occurrences the number of occurrences
+     * @param roomNumber  the roomNumber of the room that the series should be added to
+     * @param capacity the capacity of every occurrence
+     * @return the UUID of the created series
+     * <p>
+     * Precondition: the series can be added to the roomNumber without conflict and the roomNumber exists
+     */
+    public UUID newEventSeries(String eventTitle, ArrayList<String> speakerNames, Calendar startTime, Calendar endTime,
+                               int intervalDays, int occurrences, int roomNumber, int capacity) {
+        Room room = getRoom(roomNumber);
+        EventSeries newSeries = new EventSeries(eventTitle, speakerNames, startTime, endTime, intervalDays,
+                occurrences, capacity);
+        room.addEventSeries(newSeries);
+        changed(room);
+        journal(Mutations.seriesCreated(roomNumber, newSeries));
+        return newSeries.getSeriesID();
+    }
+
+    /**
+     * @param seriesID the UUID of the series
+     * @return the room of the series, or null if there is no such series
+     */
+    private Room getEventSeriesRoom(UUID seriesID) {
+        for (Room room : rooms) {
+            for (EventSeries series : room.getEventSeries()) {
+                if (series.getSeriesID().equals(seriesID)) {
+                    return room;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param seriesID the UUID of the series
+     * @return the series, or null if there is no such series
+     */
+    private EventSeries getEventSeries(UUID seriesID) {
+        for (Room room : rooms) {
+            for (EventSeries series : room.getEventSeries()) {
+                if (series.getSeriesID().equals(seriesID)) {
+                    return series;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Changes the vip only status of the occurrences of a series that have not been expanded yet.
+     * @param isVipOnly whether the occurrences are vip only
+     * @param seriesID the uuid of the series
+     */
+    public void updateSeriesVipStatus(boolean isVipOnly, UUID seriesID) {
+        getEventSeries(seriesID).setVipOnlyStatus(isVipOnly);
+        changed(getEventSeriesRoom(seriesID));
+        journal(Mutations.seriesVipChanged(seriesID, isVipOnly));
+    }
+
+    /**
+     * Cancels the occurrence of a series on the given day, unless it has already been expanded into an event.
+     * @param seriesID the uuid of the series
+     * @param day any time on the day of the occurrence
+     * @return true if an occurrence was cancelled
+     */
+    public boolean cancelSeriesOccurrence(UUID seriesID, Calendar day) {
+        EventSeries series = getEventSeries(seriesID);
+        int occurrence = series == null ? -1 : series.getOccurrenceOn(day);
+        if (series == null || !series.cancelOccurrence(occurrence)) return false;
+        changed(getEventSeriesRoom(seriesID));
+        journal(Mutations.occurrenceCancelled(seriesID, occurrence));
+        return true;
+    }
+
     /**
      * Takes in a room uuid and a vip only status and changes the status of the event.
      * @param isVipOnly whether the event is vip only
      * @param eventId the uuid of the event
+     * Precondition: the event is not a pending occurrence of a series, which takes the status of its series
      */
     public void updateVipStatus(boolean isVipOnly, UUID eventId){
-        this.getEvent(eventId).setVipOnlyStatus(isVipOnly);
+        Event event = getEvent(eventId);
+        event.setVipOnlyStatus(isVipOnly);
+        changed(getEventRoom(event));
+        journal(Mutations.vipChanged(eventId, isVipOnly));
     }
     /**
-     * @param roomNumber  the room that the event is in
-     * @param eventNumber the event to be rescheduled
+     * @param eventID     the event to be rescheduled, which is expanded if it is a pending occurrence and the new
+     *                    times are allowed
      * @param startTime   the new start time
      * @param endTime     the new end time
-     * @return true if the event could be rescheduled and false if no changes were made due to failed reschedule
+     * @return true if the event could be rescheduled and false if no changes were made due to failed reschedule or
+     * because there is no such event
      */
-    public boolean rescheduleEvent(UserManager um, int roomNumber, int eventNumber, Calendar startTime, Calendar endTime) {
-        Event event = getEventFromRoom(roomNumber, eventNumber);
-        if (newEventValid(event.getTitle(), event.getSpeakerName(), startTime, endTime, roomNumber, um)) {
-            event.setTime(startTime, endTime);
-            return true;
+    public boolean rescheduleEvent(UserManager um, UUID eventID, Calendar startTime, Calendar endTime) {
+        Event listed = getListedEvent(eventID);
+        if (listed == null) return false;
+        Room room = getListedEventRoom(eventID);
+        // a pending occurrence is checked as it is listed, so a rejected reschedule leaves it pending
+        if (!newEventValid(listed.getTitle(), listed.getSpeakerName(), startTime, endTime, room.getRoomNumber(), um)) {
+            return false;
         }
-        return false;
+        Event event = getOrExpandEvent(um, eventID);
+        unindexEvent(event);
+        room.rescheduleEvent(event, startTime, endTime);
+        indexEvent(room, event);
+        changed(room);
+        journal(Mutations.eventRescheduled(eventID, startTime, endTime));
+        return true;
     }
 
     /**
-     * Removes a desired Event from the list of events and all participants
+     * Removes a desired Event from the list of events and all participants. A pending occurrence of a series is
+     * cancelled instead, since it has no participants.
      *
-     * @param eventNumber the event to be removed
+     * @param eventID the event to be removed
      * @return true if the event was removed or false if there was no such event in the schedule
      */
-    public boolean removeEvent(UserManager um, int roomNumber, int eventNumber) {
-        Event event = getEvent(roomNumber, eventNumber);
+    public boolean removeEvent(UserManager um, UUID eventID) {
+        Event event = getEvent(eventID);
+        if (event == null) {
+            for (Room room : rooms) {
+                if (room.cancelOccurrence(eventID)) {
+                    changed(room);
+                    journal(Mutations.eventRemoved(eventID));
+                    return true;
+                }
+            }
+            return false;
+        }
 
         Room room = getEventRoom(event);
-        for (UUID attendeeID : event.getAttendeeIDs()) {
-            um.attendeeRemoveEvent(attendeeID, room.getRoomID(), event.getEventID());
-        }
+        um.unlinkEvents(room.getRoomID(), Collections.singletonList(event.getEventID()), event.getAttendeeIDs(),
+                event.getSpeakerNames());
+        unindexEvent(event);
+        boolean isRemoved = room.removeEvent(event);
+        changed(room);
+        journal(Mutations.eventRemoved(eventID));
+        return isRemoved;
+    }
 
-        um.speakerRemoveEvent(event.getSpeakerName(), room.getRoomID(), event.getEventID());
-        return room.removeEvent(event);
+    /**
+     * Removes a Room together with its events and series, and detaches every event from its attendees and speakers.
+     * The other rooms keep their room numbers.
+     *
+     * @param roomNumber the room to be removed
+     * @return true if the room was removed or false if there is no such room
+     */
+    public boolean removeRoom(UserManager um, int roomNumber) {
+        Room room = getRoom(roomNumber);
+        if (room == null) return false;
+
+        ArrayList<UUID> eventIDs = new ArrayList<>();
+        Set<UUID> attendeeIDs = new HashSet<>();
+        Set<String> speakerNames = new HashSet<>();
+        for (Event event : room.getEvents()) {
+            eventIDs.add(event.getEventID());
+            attendeeIDs.addAll(event.getAttendeeIDs());
+            speakerNames.addAll(event.getSpeakerNames());
+            unindexEvent(event);
+        }
+        um.unlinkEvents(room.getRoomID(), eventIDs, attendeeIDs, speakerNames);
+        rooms.remove(room);
+        roomNumberToRoom.remove(roomNumber);
+        changedRooms();
+        changed(room);
+        journal(Mutations.roomRemoved(roomNumber));
+        return true;
     }
     /**
      * Returns a list of 5 events that are most popular not in order
@@ -396,58 +886,23 @@ public class RoomManager implements Serializable {
 
     /**
      * @param attendeeID the attendee that is applying
-     * @param eventID    the eventID being applied for
+     * @param eventID    the eventID being applied for, which is expanded if it is a pending occurrence and the
+     *                   attendee can sign up
      * @return true if the sign up was successful, or false if the attendee could not sign up (as they're already signed up)
      */
     public boolean addEventAttendee(UUID attendeeID, UUID eventID, UserManager um, boolean isVip) {
-        Event event = getEvent(eventID);
+        Event event = getListedEvent(eventID);
 
-        if (event.getAttendeeIDs().contains(attendeeID) || (event.getVipOnlyStatus()&&!isVip)) {
+        // checked against the listed occurrence, so a sign up that fails leaves it pending
+        if (event.getAttendeeIDs().contains(attendeeID) || (event.getVipOnlyStatus()&&!isVip) || event.isFull()) {
             return false;
         }
+        event = getOrExpandEvent(um, eventID);
 
         if (event.addAttendee(attendeeID)){
             um.attendeeAddEvent(attendeeID, getEventRoom(event).getRoomID(), eventID);
-            return true;
-        }
-        return false;
-    }
-
-    /**
-     * @param attendeeID the User ID of the Attendee
-     * @param roomNumber the room number of the room
-     * @param eventNumber the event number of the event
-     * @param um User Manager
-     * @param isVip true if the Attendee is VIP, otherwise false
-     * @return true if the event add the Attendee successfully, otherwise return false.
-     */
-    public boolean addEventAttendee(UUID attendeeID, int roomNumber, int eventNumber, UserManager um, boolean isVip) {
-        Event event = getEvent(roomNumber, eventNumber);
-
-        if ((event.getVipOnlyStatus()&&!isVip)) return false;
-
-        if (event.getAttendeeIDs().contains(attendeeID)) {
-            return false;
-        }
-
-        um.attendeeAddEvent(attendeeID, getEventRoom(event).getRoomID(), event.getEventID());
-        event.addAttendee(attendeeID);
-        return true;
-    }
-
-    /**
-     * @param attendeeID the User ID of the Attendee
-     * @param roomNumber the room number of the room
-     * @param eventNumber the event number of the event
-     * @param um User Manager
-     * @return true if the event removed the Attendee successfully, otherwise return false.
-     */
-    public boolean removeEventAttendee(UUID attendeeID, int roomNumber, int eventNumber, UserManager um) {
-        Event event = getEvent(roomNumber, eventNumber);
-
-        if (event.getAttendeeIDs().contains(attendeeID)) {
-            um.attendeeRemoveEvent(attendeeID, getEventRoom(event).getRoomID(), event.getEventID());
-            event.removeAttendee(attendeeID);
+            changed(getEventRoom(event));
+            journal(Mutations.signedUp(attendeeID, eventID));
             return true;
         }
         return false;
@@ -461,9 +916,11 @@ public class RoomManager implements Serializable {
      */
     public boolean removeEventAttendee(UUID attendeeID, UUID eventID, UserManager um) {
         Event event = getEvent(eventID);
-        if (event.getAttendeeIDs().contains(attendeeID)) {
+        if (event != null && event.getAttendeeIDs().contains(attendeeID)) {
             um.attendeeRemoveEvent(attendeeID, getEventRoom(event).getRoomID(), event.getEventID());
             event.removeAttendee(attendeeID);
+            changed(getEventRoom(event));
+            journal(Mutations.signUpCancelled(attendeeID, eventID));
             return true;
         }
         return false;
@@ -493,7 +950,7 @@ public class RoomManager implements Serializable {
      */
     public String stringEventsOfRoom(int roomNumber) {
         StringBuilder s = new StringBuilder("Events in Room " + (roomNumber + 1) + ": \n");
-        ArrayList<Event> events = getEventsFromRoom(roomNumber);
+        ArrayList<Event> events = getSchedule(getRoom(roomNumber));
         for (int i = 0; i < events.size(); i++) {
             Event event = events.get(i);
             int eventNumber = i + 1;
@@ -505,11 +962,13 @@ public class RoomManager implements Serializable {
     }
 
     /**
+     * Lists the whole schedule of a room, including the pending occurrences of its series, none of which is expanded.
      * @param roomNumber the room number
+     * @param um User Manager
      * @return a list of events as string
      */
-    public ArrayList<String> getEventsOfRoom(int roomNumber) {
-        ArrayList<Event> events = getEventsFromRoom(roomNumber);
+    public ArrayList<String> getEventsOfRoom(int roomNumber, UserManager um) {
+        ArrayList<Event> events = getSchedule(getRoom(roomNumber));
         ArrayList<String> eventsAsString = new ArrayList<>();
         for (Event event : events) {
             eventsAsString.add(event.toString());
@@ -517,17 +976,153 @@ public class RoomManager implements Serializable {
         return eventsAsString;
     }
 
+    /**
+     * Lists one day of a room's schedule, including that day's pending occurrences of the room's series, which are
+     * not expanded.
+     * @param roomNumber the room number
+     * @param day any time on the day
+     * @param um User Manager
+     * @return a list of the events on that day as string, ordered by start time
+     */
+    public ArrayList<String> getEventsOfRoomOnDay(int roomNumber, Calendar day, UserManager um) {
+        Room room = getRoom(roomNumber);
+        ArrayList<String> eventsAsString = new ArrayList<>();
+        if (room == null) return eventsAsString;
+        Calendar dayStart = new GregorianCalendar(day.get(Calendar.YEAR), day.get(Calendar.MONTH),
+                day.get(Calendar.DAY_OF_MONTH));
+        Calendar dayEnd = (Calendar) dayStart.clone();
+        dayEnd.add(Calendar.DAY_OF_MONTH, 1);
+        ArrayList<Event> occurrences = room.getPendingOccurrences(dayStart.getTimeInMillis(),
+                dayEnd.getTimeInMillis(), Integer.MAX_VALUE);
+        for (Event event : mergeSchedule(room.getEventsOnDay(day), occurrences)) {
+            eventsAsString.add(event.toString());
+        }
+        return eventsAsString;
+    }
+
     /**
      * @return a string including all events.
      */
     public String stringEventInfoAll() {
         StringBuilder s = new StringBuilder();
-        for (int i = 0; i < rooms.size(); i++) {
-            s.append(stringEventsOfRoom(i));
+        for (Room room : rooms) {
+            s.append(stringEventsOfRoom(room.getRoomNumber()));
         }
         return s.toString();
     }
 
+    /**
+     * Returns up to pageSize events of the program that come after the given cursor. Events are ordered by start time
+     * and then by eventID, so a cursor stays valid when other events are added or removed. Pending occurrences of
+     * event series are listed as views, as far as this page needs them, and are not expanded.
+     *
+     * @param um User Manager
+     * @param after the cursor of the last event already shown, or null to start from the beginning
+     * @param pageSize the maximum number of events to return
+     * @param roomNumber the room to list, or ALL_ROOMS for every room
+     * @param includeVipOnly whether VIP only events are listed
+     * @return the summaries of the events on this page, which is empty once the program has been exhausted
+     */
+    public ArrayList<EventSummary> getEventPage(UserManager um, EventCursor after, int pageSize, int roomNumber,
+                                                boolean includeVipOnly) {
+        ArrayList<EventSummary> page = new ArrayList<>();
+        Room roomFilter = null;
+        if (roomNumber != ALL_ROOMS) {
+            roomFilter = getRoom(roomNumber);
+            if (roomFilter == null) return page;
+        }
+        // an occurrence sorts after the cursor only if it starts no earlier, and a series has at most one occurrence
+        // at the cursor's start time, so pageSize + 1 occurrences of each series are enough
+        long listFrom = after == null ? Long.MIN_VALUE : after.startTime;
+        TreeMap<EventCursor, EventSummary> candidates = new TreeMap<>();
+        for (Room room : rooms) {
+            if (roomFilter != null && room != roomFilter) continue;
+            for (Event occurrence : room.getPendingOccurrences(listFrom, Long.MAX_VALUE, pageSize + 1)) {
+                EventCursor cursor = new EventCursor(occurrence);
+                if ((after != null && cursor.compareTo(after) <= 0)
+                        || (!includeVipOnly && occurrence.getVipOnlyStatus())) continue;
+                candidates.put(cursor, new EventSummary(room.getRoomNumber(), occurrence));
+            }
+        }
+        NavigableMap<EventCursor, Event> remaining = getProgramIndex();
+        if (after != null) remaining = remaining.tailMap(after, false);
+        int numEvents = 0;
+        for (Map.Entry<EventCursor, Event> entry : remaining.entrySet()) {
+            if (numEvents >= pageSize) break;
+            Event event = entry.getValue();
+            Room room = eventIDToRoom.get(event.getEventID());
+            if ((roomFilter != null && room != roomFilter) || (!includeVipOnly && event.getVipOnlyStatus())) continue;
+            candidates.put(entry.getKey(), new EventSummary(room.getRoomNumber(), event));
+            numEvents++;
+        }
+        for (EventSummary summary : candidates.values()) {
+            if (page.size() >= pageSize) break;
+            page.add(summary);
+        }
+        return page;
+    }
+
+    /**
+     * A position in the program: the start time and eventID of the last event on a page.
+     */
+    public static class EventCursor implements Comparable<EventCursor> {
+        private final long startTime;
+        private final UUID eventID;
+
+        EventCursor(Event event) {
+            this.startTime = event.getStartTime().getTimeInMillis();
+            this.eventID = event.getEventID();
+        }
+
+        @Override
+        public int compareTo(EventCursor o) {
+            int byTime = Long.compare(startTime, o.startTime);
+            return byTime != 0 ? byTime : eventID.compareTo(o.eventID);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof EventCursor && compareTo((EventCursor) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(startTime, eventID);
+        }
+    }
+
+    /**
+     * A read-only summary of an event for program listings.
+     */
+    public static class EventSummary {
+        public final int roomNumber;
+        public final UUID eventID;
+        public final String title;
+        public final Date startTime;
+        public final Date endTime;
+        public final int freeSeats;
+        public final boolean isVipOnly;
+        private final EventCursor cursor;
+
+        EventSummary(int roomNumber, Event event) {
+            this.roomNumber = roomNumber;
+            this.eventID = event.getEventID();
+            this.title = event.getTitle();
+            this.startTime = event.getStartTime().getTime();
+            this.endTime = event.getEndTime().getTime();
+            this.freeSeats = event.getCapacity() - event.getAttendeeIDs().size();
+            this.isVipOnly = event.getVipOnlyStatus();
+            this.cursor = new EventCursor(event);
+        }
+
+        /**
+         * @return the cursor to pass to getEventPage to continue after this event
+         */
+        public EventCursor getCursor() {
+            return cursor;
+        }
+    }
+
     /**
      * @param attendeeID the User ID of the Attendee
      * @return a string including all this Attendee's Events
@@ -546,17 +1141,20 @@ public class RoomManager implements Serializable {
      * @return a string of this event.
      */
     public String stringEvent(UUID eventID) {
-        return getEvent(eventID).toString();
+        return getListedEvent(eventID).toString();
     }
 
     /**
      * change the Vip only status for an Event with the eventID.
      * @param eventID the UUID of the Event
+     * Precondition: the event is not a pending occurrence of a series, which takes the status of its series
      */
     public void changeVipStatus(UUID eventID){
         Event event = getEvent(eventID);
         if(event.getVipOnlyStatus()) event.setVipOnlyStatus(false);
         else event.setVipOnlyStatus(true);
+        changed(getEventRoom(event));
+        journal(Mutations.vipChanged(eventID, event.getVipOnlyStatus()));
     }
 
     /**
@@ -564,7 +1162,7 @@ public class RoomManager implements Serializable {
      * @return true if the Event is Vip only, false otherwise
      */
     public boolean getVipStatus(UUID eventID){
-        Event event = getEvent(eventID);
+        Event event = getListedEvent(eventID);
         return event.getVipOnlyStatus();
     }
 
@@ -588,12 +1186,15 @@ public class RoomManager implements Serializable {
     }
     /**
      * Adds request UUID to event
-     * @param eventID the UUID of the event
+     * @param um User Manager
+     * @param eventID the UUID of the event, which is expanded first if it is a pending occurrence
      * @param requestID the request UUID
      * Precondition: eventID and requestID must be real
      */
-    public void addEventRequest(UUID eventID, UUID requestID){
-        getEvent(eventID).addRequest(requestID);
+    public void addEventRequest(UserManager um, UUID eventID, UUID requestID){
+        Event event = getOrExpandEvent(um, eventID);
+        event.addRequest(requestID);
+        changed(getEventRoom(event));
     }
 
     /**
@@ -604,7 +1205,10 @@ public class RoomManager implements Serializable {
      * Precondition: eventID must be real
      */
     public boolean removeEventRequest(UUID eventID, UUID requestID){
-        return getEvent(eventID).removeRequest(requestID);
+        Event event = getEvent(eventID);
+        if (event == null || !event.removeRequest(requestID)) return false;
+        changed(getEventRoom(event));
+        return true;
     }
 
     /**
@@ -613,7 +1217,196 @@ public class RoomManager implements Serializable {
      * Precondition: EventID must be a valid event UUID
      */
     public ArrayList<UUID> getEventRequests(UUID eventID){
-        return getEvent(eventID).getEventRequests();
+        return getListedEvent(eventID).getEventRequests();
     }
 
+    /**
+     * Writes every room with its Events and series in the compact binary format read by read. The indexes are not
+     * written; they are rebuilt when they are first needed.
+     * @param out the stream to write to.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void write(BinaryOutput out) throws IOException {
+        out.writeVarInt(nextRoomNumber);
+        out.writeVarInt(rooms.size());
+        for (Room room : rooms) {
+            writeRoom(out, room);
+        }
+    }
+
+    private static void writeRoom(BinaryOutput out, Room room) throws IOException {
+        out.writeUUID(room.getRoomID());
+        out.writeVarInt(room.getRoomNumber());
+        out.writeVarInt(room.getRoomCapcity());
+        List<Event> events = room.getEvents();
+        out.writeVarInt(events.size());
+        for (Event event : events) {
+            out.writeUUID(event.getEventID());
+            out.writeString(event.getTitle());
+            out.writeStrings(event.getSpeakerNames());
+            out.writeTime(event.getStartTime());
+            out.writeTime(event.getEndTime());
+            out.writeVarInt(event.getCapacity());
+            out.writeBoolean(event.getVipOnlyStatus());
+            out.writeUUIDs(event.getAttendeeIDs());
+            out.writeUUIDs(event.getEventRequests());
+        }
+        out.writeVarInt(room.getEventSeries().size());
+        for (EventSeries series : room.getEventSeries()) {
+            out.writeUUID(series.getSeriesID());
+            out.writeString(series.getTitle());
+            out.writeStrings(series.getSpeakerNames());
+            out.writeTime(series.getStartTime(0));
+            out.writeTime(series.getEndTime(0));
+            out.writeVarInt(series.getIntervalDays());
+            out.writeVarInt(series.getOccurrences());
+            out.writeVarInt(series.getCapacity());
+            out.writeBoolean(series.getVipOnlyStatus());
+            out.writeVarInt(series.getCancelledOccurrences().size());
+            for (int occurrence : series.getCancelledOccurrences()) {
+                out.writeVarInt(occurrence);
+            }
+            out.writeVarInt(series.getExpandedOccurrences().size());
+            for (Map.Entry<Integer, UUID> expanded : series.getExpandedOccurrences().entrySet()) {
+                out.writeVarInt(expanded.getKey());
+                out.writeUUID(expanded.getValue());
+            }
+        }
+    }
+
+    @Override
+    public Set<String> getPartitions() {
+        Set<String> partitions = new LinkedHashSet<>();
+        partitions.add(ROOMS_PARTITION);
+        for (Room room : rooms) {
+            partitions.add(getPartition(room.getRoomNumber()));
+        }
+        return partitions;
+    }
+
+    @Override
+    public Set<String> takeChangedPartitions() {
+        Set<String> changed = getChangedPartitions();
+        Set<String> taken = new HashSet<>();
+        for (String partition : changed) {
+            if (changed.remove(partition)) taken.add(partition);
+        }
+        return taken;
+    }
+
+    @Override
+    public void markChanged(Collection<String> partitions) {
+        getChangedPartitions().addAll(partitions);
+    }
+
+    /**
+     * Writes one partition: either the next room number and the room numbers in order, or one room in the format of
+     * write.
+     */
+    @Override
+    public void writePartition(String partition, BinaryOutput out) throws IOException {
+        if (partition.equals(ROOMS_PARTITION)) {
+            out.writeVarInt(nextRoomNumber);
+            out.writeVarInt(rooms.size());
+            for (Room room : rooms) {
+                out.writeVarInt(room.getRoomNumber());
+            }
+            return;
+        }
+        for (Room room : rooms) {
+            if (getPartition(room.getRoomNumber()).equals(partition)) {
+                writeRoom(out, room);
+                return;
+            }
+        }
+        throw new IOException("No partition " + partition);
+    }
+
+    /**
+     * Reads back a RoomManager written by write.
+     * @param in the stream to read from.
+     * @return the RoomManager that was written.
+     * @throws IOException if the stream cannot be read or does not hold a RoomManager.
+     */
+    public static RoomManager read(BinaryInput in) throws IOException {
+        RoomManager roomManager = new RoomManager();
+        roomManager.nextRoomNumber = in.readVarInt();
+        int numRooms = in.readCount();
+        for (int i = 0; i < numRooms; i++) {
+            roomManager.rooms.add(readRoom(in));
+        }
+        return roomManager;
+    }
+
+    /**
+     * Reads back a RoomManager saved in partitions by writePartition. No partition is marked as changed.
+     * @param source where the partitions were saved.
+     * @return the RoomManager that was saved.
+     * @throws IOException if a partition cannot be read.
+     */
+    public static RoomManager readPartitions(IPartitioned.Source source) throws IOException {
+        RoomManager roomManager = new RoomManager();
+        List<Integer> roomNumbers = new ArrayList<>();
+        try (BinaryInput in = source.open(ROOMS_PARTITION)) {
+            roomManager.nextRoomNumber = in.readVarInt();
+            int numRooms = in.readCount();
+            for (int i = 0; i < numRooms; i++) {
+                roomNumbers.add(in.readVarInt());
+            }
+        }
+        for (int roomNumber : roomNumbers) {
+            try (BinaryInput in = source.open(getPartition(roomNumber))) {
+                roomManager.rooms.add(readRoom(in));
+            }
+        }
+        return roomManager;
+    }
+
+    private static Room readRoom(BinaryInput in) throws IOException {
+        UUID roomID = in.readUUID();
+        int roomNumber = in.readVarInt();
+        int capacity = in.readVarInt();
+        int numEvents = in.readCount();
+        List<Event> events = new ArrayList<>();
+        for (int j = 0; j < numEvents; j++) {
+            Event event = new Event(in.readUUID(), in.readString(), in.readStrings(), in.readTime(),
+                    in.readTime(), in.readVarInt());
+            event.setVipOnlyStatus(in.readBoolean());
+            for (UUID attendeeID : in.readUUIDs()) {
+                event.addAttendee(attendeeID);
+            }
+            for (UUID requestID : in.readUUIDs()) {
+                event.addRequest(requestID);
+            }
+            events.add(event);
+        }
+        int numSeries = in.readCount();
+        List<EventSeries> series = new ArrayList<>();
+        for (int j = 0; j < numSeries; j++) {
+            UUID seriesID = in.readUUID();
+            String title = in.readString();
+            ArrayList<String> speakers = in.readStrings();
+            Calendar firstStartTime = in.readTime();
+            Calendar firstEndTime = in.readTime();
+            int intervalDays = in.readVarInt();
+            int occurrences = in.readVarInt();
+            int seriesCapacity = in.readVarInt();
+            boolean isVipOnly = in.readBoolean();
+            List<Integer> cancelled = new ArrayList<>();
+            int numCancelled = in.readCount();
+            for (int k = 0; k < numCancelled; k++) {
+                cancelled.add(in.readVarInt());
+            }
+            Map<Integer, UUID> expanded = new HashMap<>();
+            int numExpanded = in.readCount();
+            for (int k = 0; k < numExpanded; k++) {
+                expanded.put(in.readVarInt(), in.readUUID());
+            }
+            EventSeries restored = new EventSeries(seriesID, title, speakers, firstStartTime, firstEndTime,
+                    intervalDays, occurrences, seriesCapacity, cancelled, expanded);
+            restored.setVipOnlyStatus(isVipOnly);
+            series.add(restored);
+        }
+        return new Room(roomID, roomNumber, capacity, events, series);
+    }
 }
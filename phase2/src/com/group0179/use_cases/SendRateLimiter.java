@@ -0,0 +1,177 @@
+package com.group0179.use_cases;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits how fast each user can send messages, with a token bucket per sender. A sender may send a burst of messages
+ * at once, after which tokens come back at a steady rate. Rates are set per role; a role without a rate is not
+ * limited.
+ *
+ * Each bucket is a single number, the time at which the bucket will be full again, so a message is let through or
+ * rejected with one compare-and-set and no lock. This keeps a sender that is flooding from slowing down anyone else.
+ *
+ * Only the rates are serialized; buckets start full when the program starts.
+ */
+public class SendRateLimiter implements Serializable {
+    /**
+     * How fast the users of a role may send messages.
+     */
+    public static class Rate implements Serializable {
+        public final double messagesPerSecond;
+        public final int burst;
+
+        public Rate(double messagesPerSecond, int burst) {
+            this.messagesPerSecond = messagesPerSecond;
+            this.burst = burst;
+        }
+
+        private long getIntervalNanos() {
+            return (long) (1_000_000_000L / messagesPerSecond);
+        }
+    }
+
+    /**
+     * The number of messages let through and rejected since the program started.
+     */
+    public static class Stats {
+        public final long numAllowed;
+        public final long numRejected;
+        public final int numSenders;
+
+        public Stats(long numAllowed, long numRejected, int numSenders) {
+            this.numAllowed = numAllowed;
+            this.numRejected = numRejected;
+            this.numSenders = numSenders;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Rate> rates = new ConcurrentHashMap<>();
+    private transient volatile ConcurrentHashMap<UUID, AtomicLong> fullAt;
+    private transient LongAdder numAllowed;
+    private transient LongAdder numRejected;
+
+    /**
+     * Creates a limiter that lets attendees send a burst of 20 messages and then one a second, and speakers, who
+     * announce to whole events, a burst of 60 and then two a second. Organizers are not limited.
+     */
+    public SendRateLimiter() {
+        setRate("attendee", 1, 20);
+        setRate("speaker", 2, 60);
+    }
+
+    /**
+     * @param role the type of user, as returned by UserManager.userType.
+     * @param messagesPerSecond the steady rate at which the users may send messages.
+     * @param burst the number of messages the users may send at once.
+     * @return this limiter.
+     */
+    public SendRateLimiter setRate(String role, double messagesPerSecond, int burst) {
+        rates.put(role, new Rate(messagesPerSecond, burst));
+        return this;
+    }
+
+    /**
+     * Lets the users of a role send as fast as they like.
+     * @param role the type of user.
+     * @return this limiter.
+     */
+    public SendRateLimiter removeRate(String role) {
+        rates.remove(role);
+        return this;
+    }
+
+    private Rate getRate(String role) {
+        return role == null ? null : rates.get(role);
+    }
+
+    private synchronized void initialize() {
+        if (fullAt == null) {
+            numAllowed = new LongAdder();
+            numRejected = new LongAdder();
+            fullAt = new ConcurrentHashMap<>();
+        }
+    }
+
+    private AtomicLong getBucket(UUID senderID, long now) {
+        if (fullAt == null) initialize();
+        return fullAt.computeIfAbsent(senderID, id -> new AtomicLong(now));
+    }
+
+    /**
+     * Takes a token from the sender's bucket if it has one.
+     * @param senderID the UUID of the sender.
+     * @param role the type of the sender.
+     * @return 0 if the sender may send a message now, or else the number of nanoseconds until they may.
+     */
+    public long tryAcquire(UUID senderID, String role) {
+        Rate rate = getRate(role);
+        if (rate == null) {
+            if (fullAt == null) initialize();
+            numAllowed.increment();
+            return 0;
+        }
+        long interval = rate.getIntervalNanos();
+        long now = System.nanoTime();
+        AtomicLong bucket = getBucket(senderID, now);
+        while (true) {
+            long full = bucket.get();
+            long next = Math.max(full, now) + interval;
+            long retryAfter = next - now - (long) rate.burst * interval;
+            if (retryAfter > 0) {
+                numRejected.increment();
+                return retryAfter;
+            }
+            if (bucket.compareAndSet(full, next)) {
+                numAllowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @param senderID the UUID of the sender.
+     * @param role the type of the sender.
+     * @return the number of nanoseconds until the sender may send a message, or 0 if they may now.
+     */
+    public long getRetryAfterNanos(UUID senderID, String role) {
+        Rate rate = getRate(role);
+        if (rate == null) return 0;
+        long interval = rate.getIntervalNanos();
+        long now = System.nanoTime();
+        long next = Math.max(getBucket(senderID, now).get(), now) + interval;
+        return Math.max(next - now - (long) rate.burst * interval, 0);
+    }
+
+    public Stats getStats() {
+        if (fullAt == null) initialize();
+        return new Stats(numAllowed.sum(), numRejected.sum(), fullAt.size());
+    }
+
+    /**
+     * Writes the rates, in the format read by read. Like a serialized limiter, the buckets are not written.
+     */
+    void write(BinaryOutput out) throws IOException {
+        out.writeVarInt(rates.size());
+        for (Map.Entry<String, Rate> rate : rates.entrySet()) {
+            out.writeString(rate.getKey());
+            out.writeDouble(rate.getValue().messagesPerSecond);
+            out.writeVarInt(rate.getValue().burst);
+        }
+    }
+
+    static SendRateLimiter read(BinaryInput in) throws IOException {
+        SendRateLimiter limiter = new SendRateLimiter();
+        limiter.rates.clear();
+        int numRates = in.readCount();
+        for (int i = 0; i < numRates; i++) {
+            limiter.setRate(in.readString(), in.readDouble(), in.readVarInt());
+        }
+        return limiter;
+    }
+}
@@ -2,23 +2,49 @@ package com.group0179.use_cases;
 
 import com.group0179.entities.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Get list of all users, attendees, speakers, or organizers in existence
  *
  * Get a list of all usernames in existence
  *
+ * Saved in partitions: one with the order of the users, the requests and the current user, and the users themselves
+ * spread over NUM_USER_PARTITIONS partitions by their UUID, so that a change to one user only rewrites the users who
+ * share their partition.
+ *
+ * A partition of users starts with an index of their accounts, followed by the rest of each user, such as their inbox,
+ * as a separate record. readPartitions only reads the indexes, from partitions mapped into memory, and a user's record
+ * is read the first time the user is looked up beyond their account, so users who are not used are never read.
+ *
  * @author Zihan Wang, Justin Chan, Kaiyi Liu, Kerry
  */
 
-public class UserManager implements Serializable {
+public class UserManager implements Serializable, IPartitioned {
+    private static final byte ATTENDEE = 0;
+    private static final byte ORGANIZER = 1;
+    private static final byte SPEAKER = 2;
+    private static final String USERS_PARTITION = "users";
+    private static final int NUM_USER_PARTITIONS = 64;
+    private static final byte INDEXED_LAYOUT = 1;
+
     private final ArrayList<Attendee> attendees = new ArrayList<>();
     private final ArrayList<Organizer> organizers = new ArrayList<>();
     private final ArrayList<Speaker> speakers = new ArrayList<>();
     private final List<Request> userRequests = new ArrayList<>();
     private User currentUser;
+    private transient IJournal journal;
+    private transient Set<String> changedPartitions;
+    private transient HashMap<UUID, User> userIDToUser;
+    private transient HashMap<String, User> usernameToUser;
+    private transient Map<UUID, ByteBuffer> unreadRecords;
 
     /**
      * Created a new UserManager.
@@ -28,6 +54,65 @@ public class UserManager implements Serializable {
         currentUser = null;
     }
 
+    /**
+     * Writes every account created from now on to a journal, and waits until it is on disk before returning.
+     * @param journal the journal, or null to stop journaling.
+     */
+    public void setJournal(IJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Marks the partition that holds the order of the users, the requests and the current user as changed.
+     */
+    private void changedUsers() {
+        getChangedPartitions().add(USERS_PARTITION);
+    }
+
+    /**
+     * Marks the partition of a user as changed.
+     */
+    private void changed(User user) {
+        getChangedPartitions().add(getPartition(user.getUserID()));
+    }
+
+    private synchronized Set<String> getChangedPartitions() {
+        if (changedPartitions == null) {
+            changedPartitions = ConcurrentHashMap.newKeySet();
+        }
+        return changedPartitions;
+    }
+
+    private static String getPartition(UUID userID) {
+        return getPartition(Math.floorMod(userID.hashCode(), NUM_USER_PARTITIONS));
+    }
+
+    private static String getPartition(int number) {
+        return USERS_PARTITION + "-" + number;
+    }
+
+    private void journalAccount(User user) {
+        if (journal != null) journal.sync(journal.append(Mutations.accountCreated(user)));
+    }
+
+    /**
+     * Adds a user recreated from the journal, unless a user with the same UUID already exists.
+     * @param user the user to add.
+     */
+    void restoreUser(User user) {
+        if (userExists(user.getUserID())) return;
+        if (user instanceof Organizer) {
+            organizers.add((Organizer) user);
+        } else if (user instanceof Speaker) {
+            speakers.add((Speaker) user);
+        } else {
+            attendees.add((Attendee) user);
+        }
+        invalidateUserMaps();
+        changedUsers();
+        changed(user);
+    }
+
     /**
      * Created: Zachariah Vincze
      * @param userID the UUID of the user to check.
@@ -50,13 +135,54 @@ public class UserManager implements Serializable {
         return true;
     }
 
+    /**
+     * @param userID the UUID of a user.
+     * @return true iff the user exists and is an attendee.
+     */
+    public boolean isAttendee(UUID userID) {
+        User user = getAccount(userID);
+        return user != null && user.isAttendee();
+    }
+
+    /**
+     * @param userID the UUID of a user.
+     * @return true iff the user exists and is a speaker.
+     */
+    public boolean isSpeaker(UUID userID) {
+        User user = getAccount(userID);
+        return user != null && user.isSpeaker();
+    }
+
+    /**
+     * @param userID the UUID of a user.
+     * @return the number of milliseconds since the epoch at which the user's account was created.
+     * Precondition: userExists(userID)
+     */
+    public long getTimeOfAccountCreation(UUID userID) {
+        return getAccount(userID).getTimeOfAccountCreation().getTimeInMillis();
+    }
+
+    /**
+     * @return true iff there is at least one attendee.
+     */
+    public boolean hasAttendees() {
+        return !attendees.isEmpty();
+    }
+
+    /**
+     * @return true iff there is at least one speaker.
+     */
+    public boolean hasSpeakers() {
+        return !speakers.isEmpty();
+    }
+
     /**
      * Returns whether the user is an vip.
      * @param userid uuid of user
      * @return whether user is an vip.
      */
     public boolean isUserVip(UUID userid) {
-        return this.getUser(userid).isVip();
+        return this.getAccount(userid).isVip();
     }
 
     /**
@@ -87,9 +213,11 @@ public class UserManager implements Serializable {
      * @return a dictionary mapping UserID to User
      */
     private HashMap<UUID, User> getUserIDToUser() {
-        HashMap<UUID, User> userIDToUser =  new HashMap<>();
-        for (User user : getUsers()) {
-            userIDToUser.put(user.getUserID(), user);
+        if (userIDToUser == null) {
+            userIDToUser = new HashMap<>();
+            for (User user : getUsers()) {
+                userIDToUser.put(user.getUserID(), user);
+            }
         }
         return userIDToUser;
     }
@@ -99,13 +227,23 @@ public class UserManager implements Serializable {
      * @return a dictionary mapping UserName to User
      */
     private HashMap<String, User> getUsernameToUser(){
-        HashMap<String, User> usernameToUser = new HashMap<>();
-        for(User user: getUsers()){
-            usernameToUser.put(user.getUsername(), user);
+        if (usernameToUser == null) {
+            usernameToUser = new HashMap<>();
+            for(User user: getUsers()){
+                usernameToUser.put(user.getUsername(), user);
+            }
         }
         return usernameToUser;
     }
 
+    /**
+     * Forgets the user lookup maps so that they are rebuilt with the newly created account.
+     */
+    private void invalidateUserMaps() {
+        userIDToUser = null;
+        usernameToUser = null;
+    }
+
     /**
      * Returns a User object based on their UUID.
      * @param userID the UUID of the user you wish to return.
@@ -113,7 +251,7 @@ public class UserManager implements Serializable {
      * Last modified: Justin Chan
      */
     private User getUser(UUID userID) {
-        return getUserIDToUser().get(userID);
+        return readRecord(getUserIDToUser().get(userID));
     }
 
     /**
@@ -122,9 +260,70 @@ public class UserManager implements Serializable {
      * @return the User that the provided name belongs to or null if that user is not found.
      */
     private User getUser(String username) {
+        return readRecord(getUsernameToUser().get(username));
+    }
+
+    /**
+     * Returns a user whose record may not have been read yet, for what the user's account was created with: their
+     * type, UUID, username, whether they are vip and when it was created.
+     * @param userID the UUID of the user.
+     * @return the user, or null if that user is not found.
+     */
+    private User getAccount(UUID userID) {
+        return getUserIDToUser().get(userID);
+    }
+
+    /**
+     * @param username the username of the user.
+     * @return the user, whose record may not have been read yet, or null if that user is not found.
+     */
+    private User getAccount(String username) {
         return getUsernameToUser().get(username);
     }
 
+    /**
+     * Reads the rest of a user loaded by readPartitions from their record, unless it has been read already.
+     * @param user a user, or null.
+     * @return the user.
+     * @throws UncheckedIOException if the record cannot be read.
+     */
+    private User readRecord(User user) {
+        if (user == null || unreadRecords == null) return user;
+        // held while the record is read, so that no other thread sees the user half read
+        synchronized (this) {
+            ByteBuffer record = unreadRecords.remove(user.getUserID());
+            if (record != null) {
+                try {
+                    readRecord(new BinaryInput(record), user);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Unable to read the record of user " + user.getUserID(), e);
+                }
+            }
+        }
+        return user;
+    }
+
+    /**
+     * @return the number of users loaded by readPartitions whose records have not been read yet.
+     */
+    public synchronized int getNumUnreadRecords() {
+        return unreadRecords == null ? 0 : unreadRecords.size();
+    }
+
+    private synchronized boolean hasReadRecord(User user) {
+        return unreadRecords == null || !unreadRecords.containsKey(user.getUserID());
+    }
+
+    /**
+     * Reads every record that has not been read yet before the users are serialized, since the records are not.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        for (User user : getUsers()) {
+            readRecord(user);
+        }
+        out.defaultWriteObject();
+    }
+
     /**
      * @return list of attendees in existence
      * Last modified: Justin Chan
@@ -189,6 +388,7 @@ public class UserManager implements Serializable {
     public boolean setCurrentUser(String username) {
         if (getUsernames().contains(username)) {
             this.currentUser = getUser(username);
+            changedUsers();
             return true;
         }
         return false;
@@ -205,6 +405,10 @@ public class UserManager implements Serializable {
     public UUID createAttendeeAccount(String username, boolean isVip) {
         Attendee attendee = new Attendee(username, isVip);
         attendees.add(attendee);
+        invalidateUserMaps();
+        changedUsers();
+        changed(attendee);
+        journalAccount(attendee);
         return attendee.getUserID();
     }
     /**
@@ -214,6 +418,10 @@ public class UserManager implements Serializable {
     public UUID createAttendeeAccount(String username) {
         Attendee attendee = new Attendee(username);
         attendees.add(attendee);
+        invalidateUserMaps();
+        changedUsers();
+        changed(attendee);
+        journalAccount(attendee);
         return attendee.getUserID();
     }
 
@@ -239,6 +447,10 @@ public class UserManager implements Serializable {
     public UUID createOrganizerAccount(String username) {
         Organizer organizer = new Organizer(username);
         organizers.add(organizer);
+        invalidateUserMaps();
+        changedUsers();
+        changed(organizer);
+        journalAccount(organizer);
         return organizer.getUserID();
     }
 
@@ -252,6 +464,10 @@ public class UserManager implements Serializable {
     public UUID createSpeakerAccount(String username) {
         Speaker speaker = new Speaker(username);
         speakers.add(speaker);
+        invalidateUserMaps();
+        changedUsers();
+        changed(speaker);
+        journalAccount(speaker);
         return speaker.getUserID();
     }
 
@@ -263,6 +479,26 @@ public class UserManager implements Serializable {
         return !getUsernames().contains(username);
     }
 
+    /**
+     * @return the UUIDs of every user.
+     */
+    public ArrayList<UUID> getUserIDs() {
+        ArrayList<UUID> userIDs = new ArrayList<>();
+        for (User user : getUsers()) {
+            userIDs.add(user.getUserID());
+        }
+        return userIDs;
+    }
+
+    /**
+     * @param userID the UUID of the user
+     * @return the String of the type of user, or null if the user does not exist.
+     */
+    public String userType(UUID userID) {
+        User user = getAccount(userID);
+        return user == null ? null : user.getStringType();
+    }
+
     /**
      * @param username the username of the user
      * @return the String of the type of user
@@ -270,7 +506,7 @@ public class UserManager implements Serializable {
      * Created: Justin Chan
      */
     public String userType(String username) {
-        if(getUsernames().contains(username)) return getUser(username).getStringType();
+        if(getUsernames().contains(username)) return getAccount(username).getStringType();
         return null;
     }
 
@@ -313,6 +549,7 @@ public class UserManager implements Serializable {
     public void speakerAddEvent(String speakerName, UUID roomID, UUID eventID) {
         Speaker speaker = (Speaker) getUser(speakerName);
         speaker.addEvent(roomID, eventID);
+        changed(speaker);
     }
 
     /**
@@ -325,6 +562,7 @@ public class UserManager implements Serializable {
     public void speakerRemoveEvent(String speakerName, UUID roomID, UUID eventID) {
         Speaker speaker = (Speaker) getUser(speakerName);
         speaker.removeEvent(roomID, eventID);
+        changed(speaker);
     }
 
     /**
@@ -337,6 +575,7 @@ public class UserManager implements Serializable {
     public void attendeeAddEvent(UUID attendeeID, UUID roomID, UUID eventID) {
         Attendee attendee = (Attendee) getUser(attendeeID);
         attendee.addEvents(roomID, eventID);
+        changed(attendee);
     }
 
     /**
@@ -349,6 +588,42 @@ public class UserManager implements Serializable {
     public void attendeeRemoveEvent(UUID attendeeID, UUID roomID, UUID eventID) {
         Attendee attendee = (Attendee) getUser(attendeeID);
         attendee.removeReservedEvents(roomID, eventID);
+        changed(attendee);
+    }
+
+    /**
+     * Detaches Events in the Room with roomID from every given Attendee and Speaker in a single pass over the
+     * users, instead of looking each user up separately.
+     * @param roomID the UUID of the Room the Events are in
+     * @param eventIDs the UUIDs of the Events to detach
+     * @param attendeeIDs the UUIDs of the Attendees that reserved any of the Events
+     * @param speakerNames the names of the Speakers giving any of the Events. Empty names are ignored.
+     */
+    public void unlinkEvents(UUID roomID, Collection<UUID> eventIDs, Collection<UUID> attendeeIDs,
+                             Collection<String> speakerNames) {
+        if (eventIDs.isEmpty()) return;
+        Set<UUID> attendeeSet = new HashSet<>(attendeeIDs);
+        Set<String> speakerSet = new HashSet<>(speakerNames);
+        if (!attendeeSet.isEmpty()) {
+            for (Attendee attendee : attendees) {
+                if (!attendeeSet.contains(attendee.getUserID())) continue;
+                readRecord(attendee);
+                for (UUID eventID : eventIDs) {
+                    attendee.removeReservedEvents(roomID, eventID);
+                }
+                changed(attendee);
+            }
+        }
+        if (!speakerSet.isEmpty()) {
+            for (Speaker speaker : speakers) {
+                if (!speakerSet.contains(speaker.getUsername())) continue;
+                readRecord(speaker);
+                for (UUID eventID : eventIDs) {
+                    speaker.removeEvent(roomID, eventID);
+                }
+                changed(speaker);
+            }
+        }
     }
     //kaiyi
 
@@ -358,7 +633,9 @@ public class UserManager implements Serializable {
      * @return true if the time added successfully, otherwise false.
      */
     public boolean addNewTimeLoggedInForCurrentUser(double time){ //dont need
-        return this.currentUser.addNewTimeLoggedIn(time);
+        boolean isAdded = this.currentUser.addNewTimeLoggedIn(time);
+        changed(currentUser);
+        return isAdded;
     }
 
     //kaiyi
@@ -369,6 +646,7 @@ public class UserManager implements Serializable {
      */
     public void addLastLoggedInForCurrentUser(Calendar calendar){ //dont need
         this.currentUser.setLastLoggedIn(calendar);
+        changed(currentUser);
     }
 
     //kaiyi
@@ -422,6 +700,7 @@ public class UserManager implements Serializable {
     public Map<String, UserTimeData> getTimeElapsedStatisticsForAllAttendees(){
         Map<String, UserTimeData> attendeeData = new HashMap<>();
         for(Attendee attendee: this.getAttendees()){
+            readRecord(attendee);
             double averageLengthOfTimeLoggedIn = attendee.getAverageLengthOfTimeLoggedIn();
             double totalLengthOfTimeLoggedIn = attendee.getTotalMinutesLoggedIn();
             double[] maximumAndMinimum = attendee.getMaximumAndMinimumMinutesLoggedIn();
@@ -445,6 +724,7 @@ public class UserManager implements Serializable {
     public Map<String, UserTimeData> getTimeElapsedStatisticsForAllSpeakers(){
         Map<String, UserTimeData> speakerData = new HashMap<>();
         for(Speaker speaker: this.getSpeakers()){
+            readRecord(speaker);
             double averageLengthOfTimeLoggedIn = speaker.getAverageLengthOfTimeLoggedIn();
             double totalLengthOfTimeLoggedIn = speaker.getTotalMinutesLoggedIn();
             double[] maximumAndMinimum = speaker.getMaximumAndMinimumMinutesLoggedIn();
@@ -543,9 +823,22 @@ public class UserManager implements Serializable {
     public UUID addUserRequest(String typeOfRequest, String urgency, String requestContent){
         Request userRequest = new Request(typeOfRequest, urgency, requestContent);
         this.userRequests.add(userRequest);
+        changedUsers();
         return userRequest.getRequestID();
     }
 
+    /**
+     * Adds a request recreated from an earlier version's files, unless a request with the same UUID already exists.
+     * @param request the request to add.
+     */
+    void restoreRequest(Request request) {
+        for (Request userRequest : this.userRequests) {
+            if (userRequest.getRequestID().equals(request.getRequestID())) return;
+        }
+        this.userRequests.add(request);
+        changedUsers();
+    }
+
     //kaiyi
     /**
      * Remove a request given a request ID
@@ -557,6 +850,7 @@ public class UserManager implements Serializable {
             for(int i = 0; i < this.userRequests.size(); i++){
                 if(this.userRequests.get(i).getRequestID().equals(requestID)){
                     this.userRequests.remove(i);
+                    changedUsers();
                     return true;
                 }
             }
@@ -656,6 +950,7 @@ public class UserManager implements Serializable {
         Request foundRequest = this.getRequestWithUUID(requestID);
         if(foundRequest != null){
             foundRequest.setPending(isPending);
+            changedUsers();
             return true;
         } else {
             return false;
@@ -673,6 +968,7 @@ public class UserManager implements Serializable {
         Request foundRequest = this.getRequestWithUUID(requestID);
         if(foundRequest != null){
             foundRequest.setAddressed(isAddressed);
+            changedUsers();
             return true;
         } else {
             return false;
@@ -715,7 +1011,7 @@ public class UserManager implements Serializable {
      * @return true if the User with this username is a Speaker.
      */
     public boolean isSpeaker(String username) {
-        return getUser(username).isSpeaker();
+        return getAccount(username).isSpeaker();
     }
 
     /**
@@ -749,7 +1045,120 @@ public class UserManager implements Serializable {
      * @param messageID the UUID of this message.
      */
     public void addMessage(UUID recipientID, UUID senderID, UUID messageID) {
-        getUser(recipientID).addMessage(senderID, messageID);
+        User recipient = getUser(recipientID);
+        recipient.addMessage(senderID, messageID);
+        changed(recipient);
+    }
+
+    /**
+     * add messages which is sent from the User with senderID to the User with recipientID
+     * @param recipientID the UserID of recipient
+     * @param senderID the UserID of sender
+     * @param messageID the UUID of this message.
+     * @param timeSent the number of milliseconds since the epoch at which the message was sent.
+     */
+    public void addMessage(UUID recipientID, UUID senderID, UUID messageID, long timeSent) {
+        User recipient = getUser(recipientID);
+        recipient.addMessage(senderID, messageID, timeSent);
+        changed(recipient);
+    }
+
+    /**
+     * @param recipientID the UserID of recipient
+     * @param senderID the UserID of sender
+     * @return a read-only view of the messages from the sender to the recipient, oldest first.
+     */
+    public List<User.InboxEntry> getInboxFromUser(UUID recipientID, UUID senderID) {
+        return getUser(recipientID).getInbox(senderID);
+    }
+
+    /**
+     * @param recipientID the UserID of recipient
+     * @param senderID the UserID of sender
+     * @param since a number of milliseconds since the epoch.
+     * @return the messages from the sender to the recipient that were sent at or after since, oldest first.
+     */
+    public List<User.InboxEntry> getMessagesFromUserSince(UUID recipientID, UUID senderID, long since) {
+        return getUser(recipientID).getMessagesSince(senderID, since);
+    }
+
+    /**
+     * @param recipientID the UserID of recipient
+     * @param senderID the UserID of sender
+     * @param n the maximum number of messages to return.
+     * @return the last n messages from the sender to the recipient, oldest first.
+     */
+    public List<User.InboxEntry> getLastMessagesFromUser(UUID recipientID, UUID senderID, int n) {
+        return getUser(recipientID).getLastMessages(senderID, n);
+    }
+
+    /**
+     * @param recipientID the UserID of recipient
+     * @return the messages the user has received, in the order they arrived.
+     */
+    public List<User.InboxEntry> getInbox(UUID recipientID) {
+        return getUser(recipientID).getInbox();
+    }
+
+    /**
+     * @param recipientID the UserID of recipient
+     * @param n the maximum number of contacts to return.
+     * @return the users who most recently sent messages to the recipient, the one who wrote last first.
+     */
+    public List<User.Contact> getRecentContacts(UUID recipientID, int n) {
+        return getUser(recipientID).getRecentContacts(n);
+    }
+
+    /**
+     * @param recipientID the UserID of recipient
+     * @return the number of messages the user has not read.
+     */
+    public int getNumUnread(UUID recipientID) {
+        return getUser(recipientID).getNumUnread();
+    }
+
+    /**
+     * @param recipientID the UserID of recipient
+     * @param senderID the UserID of sender
+     * @return the number of messages from the sender that the recipient has not read.
+     */
+    public int getNumUnreadFromUser(UUID recipientID, UUID senderID) {
+        return getUser(recipientID).getNumUnread(senderID);
+    }
+
+    /**
+     * Marks the messages from the sender to the recipient as read.
+     * @param recipientID the UserID of recipient
+     * @param senderID the UserID of sender
+     */
+    public void markMessagesRead(UUID recipientID, UUID senderID) {
+        User recipient = getUser(recipientID);
+        recipient.markRead(senderID);
+        changed(recipient);
+    }
+
+    /**
+     * Forgets the oldest messages from the sender to the recipient.
+     * @param recipientID the UserID of recipient
+     * @param senderID the UserID of sender
+     * @param n the number of messages to forget.
+     * @return the UUIDs of the messages that were forgotten.
+     */
+    public List<UUID> removeOldestMessagesFromUser(UUID recipientID, UUID senderID, int n) {
+        User recipient = getUser(recipientID);
+        List<UUID> removed = recipient.removeOldestMessages(senderID, n);
+        if (!removed.isEmpty()) changed(recipient);
+        return removed;
+    }
+
+    /**
+     * Marks every message the recipient has received as read.
+     * @param recipientID the UserID of recipient
+     */
+    public void markAllMessagesRead(UUID recipientID) {
+        User recipient = getUser(recipientID);
+        recipient.markAllRead();
+        changed(recipient);
     }
 
     /**
@@ -758,9 +1167,9 @@ public class UserManager implements Serializable {
      * @return null if the username doesn't exist, otherwise UUID of the User
      */
     public UUID getUserID(String username) {
-        User user = getUser(username);
+        User user = getAccount(username);
         if (user == null) return null;
-        return getUser(username).getUserID();
+        return user.getUserID();
     }
 
     /**
@@ -769,9 +1178,26 @@ public class UserManager implements Serializable {
      * @return null if the userID doesn't exist, otherwise username of the User
      */
     public String getUsername(UUID UserID) {
-        User user = getUser(UserID);
+        User user = getAccount(UserID);
         if (user == null) return null;
-        return getUser(UserID).getUsername();
+        return user.getUsername();
+    }
+
+    /**
+     * Removes the empty conversations left in every user by earlier versions, which added one whenever a user's
+     * messages from someone who never wrote to them were looked up.
+     * @return the number of conversations removed.
+     */
+    public int compactConversations() {
+        int removed = 0;
+        for (User user : getUsers()) {
+            // the binary format keeps no empty conversations, so a user whose record is unread has none
+            if (!hasReadRecord(user)) continue;
+            int numRemoved = user.compactConversations();
+            if (numRemoved > 0) changed(user);
+            removed += numRemoved;
+        }
+        return removed;
     }
 
     /**
@@ -806,4 +1232,338 @@ public class UserManager implements Serializable {
         return queriedUserNames;
     }
 
+    /**
+     * Writes every user and request in the compact binary format read by read. Like writeObject, this writes the
+     * fields itself, so the format does not depend on how the classes are laid out.
+     *
+     * Each user's inbox is written with a table of the users who sent to it, so each message costs an index into the
+     * table, its UUID and the time since the message before it.
+     *
+     * @param out the stream to write to.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void write(BinaryOutput out) throws IOException {
+        out.writeVarInt(attendees.size() + organizers.size() + speakers.size());
+        for (User user : getUsers()) {
+            writeAccount(out, user);
+            writeRecord(out, user);
+        }
+        writeRequests(out);
+        out.writeNullableUUID(getCurrentUser());
+    }
+
+    private void writeRequests(BinaryOutput out) throws IOException {
+        out.writeVarInt(userRequests.size());
+        for (Request request : userRequests) {
+            out.writeUUID(request.getRequestID());
+            out.writeString(request.getTypeOfRequest());
+            out.writeString(request.getUrgency());
+            out.writeString(request.getRequestContent());
+            out.writeBoolean(request.isPending());
+            out.writeBoolean(request.isAddressed());
+        }
+    }
+
+    @Override
+    public Set<String> getPartitions() {
+        Set<String> partitions = new LinkedHashSet<>();
+        partitions.add(USERS_PARTITION);
+        for (int number = 0; number < NUM_USER_PARTITIONS; number++) {
+            partitions.add(getPartition(number));
+        }
+        return partitions;
+    }
+
+    @Override
+    public Set<String> takeChangedPartitions() {
+        Set<String> changed = getChangedPartitions();
+        Set<String> taken = new HashSet<>();
+        for (String partition : changed) {
+            if (changed.remove(partition)) taken.add(partition);
+        }
+        return taken;
+    }
+
+    @Override
+    public void markChanged(Collection<String> partitions) {
+        getChangedPartitions().addAll(partitions);
+    }
+
+    /**
+     * Writes one partition: either the UUIDs of the users in order, the requests and the current user, or the users
+     * whose UUIDs fall in a partition. Those are written as an index of their accounts, each with the length of their
+     * record, followed by their records, so that the index can be read without the records.
+     */
+    @Override
+    public void writePartition(String partition, BinaryOutput out) throws IOException {
+        if (partition.equals(USERS_PARTITION)) {
+            out.writeUUIDs(getAttendeeUUIDs());
+            out.writeUUIDs(getOrganizerUUIDs());
+            out.writeUUIDs(getSpeakerUUIDs());
+            writeRequests(out);
+            out.writeNullableUUID(getCurrentUser());
+            out.writeByte(INDEXED_LAYOUT);
+            return;
+        }
+        List<User> users = new ArrayList<>();
+        for (User user : getUsers()) {
+            if (getPartition(user.getUserID()).equals(partition)) users.add(user);
+        }
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        out.writeVarInt(users.size());
+        try (BinaryOutput recordOut = new BinaryOutput(records)) {
+            for (User user : users) {
+                int start = records.size();
+                writeRecord(recordOut, user);
+                recordOut.flush();
+                writeAccount(out, user);
+                out.writeVarInt(records.size() - start);
+            }
+        }
+        records.writeTo(out);
+    }
+
+    /**
+     * Writes what a user's account was created with: its type, UUID, username, whether it is vip and when it was
+     * created.
+     */
+    static void writeAccount(BinaryOutput out, User user) throws IOException {
+        out.writeByte(user.isOrganizer() ? ORGANIZER : user.isSpeaker() ? SPEAKER : ATTENDEE);
+        out.writeUUID(user.getUserID());
+        out.writeString(user.getUsername());
+        out.writeBoolean(user.isVip());
+        out.writeTime(user.getTimeOfAccountCreation());
+    }
+
+    /**
+     * @return a user recreated from what writeAccount wrote, with nothing else in its account yet.
+     */
+    static User readAccount(BinaryInput in) throws IOException {
+        byte type = in.readByte();
+        UUID userID = in.readUUID();
+        String username = in.readString();
+        boolean isVip = in.readBoolean();
+        Calendar timeOfAccountCreation = in.readTime();
+        if (type == ORGANIZER) {
+            return new Organizer(userID, username, isVip, timeOfAccountCreation);
+        } else if (type == SPEAKER) {
+            return new Speaker(userID, username, isVip, timeOfAccountCreation);
+        } else if (type == ATTENDEE) {
+            return new Attendee(userID, username, isVip, timeOfAccountCreation);
+        }
+        throw new IOException("Unknown type of user " + type);
+    }
+
+    /**
+     * Writes the rest of a user after their account: their times logged in, their inbox and their events. A record
+     * that has not been read yet is copied as it was saved.
+     */
+    private void writeRecord(BinaryOutput out, User user) throws IOException {
+        synchronized (this) {
+            ByteBuffer record = unreadRecords == null ? null : unreadRecords.get(user.getUserID());
+            if (record != null) {
+                byte[] bytes = new byte[record.remaining()];
+                record.duplicate().get(bytes);
+                out.write(bytes);
+                return;
+            }
+        }
+        out.writeTime(user.getLastLoggedIn());
+        List<Double> lengths = user.getLengthsOfTimeLoggedIn();
+        out.writeVarInt(lengths.size());
+        for (double length : lengths) {
+            out.writeDouble(length);
+        }
+
+        List<User.InboxEntry> inbox = user.getInbox();
+        Map<UUID, Integer> senders = new LinkedHashMap<>();
+        for (User.InboxEntry entry : inbox) {
+            senders.putIfAbsent(entry.senderID, senders.size());
+        }
+        out.writeUUIDs(senders.keySet());
+        out.writeVarInt(inbox.size());
+        long previousTime = 0;
+        for (User.InboxEntry entry : inbox) {
+            out.writeVarInt(senders.get(entry.senderID));
+            out.writeUUID(entry.messageID);
+            out.writeSignedVarLong(entry.timeReceived - previousTime);
+            previousTime = entry.timeReceived;
+        }
+        for (UUID senderID : senders.keySet()) {
+            out.writeVarInt(user.getNumUnread(senderID));
+        }
+
+        Map<UUID, ArrayList<UUID>> events = user instanceof Speaker ? ((Speaker) user).getEventsSpeaking()
+                : ((Attendee) user).getEvents();
+        out.writeVarInt(events.size());
+        for (Map.Entry<UUID, ArrayList<UUID>> room : events.entrySet()) {
+            out.writeUUID(room.getKey());
+            out.writeUUIDs(room.getValue());
+        }
+    }
+
+    /**
+     * Reads back a UserManager written by write.
+     * @param in the stream to read from.
+     * @return the UserManager that was written.
+     * @throws IOException if the stream cannot be read or does not hold a UserManager.
+     */
+    public static UserManager read(BinaryInput in) throws IOException {
+        UserManager userManager = new UserManager();
+        int numUsers = in.readCount();
+        for (int i = 0; i < numUsers; i++) {
+            User user = readUser(in);
+            if (user instanceof Organizer) {
+                userManager.organizers.add((Organizer) user);
+            } else if (user instanceof Speaker) {
+                userManager.speakers.add((Speaker) user);
+            } else {
+                userManager.attendees.add((Attendee) user);
+            }
+        }
+        userManager.readRequests(in);
+        UUID currentUserID = in.readNullableUUID();
+        userManager.currentUser = currentUserID == null ? null : userManager.getUser(currentUserID);
+        return userManager;
+    }
+
+    private void readRequests(BinaryInput in) throws IOException {
+        int numRequests = in.readCount();
+        for (int i = 0; i < numRequests; i++) {
+            userRequests.add(new Request(in.readUUID(), in.readString(), in.readString(), in.readString(),
+                    in.readBoolean(), in.readBoolean()));
+        }
+    }
+
+    /**
+     * Reads back a UserManager saved in partitions by writePartition. Only the index of each partition of users is
+     * read; the current user's record is read now, and every other user's record when the user is first looked up.
+     * No partition is marked as changed, unless they were saved by an earlier version without indexes, in which case
+     * every user is read now and every partition is marked, so that the next save writes them with indexes.
+     * @param source where the partitions were saved.
+     * @return the UserManager that was saved.
+     * @throws IOException if a partition cannot be read, or a user in the order is in none of them.
+     */
+    public static UserManager readPartitions(IPartitioned.Source source) throws IOException {
+        UserManager userManager = new UserManager();
+        List<UUID> attendeeIDs;
+        List<UUID> organizerIDs;
+        List<UUID> speakerIDs;
+        UUID currentUserID;
+        boolean isIndexed;
+        try (BinaryInput in = source.open(USERS_PARTITION)) {
+            attendeeIDs = in.readUUIDs();
+            organizerIDs = in.readUUIDs();
+            speakerIDs = in.readUUIDs();
+            userManager.readRequests(in);
+            currentUserID = in.readNullableUUID();
+            isIndexed = in.read() == INDEXED_LAYOUT;
+        }
+        Map<UUID, User> users = new HashMap<>();
+        if (isIndexed) {
+            userManager.unreadRecords = new HashMap<>();
+            for (int number = 0; number < NUM_USER_PARTITIONS; number++) {
+                readIndex(source.map(getPartition(number)), users, userManager.unreadRecords);
+            }
+        } else {
+            for (int number = 0; number < NUM_USER_PARTITIONS; number++) {
+                try (BinaryInput in = source.open(getPartition(number))) {
+                    int numUsers = in.readCount();
+                    for (int i = 0; i < numUsers; i++) {
+                        User user = readUser(in);
+                        users.put(user.getUserID(), user);
+                    }
+                }
+            }
+            userManager.markChanged(userManager.getPartitions());
+        }
+        addUsers(attendeeIDs, users, userManager.attendees, Attendee.class);
+        addUsers(organizerIDs, users, userManager.organizers, Organizer.class);
+        addUsers(speakerIDs, users, userManager.speakers, Speaker.class);
+        userManager.currentUser = currentUserID == null ? null : userManager.getUser(currentUserID);
+        return userManager;
+    }
+
+    /**
+     * Reads the index of a partition of users, and finds where the record of each user is in it, without reading them.
+     * @param partition the partition, from its start to its end.
+     * @param users where the users in the index are added, with only their accounts.
+     * @param records where the record of each user is put, as a slice of the partition.
+     * @throws IOException if the index cannot be read, or a record is outside the partition.
+     */
+    private static void readIndex(ByteBuffer partition, Map<UUID, User> users, Map<UUID, ByteBuffer> records)
+            throws IOException {
+        List<User> indexed = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        BinaryInput in = new BinaryInput(partition);
+        int numUsers = in.readCount();
+        for (int i = 0; i < numUsers; i++) {
+            indexed.add(readAccount(in));
+            lengths.add(in.readCount());
+        }
+        int start = partition.position();
+        for (int i = 0; i < numUsers; i++) {
+            int end = start + lengths.get(i);
+            if (end > partition.limit()) throw new IOException("The record of a user is cut short");
+            ByteBuffer record = partition.duplicate();
+            record.position(start);
+            record.limit(end);
+            User user = indexed.get(i);
+            users.put(user.getUserID(), user);
+            records.put(user.getUserID(), record.slice());
+            start = end;
+        }
+    }
+
+    private static <T extends User> void addUsers(List<UUID> userIDs, Map<UUID, User> users, List<T> list,
+                                                  Class<T> type) throws IOException {
+        for (UUID userID : userIDs) {
+            User user = users.get(userID);
+            if (!type.isInstance(user)) throw new IOException("No " + type.getSimpleName() + " " + userID);
+            list.add(type.cast(user));
+        }
+    }
+
+    private static User readUser(BinaryInput in) throws IOException {
+        User user = readAccount(in);
+        readRecord(in, user);
+        return user;
+    }
+
+    /**
+     * Reads the rest of a user, as written by writeRecord, into the user recreated from their account.
+     */
+    private static void readRecord(BinaryInput in, User user) throws IOException {
+        user.setLastLoggedIn(in.readTime());
+        int numLengths = in.readCount();
+        for (int i = 0; i < numLengths; i++) {
+            user.addNewTimeLoggedIn(in.readDouble());
+        }
+
+        List<UUID> senders = in.readUUIDs();
+        int inboxSize = in.readCount();
+        long time = 0;
+        for (int i = 0; i < inboxSize; i++) {
+            int sender = in.readVarInt();
+            if (sender < 0 || sender >= senders.size()) throw new IOException("Unknown sender " + sender);
+            UUID messageID = in.readUUID();
+            time += in.readSignedVarLong();
+            user.addMessage(senders.get(sender), messageID, time);
+        }
+        for (UUID senderID : senders) {
+            user.setNumUnread(senderID, in.readVarInt());
+        }
+
+        int numRooms = in.readCount();
+        for (int i = 0; i < numRooms; i++) {
+            UUID roomID = in.readUUID();
+            for (UUID eventID : in.readUUIDs()) {
+                if (user instanceof Speaker) {
+                    ((Speaker) user).addEvent(roomID, eventID);
+                } else {
+                    ((Attendee) user).addEvents(roomID, eventID);
+                }
+            }
+        }
+    }
 }
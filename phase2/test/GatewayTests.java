@@ -0,0 +1,338 @@
+import com.group0179.gateways.BinaryGateway;
+import com.group0179.gateways.JournaledStorage;
+import com.group0179.gateways.LegacyMigrator;
+import com.group0179.gateways.MessageManagerGateway;
+import com.group0179.gateways.RetentionPolicyFile;
+import com.group0179.gateways.RoomManagerGateway;
+import com.group0179.gateways.UserManagerGateway;
+import com.group0179.use_cases.BinaryOutput;
+import com.group0179.use_cases.InMemoryMessageStore;
+import com.group0179.use_cases.MessageManager;
+import com.group0179.use_cases.RetentionPolicy;
+import com.group0179.use_cases.RoomManager;
+import com.group0179.use_cases.SendRateLimiter;
+import com.group0179.use_cases.UserManager;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class GatewayTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String path(String name) {
+        return new File(folder.getRoot(), name).getPath();
+    }
+
+    private static Calendar time(int day, int hour) {
+        Calendar time = Calendar.getInstance();
+        time.clear();
+        time.set(2020, Calendar.DECEMBER, day, hour, 0);
+        return time;
+    }
+
+    private static void writeLegacy(Object manager, String filepath) throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filepath))) {
+            out.writeObject(manager);
+        }
+    }
+
+    @Test
+    public void testUserManagerRoundTrip() throws IOException {
+        UserManager um = new UserManager();
+        UUID alice = um.createAttendeeAccount("alice", true);
+        UUID bob = um.createSpeakerAccount("bob");
+        UUID carol = um.createOrganizerAccount("carol");
+        UUID hello = UUID.randomUUID();
+        UUID again = UUID.randomUUID();
+        um.addMessage(alice, bob, hello, 1000);
+        um.addMessage(alice, carol, UUID.randomUUID(), 1500);
+        um.addMessage(alice, bob, again, 2000);
+        um.markMessagesRead(alice, carol);
+        UUID roomID = UUID.randomUUID();
+        UUID eventID = UUID.randomUUID();
+        um.attendeeAddEvent(alice, roomID, eventID);
+        um.speakerAddEvent("bob", roomID, eventID);
+        UUID requestID = um.addUserRequest("dietary", "high", "no nuts");
+        um.setRequestAddressed(true, requestID);
+        um.setCurrentUser("alice");
+
+        UserManagerGateway gateway = new UserManagerGateway();
+        gateway.write(um, path("usermanager.bin"));
+        UserManager read = gateway.read(path("usermanager.bin"));
+
+        assertEquals(um.getUsernames(), read.getUsernames());
+        assertEquals("attendee", read.userType(alice));
+        assertEquals("speaker", read.userType(bob));
+        assertEquals("organizer", read.userType(carol));
+        assertTrue(read.isUserVip(alice));
+        assertEquals(um.getTimeOfAccountCreation(alice), read.getTimeOfAccountCreation(alice));
+        assertEquals(Arrays.asList(hello, again), read.getMessagesFromUser(alice, bob));
+        assertEquals(2000, read.getInboxFromUser(alice, bob).get(1).timeReceived);
+        assertEquals(2, read.getNumUnreadFromUser(alice, bob));
+        assertEquals(0, read.getNumUnreadFromUser(alice, carol));
+        assertEquals(bob, read.getRecentContacts(alice, 1).get(0).contactID);
+        assertEquals(um.getSpeakerEventIDs(bob), read.getSpeakerEventIDs(bob));
+        assertEquals(Arrays.asList(requestID), read.getRequestIDs());
+        assertEquals("no nuts", read.getRequestContentWithUUID(requestID));
+        assertTrue(read.getAddressedWithUUID(requestID));
+        assertEquals(alice, read.getCurrentUser());
+    }
+
+    @Test
+    public void testRoomManagerRoundTrip() throws IOException {
+        UserManager um = new UserManager();
+        um.createSpeakerAccount("bob");
+        UUID alice = um.createAttendeeAccount("alice");
+        RoomManager rm = new RoomManager();
+        int room = rm.newRoom(10);
+        UUID eventID = rm.newEvent("Talk", "bob", time(1, 9), time(1, 10), room, um, 5);
+        rm.addEventAttendee(alice, eventID, um, false);
+        ArrayList<String> speakers = new ArrayList<>(Arrays.asList("bob"));
+        UUID seriesID = rm.newEventSeries("Standup", speakers, time(2, 9), time(2, 10), 1, 5, room, 10);
+        rm.cancelSeriesOccurrence(seriesID, time(3, 0));
+        rm.updateVipStatus(true, eventID);
+
+        RoomManagerGateway gateway = new RoomManagerGateway();
+        gateway.write(rm, path("roommanager.bin"));
+        RoomManager read = gateway.read(path("roommanager.bin"));
+
+        assertEquals(rm.getRoomNumbers(), read.getRoomNumbers());
+        assertEquals(rm.getEventIDs(), read.getEventIDs());
+        assertEquals(Arrays.asList(alice), read.getEventAttendeeIDs(eventID));
+        assertTrue(read.getVipStatus(eventID));
+        assertEquals(rm.stringEventInfoAll(), read.stringEventInfoAll());
+        assertEquals(rm.getEventsOfRoomOnDay(room, time(3, 0), um), read.getEventsOfRoomOnDay(room, time(3, 0), um));
+        assertEquals(rm.getEventsOfRoomOnDay(room, time(4, 0), um), read.getEventsOfRoomOnDay(room, time(4, 0), um));
+        assertEquals(room + 1, read.newRoom(10));
+    }
+
+    @Test
+    public void testMessageManagerRoundTrip() throws IOException {
+        UserManager um = new UserManager();
+        UUID alice = um.createAttendeeAccount("alice");
+        UUID bob = um.createSpeakerAccount("bob");
+        UUID carol = um.createOrganizerAccount("carol");
+        RoomManager rm = new RoomManager();
+        int room = rm.newRoom(10);
+        UUID eventID = rm.newEvent("Talk", "bob", time(1, 9), time(1, 10), room, um, 5);
+        rm.addEventAttendee(alice, eventID, um, false);
+
+        MessageManager mm = new MessageManager(new InMemoryMessageStore());
+        mm.sendMessage(um, alice, bob, "see you at the keynote");
+        mm.sendMessageToAllAttendees(um, carol, "the keynote moved to room two");
+        mm.sendMessageToEventAttendees(um, rm, bob, eventID, "slides for the keynote are up");
+        mm.setRetentionPolicy(new RetentionPolicy().setRule(RetentionPolicy.ConversationType.DIRECT, 60000, 100));
+        mm.getSendRateLimiter().setRate("attendee", 5, 7);
+
+        MessageManagerGateway gateway = new MessageManagerGateway();
+        gateway.write(mm, path("messagemanager.bin"));
+        MessageManager read = gateway.read(path("messagemanager.bin"));
+
+        assertEquals(mm.getNumMessages(), read.getNumMessages());
+        assertEquals(Arrays.asList("see you at the keynote"), read.getMessageContentsFromUser(um, bob, alice));
+        assertEquals(mm.getInbox(um, alice).size(), read.getInbox(um, alice).size());
+        assertEquals("slides for the keynote are up", read.readEventChannel(eventID, alice).get(0).content);
+        assertEquals(0, read.getNumUnreadEventPosts(eventID, alice));
+        assertEquals(3, read.searchMessages(um, alice, "keynote", 10).size());
+        assertEquals(60000, read.getRetentionPolicy().getRule("attendee",
+                RetentionPolicy.ConversationType.DIRECT).maxAgeMillis);
+        UUID sender = UUID.randomUUID();
+        for (int i = 0; i < 7; i++) {
+            assertEquals(0, read.getSendRateLimiter().tryAcquire(sender, "attendee"));
+        }
+        assertTrue(read.getSendRateLimiter().tryAcquire(sender, "attendee") > 0);
+
+        read.sendMessage(um, bob, alice, "see you there");
+        assertEquals(mm.getNumMessages() + 1, read.getNumMessages());
+    }
+
+    /**
+     * Copies the files saved by the first version of the program, whose classes have changed since, into the folder.
+     * In them, alice (vip) and bob are attendees, olivia an organizer and sam a speaker. Room 0 holds the Keynote,
+     * given by sam, which alice and bob signed up for and which has alice's request; room 1 holds the vip only Mixer.
+     * bob sent alice two messages and sam one, and olivia sent one to all attendees.
+     */
+    private void copyFirstVersionFiles() throws IOException {
+        for (String name : Arrays.asList("usermanager.ser", "roommanager.ser", "messagemanager.ser")) {
+            try (InputStream in = GatewayTests.class.getResourceAsStream("/legacy/" + name)) {
+                assertNotNull(name, in);
+                Files.copy(in, new File(path(name)).toPath());
+            }
+        }
+    }
+
+    @Test
+    public void testRetentionPolicyIsOnlySetByItsFile() throws IOException {
+        assertNull(RetentionPolicyFile.read(path(RetentionPolicyFile.FILE)));
+        try (Writer out = new FileWriter(path(RetentionPolicyFile.FILE))) {
+            out.write("# kept until the organizers say otherwise\n");
+        }
+        RetentionPolicy keepAll = RetentionPolicyFile.read(path(RetentionPolicyFile.FILE));
+        assertNotNull(keepAll);
+        assertTrue(keepAll.keepsAll());
+
+        try (Writer out = new FileWriter(path(RetentionPolicyFile.FILE))) {
+            out.write("direct.maxCount=1000\nspeaker.event.maxAgeDays=90\nspeaker.event.maxCount=50\n");
+        }
+        RetentionPolicy policy = RetentionPolicyFile.read(path(RetentionPolicyFile.FILE));
+        RetentionPolicy.Rule direct = policy.getRule("attendee", RetentionPolicy.ConversationType.DIRECT);
+        assertEquals(Long.MAX_VALUE, direct.maxAgeMillis);
+        assertEquals(1000, direct.maxCount);
+        RetentionPolicy.Rule event = policy.getRule("speaker", RetentionPolicy.ConversationType.EVENT);
+        assertEquals(90 * 24 * 60 * 60 * 1000L, event.maxAgeMillis);
+        assertEquals(50, event.maxCount);
+        assertTrue(policy.getRule("organizer", RetentionPolicy.ConversationType.EVENT).keepsAll());
+
+        try (Writer out = new FileWriter(path(RetentionPolicyFile.FILE))) {
+            out.write("direct.maxAge=30\n");
+        }
+        try {
+            RetentionPolicyFile.read(path(RetentionPolicyFile.FILE));
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("direct.maxAge"));
+        }
+    }
+
+    @Test
+    public void testLegacyFilesAreMigrated() throws IOException {
+        copyFirstVersionFiles();
+        assertTrue(LegacyMigrator.migrate(folder.getRoot().getPath()));
+        assertFalse(LegacyMigrator.migrate(folder.getRoot().getPath()));
+        assertTrue(new File(path("usermanager.ser")).exists());
+
+        JournaledStorage storage = new JournaledStorage(folder.getRoot().getPath());
+        storage.load();
+        UserManager um = storage.getUserManager();
+        RoomManager rm = storage.getRoomManager();
+        MessageManager mm = storage.getMessageManager();
+        assertEquals(new HashSet<>(Arrays.asList("alice", "bob", "olivia", "sam")), new HashSet<>(um.getUsernames()));
+        UUID alice = um.getUserID("alice");
+        UUID bob = um.getUserID("bob");
+        assertTrue(um.isUserVip(alice));
+        assertFalse(um.isUserVip(bob));
+        assertTrue(um.setCurrentUser("alice"));
+        assertEquals(Arrays.asList(12.5), um.getLengthsOfTimeLoggedInAsMinutesForCurrentUser());
+        assertEquals(1, um.getRequestIDs().size());
+        assertEquals("vegan lunch", um.getRequestContentWithUUID(um.getRequestIDs().get(0)));
+
+        assertEquals(2, rm.getNumRooms());
+        UUID keynote = rm.getEventUUIDfromNameandRoom("Keynote", 0, um);
+        UUID mixer = rm.getEventUUIDfromNameandRoom("Mixer", 1, um);
+        assertEquals(new HashSet<>(Arrays.asList(alice, bob)), new HashSet<>(rm.getEventAttendeeIDs(keynote)));
+        assertEquals(um.getRequestIDs(), rm.getEventRequests(keynote));
+        assertEquals(Arrays.asList(keynote), um.getSpeakerEventIDs("sam"));
+        assertTrue(rm.getVipStatus(mixer));
+        assertFalse(rm.getVipStatus(keynote));
+
+        assertEquals(Arrays.asList("hi alice", "bring the slides"), mm.getMessageContentsFromUser(um, alice, bob));
+        assertEquals(Arrays.asList("see you at the keynote"),
+                mm.getMessageContentsFromUser(um, alice, um.getUserID("sam")));
+        assertEquals(Arrays.asList("welcome to the conference"),
+                mm.getMessageContentsFromUser(um, bob, um.getUserID("olivia")));
+        assertEquals(4, mm.getNumMessages());
+        storage.close();
+    }
+
+    @Test
+    public void testUnreadableLegacyFileIsNotMigrated() throws IOException {
+        // saved with Java serialization by the classes of today, which the first version never had
+        writeLegacy(new RoomManager(), path("roommanager.ser"));
+        try {
+            LegacyMigrator.migrate(folder.getRoot().getPath());
+            fail();
+        } catch (InvalidClassException e) {
+            assertFalse(new File(path("roommanager.bin")).exists());
+            assertFalse(new File(path("usermanager.bin")).exists());
+        }
+    }
+
+    @Test
+    public void testUnreadableFileIsNotReplaced() throws IOException {
+        copyFirstVersionFiles();
+        try {
+            new UserManagerGateway().read(path("usermanager.ser"));
+            fail();
+        } catch (UncheckedIOException e) {
+            assertTrue(BinaryGateway.isLegacy(path("usermanager.ser")));
+        }
+        assertEquals(0, new UserManagerGateway().read(path("usermanager.bin")).getUsernames().size());
+    }
+
+    @Test
+    public void testFailedWriteLeavesFileSavedBefore() throws IOException {
+        UserManager um = new UserManager();
+        UUID alice = um.createAttendeeAccount("alice");
+        new UserManagerGateway().write(um, path("usermanager.bin"));
+        um.createAttendeeAccount("bob");
+        UserManagerGateway failing = new UserManagerGateway() {
+            @Override
+            protected void encode(UserManager userManager, BinaryOutput out) throws IOException {
+                out.writeString("part of a manager");
+                throw new IOException("disk full");
+            }
+        };
+
+        try {
+            failing.write(um, path("usermanager.bin"));
+            fail();
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+        UserManager read = new UserManagerGateway().read(path("usermanager.bin"));
+        assertEquals(Arrays.asList("alice"), read.getUsernames());
+        assertTrue(read.userExists(alice));
+        assertFalse(new File(path("usermanager.bin.tmp")).exists());
+    }
+
+    @Test
+    public void testBinaryFormatIsSmallerThanSerialization() throws IOException {
+        UserManager um = new UserManager();
+        RoomManager rm = new RoomManager();
+        MessageManager mm = new MessageManager(new InMemoryMessageStore());
+        mm.setSendRateLimiter(new SendRateLimiter().removeRate("attendee"));
+        int room = rm.newRoom(500);
+        um.createSpeakerAccount("speaker");
+        UUID eventID = rm.newEvent("Talk", "speaker", time(1, 9), time(1, 10), room, um, 500);
+        ArrayList<UUID> attendees = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            UUID attendee = um.createAttendeeAccount("attendee" + i);
+            rm.addEventAttendee(attendee, eventID, um, false);
+            attendees.add(attendee);
+        }
+        for (int i = 0; i < 2000; i++) {
+            mm.sendMessage(um, attendees.get(i % 200), attendees.get((i * 7 + 1) % 200), "message number " + i);
+        }
+
+        writeLegacy(um, path("usermanager.ser"));
+        writeLegacy(rm, path("roommanager.ser"));
+        writeLegacy(mm, path("messagemanager.ser"));
+        long legacySize = new File(path("usermanager.ser")).length() + new File(path("roommanager.ser")).length()
+                + new File(path("messagemanager.ser")).length();
+
+        new UserManagerGateway().write(um, path("usermanager.bin"));
+        new RoomManagerGateway().write(rm, path("roommanager.bin"));
+        new MessageManagerGateway().write(mm, path("messagemanager.bin"));
+        long binarySize = new File(path("usermanager.bin")).length() + new File(path("roommanager.bin")).length()
+                + new File(path("messagemanager.bin")).length();
+
+        UserManager read = new UserManagerGateway().read(path("usermanager.bin"));
+        RoomManager readRooms = new RoomManagerGateway().read(path("roommanager.bin"));
+        MessageManager readMessages = new MessageManagerGateway().read(path("messagemanager.bin"));
+        assertEquals(um.getUsernames(), read.getUsernames());
+        assertEquals(200, readRooms.getEventAttendeeIDs(eventID).size());
+        assertEquals(2000, readMessages.getNumMessages());
+        assertTrue(binarySize < legacySize);
+    }
+}
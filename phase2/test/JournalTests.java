@@ -0,0 +1,319 @@
+import com.group0179.gateways.JournaledStorage;
+import com.group0179.gateways.MessageManagerGateway;
+import com.group0179.gateways.UserManagerGateway;
+import com.group0179.gateways.WriteAheadJournal;
+import com.group0179.use_cases.MessageManager;
+import com.group0179.use_cases.RoomManager;
+import com.group0179.use_cases.UserManager;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class JournalTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Calendar time(int day, int hour) {
+        Calendar time = Calendar.getInstance();
+        time.clear();
+        time.set(2020, Calendar.DECEMBER, day, hour, 0);
+        return time;
+    }
+
+    @Test
+    public void testRecordsAreReadBack() throws IOException {
+        String directory = folder.getRoot().getPath();
+        WriteAheadJournal journal = new WriteAheadJournal(directory, 0);
+        assertEquals(1, journal.append(bytes("one")));
+        long two = journal.append(bytes("two"));
+        journal.sync(two);
+        journal.close();
+
+        WriteAheadJournal reopened = new WriteAheadJournal(directory, 0);
+        List<byte[]> records = reopened.readAfter(1);
+        assertEquals(1, records.size());
+        assertEquals("two", new String(records.get(0), StandardCharsets.UTF_8));
+        assertEquals(3, reopened.append(bytes("three")));
+        reopened.close();
+    }
+
+    @Test
+    public void testTornRecordIsDropped() throws IOException {
+        String directory = folder.getRoot().getPath();
+        WriteAheadJournal journal = new WriteAheadJournal(directory, 0);
+        journal.sync(journal.append(bytes("kept")));
+        journal.close();
+        File file = folder.getRoot().listFiles()[0];
+        try (RandomAccessFile torn = new RandomAccessFile(file, "rw")) {
+            torn.seek(torn.length());
+            torn.writeInt(100);
+            torn.writeInt(0);
+            torn.write(bytes("cut short"));
+        }
+
+        WriteAheadJournal reopened = new WriteAheadJournal(directory, 0);
+        assertEquals(1, reopened.readAfter(0).size());
+        reopened.sync(reopened.append(bytes("after")));
+        assertEquals(2, reopened.readAfter(0).size());
+        reopened.close();
+    }
+
+    @Test
+    public void testConcurrentRecordsShareFlushes() throws Exception {
+        WriteAheadJournal journal = new WriteAheadJournal(folder.getRoot().getPath(), 0);
+        int numThreads = 8;
+        int perThread = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            int thread = i;
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < perThread; j++) {
+                    journal.sync(journal.append(bytes(thread + ":" + j)));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int numRecords = numThreads * perThread;
+
+        assertEquals(numRecords, journal.readAfter(0).size());
+        assertTrue(journal.getNumFlushes() < numRecords);
+        journal.close();
+    }
+
+    @Test
+    public void testChangesSurviveACrash() throws IOException {
+        String directory = folder.getRoot().getPath();
+        JournaledStorage storage = new JournaledStorage(directory);
+        storage.load();
+        UserManager um = storage.getUserManager();
+        RoomManager rm = storage.getRoomManager();
+        MessageManager mm = storage.getMessageManager();
+        UUID alice = um.createAttendeeAccount("alice");
+        UUID bob = um.createSpeakerAccount("bob");
+        UUID carol = um.createOrganizerAccount("carol");
+        int room = rm.newRoom(10);
+        UUID eventID = rm.newEvent("Talk", "bob", time(1, 9), time(1, 10), room, um, 5);
+        rm.addEventAttendee(alice, eventID, um, false);
+        mm.joinEventChannel(rm, eventID, alice);
+        mm.sendMessage(um, alice, bob, "see you at the talk");
+        mm.sendMessageToAllAttendees(um, carol, "the talk moved");
+        mm.sendMessageToEventAttendees(um, rm, bob, eventID, "slides are up");
+        // no snapshot and no close, as if the program had crashed
+
+        JournaledStorage recovered = new JournaledStorage(directory);
+        recovered.load();
+        UserManager um2 = recovered.getUserManager();
+        RoomManager rm2 = recovered.getRoomManager();
+        MessageManager mm2 = recovered.getMessageManager();
+        assertEquals(9, recovered.getNumReplayed());
+        assertEquals(um.getUsernames(), um2.getUsernames());
+        assertEquals("organizer", um2.userType(carol));
+        assertEquals(Arrays.asList(room), rm2.getRoomNumbers());
+        assertEquals(Arrays.asList(alice), rm2.getEventAttendeeIDs(eventID));
+        assertEquals(rm.getEventsOfRoom(room, um), rm2.getEventsOfRoom(room, um2));
+        assertEquals(Arrays.asList("see you at the talk"), mm2.getMessageContentsFromUser(um2, bob, alice));
+        assertEquals(2, mm2.getInbox(um2, alice).size());
+        assertEquals("slides are up", mm2.readEventChannel(eventID, alice).get(0).content);
+
+        // later changes are numbered after the replayed ones
+        assertEquals(room + 1, rm2.newRoom(10));
+        mm2.sendMessage(um2, bob, alice, "thanks");
+        assertEquals(4, mm2.getNumMessages());
+        recovered.close();
+    }
+
+    @Test
+    public void testRemovalsAndReschedulesSurviveACrash() throws IOException {
+        String directory = folder.getRoot().getPath();
+        JournaledStorage storage = new JournaledStorage(directory);
+        storage.load();
+        UserManager um = storage.getUserManager();
+        RoomManager rm = storage.getRoomManager();
+        UUID alice = um.createAttendeeAccount("alice");
+        um.createSpeakerAccount("bob");
+        int room = rm.newRoom(10);
+        UUID removedID = rm.newEvent("Old talk", "bob", time(1, 9), time(1, 10), room, um, 5);
+        rm.addEventAttendee(alice, removedID, um, false);
+        assertTrue(rm.removeEvent(um, removedID));
+        // the slot the removed event left is taken by a new one
+        UUID replacementID = rm.newEvent("New talk", "bob", time(1, 9), time(1, 10), room, um, 5);
+        rm.addEventAttendee(alice, replacementID, um, false);
+        rm.updateVipStatus(true, replacementID);
+        UUID movedID = rm.newEvent("Moved talk", "bob", time(2, 9), time(2, 10), room, um, 5);
+        assertTrue(rm.rescheduleEvent(um, movedID, time(3, 9), time(3, 10)));
+        int removedRoom = rm.newRoom(10);
+        rm.newEvent("Cancelled talk", "bob", time(4, 9), time(4, 10), removedRoom, um, 5);
+        assertTrue(rm.removeRoom(um, removedRoom));
+        // no snapshot and no close, as if the program had crashed
+
+        JournaledStorage recovered = new JournaledStorage(directory);
+        recovered.load();
+        UserManager um2 = recovered.getUserManager();
+        RoomManager rm2 = recovered.getRoomManager();
+        assertEquals(14, recovered.getNumReplayed());
+        assertEquals(Arrays.asList(room), rm2.getRoomNumbers());
+        assertEquals(Arrays.asList(replacementID, movedID), rm2.getEventIDsOfRoom(room));
+        assertEquals(Arrays.asList(alice), rm2.getEventAttendeeIDs(replacementID));
+        assertTrue(rm2.getVipStatus(replacementID));
+        assertEquals(rm.getEventsOfRoom(room, um), rm2.getEventsOfRoom(room, um2));
+        assertEquals(um.getSpeakerEventIDs("bob"), um2.getSpeakerEventIDs("bob"));
+        recovered.close();
+    }
+
+    @Test
+    public void testEventSeriesSurviveACrash() throws IOException {
+        String directory = folder.getRoot().getPath();
+        JournaledStorage storage = new JournaledStorage(directory);
+        storage.load();
+        UserManager um = storage.getUserManager();
+        RoomManager rm = storage.getRoomManager();
+        UUID alice = um.createAttendeeAccount("alice", true);
+        um.createSpeakerAccount("bob");
+        int room = rm.newRoom(10);
+        UUID seriesID = rm.newEventSeries("Standup", new ArrayList<>(Arrays.asList("bob")), time(5, 9), time(5, 10),
+                1, 4, room, 10);
+        rm.updateSeriesVipStatus(true, seriesID);
+        assertTrue(rm.cancelSeriesOccurrence(seriesID, time(6, 0)));
+        List<UUID> listed = rm.getEventIDsOfRoom(room);
+        assertTrue(rm.addEventAttendee(alice, listed.get(0), um, true));
+        // no snapshot and no close, as if the program had crashed
+
+        JournaledStorage recovered = new JournaledStorage(directory);
+        recovered.load();
+        UserManager um2 = recovered.getUserManager();
+        RoomManager rm2 = recovered.getRoomManager();
+        assertEquals(7, recovered.getNumReplayed());
+        assertEquals(3, listed.size());
+        assertEquals(listed, rm2.getEventIDsOfRoom(room));
+        assertEquals(rm.getEventsOfRoom(room, um), rm2.getEventsOfRoom(room, um2));
+        assertEquals(Arrays.asList(alice), rm2.getEventAttendeeIDs(listed.get(0)));
+        assertTrue(rm2.getVipStatus(listed.get(1)));
+        assertEquals(um.getSpeakerEventIDs("bob"), um2.getSpeakerEventIDs("bob"));
+        recovered.close();
+    }
+
+    @Test
+    public void testSnapshotTruncatesJournal() throws IOException {
+        String directory = folder.getRoot().getPath();
+        JournaledStorage storage = new JournaledStorage(directory);
+        storage.load();
+        UUID alice = storage.getUserManager().createAttendeeAccount("alice");
+        storage.snapshot();
+        UUID bob = storage.getUserManager().createAttendeeAccount("bob");
+        // the second record is after the snapshot, so only it is left to replay
+        assertEquals(1, storage.getJournal().readAfter(0).size());
+        storage.snapshot();
+        storage.close();
+
+        JournaledStorage reloaded = new JournaledStorage(directory);
+        reloaded.load();
+        assertEquals(0, reloaded.getNumReplayed());
+        assertTrue(reloaded.getUserManager().userExists(alice));
+        assertTrue(reloaded.getUserManager().userExists(bob));
+        UUID carol = reloaded.getUserManager().createAttendeeAccount("carol");
+        reloaded.getJournal().close();
+
+        JournaledStorage again = new JournaledStorage(directory);
+        again.load();
+        assertEquals(1, again.getNumReplayed());
+        assertTrue(again.getUserManager().userExists(carol));
+        again.close();
+    }
+
+    @Test
+    public void testReplayOverNewerSnapshotDoesNothing() throws IOException {
+        String directory = folder.getRoot().getPath();
+        JournaledStorage storage = new JournaledStorage(directory);
+        storage.load();
+        UserManager um = storage.getUserManager();
+        UUID alice = um.createAttendeeAccount("alice");
+        UUID bob = um.createAttendeeAccount("bob");
+        storage.getMessageManager().sendMessage(um, alice, bob, "hello");
+        storage.getJournal().close();
+        // a snapshot that already has the journaled changes, as if a change were made while it was being taken
+        new UserManagerGateway().write(um, new File(directory, "usermanager.bin").getPath());
+        new MessageManagerGateway().write(storage.getMessageManager(),
+                new File(directory, "messagemanager.bin").getPath());
+
+        JournaledStorage recovered = new JournaledStorage(directory);
+        recovered.load();
+        assertEquals(3, recovered.getNumReplayed());
+        assertEquals(2, recovered.getUserManager().getUsernames().size());
+        assertEquals(1, recovered.getMessageManager().getInbox(recovered.getUserManager(), bob).size());
+        assertEquals(1, recovered.getMessageManager().getNumMessages());
+        recovered.close();
+    }
+
+    @Test
+    public void testUsersCanLogInBeforeRoomsAreRead() throws IOException {
+        String directory = folder.getRoot().getPath();
+        JournaledStorage storage = new JournaledStorage(directory);
+        storage.load();
+        UserManager um = storage.getUserManager();
+        UUID alice = um.createAttendeeAccount("alice");
+        UUID bob = um.createSpeakerAccount("bob");
+        int room = storage.getRoomManager().newRoom(10);
+        UUID eventID = storage.getRoomManager().newEvent("Talk", "bob", time(1, 9), time(1, 10), room, um, 5);
+        storage.getMessageManager().sendMessage(um, alice, bob, "hello");
+        storage.getJournal().close();
+
+        // the rooms and messages are not read until the reads left on the executor are run
+        List<Runnable> reads = new ArrayList<>();
+        Executor held = reads::add;
+        JournaledStorage recovered = new JournaledStorage(directory);
+        recovered.loadUsers(held);
+        assertEquals(2, reads.size());
+        assertFalse(recovered.getOthersRead().isDone());
+        assertNull(recovered.getRoomManager());
+        UserManager um2 = recovered.getUserManager();
+        assertEquals("speaker", um2.userType("bob"));
+        UUID carol = um2.createAttendeeAccount("carol");
+
+        for (Runnable read : reads) {
+            read.run();
+        }
+        assertTrue(recovered.getOthersRead().isDone());
+        recovered.finishLoading();
+        assertEquals(5, recovered.getNumReplayed());
+        assertEquals(Arrays.asList(eventID), recovered.getRoomManager().getEventIDsOfRoom(room));
+        assertEquals(Arrays.asList("hello"), recovered.getMessageManager().getMessageContentsFromUser(um2, bob, alice));
+        assertTrue(recovered.getLoadTimes().containsKey("replay journal"));
+        recovered.getJournal().close();
+
+        // the account created before the journal was replayed is journaled once, after the replayed records
+        JournaledStorage again = new JournaledStorage(directory);
+        again.load();
+        assertEquals(6, again.getNumReplayed());
+        assertTrue(again.getUserManager().userExists(carol));
+        assertEquals(3, again.getUserManager().getUsernames().size());
+        again.close();
+    }
+}
@@ -0,0 +1,91 @@
+import com.group0179.use_cases.InMemoryMessageStore;
+import com.group0179.use_cases.MessageCompactor;
+import com.group0179.use_cases.MessageCompressor;
+import com.group0179.use_cases.MessageManager;
+import com.group0179.use_cases.UserManager;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class MessageCompressorTests {
+    private static String announcement(int number) {
+        StringBuilder text = new StringBuilder("Announcement " + number + ". ");
+        for (int i = 0; i < 20; i++) {
+            text.append("The keynote in room ").append(200 + i).append(" starts after the coffee break. ");
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void testShortBodiesAreNotCompressed() {
+        MessageCompressor compressor = new MessageCompressor();
+        assertNull(compressor.compress("see you at the keynote"));
+        assertEquals(0, compressor.getStats().numCompressed);
+        assertEquals(1.0, compressor.getStats().getRatio(), 0);
+    }
+
+    @Test
+    public void testRoundTripWithDictionary() {
+        MessageCompressor compressor = new MessageCompressor(64);
+        byte[] plain = compressor.compress(announcement(1));
+        assertNotNull(plain);
+        assertNull(compressor.trainDictionary());
+        compressor.compress(announcement(2));
+        assertNotNull(compressor.trainDictionary());
+        assertTrue(compressor.hasDictionary());
+
+        String text = "你好. " + announcement(3);
+        byte[] withDictionary = compressor.compress(text);
+        assertEquals(text, compressor.decompress(withDictionary));
+        assertEquals(announcement(1), compressor.decompress(plain));
+        assertTrue(withDictionary.length < plain.length);
+
+        MessageCompressor untrained = new MessageCompressor(64);
+        try {
+            untrained.decompress(withDictionary);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // the dictionary is needed to read the body
+        }
+        MessageCompressor.Stats stats = compressor.getStats();
+        assertEquals(3, stats.numCompressed);
+        assertEquals(2, stats.numDecompressed);
+        assertTrue(stats.getRatio() < 0.5);
+    }
+
+    @Test
+    public void testMessagesAreDecompressedWhenRead() {
+        UserManager userManager = new UserManager();
+        MessageManager messageManager = new MessageManager(new InMemoryMessageStore(new MessageCompressor(64)));
+        UUID orgUUID = userManager.createOrganizerAccount("organizer");
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+
+        messageManager.sendMessage(userManager, orgUUID, a1UUID, announcement(1));
+        messageManager.sendMessage(userManager, orgUUID, a1UUID, announcement(1));
+        messageManager.sendMessage(userManager, orgUUID, a1UUID, "short");
+        assertEquals(2, messageManager.getNumMessageBodies());
+        assertEquals(1, messageManager.getCompressionStats().numCompressed);
+
+        assertEquals(announcement(1), messageManager.getMessageContentsFromUser(userManager, a1UUID, orgUUID).get(0));
+        assertTrue(messageManager.getCompressionStats().numDecompressed > 0);
+    }
+
+    @Test
+    public void testCompactorTrainsADictionary() throws InterruptedException {
+        UserManager userManager = new UserManager();
+        MessageManager messageManager = new MessageManager(new InMemoryMessageStore(new MessageCompressor(64)));
+        UUID orgUUID = userManager.createOrganizerAccount("organizer");
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+        MessageCompactor compactor = new MessageCompactor(messageManager, userManager, Runnable::run, 60 * 60 * 1000);
+
+        messageManager.sendMessage(userManager, orgUUID, a1UUID, announcement(1));
+        compactor.compactNow();
+        assertFalse(messageManager.hasCompressionDictionary());
+        messageManager.sendMessage(userManager, orgUUID, a1UUID, announcement(2));
+        compactor.compactNow();
+        assertTrue(messageManager.hasCompressionDictionary());
+        compactor.shutdown();
+    }
+}
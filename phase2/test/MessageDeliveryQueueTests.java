@@ -0,0 +1,129 @@
+import com.group0179.use_cases.MessageDeliveryQueue;
+import com.group0179.use_cases.MessageManager;
+import com.group0179.use_cases.RoomManager;
+import com.group0179.use_cases.UserManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class MessageDeliveryQueueTests {
+    private MessageManager messageManager;
+    private UserManager userManager;
+    private RoomManager roomManager;
+    private MessageDeliveryQueue deliveryQueue;
+    private UUID speakerUUID;
+
+    @Before
+    public void setupBefore() {
+        messageManager = new MessageManager();
+        userManager = new UserManager();
+        roomManager = new RoomManager();
+        deliveryQueue = new MessageDeliveryQueue(messageManager, 3, 100);
+        speakerUUID = userManager.createSpeakerAccount("speaker");
+        roomManager.newRoom(30);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        deliveryQueue.shutdown();
+    }
+
+    private UUID newEvent(String title, int hour) {
+        return roomManager.newEvent(title, "speaker",
+                new GregorianCalendar(2000, Calendar.MAY, 1, hour, 0, 0),
+                new GregorianCalendar(2000, Calendar.MAY, 1, hour + 1, 0, 0),
+                0, userManager, 20);
+    }
+
+    @Test
+    public void testMessagesAreDeliveredInOrder() throws InterruptedException {
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+        UUID a2UUID = userManager.createAttendeeAccount("attendee2");
+        UUID event1 = newEvent("1", 10);
+        UUID event2 = newEvent("2", 12);
+        roomManager.addEventAttendee(a1UUID, event1, userManager, false);
+        roomManager.addEventAttendee(a2UUID, event1, userManager, false);
+        roomManager.addEventAttendee(a1UUID, event2, userManager, false);
+
+        List<MessageDeliveryQueue.Ticket> tickets = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            UUID eventID = i % 2 == 0 ? event1 : event2;
+            tickets.add(deliveryQueue.sendMessageToEventAttendees(userManager, roomManager, speakerUUID, eventID,
+                    "update " + i));
+            expected.add("update " + i);
+        }
+        for (MessageDeliveryQueue.Ticket ticket : tickets) {
+            assertTrue(ticket.await(5, TimeUnit.SECONDS));
+            assertEquals(MessageDeliveryQueue.Ticket.Status.DELIVERED, ticket.getStatus());
+            assertNotNull(ticket.getMessageID());
+            assertEquals(ticket.getNumRecipients(), ticket.getNumDelivered());
+        }
+        assertEquals(2, tickets.get(0).getNumRecipients());
+
+        // each event is its own conversation, so only the order within an event is guaranteed
+        List<String> event1Messages = new ArrayList<>();
+        List<String> event2Messages = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            (i % 2 == 0 ? event1Messages : event2Messages).add(expected.get(i));
+        }
+        assertEquals(event1Messages, messageManager.getMessageContentsFromUser(userManager, a2UUID, speakerUUID));
+        List<String> received = messageManager.getMessageContentsFromUser(userManager, a1UUID, speakerUUID);
+        assertEquals(50, received.size());
+        List<String> receivedFromEvent2 = new ArrayList<>(received);
+        receivedFromEvent2.removeAll(event1Messages);
+        assertEquals(event2Messages, receivedFromEvent2);
+    }
+
+    @Test
+    public void testFailedAndRejectedTickets() throws InterruptedException {
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+        UUID emptyEvent = newEvent("1", 10);
+        MessageDeliveryQueue.Ticket failed = deliveryQueue.sendMessageToEventAttendees(userManager, roomManager,
+                speakerUUID, emptyEvent, "nobody is here");
+        assertTrue(failed.isDone());
+        assertEquals(MessageDeliveryQueue.Ticket.Status.FAILED, failed.getStatus());
+
+        UUID event = newEvent("2", 12);
+        roomManager.addEventAttendee(a1UUID, event, userManager, false);
+        deliveryQueue.shutdown();
+        MessageDeliveryQueue.Ticket rejected = deliveryQueue.sendMessageToEventAttendees(userManager, roomManager,
+                speakerUUID, event, "too late");
+        assertEquals(MessageDeliveryQueue.Ticket.Status.REJECTED, rejected.getStatus());
+        assertEquals(0, rejected.getNumDelivered());
+        deliveryQueue = new MessageDeliveryQueue(messageManager);
+    }
+
+    @Test
+    public void testNoTicketIsLeftQueuedByShutdown() throws InterruptedException {
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+        UUID event = newEvent("1", 10);
+        roomManager.addEventAttendee(a1UUID, event, userManager, false);
+        List<MessageDeliveryQueue.Ticket> tickets = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean isStopped = new AtomicBoolean();
+        Thread sender = new Thread(() -> {
+            while (!isStopped.get()) {
+                tickets.add(deliveryQueue.sendMessageToEventAttendees(userManager, roomManager, speakerUUID, event,
+                        "update"));
+            }
+        });
+        sender.start();
+        while (tickets.isEmpty()) {
+            Thread.yield();
+        }
+        deliveryQueue.shutdown();
+        isStopped.set(true);
+        sender.join();
+        // every message sent while the queue was shutting down has been delivered or rejected
+        for (MessageDeliveryQueue.Ticket ticket : tickets) {
+            assertTrue(ticket.isDone());
+        }
+        deliveryQueue = new MessageDeliveryQueue(messageManager);
+    }
+}
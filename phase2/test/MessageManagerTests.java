@@ -1,11 +1,17 @@
 import com.group0179.entities.Room;
+import com.group0179.use_cases.MessageCompactor;
 import com.group0179.use_cases.MessageManager;
+import com.group0179.use_cases.RetentionPolicy;
+import com.group0179.use_cases.SendRateLimiter;
 import com.group0179.use_cases.RoomManager;
 import com.group0179.use_cases.UserManager;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.Assert.*;
 
@@ -123,4 +129,332 @@ public class MessageManagerTests {
         assertSame(null, messageManager.sendMessageToEventAttendees(userManager, roomManager,
                 speakerUUID, eventUUID, messageContent) );
     }
-}
\ No newline at end of file
+
+    /*
+     * sendMessageToAllAttendees()
+     * sendMessageToAllSpeakers()
+     */
+    @Test
+    public void testBroadcastOnlyReachesUsersWhoExisted() throws InterruptedException {
+        UUID orgUUID = userManager.createOrganizerAccount("organizer");
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+        UUID s1UUID = userManager.createSpeakerAccount("speaker1");
+
+        assertNotNull(messageManager.sendMessageToAllAttendees(userManager, orgUUID, "to attendees"));
+        assertNotNull(messageManager.sendMessageToAllSpeakers(userManager, orgUUID, "to speakers"));
+        Thread.sleep(5);
+        UUID a2UUID = userManager.createAttendeeAccount("attendee2");
+
+        assertEquals(Collections.singletonList("to attendees"),
+                messageManager.getMessageContentsFromUser(userManager, a1UUID, orgUUID));
+        assertEquals(Collections.singletonList("to speakers"),
+                messageManager.getMessageContentsFromUser(userManager, s1UUID, orgUUID));
+        assertTrue(messageManager.getMessageContentsFromUser(userManager, a2UUID, orgUUID).isEmpty());
+        assertTrue(messageManager.getMessageContentsFromUser(userManager, orgUUID, orgUUID).isEmpty());
+        assertEquals(0, userManager.getMessagesFromUser(a1UUID, orgUUID).size());
+    }
+
+    /*
+     * sendMessage()
+     * sendMessageToAllAttendees()
+     */
+    @Test
+    public void testBroadcastsAndDirectMessagesKeepOrder() {
+        UUID orgUUID = userManager.createOrganizerAccount("organizer");
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+
+        messageManager.sendMessage(userManager, orgUUID, a1UUID, "first");
+        messageManager.sendMessageToAllAttendees(userManager, orgUUID, "second");
+        messageManager.sendMessage(userManager, orgUUID, a1UUID, "third");
+        messageManager.sendMessageToAllAttendees(userManager, orgUUID, "fourth");
+
+        assertEquals(Arrays.asList("first", "second", "third", "fourth"),
+                messageManager.getMessageContentsFromUser(userManager, a1UUID, orgUUID));
+    }
+
+    /*
+     * sendMessageToEventAttendees()
+     * joinEventChannel()
+     * leaveEventChannel()
+     * readEventChannel()
+     */
+    @Test
+    public void testEventChannelReachesLateJoiners() {
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+        UUID a2UUID = userManager.createAttendeeAccount("attendee2");
+        UUID speakerUUID = userManager.createSpeakerAccount("speaker");
+        roomManager.newRoom(30);
+        UUID eventID = roomManager.newEvent("1", "speaker",
+                new GregorianCalendar(2000, Calendar.MAY, 1, 11, 0, 0),
+                new GregorianCalendar(2000, Calendar.MAY, 1, 12, 0, 0),
+                0, userManager, 20);
+        roomManager.addEventAttendee(a1UUID, eventID, userManager, false);
+
+        messageManager.sendMessageToEventAttendees(userManager, roomManager, speakerUUID, eventID, "welcome");
+        assertTrue(messageManager.getMessageContentsFromUser(userManager, a2UUID, speakerUUID).isEmpty());
+        assertEquals(0, messageManager.getNumUnreadEventPosts(eventID, a2UUID));
+
+        roomManager.addEventAttendee(a2UUID, eventID, userManager, false);
+        messageManager.joinEventChannel(roomManager, eventID, a2UUID);
+        messageManager.sendMessageToEventAttendees(userManager, roomManager, speakerUUID, eventID, "see you soon");
+
+        assertEquals(Arrays.asList("welcome", "see you soon"),
+                messageManager.getMessageContentsFromUser(userManager, a1UUID, speakerUUID));
+        assertEquals(Arrays.asList("welcome", "see you soon"),
+                messageManager.getMessageContentsFromUser(userManager, a2UUID, speakerUUID));
+        assertEquals(2, messageManager.getNumUnreadEventPosts(eventID, a2UUID));
+        assertEquals(2, messageManager.readEventChannel(eventID, a2UUID).size());
+        assertEquals(0, messageManager.getNumUnreadEventPosts(eventID, a2UUID));
+        assertEquals(2, messageManager.getNumUnreadEventPosts(eventID, a1UUID));
+
+        roomManager.removeEventAttendee(a1UUID, eventID, userManager);
+        messageManager.leaveEventChannel(eventID, a1UUID);
+        assertTrue(messageManager.getMessageContentsFromUser(userManager, a1UUID, speakerUUID).isEmpty());
+        assertTrue(messageManager.readEventChannel(eventID, a1UUID).isEmpty());
+    }
+
+    /*
+     * getInbox()
+     * getNumUnread()
+     * markMessagesRead()
+     * markAllMessagesRead()
+     */
+    @Test
+    public void testInboxAndUnreadCounts() {
+        UUID orgUUID = userManager.createOrganizerAccount("organizer");
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+        UUID a2UUID = userManager.createAttendeeAccount("attendee2");
+
+        messageManager.sendMessage(userManager, a2UUID, a1UUID, "hi");
+        messageManager.sendMessageToAllAttendees(userManager, orgUUID, "welcome");
+        messageManager.sendMessage(userManager, a2UUID, a1UUID, "are you there?");
+
+        List<MessageManager.ReceivedMessage> inbox = messageManager.getInbox(userManager, a1UUID);
+        assertEquals(3, inbox.size());
+        assertEquals("hi", inbox.get(0).content);
+        assertEquals(orgUUID, inbox.get(1).senderID);
+        assertEquals("welcome", inbox.get(1).content);
+        assertEquals("are you there?", inbox.get(2).content);
+        assertEquals(3, messageManager.getNumUnread(userManager, a1UUID));
+        assertEquals(2, messageManager.getNumUnreadFromUser(userManager, a1UUID, a2UUID));
+        assertEquals(1, messageManager.getNumUnreadFromUser(userManager, a1UUID, orgUUID));
+
+        messageManager.markMessagesRead(userManager, a1UUID, a2UUID);
+        assertEquals(1, messageManager.getNumUnread(userManager, a1UUID));
+        assertEquals(0, messageManager.getNumUnreadFromUser(userManager, a1UUID, a2UUID));
+
+        messageManager.sendMessageToAllAttendees(userManager, orgUUID, "reminder");
+        assertEquals(2, messageManager.getNumUnreadFromUser(userManager, a1UUID, orgUUID));
+        messageManager.markAllMessagesRead(userManager, a1UUID);
+        assertEquals(0, messageManager.getNumUnread(userManager, a1UUID));
+        assertEquals(2, messageManager.getNumUnread(userManager, a2UUID));
+    }
+
+    /*
+     * getMessagesFromUserSince()
+     * getLastMessagesFromUser()
+     */
+    @Test
+    public void testConversationRangeQueries() throws InterruptedException {
+        UUID orgUUID = userManager.createOrganizerAccount("organizer");
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+
+        messageManager.sendMessage(userManager, orgUUID, a1UUID, "one");
+        messageManager.sendMessageToAllAttendees(userManager, orgUUID, "two");
+        Thread.sleep(5);
+        long since = System.currentTimeMillis();
+        messageManager.sendMessage(userManager, orgUUID, a1UUID, "three");
+        messageManager.sendMessageToAllAttendees(userManager, orgUUID, "four");
+
+        List<MessageManager.ReceivedMessage> recent =
+                messageManager.getMessagesFromUserSince(userManager, a1UUID, orgUUID, since);
+        assertEquals(2, recent.size());
+        assertEquals("three", recent.get(0).content);
+        assertEquals("four", recent.get(1).content);
+        assertTrue(recent.get(0).timeReceived >= since);
+        assertTrue(recent.get(0).sequenceNumber < recent.get(1).sequenceNumber);
+
+        List<MessageManager.ReceivedMessage> last =
+                messageManager.getLastMessagesFromUser(userManager, a1UUID, orgUUID, 3);
+        assertEquals(3, last.size());
+        assertEquals("two", last.get(0).content);
+        assertEquals("four", last.get(2).content);
+        assertEquals(4, messageManager.getLastMessagesFromUser(userManager, a1UUID, orgUUID, 10).size());
+        assertTrue(messageManager.getMessagesFromUserSince(userManager, a1UUID, orgUUID,
+                System.currentTimeMillis() + 1000).isEmpty());
+    }
+
+    /*
+     * getNumMessageBodies()
+     */
+    @Test
+    public void testRepeatedMessagesShareBodies() {
+        UUID s1UUID = userManager.createSpeakerAccount("speaker1");
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+        UUID a2UUID = userManager.createAttendeeAccount("attendee2");
+
+        messageManager.sendMessage(userManager, s1UUID, a1UUID, "Room changed to " + 204);
+        messageManager.sendMessage(userManager, s1UUID, a2UUID, "Room changed to " + 204);
+        messageManager.sendMessage(userManager, s1UUID, a2UUID, "See you there");
+
+        assertEquals(3, messageManager.getNumMessages());
+        assertEquals(2, messageManager.getNumMessageBodies());
+        assertSame(messageManager.getMessageContentsFromUser(userManager, a1UUID, s1UUID).get(0),
+                messageManager.getMessageContentsFromUser(userManager, a2UUID, s1UUID).get(0));
+    }
+
+    /*
+     * getMessagePage()
+     */
+    @Test
+    public void testMessagePages() {
+        UUID orgUUID = userManager.createOrganizerAccount("organizer");
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+        UUID s1UUID = userManager.createSpeakerAccount("speaker1");
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            String content = "message " + i;
+            if (i % 3 == 0) {
+                messageManager.sendMessageToAllAttendees(userManager, orgUUID, content);
+            } else {
+                messageManager.sendMessage(userManager, orgUUID, a1UUID, content);
+            }
+            // only reaches speakers, so it is not part of the attendee's conversation
+            messageManager.sendMessageToAllSpeakers(userManager, orgUUID, "speakers " + i);
+            expected.add(content);
+        }
+
+        List<String> oldestFirst = new ArrayList<>();
+        MessageManager.MessageCursor cursor = null;
+        do {
+            MessageManager.MessagePage page = messageManager.getMessagePage(userManager, a1UUID, orgUUID, cursor,
+                    3, false);
+            assertTrue(page.messages.size() <= 3);
+            page.messages.forEach(msg -> oldestFirst.add(msg.content));
+            cursor = page.getCursor();
+        } while (cursor != null);
+        assertEquals(expected, oldestFirst);
+
+        MessageManager.MessagePage newest = messageManager.getMessagePage(userManager, a1UUID, orgUUID, null, 4, true);
+        assertEquals(Arrays.asList("message 6", "message 5", "message 4", "message 3"),
+                Arrays.asList(newest.messages.stream().map(msg -> msg.content).toArray()));
+        MessageManager.MessagePage older = messageManager.getMessagePage(userManager, a1UUID, orgUUID,
+                newest.getCursor(), 4, false);
+        assertEquals(3, older.messages.size());
+        assertEquals("message 0", older.messages.get(2).content);
+        assertNull(older.getCursor());
+
+        assertEquals(7, messageManager.getMessagePage(userManager, s1UUID, orgUUID, null, 10, true).messages.size());
+        assertTrue(messageManager.getMessagePage(userManager, orgUUID, a1UUID, null, 10, true).messages.isEmpty());
+    }
+
+    /*
+     * compactMessages()
+     */
+    @Test
+    public void testExpiredMessagesAreCompacted() {
+        UUID orgUUID = userManager.createOrganizerAccount("organizer");
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+        UUID a2UUID = userManager.createAttendeeAccount("attendee2");
+        messageManager.setRetentionPolicy(new RetentionPolicy()
+                .setRule("attendee", RetentionPolicy.ConversationType.DIRECT, Long.MAX_VALUE, 2)
+                .setRule(RetentionPolicy.ConversationType.BROADCAST, Long.MAX_VALUE, 1));
+
+        for (int i = 0; i < 4; i++) {
+            messageManager.sendMessage(userManager, orgUUID, a1UUID, "direct " + i);
+            messageManager.sendMessage(userManager, a1UUID, orgUUID, "reply " + i);
+        }
+        messageManager.sendMessageToAllAttendees(userManager, orgUUID, "old news");
+        messageManager.markMessagesRead(userManager, a2UUID, orgUUID);
+        messageManager.sendMessageToAllAttendees(userManager, orgUUID, "news");
+        assertEquals(10, messageManager.getNumMessages());
+
+        assertEquals(3, messageManager.compactMessages(userManager, System.currentTimeMillis()));
+        assertEquals(7, messageManager.getNumMessages());
+        assertEquals(Arrays.asList("direct 2", "direct 3", "news"),
+                messageManager.getMessageContentsFromUser(userManager, a1UUID, orgUUID));
+        assertEquals(4, messageManager.getMessageContentsFromUser(userManager, orgUUID, a1UUID).size());
+        assertEquals(1, messageManager.getNumUnreadFromUser(userManager, a2UUID, orgUUID));
+        assertEquals(3, messageManager.getNumUnread(userManager, a1UUID));
+        assertTrue(messageManager.searchMessages(userManager, a1UUID, "direct 0", 10).stream()
+                .noneMatch(msg -> msg.content.equals("direct 0")));
+        assertEquals(0, messageManager.compactMessages(userManager, System.currentTimeMillis()));
+
+        messageManager.setRetentionPolicy(new RetentionPolicy()
+                .setRule(RetentionPolicy.ConversationType.DIRECT, 0, Integer.MAX_VALUE));
+        assertEquals(6, messageManager.compactMessages(userManager, System.currentTimeMillis() + 1));
+        assertTrue(userManager.getMessagesFromUser(a1UUID, orgUUID).isEmpty());
+    }
+
+    /*
+     * MessageCompactor.compactNow()
+     */
+    @Test
+    public void testCompactorPrunesUsersOnTheirThread() throws InterruptedException {
+        UUID orgUUID = userManager.createOrganizerAccount("organizer");
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+        messageManager.setRetentionPolicy(new RetentionPolicy()
+                .setRule(RetentionPolicy.ConversationType.DIRECT, Long.MAX_VALUE, 1));
+        for (int i = 0; i < 3; i++) {
+            messageManager.sendMessage(userManager, orgUUID, a1UUID, "direct " + i);
+        }
+
+        ExecutorService userThread = Executors.newSingleThreadExecutor();
+        Set<Thread> pruningThreads = Collections.synchronizedSet(new HashSet<>());
+        Executor pruneExecutor = task -> userThread.execute(() -> {
+            pruningThreads.add(Thread.currentThread());
+            task.run();
+        });
+        MessageCompactor compactor = new MessageCompactor(messageManager, userManager, pruneExecutor, 60 * 60 * 1000);
+        assertEquals(2, compactor.compactNow());
+        assertEquals(1, messageManager.getNumMessages());
+        assertEquals(1, pruningThreads.size());
+        assertFalse(pruningThreads.contains(Thread.currentThread()));
+        compactor.shutdown();
+        userThread.shutdown();
+
+        // a pruning that never gets to run is not waited for once the compactor is shut down
+        messageManager.sendMessage(userManager, orgUUID, a1UUID, "direct 3");
+        MessageCompactor stalled = new MessageCompactor(messageManager, userManager, task -> { }, 60 * 60 * 1000);
+        Thread shutdown = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+                stalled.shutdown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        shutdown.start();
+        assertEquals(0, stalled.compactNow());
+        shutdown.join();
+        assertEquals(2, messageManager.getNumMessages());
+    }
+
+    /*
+     * getRetryAfterMillis()
+     * getSendRateStats()
+     */
+    @Test
+    public void testSendersAreThrottled() {
+        UUID orgUUID = userManager.createOrganizerAccount("organizer");
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+        messageManager.setSendRateLimiter(new SendRateLimiter().setRate("attendee", 0.001, 3));
+
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(messageManager.sendMessage(userManager, a1UUID, orgUUID, "please " + i));
+        }
+        assertNull(messageManager.sendMessage(userManager, a1UUID, orgUUID, "please 3"));
+        assertTrue(messageManager.getRetryAfterMillis(userManager, a1UUID) > 60_000);
+        assertEquals(3, messageManager.getMessageContentsFromUser(userManager, orgUUID, a1UUID).size());
+
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(messageManager.sendMessage(userManager, orgUUID, a1UUID, "no " + i));
+        }
+        assertEquals(0, messageManager.getRetryAfterMillis(userManager, orgUUID));
+        SendRateLimiter.Stats stats = messageManager.getSendRateStats();
+        assertEquals(13, stats.numAllowed);
+        assertEquals(1, stats.numRejected);
+        assertEquals(1, stats.numSenders);
+    }
+}
@@ -0,0 +1,67 @@
+import com.group0179.use_cases.MessageManager;
+import com.group0179.use_cases.MessageSearchIndex;
+import com.group0179.use_cases.UserManager;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class MessageSearchIndexTests {
+    private MessageManager messageManager;
+    private UserManager userManager;
+
+    @Before
+    public void setupBefore() {
+        messageManager = new MessageManager();
+        userManager = new UserManager();
+    }
+
+    @Test
+    public void testTokenize() {
+        assertEquals(Arrays.asList("room", "changed", "to", "204"), MessageSearchIndex.tokenize("Room changed to 204!"));
+        assertEquals(Arrays.asList("房间", "间更", "更改", "204"), MessageSearchIndex.tokenize("房间更改 204"));
+        assertEquals(Arrays.asList("hi", "你"), MessageSearchIndex.tokenize("hi, 你"));
+    }
+
+    @Test
+    public void testSearchIsRestrictedToOwnConversations() {
+        UUID orgUUID = userManager.createOrganizerAccount("organizer");
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+        UUID a2UUID = userManager.createAttendeeAccount("attendee2");
+        UUID s1UUID = userManager.createSpeakerAccount("speaker1");
+
+        messageManager.sendMessage(userManager, a1UUID, orgUUID, "is there a room change?");
+        messageManager.sendMessage(userManager, a2UUID, s1UUID, "room change for my talk?");
+        messageManager.sendMessageToAllAttendees(userManager, orgUUID, "房间更改为 204");
+
+        List<MessageManager.ReceivedMessage> orgResults = messageManager.searchMessages(userManager, orgUUID, "room change", 10);
+        assertEquals(1, orgResults.size());
+        assertEquals(a1UUID, orgResults.get(0).senderID);
+
+        assertEquals(1, messageManager.searchMessages(userManager, s1UUID, "room", 10).size());
+        assertTrue(messageManager.searchMessages(userManager, s1UUID, "房间", 10).isEmpty());
+        assertEquals("房间更改为 204", messageManager.searchMessages(userManager, a2UUID, "房间", 10).get(0).content);
+        assertEquals(1, messageManager.searchMessages(userManager, orgUUID, "更改", 10).size());
+    }
+
+    @Test
+    public void testResultsAreRanked() {
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+        UUID a2UUID = userManager.createAttendeeAccount("attendee2");
+
+        messageManager.sendMessage(userManager, a1UUID, a2UUID, "lunch is at noon");
+        messageManager.sendMessage(userManager, a1UUID, a2UUID, "the keynote moved to room 204");
+        messageManager.sendMessage(userManager, a1UUID, a2UUID, "see you at the keynote");
+        messageManager.sendMessage(userManager, a1UUID, a2UUID, "lunch is in room 101");
+
+        List<MessageManager.ReceivedMessage> results = messageManager.searchMessages(userManager, a2UUID, "keynote room", 10);
+        assertEquals(3, results.size());
+        assertEquals("the keynote moved to room 204", results.get(0).content);
+        assertEquals(2, messageManager.searchMessages(userManager, a2UUID, "keynote room", 2).size());
+        assertTrue(messageManager.searchMessages(userManager, a2UUID, "  ", 10).isEmpty());
+    }
+}
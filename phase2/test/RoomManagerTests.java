@@ -46,7 +46,7 @@ public class RoomManagerTests {
         assertFalse(rm.newEventValid("Speech 1", "John", startTime4, endTime4, roomNumber, um));
         assertFalse(rm.newEventValid("Speech 1", "John", startTime5, endTime5, roomNumber, um));
 
-        rm.newEvent("Speech 1", "John", startTime1, endTime1, roomNumber, um, 20);
+        UUID eventID = rm.newEvent("Speech 1", "John", startTime1, endTime1, roomNumber, um, 20);
         assertTrue(rm.newEventValid("Speech 2", "John", startTime2, endTime2, roomNumber, um));
         assertFalse(rm.newEventValid("Speech 1", "John", startTime1, endTime1, roomNumber, um));
         assertFalse(rm.newEventValid("Speech 2", "John", startTime3, endTime3, roomNumber, um));
@@ -57,7 +57,7 @@ public class RoomManagerTests {
         assertFalse(rm.newEventValid("Speech 1", "Jack", startTime1, endTime1, roomNumber, um));
 
         //Multiple speakers, multiple rooms
-        rm.removeEvent(um, roomNumber, 0);
+        rm.removeEvent(um, eventID);
         rm.newRoom(20);
         roomNumber = random.nextInt(rm.getNumRooms());
 
@@ -121,20 +121,21 @@ public class RoomManagerTests {
         Random random = new Random();
 
         um.createSpeakerAccount("John");
-        rm.newEvent("Speech 1", "John", startTime1, endTime1, 0, um, 20);
+        UUID eventID = rm.newEvent("Speech 1", "John", startTime1, endTime1, 0, um, 20);
 
-        assertTrue(rm.rescheduleEvent(um, 0, 0, startTime2, endTime2));
-        assertFalse(rm.rescheduleEvent(um, 0, 0, startTime2, endTime2));
+        assertTrue(rm.rescheduleEvent(um, eventID, startTime2, endTime2));
+        assertFalse(rm.rescheduleEvent(um, eventID, startTime2, endTime2));
     }
 
     @Test
     public void testRemoveEvent() {
         rm.newRoom(20);
         um.createSpeakerAccount("Josh");
-        rm.newEvent("Speech 1", "Josh", startTime1, endTime1, 0, um, 20);
+        UUID eventID = rm.newEvent("Speech 1", "Josh", startTime1, endTime1, 0, um, 20);
 
-        rm.removeEvent(um, 0, 0);
+        assertTrue(rm.removeEvent(um, eventID));
         assertEquals(rm.getNumEvents(), 0);
+        assertFalse(rm.removeEvent(um, eventID));
     }
 
 
@@ -166,7 +167,7 @@ public class RoomManagerTests {
         um.createAttendeeAccount("Chad");
         UUID attendeeID = um.getAttendeeUUIDs().get(0);
         rm.addEventAttendee(attendeeID, eventID1, um, false);
-        rm.removeEventAttendee(attendeeID, 0, 0, um);
+        rm.removeEventAttendee(attendeeID, eventID1, um);
 
         assertEquals(rm.getEventAttendeeIDs(eventID1).size(), 0);
     }
@@ -181,4 +182,162 @@ public class RoomManagerTests {
         assertTrue(rm.getVipStatus(eventID1));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetEventPage() {
+        rm.newRoom(20);
+        rm.newRoom(20);
+        um.createSpeakerAccount("John");
+        um.createSpeakerAccount("Jack");
+        UUID eventID1 = rm.newEvent("Speech 1", "John", startTime2, endTime2, 0, um, 20);
+        UUID eventID2 = rm.newEvent("Speech 2", "Jack", startTime1, endTime1, 1, um, 20);
+        UUID eventID3 = rm.newNonSpeakerEvent("Party", startTime1, endTime1, 0, um, 5);
+        rm.changeVipStatus(eventID3);
+
+        ArrayList<RoomManager.EventSummary> firstPage = rm.getEventPage(um, null, 2, RoomManager.ALL_ROOMS, true);
+        assertEquals(2, firstPage.size());
+        assertEquals(startTime1.getTime(), firstPage.get(0).startTime);
+        assertEquals(startTime1.getTime(), firstPage.get(1).startTime);
+
+        ArrayList<RoomManager.EventSummary> secondPage = rm.getEventPage(um, firstPage.get(1).getCursor(), 2,
+                RoomManager.ALL_ROOMS, true);
+        assertEquals(1, secondPage.size());
+        assertEquals(eventID1, secondPage.get(0).eventID);
+        assertEquals(0, secondPage.get(0).roomNumber);
+        assertTrue(rm.getEventPage(um, secondPage.get(0).getCursor(), 2, RoomManager.ALL_ROOMS, true).isEmpty());
+
+        ArrayList<RoomManager.EventSummary> roomPage = rm.getEventPage(um, null, 10, 0, false);
+        assertEquals(1, roomPage.size());
+        assertEquals(eventID1, roomPage.get(0).eventID);
+        assertEquals(20, roomPage.get(0).freeSeats);
+
+        rm.removeEvent(um, eventID2);
+        ArrayList<RoomManager.EventSummary> afterRemoval = rm.getEventPage(um, null, 10, RoomManager.ALL_ROOMS, true);
+        assertEquals(2, afterRemoval.size());
+        assertFalse(afterRemoval.get(0).eventID.equals(eventID2) || afterRemoval.get(1).eventID.equals(eventID2));
+    }
+
+    @Test
+    public void testEventSeries() {
+        rm.newRoom(20);
+        um.createSpeakerAccount("John");
+        ArrayList<String> speakers = new ArrayList<>(Collections.singletonList("John"));
+
+        rm.newEvent("Speech 1", "John", startTime2, endTime2, 0, um, 20);
+        Calendar clashStart = new GregorianCalendar(2020, Calendar.APRIL, 29, 13, 30, 0);
+        Calendar clashEnd = new GregorianCalendar(2020, Calendar.APRIL, 29, 14, 30, 0);
+        assertFalse(rm.newEventSeriesValid("Workshop", speakers, clashStart, clashEnd, 1, 5, 0, um));
+        assertTrue(rm.newEventSeriesValid("Workshop", speakers, startTime1, endTime1, 1, 5, 0, um));
+
+        UUID seriesID = rm.newEventSeries("Workshop", speakers, startTime1, endTime1, 1, 5, 0, 20);
+        Calendar secondDay = new GregorianCalendar(2020, Calendar.MAY, 2, 11, 30, 0);
+        Calendar secondDayEnd = new GregorianCalendar(2020, Calendar.MAY, 2, 12, 30, 0);
+        assertFalse(rm.newNonSpeakerEventValid("Party", secondDay, secondDayEnd, 0, um));
+        assertEquals(1, rm.getEventIDs().size());
+
+        assertTrue(rm.cancelSeriesOccurrence(seriesID, secondDay));
+        assertFalse(rm.cancelSeriesOccurrence(seriesID, secondDay));
+        assertTrue(rm.newNonSpeakerEventValid("Party", secondDay, secondDayEnd, 0, um));
+
+        ArrayList<RoomManager.EventSummary> page = rm.getEventPage(um, null, 2, RoomManager.ALL_ROOMS, true);
+        assertEquals(2, page.size());
+        assertEquals(startTime1.getTime(), page.get(0).startTime);
+        assertEquals(startTime2.getTime(), page.get(1).startTime);
+
+        // listing the occurrences does not expand them or change the room
+        rm.takeChangedPartitions();
+        assertEquals(5, rm.getEventsOfRoom(0, um).size());
+        ArrayList<UUID> listed = rm.getEventIDsOfRoom(0);
+        assertEquals(1, rm.getEventIDs().size());
+        assertEquals(1, um.getSpeakerEventIDs(um.getUserID("John")).size());
+        assertTrue(rm.takeChangedPartitions().isEmpty());
+
+        // a sign up expands the occurrence under the UUID it was listed with
+        UUID attendeeID = um.createAttendeeAccount("Jill");
+        assertEquals(page.get(0).eventID, listed.get(0));
+        assertTrue(rm.addEventAttendee(attendeeID, page.get(0).eventID, um, false));
+        assertEquals(2, rm.getEventIDs().size());
+        assertEquals(2, um.getSpeakerEventIDs(um.getUserID("John")).size());
+        assertEquals(Collections.singletonList(attendeeID), rm.getEventAttendeeIDs(page.get(0).eventID));
+        assertEquals(listed, rm.getEventIDsOfRoom(0));
+
+        // removing a pending occurrence cancels it
+        assertTrue(rm.removeEvent(um, listed.get(2)));
+        assertEquals(4, rm.getEventsOfRoom(0, um).size());
+        assertEquals(2, rm.getEventIDs().size());
+    }
+
+    @Test
+    public void testRejectedChangesLeaveOccurrencesPending() {
+        rm.newRoom(20);
+        um.createSpeakerAccount("John");
+        UUID attendeeID = um.createAttendeeAccount("Jill");
+        ArrayList<String> speakers = new ArrayList<>(Collections.singletonList("John"));
+        rm.newEventSeries("Workshop", speakers, startTime1, endTime1, 1, 3, 0, 0);
+        ArrayList<UUID> listed = rm.getEventIDsOfRoom(0);
+        rm.takeChangedPartitions();
+
+        // a reschedule outside the room's hours and a sign up to a full occurrence expand nothing
+        assertFalse(rm.rescheduleEvent(um, listed.get(0), startTime5, endTime5));
+        assertFalse(rm.addEventAttendee(attendeeID, listed.get(1), um, false));
+        assertEquals(0, rm.getEventIDs().size());
+        assertEquals(0, um.getSpeakerEventIDs("John").size());
+        assertTrue(rm.takeChangedPartitions().isEmpty());
+
+        assertTrue(rm.rescheduleEvent(um, listed.get(0), startTime2, endTime2));
+        assertEquals(Collections.singletonList(listed.get(0)), rm.getEventIDs());
+        assertEquals(Collections.singletonList(listed.get(0)), um.getSpeakerEventIDs("John"));
+    }
+
+    @Test
+    public void testRemoveEventAndRoomUnlinkSpeakers() {
+        rm.newRoom(20);
+        rm.newRoom(20);
+        um.createSpeakerAccount("John");
+        um.createSpeakerAccount("Jack");
+        UUID attendeeID = um.createAttendeeAccount("Jill");
+        ArrayList<String> panel = new ArrayList<>(Arrays.asList("John", "Jack"));
+        UUID panelID = rm.newMultiSpeakerEvent("Panel", panel, startTime1, endTime1, 0, um, 20);
+        UUID partyID = rm.newNonSpeakerEvent("Party", startTime2, endTime2, 0, um, 20);
+        rm.newEvent("Speech 1", "John", startTime2, endTime2, 1, um, 20);
+        assertTrue(rm.addEventAttendee(attendeeID, panelID, um, false));
+        assertEquals(2, um.getSpeakerEventIDs("John").size());
+        assertEquals(1, um.getSpeakerEventIDs("Jack").size());
+
+        assertTrue(rm.removeEvent(um, panelID));
+        assertEquals(1, um.getSpeakerEventIDs("John").size());
+        assertTrue(um.getSpeakerEventIDs("Jack").isEmpty());
+
+        rm.removeEvent(um, partyID);
+        assertEquals(0, rm.getNumEventsInRoom(0));
+
+        assertTrue(rm.removeRoom(um, 1));
+        assertFalse(rm.removeRoom(um, 1));
+        assertEquals(1, rm.getNumRooms());
+        assertTrue(um.getSpeakerEventIDs("John").isEmpty());
+        assertTrue(rm.getEventPage(um, null, 10, RoomManager.ALL_ROOMS, true).isEmpty());
+    }
+
+    @Test
+    public void testRoomNumbersAreStable() {
+        assertEquals(0, rm.newRoom(20));
+        assertEquals(1, rm.newRoom(20));
+        assertEquals(2, rm.newRoom(30));
+        um.createSpeakerAccount("John");
+        UUID eventID = rm.newEvent("Speech 1", "John", startTime1, endTime1, 2, um, 20);
+
+        assertTrue(rm.removeRoom(um, 1));
+        assertEquals(3, rm.newRoom(20));
+        assertEquals(Arrays.asList(0, 2, 3), rm.getRoomNumbers());
+        assertEquals(30, (int) rm.getRoomCapacity(2).get(0));
+        assertEquals(eventID, rm.getEventUUIDfromNameandRoom("Speech 1", 2, um));
+        assertEquals(Collections.singletonList(eventID), rm.getEventIDsOfRoom(2));
+        assertNull(rm.getEventUUIDfromNameandRoom("Speech 1", 1, um));
+        assertTrue(rm.getEventIDsOfRoom(1).isEmpty());
+
+        ArrayList<RoomManager.EventSummary> page = rm.getEventPage(um, null, 10, 2, true);
+        assertEquals(2, page.get(0).roomNumber);
+        assertTrue(rm.rescheduleEvent(um, eventID, startTime2, endTime2));
+        assertEquals(startTime2.getTime(), rm.getEventPage(um, null, 10, 2, true).get(0).startTime);
+    }
+}
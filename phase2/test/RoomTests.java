@@ -300,4 +300,34 @@ public class RoomTests {
         assertEquals(room.getEvent(eventNormal2.getEventID()), eventNormal2);
         assertEquals(room.getEvent(eventNormal3.getEventID()), eventNormal3);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDayBuckets() {
+        GregorianCalendar timeStartNextDay = new GregorianCalendar(2020, Calendar.MAY, 15, 12, 30, 0);
+        GregorianCalendar timeEndNextDay = new GregorianCalendar(2020, Calendar.MAY, 15, 13, 30, 0);
+        Event eventNextDay = new Event("Next Day", speakerB.getUsername(), timeStartNextDay, timeEndNextDay, 20);
+
+        assertTrue(room.addEvent(eventNormal3));
+        assertTrue(room.addEvent(eventNextDay));
+        assertTrue(room.addEvent(eventNormal1));
+        assertTrue(room.addEvent(eventNormal)); // Same time on another day does not clash
+        assertEquals(room.getNumScheduledDays(), 2);
+
+        assertEquals(room.getEventsOnDay(timeStartNormal).size(), 3);
+        assertEquals(room.getEventsOnDay(timeStartNormal).get(0), eventNormal1);
+        assertEquals(room.getEventsOnDay(timeStartNormal).get(2), eventNormal3);
+        assertEquals(room.getEvents().get(3), eventNextDay);
+        assertEquals(room.getEventsByTime(timeStartNormal, timeEndNextDay).size(), 3);
+
+        GregorianCalendar timeStartMoved = new GregorianCalendar(2020, Calendar.MAY, 15, 9, 0, 0);
+        GregorianCalendar timeEndMoved = new GregorianCalendar(2020, Calendar.MAY, 15, 10, 0, 0);
+        assertTrue(room.rescheduleEvent(eventNormal3, timeStartMoved, timeEndMoved));
+        assertEquals(room.getEventsOnDay(timeStartNormal).size(), 2);
+        assertEquals(room.getEventsOnDay(timeStartNextDay).get(0), eventNormal3);
+
+        assertTrue(room.removeEvent(eventNormal1));
+        assertTrue(room.removeEvent(eventNormal));
+        assertEquals(room.getNumScheduledDays(), 1);
+        assertEquals(room.getEventsOnDay(timeStartNormal).size(), 0);
+    }
+}
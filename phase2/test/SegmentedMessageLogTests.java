@@ -0,0 +1,201 @@
+import com.group0179.entities.Message;
+import com.group0179.gateways.MessageManagerGateway;
+import com.group0179.gateways.SegmentedMessageLog;
+import com.group0179.use_cases.MessageManager;
+import com.group0179.use_cases.UserManager;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class SegmentedMessageLogTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAddAndGet() throws IOException {
+        String directory = folder.getRoot().getPath();
+        SegmentedMessageLog log = new SegmentedMessageLog(directory);
+        Message hello = new Message("hello");
+        Message unicode = new Message("你好, world");
+        log.add(hello);
+        log.add(unicode);
+
+        assertEquals(2, log.size());
+        assertEquals("hello", log.get(hello.getMessageID()).getMessageContent());
+        assertEquals(hello.getMessageID(), log.get(hello.getMessageID()).getMessageID());
+        assertEquals("你好, world", log.get(unicode.getMessageID()).getMessageContent());
+        assertNull(log.get(UUID.randomUUID()));
+        log.close();
+
+        SegmentedMessageLog reopened = new SegmentedMessageLog(directory);
+        assertEquals(2, reopened.size());
+        assertEquals("你好, world", reopened.get(unicode.getMessageID()).getMessageContent());
+        reopened.close();
+    }
+
+    @Test
+    public void testSegmentRollover() throws IOException {
+        String directory = folder.getRoot().getPath();
+        SegmentedMessageLog log = new SegmentedMessageLog(directory, 100);
+        List<Message> sent = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Message message = new Message("message number " + i);
+            log.add(message);
+            sent.add(message);
+            assertEquals("message number " + i, log.get(message.getMessageID()).getMessageContent());
+        }
+        assertTrue(log.getNumSegments() > 1);
+        log.close();
+
+        SegmentedMessageLog reopened = new SegmentedMessageLog(directory, 100);
+        assertEquals(20, reopened.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals("message number " + i, reopened.get(sent.get(i).getMessageID()).getMessageContent());
+        }
+        reopened.close();
+    }
+
+    @Test
+    public void testTornRecordIsDropped() throws IOException {
+        String directory = folder.getRoot().getPath();
+        SegmentedMessageLog log = new SegmentedMessageLog(directory);
+        Message kept = new Message("kept");
+        log.add(kept);
+        log.close();
+
+        try (RandomAccessFile segment = new RandomAccessFile(new File(directory, "segment-00000.log"), "rw")) {
+            segment.seek(segment.length());
+            segment.writeInt(1000);
+            segment.writeByte(1);
+        }
+
+        SegmentedMessageLog reopened = new SegmentedMessageLog(directory);
+        assertEquals(1, reopened.size());
+        Message after = new Message("after");
+        reopened.add(after);
+        reopened.close();
+
+        SegmentedMessageLog again = new SegmentedMessageLog(directory);
+        assertEquals(2, again.size());
+        assertEquals("kept", again.get(kept.getMessageID()).getMessageContent());
+        assertEquals("after", again.get(after.getMessageID()).getMessageContent());
+        again.close();
+    }
+
+    @Test
+    public void testMessageManagerGatewayKeepsOnlyLogLocation() throws IOException {
+        String filepath = new File(folder.getRoot(), "messagemanager.ser").getPath();
+        MessageManagerGateway gateway = new MessageManagerGateway();
+        UserManager userManager = new UserManager();
+        UUID a1UUID = userManager.createAttendeeAccount("attendee1");
+        UUID a2UUID = userManager.createAttendeeAccount("attendee2");
+
+        MessageManager messageManager = gateway.read(filepath);
+        messageManager.sendMessage(userManager, a1UUID, a2UUID, "hello");
+        gateway.write(messageManager, filepath);
+        assertTrue(new File(folder.getRoot(), "messagemanager-log").isDirectory());
+
+        MessageManager restored = gateway.read(filepath);
+        assertEquals("hello", restored.getMessageContentsFromUser(userManager, a2UUID, a1UUID).get(0));
+    }
+
+    @Test
+    public void testRepeatedBodiesAreWrittenOnce() throws IOException {
+        String directory = folder.getRoot().getPath();
+        SegmentedMessageLog log = new SegmentedMessageLog(directory);
+        String announcement = "Room changed to 204, please bring your badge to the registration desk";
+        List<Message> sent = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Message message = new Message(i, i, i % 10 == 0 ? "unique " + i : announcement);
+            log.add(message);
+            sent.add(message);
+        }
+        assertEquals(50, log.size());
+        assertEquals(6, log.getNumBodies());
+        log.close();
+        long fileSize = new File(directory, "segment-00000.log").length();
+        assertTrue(fileSize < 50 * announcement.length());
+
+        SegmentedMessageLog reopened = new SegmentedMessageLog(directory);
+        assertEquals(6, reopened.getNumBodies());
+        Message repeated = reopened.get(sent.get(7).getMessageID());
+        assertEquals(announcement, repeated.getMessageContent());
+        assertEquals(7, repeated.getSequenceNumber());
+        assertEquals("unique 20", reopened.get(sent.get(20).getMessageID()).getMessageContent());
+        reopened.add(new Message(50, 50, announcement));
+        assertEquals(6, reopened.getNumBodies());
+        reopened.close();
+    }
+
+    @Test
+    public void testLongBodiesAreCompressed() throws IOException {
+        String directory = folder.getRoot().getPath();
+        SegmentedMessageLog log = new SegmentedMessageLog(directory, SegmentedMessageLog.DEFAULT_SEGMENT_SIZE, 64);
+        StringBuilder schedule = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            schedule.append("Session ").append(i).append(" will be held in the main conference hall. ");
+        }
+        List<Message> sent = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Message message = new Message(i, i, "Update " + i + ": " + schedule);
+            log.add(message);
+            sent.add(message);
+        }
+        assertTrue(log.trainCompressionDictionary());
+        Message afterTraining = new Message(4, 4, "Update 4: " + schedule);
+        log.add(afterTraining);
+        assertEquals(5, log.getCompressionStats().numCompressed);
+        assertTrue(log.getCompressionStats().getRatio() < 0.5);
+        log.close();
+        assertTrue(new File(directory, "segment-00000.log").length() < schedule.length());
+
+        SegmentedMessageLog reopened = new SegmentedMessageLog(directory, SegmentedMessageLog.DEFAULT_SEGMENT_SIZE,
+                64);
+        assertEquals(sent.get(2).getMessageContent(), reopened.get(sent.get(2).getMessageID()).getMessageContent());
+        assertEquals(afterTraining.getMessageContent(),
+                reopened.get(afterTraining.getMessageID()).getMessageContent());
+        assertEquals(2, reopened.getCompressionStats().numDecompressed);
+        reopened.close();
+    }
+
+    @Test
+    public void testRemoveAllRewritesLog() throws IOException {
+        String directory = folder.getRoot().getPath() + "/log";
+        SegmentedMessageLog log = new SegmentedMessageLog(directory, 256);
+        List<Message> sent = new ArrayList<>();
+        Set<UUID> expired = new HashSet<>();
+        for (int i = 0; i < 30; i++) {
+            Message message = new Message(i, i, i % 3 == 0 ? "repeated" : "message " + i);
+            log.add(message);
+            sent.add(message);
+            if (i < 20) expired.add(message.getMessageID());
+        }
+        int numSegments = log.getNumSegments();
+        log.removeAll(expired);
+
+        assertEquals(10, log.size());
+        assertTrue(log.getNumSegments() < numSegments);
+        assertNull(log.get(sent.get(0).getMessageID()));
+        assertEquals("repeated", log.get(sent.get(21).getMessageID()).getMessageContent());
+        assertEquals("message 29", log.get(sent.get(29).getMessageID()).getMessageContent());
+        log.add(new Message(30, 30, "after"));
+        log.close();
+
+        SegmentedMessageLog reopened = new SegmentedMessageLog(directory, 256);
+        assertEquals(11, reopened.size());
+        assertEquals(29, reopened.get(sent.get(29).getMessageID()).getSequenceNumber());
+        reopened.close();
+        assertFalse(new File(directory + ".compacting").exists());
+    }
+}
@@ -0,0 +1,336 @@
+import com.group0179.gateways.CheckpointScheduler;
+import com.group0179.gateways.ChunkedSnapshot;
+import com.group0179.gateways.JournaledStorage;
+import com.group0179.gateways.RoomManagerGateway;
+import com.group0179.gateways.UserManagerGateway;
+import com.group0179.use_cases.MessageManager;
+import com.group0179.use_cases.RoomManager;
+import com.group0179.use_cases.UserManager;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class SnapshotTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Calendar time(int day, int hour) {
+        Calendar time = Calendar.getInstance();
+        time.clear();
+        time.set(2020, Calendar.DECEMBER, day, hour, 0);
+        return time;
+    }
+
+    private int countChunks() {
+        return new File(folder.getRoot(), "snapshot").list((dir, name) -> name.endsWith(".chunk")).length;
+    }
+
+    @Test
+    public void testPartitionsAreReadBack() throws IOException {
+        UserManager um = new UserManager();
+        UUID alice = um.createAttendeeAccount("alice", true);
+        UUID bob = um.createSpeakerAccount("bob");
+        um.createOrganizerAccount("carol");
+        um.createAttendeeAccount("dave");
+        um.addMessage(alice, bob, UUID.randomUUID(), 1000);
+        UUID requestID = um.addUserRequest("dietary", "high", "no nuts");
+        um.setCurrentUser("bob");
+        RoomManager rm = new RoomManager();
+        rm.newRoom(10);
+        int room = rm.newRoom(20);
+        UUID eventID = rm.newEvent("Talk", "bob", time(1, 9), time(1, 10), room, um, 5);
+        rm.addEventAttendee(alice, eventID, um, false);
+        rm.newEventSeries("Standup", new ArrayList<>(Arrays.asList("bob")), time(2, 9), time(2, 10), 1, 3, room, 10);
+
+        ChunkedSnapshot snapshot = new ChunkedSnapshot(new File(folder.getRoot(), "snapshot").getPath());
+        snapshot.save(snapshot.capture(um, rm), 7);
+        ChunkedSnapshot reopened = new ChunkedSnapshot(new File(folder.getRoot(), "snapshot").getPath());
+        assertTrue(reopened.load());
+        assertEquals(7, reopened.getCheckpoint());
+        UserManager um2 = UserManager.readPartitions(reopened);
+        RoomManager rm2 = RoomManager.readPartitions(reopened);
+
+        assertEquals(um.getUsernames(), um2.getUsernames());
+        assertEquals(1, um2.getMessagesFromUser(alice, bob).size());
+        assertEquals("no nuts", um2.getRequestContentWithUUID(requestID));
+        assertEquals(bob, um2.getCurrentUser());
+        assertEquals(rm.getRoomNumbers(), rm2.getRoomNumbers());
+        assertEquals(Arrays.asList(alice), rm2.getEventAttendeeIDs(eventID));
+        assertEquals(rm.getEventsOfRoom(room, um), rm2.getEventsOfRoom(room, um2));
+        assertEquals(room + 1, rm2.newRoom(10));
+    }
+
+    @Test
+    public void testOnlyChangedPartitionsAreWritten() throws IOException {
+        JournaledStorage storage = new JournaledStorage(folder.getRoot().getPath());
+        storage.load();
+        UserManager um = storage.getUserManager();
+        RoomManager rm = storage.getRoomManager();
+        MessageManager mm = storage.getMessageManager();
+        um.createSpeakerAccount("bob");
+        List<UUID> attendees = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            attendees.add(um.createAttendeeAccount("attendee" + i));
+        }
+        int room = rm.newRoom(100);
+        int otherRoom = rm.newRoom(100);
+        UUID eventID = rm.newEvent("Talk", "bob", time(1, 9), time(1, 10), room, um, 100);
+        int numPartitions = storage.snapshot();
+        assertEquals(countChunks(), numPartitions);
+
+        // nothing changed, so nothing is written
+        assertEquals(0, storage.snapshot());
+
+        // the room and the attendee's users
+        rm.addEventAttendee(attendees.get(3), eventID, um, false);
+        assertEquals(2, storage.snapshot());
+
+        // the recipient's users and the messages
+        mm.sendMessage(um, attendees.get(0), attendees.get(1), "hello");
+        assertEquals(2, storage.snapshot());
+
+        // the order of the rooms; the removed room's chunk is deleted
+        rm.removeRoom(um, otherRoom);
+        assertEquals(1, storage.snapshot());
+        assertEquals(numPartitions - 1, countChunks());
+        storage.close();
+
+        JournaledStorage reloaded = new JournaledStorage(folder.getRoot().getPath());
+        reloaded.load();
+        assertEquals(0, reloaded.getNumReplayed());
+        assertEquals(um.getUsernames(), reloaded.getUserManager().getUsernames());
+        assertEquals(Arrays.asList(attendees.get(3)), reloaded.getRoomManager().getEventAttendeeIDs(eventID));
+        assertEquals(Arrays.asList(room), reloaded.getRoomManager().getRoomNumbers());
+        assertEquals(Arrays.asList("hello"), reloaded.getMessageManager().getMessageContentsFromUser(
+                reloaded.getUserManager(), attendees.get(1), attendees.get(0)));
+        assertEquals(0, reloaded.snapshot());
+        reloaded.close();
+    }
+
+    @Test
+    public void testFullSnapshotOfAnEarlierVersionIsRead() throws IOException {
+        UserManager um = new UserManager();
+        UUID alice = um.createAttendeeAccount("alice");
+        RoomManager rm = new RoomManager();
+        int room = rm.newRoom(10);
+        new UserManagerGateway().write(um, new File(folder.getRoot(), JournaledStorage.USER_MANAGER_FILE).getPath());
+        new RoomManagerGateway().write(rm, new File(folder.getRoot(), JournaledStorage.ROOM_MANAGER_FILE).getPath());
+
+        JournaledStorage storage = new JournaledStorage(folder.getRoot().getPath());
+        storage.load();
+        assertTrue(storage.getUserManager().userExists(alice));
+        // every partition is written the first time, since none has a chunk yet
+        int numPartitions = storage.getUserManager().getPartitions().size()
+                + storage.getRoomManager().getPartitions().size() + 1;
+        assertEquals(numPartitions, storage.snapshot());
+        assertEquals(numPartitions, countChunks());
+        UUID bob = storage.getUserManager().createAttendeeAccount("bob");
+        storage.close();
+
+        JournaledStorage reloaded = new JournaledStorage(folder.getRoot().getPath());
+        reloaded.load();
+        assertEquals(1, reloaded.getNumReplayed());
+        assertTrue(reloaded.getUserManager().userExists(alice));
+        assertTrue(reloaded.getUserManager().userExists(bob));
+        assertEquals(Arrays.asList(room), reloaded.getRoomManager().getRoomNumbers());
+        reloaded.close();
+    }
+
+    @Test
+    public void testIncrementalSnapshotWritesOnlyChangedPartitions() throws IOException {
+        UserManager um = new UserManager();
+        RoomManager rm = new RoomManager();
+        um.createSpeakerAccount("speaker");
+        List<UUID> attendees = new ArrayList<>();
+        List<UUID> events = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int room = rm.newRoom(500);
+            events.add(rm.newEvent("Talk " + i, "speaker", time(1 + i, 9), time(1 + i, 10), room, um, 500));
+        }
+        for (int i = 0; i < 2000; i++) {
+            UUID attendee = um.createAttendeeAccount("attendee" + i);
+            rm.addEventAttendee(attendee, events.get(i % 20), um, false);
+            attendees.add(attendee);
+        }
+        for (int i = 0; i < 20000; i++) {
+            um.addMessage(attendees.get(i % 2000), attendees.get((i * 7 + 1) % 2000), UUID.randomUUID(), i);
+        }
+        File chunks = new File(folder.getRoot(), "chunks");
+        ChunkedSnapshot snapshot = new ChunkedSnapshot(chunks.getPath());
+
+        ChunkedSnapshot.Changes full = snapshot.capture(um, rm);
+        snapshot.save(full, 0);
+        assertEquals(chunks.list((dir, name) -> name.endsWith(".chunk")).length, full.getNumChunks());
+
+        rm.addEventAttendee(attendees.get(1), events.get(0), um, false);
+        ChunkedSnapshot.Changes incremental = snapshot.capture(um, rm);
+        snapshot.save(incremental, 0);
+        assertEquals(2, incremental.getNumChunks());
+        assertTrue(incremental.getNumBytes() * 10 < full.getNumBytes());
+    }
+
+    @Test
+    public void testCheckpointIsWrittenOffTheCapturingThread() throws Exception {
+        JournaledStorage storage = new JournaledStorage(folder.getRoot().getPath());
+        storage.load();
+        UserManager um = storage.getUserManager();
+        RoomManager rm = storage.getRoomManager();
+        um.createSpeakerAccount("speaker");
+        List<UUID> events = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int room = rm.newRoom(500);
+            events.add(rm.newEvent("Talk " + i, "speaker", time(1 + i, 9), time(1 + i, 10), room, um, 500));
+        }
+        for (int i = 0; i < 2000; i++) {
+            rm.addEventAttendee(um.createAttendeeAccount("attendee" + i), events.get(i % 20), um, false);
+        }
+        // stands in for the JavaFX Application Thread
+        ExecutorService ui = Executors.newSingleThreadExecutor();
+        CheckpointScheduler checkpoints = new CheckpointScheduler(storage, ui, 60 * 60 * 1000);
+
+        long start = System.nanoTime();
+        int numPartitions = checkpoints.checkpointNow();
+        long elapsed = System.nanoTime() - start;
+        assertEquals(countChunks(), numPartitions);
+        assertEquals(1, checkpoints.getNumCheckpoints());
+        assertEquals(0, storage.getJournal().readAfter(0).size());
+        assertTrue(checkpoints.getLastPauseNanos() < elapsed);
+
+        UUID alice = ui.submit(() -> um.createAttendeeAccount("alice")).get();
+        // the order of the users and the new user's partition
+        assertEquals(2, checkpoints.checkpointNow());
+        checkpoints.shutdown();
+        ui.shutdown();
+        storage.close();
+
+        JournaledStorage reloaded = new JournaledStorage(folder.getRoot().getPath());
+        reloaded.load();
+        assertEquals(0, reloaded.getNumReplayed());
+        assertTrue(reloaded.getUserManager().userExists(alice));
+        reloaded.close();
+    }
+
+    @Test
+    public void testCheckpointsAreTakenInTheBackground() throws Exception {
+        JournaledStorage storage = new JournaledStorage(folder.getRoot().getPath());
+        storage.load();
+        ExecutorService ui = Executors.newSingleThreadExecutor();
+        UUID alice = ui.submit(() -> storage.getUserManager().createAttendeeAccount("alice")).get();
+        CheckpointScheduler checkpoints = new CheckpointScheduler(storage, ui, 10);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (checkpoints.getNumCheckpoints() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        checkpoints.shutdown();
+        ui.shutdown();
+        assertNull(checkpoints.getLastFailure());
+        assertTrue(checkpoints.getNumCheckpoints() > 0);
+        storage.close();
+
+        JournaledStorage reloaded = new JournaledStorage(folder.getRoot().getPath());
+        reloaded.load();
+        assertEquals(0, reloaded.getNumReplayed());
+        assertTrue(reloaded.getUserManager().userExists(alice));
+        reloaded.close();
+    }
+
+    @Test
+    public void testShutdownDoesNotWaitForCaptureThatNeverRuns() throws Exception {
+        JournaledStorage storage = new JournaledStorage(folder.getRoot().getPath());
+        storage.load();
+        UUID alice = storage.getUserManager().createAttendeeAccount("alice");
+        // like Platform::runLater once the JavaFX Application Thread has exited
+        CheckpointScheduler checkpoints = new CheckpointScheduler(storage, runnable -> { }, 10);
+        Thread.sleep(50);
+        checkpoints.shutdown();
+        assertEquals(0, checkpoints.getNumCheckpoints());
+
+        // nothing was taken from the managers, so a snapshot afterwards still has every change
+        assertTrue(storage.snapshot() > 0);
+        storage.close();
+        JournaledStorage reloaded = new JournaledStorage(folder.getRoot().getPath());
+        reloaded.load();
+        assertTrue(reloaded.getUserManager().userExists(alice));
+        reloaded.close();
+    }
+
+    @Test
+    public void testRecordsAreReadOnFirstUse() throws IOException {
+        UserManager um = new UserManager();
+        UUID alice = um.createAttendeeAccount("alice");
+        UUID bob = um.createSpeakerAccount("bob");
+        List<UUID> attendees = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            attendees.add(um.createAttendeeAccount("attendee" + i));
+            um.addMessage(attendees.get(i), bob, UUID.randomUUID(), i);
+        }
+        um.addMessage(alice, bob, UUID.randomUUID(), 1000);
+        um.attendeeAddEvent(alice, UUID.randomUUID(), UUID.randomUUID());
+        um.setCurrentUser("bob");
+        ChunkedSnapshot snapshot = new ChunkedSnapshot(new File(folder.getRoot(), "snapshot").getPath());
+        snapshot.save(snapshot.capture(um), 0);
+
+        UserManager um2 = UserManager.readPartitions(snapshot);
+        // only the current user's record is read
+        assertEquals(101, um2.getNumUnreadRecords());
+        assertEquals(um.getUsernames(), um2.getUsernames());
+        assertEquals("attendee", um2.userType(alice));
+        assertEquals(alice, um2.getUserID("alice"));
+        assertEquals(101, um2.getNumUnreadRecords());
+        assertTrue(um2.setCurrentUser("alice"));
+        assertEquals(100, um2.getNumUnreadRecords());
+        assertEquals(1, um2.getMessagesFromUser(alice, bob).size());
+        assertEquals(um.getMessagesFromUser(attendees.get(7), bob), um2.getMessagesFromUser(attendees.get(7), bob));
+        assertEquals(99, um2.getNumUnreadRecords());
+
+        // a partition with users that were never read is saved with their records as they were
+        um2.addMessage(alice, attendees.get(0), UUID.randomUUID(), 2000);
+        ChunkedSnapshot.Changes changes = snapshot.capture(um2);
+        assertEquals(2, changes.getNumChunks());
+        snapshot.save(changes, 0);
+        UserManager um3 = UserManager.readPartitions(snapshot);
+        for (UUID attendee : attendees) {
+            assertEquals(um.getMessagesFromUser(attendee, bob), um3.getMessagesFromUser(attendee, bob));
+        }
+        assertEquals(2, um3.getInbox(alice).size());
+    }
+
+    @Test
+    public void testLoginReadsOnlyTheIndex() throws IOException {
+        UserManager um = new UserManager();
+        um.createSpeakerAccount("speaker");
+        List<UUID> attendees = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            attendees.add(um.createAttendeeAccount("attendee" + i));
+        }
+        for (int i = 0; i < 40000; i++) {
+            um.addMessage(attendees.get(i % 2000), attendees.get((i * 7 + 1) % 2000), UUID.randomUUID(), i);
+        }
+        ChunkedSnapshot snapshot = new ChunkedSnapshot(new File(folder.getRoot(), "snapshot").getPath());
+        snapshot.save(snapshot.capture(um), 0);
+
+        UserManager loggedIn = UserManager.readPartitions(snapshot);
+        loggedIn.setCurrentUser("attendee5");
+        int numMessages = loggedIn.getInbox(attendees.get(5)).size();
+
+        UserManager everyone = UserManager.readPartitions(snapshot);
+        everyone.getTimeElapsedStatisticsForAllAttendees();
+        everyone.getTimeElapsedStatisticsForAllSpeakers();
+
+        assertEquals(20, numMessages);
+        assertEquals(attendees.size(), loggedIn.getNumUnreadRecords());
+        assertEquals(0, everyone.getNumUnreadRecords());
+    }
+}
@@ -2,6 +2,7 @@ import com.group0179.entities.Attendee;
 import com.group0179.entities.Message;
 import com.group0179.entities.Organizer;
 import com.group0179.entities.Speaker;
+import com.group0179.entities.User;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -54,6 +55,49 @@ public class UserTests {
         //Tested a non-empty message_list in the next test along with addMessage instead of here.
     }
 
+    @Test
+    public void testGetMessagesDoesNotAddConversations() {
+        attendee.getMessages(organizer.getUserID());
+        assertTrue(attendee.getContacts().isEmpty());
+        assertEquals(0, attendee.compactConversations());
+        try {
+            attendee.getMessages(organizer.getUserID()).add(UUID.randomUUID());
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // lookups are read-only
+        }
+        attendee.addMessage(organizer.getUserID(), UUID.randomUUID());
+        assertEquals(1, attendee.getContacts().size());
+        assertEquals(0, attendee.compactConversations());
+    }
+
+    @Test
+    public void testRecentContacts() {
+        UUID first = UUID.randomUUID();
+        UUID last = UUID.randomUUID();
+        attendee.addMessage(organizer.getUserID(), first, 1);
+        attendee.addMessage(speaker.getUserID(), UUID.randomUUID(), 2);
+        attendee.addMessage(organizer.getUserID(), last, 3);
+        List<User.Contact> recent = attendee.getRecentContacts(10);
+        assertEquals(2, recent.size());
+        assertEquals(organizer.getUserID(), recent.get(0).contactID);
+        assertEquals(last, recent.get(0).lastMessage.messageID);
+        assertEquals(2, recent.get(0).numUnread);
+        assertEquals(speaker.getUserID(), recent.get(1).contactID);
+
+        attendee.markRead(organizer.getUserID());
+        attendee.addMessage(speaker.getUserID(), UUID.randomUUID(), 4);
+        recent = attendee.getRecentContacts(1);
+        assertEquals(1, recent.size());
+        assertEquals(speaker.getUserID(), recent.get(0).contactID);
+        assertEquals(0, attendee.getRecentContacts(2).get(1).numUnread);
+
+        attendee.removeOldestMessages(speaker.getUserID(), 2);
+        recent = attendee.getRecentContacts(10);
+        assertEquals(1, recent.size());
+        assertEquals(organizer.getUserID(), recent.get(0).contactID);
+    }
+
     @Test
     public void testAddMessage() {
         Message message1 = new Message("Hello!");